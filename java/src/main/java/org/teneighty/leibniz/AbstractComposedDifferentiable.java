@@ -1,133 +1,523 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz;
-
-import java.util.HashSet;
-import java.util.Set;
-
-
-/**
- * A differentiable that takes other differentiables as arguments.
- */
-public abstract class AbstractComposedDifferentiable
-	extends AbstractDifferentiable
-{
-	
-	/**
-	 * The arguments.
-	 */
-	private final Differentiable[] arguments;
-	
-	/**
-	 * Constructor.
-	 * 
-	 * @param arguments The arguments.
-	 */
-	protected AbstractComposedDifferentiable(final Differentiable... arguments)
-	{
-		this.arguments = arguments;
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#variables()
-	 */
-	@Override
-	public Set<Variable> variables()
-	{
-		Set<Variable> variables = new HashSet<Variable>();
-		for(Differentiable argument : arguments)
-		{
-			variables.addAll(argument.variables());
-		}
-		
-		return variables;
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#isConstant()
-	 */
-	@Override
-	public boolean isConstant()
-	{
-		for(Differentiable argument : arguments)
-		{
-			if(argument.isConstant() == false)
-			{
-				return false;
-			}
-		}
-		
-		return true;
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.AbstractDifferentiable#hashCode()
-	 */
-	@Override
-	public int hashCode()
-	{
-		int hashCode = getClass().hashCode();
-		for(Differentiable argument : arguments)
-		{
-			hashCode ^= argument.hashCode();
-		}
-		
-		return hashCode;
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.AbstractDifferentiable#equals(java.lang.Object)
-	 */
-	@Override
-	public boolean equals(final Object other)
-	{
-		if(other == null)
-		{
-			return false;
-		}
-		
-		if(other == this)
-		{
-			return true;
-		}
-				
-		if(other.getClass().equals(getClass()))
-		{
-			AbstractComposedDifferentiable that = (AbstractComposedDifferentiable)other;
-			
-			for(int index = 0; index < arguments.length; index++)
-			{
-				if(that.arguments[index].equals(arguments[index]) == false)
-				{
-					return false;
-				}				
-			}
-			
-			return true;
-		}
-		
-		return false;
-	}
-
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+
+/**
+ * A differentiable that takes other differentiables as arguments.
+ * <p>
+ * Each function works out its structural hash code, its variables, whether
+ * it is constant, its depth and its size once, from those of its arguments,
+ * when it is constructed; all of them are then available in constant time.
+ */
+public abstract class AbstractComposedDifferentiable
+	extends AbstractDifferentiable
+{
+	
+	/**
+	 * Whether each function class overrides both {@link #evaluate(double[])}
+	 * and {@link #partial(int, double[], double)}, by class.
+	 */
+	private static final Map<Class<?>, Boolean> TRANSPARENT = Collections.synchronizedMap(new WeakHashMap<Class<?>, Boolean>());
+	
+	/**
+	 * Check if the specified function class overrides both
+	 * {@link #evaluate(double[])} and {@link #partial(int, double[], double)}.
+	 * 
+	 * @param type The class.
+	 * @return <code>true</code> if it does; <code>false</code> otherwise.
+	 */
+	private static boolean isTransparent(final Class<?> type)
+	{
+		Boolean transparent = TRANSPARENT.get(type);
+		if(transparent == null)
+		{
+			transparent = Boolean.valueOf(overrides(type, "evaluate", double[].class)
+					&& overrides(type, "partial", int.class, double[].class, double.class));
+			TRANSPARENT.put(type, transparent);
+		}
+		
+		return transparent.booleanValue();
+	}
+	
+	/**
+	 * Check if the specified function class, or one of its superclasses below
+	 * this one, declares the specified method.
+	 * 
+	 * @param type The class.
+	 * @param name The name of the method.
+	 * @param parameterTypes The parameter types of the method.
+	 * @return <code>true</code> if it does; <code>false</code> otherwise.
+	 */
+	private static boolean overrides(final Class<?> type, final String name, final Class<?>... parameterTypes)
+	{
+		for(Class<?> current = type; current != AbstractComposedDifferentiable.class; current = current.getSuperclass())
+		{
+			try
+			{
+				current.getDeclaredMethod(name, parameterTypes);
+				return true;
+			}
+			catch(final NoSuchMethodException noSuchMethodException)
+			{
+				// keep looking.
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * The arguments.
+	 */
+	private final Differentiable[] arguments;
+	
+	/**
+	 * Whether this is the canonical instance of its structure.
+	 * <p>
+	 * Only ever set by the {@link Interner} under its lock, before the
+	 * differentiable is handed out; a thread that observes a stale
+	 * <code>false</code> merely falls back to structural comparison.
+	 */
+	private transient boolean canonical;
+	
+	/**
+	 * The structural hash code.
+	 */
+	private final int hash;
+	
+	/**
+	 * The variables.
+	 */
+	private final VariableSet variables;
+	
+	/**
+	 * Whether this function is constant.
+	 */
+	private final boolean constant;
+	
+	/**
+	 * The depth.
+	 */
+	private final int depth;
+	
+	/**
+	 * The size.
+	 */
+	private final int size;
+	
+	/**
+	 * Whether this function can be evaluated and differentiated from the
+	 * values of its arguments.
+	 */
+	private final boolean transparent;
+	
+	/**
+	 * Constructor, for functions without parameters.
+	 * 
+	 * @param arguments The arguments.
+	 */
+	protected AbstractComposedDifferentiable(final Differentiable... arguments)
+	{
+		this(new double[0], arguments);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param parameters The parameters, exactly as {@link #parameters()} will
+	 *            return them.
+	 * @param arguments The arguments.
+	 */
+	protected AbstractComposedDifferentiable(final double[] parameters, final Differentiable... arguments)
+	{
+		this.arguments = arguments;
+		
+		boolean commutative = isCommutative();
+		int hash = 0;
+		VariableSet variables = VariableSet.EMPTY;
+		boolean constant = true;
+		int depth = 0;
+		int size = 1;
+		for(Differentiable argument : arguments)
+		{
+			int argumentHash = argument.hashCode();
+			hash = commutative ? (hash + argumentHash) : ((31 * hash) + argumentHash);
+			if(argument instanceof AbstractComposedDifferentiable)
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)argument;
+				variables = VariableSet.union(variables, composed.variables);
+				constant &= composed.constant;
+				depth = Math.max(depth, composed.depth);
+				size += Math.min(composed.size, Integer.MAX_VALUE - size);
+			}
+			else
+			{
+				variables = VariableSet.union(variables, VariableSet.copyOf(argument.variables()));
+				constant &= argument.isConstant();
+				size += (size < Integer.MAX_VALUE) ? 1 : 0;
+			}
+		}
+		
+		hash = (31 * hash) + Arrays.hashCode(parameters);
+		this.hash = (31 * hash) + getClass().getName().hashCode();
+		this.variables = variables;
+		this.constant = constant;
+		this.depth = depth + 1;
+		this.size = size;
+		transparent = isTransparent(getClass());
+	}
+	
+	/**
+	 * Get the number of arguments of this function.
+	 * 
+	 * @return The argument count.
+	 */
+	public final int argumentCount()
+	{
+		return arguments.length;
+	}
+	
+	/**
+	 * Get the argument at the specified index.
+	 * 
+	 * @param index The index.
+	 * @return The argument.
+	 */
+	public final Differentiable argument(final int index)
+	{
+		return arguments[index];
+	}
+	
+	/**
+	 * Get the depth of this function, i.e. the number of functions on the
+	 * longest path from this one down to a differentiable that is not a
+	 * function, this one included.
+	 * 
+	 * @return The depth.
+	 */
+	public final int depth()
+	{
+		return depth;
+	}
+	
+	/**
+	 * Get the size of this function, i.e. the number of nodes of its
+	 * expression tree, counting a shared subexpression once per use and
+	 * saturating at {@link Integer#MAX_VALUE}.
+	 * <p>
+	 * This bounds the work of any walk over the function that does not
+	 * remember the nodes it has already visited.
+	 * 
+	 * @return The size.
+	 */
+	public final int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Check if this function depends on the specified variable.
+	 * 
+	 * @param variable The variable.
+	 * @return <code>true</code> if so; <code>false</code> otherwise.
+	 * @throws NullPointerException If <code>variable</code> is
+	 *             <code>null</code>.
+	 */
+	public final boolean dependsOn(final Variable variable)
+		throws NullPointerException
+	{
+		return variables.contains(variable);
+	}
+	
+	/**
+	 * Check if this is the canonical instance of its structure, as
+	 * maintained by the {@link Interner}.
+	 * 
+	 * @return <code>true</code> if canonical; <code>false</code> otherwise.
+	 */
+	public final boolean isCanonical()
+	{
+		return canonical;
+	}
+	
+	/**
+	 * Mark this as the canonical instance of its structure.
+	 */
+	final void markCanonical()
+	{
+		canonical = true;
+	}
+	
+	/**
+	 * Check if this and the specified object are distinct canonical
+	 * instances, and hence known to be unequal without comparing structure.
+	 * Callers are expected to have checked for identity first.
+	 * 
+	 * @param other The other object.
+	 * @return <code>true</code> if both are canonical; <code>false</code>
+	 *         otherwise.
+	 */
+	protected final boolean isDistinctCanonical(final Object other)
+	{
+		return canonical && (other instanceof AbstractComposedDifferentiable) &&
+				((AbstractComposedDifferentiable)other).canonical;
+	}
+	
+	/**
+	 * Get the scalar parameters of this function that are not arguments, such
+	 * as the index of a power.
+	 * <p>
+	 * Together with the class and the arguments, the parameters determine the
+	 * structure of this function. The default implementation returns an empty
+	 * array; functions with parameters must also pass them to
+	 * {@link #AbstractComposedDifferentiable(double[], Differentiable...)}.
+	 * 
+	 * @return The parameters.
+	 */
+	public double[] parameters()
+	{
+		return new double[0];
+	}
+	
+	/**
+	 * Apply a function of the same kind as this one, with the same
+	 * parameters, to the specified arguments.
+	 * <p>
+	 * This lets rewriting passes (such as the {@link Simplifier}) rebuild a
+	 * function after rewriting its arguments. The default implementation
+	 * returns <code>null</code>, meaning this function cannot be recomposed.
+	 * 
+	 * @param arguments The new arguments, in argument order.
+	 * @return The recomposed function, or <code>null</code>.
+	 */
+	public Differentiable recompose(final Differentiable... arguments)
+	{
+		return null;
+	}
+	
+	/**
+	 * Compute the value of this function given the values of its arguments.
+	 * <p>
+	 * Unlike {@link #value(Assignment)}, this method does not look at the
+	 * arguments; it is used by {@link #value(Assignment)} and by the
+	 * sweep-based evaluators.
+	 * <p>
+	 * Functions should override this method together with
+	 * {@link #partial(int, double[], double)}; the evaluators treat functions
+	 * that do not as opaque, and evaluate them with their own
+	 * {@link #value(Assignment)}. The default implementation recomposes this
+	 * function over constant arguments and evaluates the result, which only
+	 * works for functions that override both {@link #recompose(Differentiable...)}
+	 * and {@link #value(Assignment)}.
+	 * 
+	 * @param argumentValues The argument values, in argument order.
+	 * @return The value.
+	 * @throws UnsupportedOperationException If this function cannot be
+	 *             evaluated from the values of its arguments.
+	 */
+	public double evaluate(final double[] argumentValues)
+		throws UnsupportedOperationException
+	{
+		Differentiable[] constants = new Differentiable[argumentValues.length];
+		for(int index = 0; index < constants.length; index++)
+		{
+			constants[index] = new Constant(argumentValues[index]);
+		}
+		
+		// without its own value method, the recomposed function would come
+		// straight back here.
+		Differentiable recomposed = overrides(getClass(), "value", Assignment.class) ? recompose(constants) : null;
+		if(recomposed == null)
+		{
+			String message = String.format("%1$s cannot be evaluated from the values of its arguments", getClass().getName());
+			throw new UnsupportedOperationException(message);
+		}
+		
+		return recomposed.value(new MutableAssignment());
+	}
+	
+	/**
+	 * Compute the local partial derivative of this function with respect to
+	 * the specified argument.
+	 * <p>
+	 * The default implementation recomposes this function over placeholder
+	 * variables, one per argument, and evaluates its symbolic derivative with
+	 * respect to the placeholder of the specified argument; it only works for
+	 * functions that override {@link #recompose(Differentiable...)}.
+	 * 
+	 * @param argumentIndex The argument index.
+	 * @param argumentValues The argument values, in argument order.
+	 * @param value The value of this function at <code>argumentValues</code>.
+	 * @return The local partial derivative.
+	 * @throws UnsupportedOperationException If this function cannot be
+	 *             recomposed.
+	 */
+	public double partial(final int argumentIndex, final double[] argumentValues, final double value)
+		throws UnsupportedOperationException
+	{
+		Variable[] placeholders = new Variable[argumentValues.length];
+		for(int index = 0; index < placeholders.length; index++)
+		{
+			placeholders[index] = new Variable(String.format("#%1$s", index));
+		}
+		
+		Differentiable recomposed = recompose(placeholders);
+		if(recomposed == null)
+		{
+			String message = String.format("%1$s cannot be recomposed", getClass().getName());
+			throw new UnsupportedOperationException(message);
+		}
+		
+		Differentiable partial = recomposed.derivative(placeholders[argumentIndex]);
+		return partial.value(new ArrayAssignment(new VariableIndex(placeholders), argumentValues));
+	}
+	
+	/**
+	 * Check if this function overrides both {@link #evaluate(double[])} and
+	 * {@link #partial(int, double[], double)}, so that the evaluators can
+	 * see through it to its arguments.
+	 * 
+	 * @return <code>true</code> if so; <code>false</code> if it is opaque.
+	 */
+	final boolean isTransparent()
+	{
+		return transparent;
+	}
+
+	/**
+	 * Check if this function is a commutative binary function, i.e. one whose
+	 * two arguments may be swapped without changing its structure.
+	 * <p>
+	 * Equality and hash codes of commutative functions ignore the order of
+	 * their arguments. This method is called by the constructor, so it must not
+	 * depend on the state of subclasses. The default implementation returns
+	 * <code>false</code>.
+	 * 
+	 * @return <code>true</code> if commutative; <code>false</code> otherwise.
+	 */
+	public boolean isCommutative()
+	{
+		return false;
+	}
+	
+	/**
+	 * Evaluates the graph bottom up with {@link #evaluate(double[])}. Small
+	 * functions (by {@link #size()}) are evaluated as trees; larger ones
+	 * without recursion, evaluating shared subexpressions once.
+	 * 
+	 * @see org.teneighty.leibniz.Differentiable#value(org.teneighty.leibniz.Assignment)
+	 */
+	@Override
+	public double value(final Assignment assignment)
+	{
+		return Graphs.value(this, assignment);
+	}
+	
+	/**
+	 * Returns zero straight away if this function does not depend on
+	 * <code>withRespectTo</code>.
+	 * 
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#derivative(org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	public Differentiable derivative(final Variable withRespectTo)
+	{
+		if(dependsOn(withRespectTo) == false)
+		{
+			return Constant.ZERO;
+		}
+		
+		return super.derivative(withRespectTo);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#variables()
+	 */
+	@Override
+	public Set<Variable> variables()
+	{
+		return variables;
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#isConstant()
+	 */
+	@Override
+	public boolean isConstant()
+	{
+		return constant;
+	}
+	
+	/**
+	 * The hash code depends on the class, the parameters and the arguments
+	 * (without regard to their order if commutative) of this function.
+	 * 
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return hash;
+	}
+	
+	/**
+	 * Two functions are equal if they have the same class, parameters and
+	 * arguments (in either order if commutative).
+	 * 
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+		
+		if(other == this)
+		{
+			return true;
+		}
+		
+		if(isDistinctCanonical(other) || other.hashCode() != hash)
+		{
+			return false;
+		}
+				
+		if(other.getClass().equals(getClass()))
+		{
+			return Graphs.equal(this, (AbstractComposedDifferentiable)other);
+		}
+		
+		return false;
+	}
+
+}
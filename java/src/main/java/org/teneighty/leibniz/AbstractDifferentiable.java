@@ -1,337 +1,601 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz;
-
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-
-import org.teneighty.leibniz.compilation.Compiler;
-import org.teneighty.leibniz.function.Addition;
-import org.teneighty.leibniz.function.Division;
-import org.teneighty.leibniz.function.Exponentiation;
-import org.teneighty.leibniz.function.Multiplication;
-import org.teneighty.leibniz.function.Negation;
-import org.teneighty.leibniz.function.Power;
-import org.teneighty.leibniz.function.Subtraction;
-
-
-/**
- * Base class from which all actual differentiables can (and probably should) extend.
- */
-public abstract class AbstractDifferentiable
-	implements Differentiable
-{
-	
-	/**
-	 * Cache of first order derivative by variable.
-	 */
-	private final Map<Variable, Differentiable> derivativeCache;
-		
-	/**
-	 * Constructor.
-	 */
-	protected AbstractDifferentiable()
-	{
-		this.derivativeCache = new HashMap<Variable, Differentiable>();
-	}
-	
-	// partial derivative business.
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#derivative(org.teneighty.leibniz.Variable)
-	 */
-	@Override
-	public Differentiable derivative(final Variable withRespectTo)
-	{
-		Differentiable derivative = derivativeCache.get(withRespectTo);
-		if(derivative == null)
-		{
-			if(isConstant())
-			{
-				derivative = Constant.ZERO;
-			}
-			else
-			{			
-				derivative = derivativeCore(withRespectTo);
-			}
-			
-			// store in cache.
-			derivativeCache.put(withRespectTo, derivative);
-		}
-		
-		return derivative;
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#derivative(org.teneighty.leibniz.Variable[])
-	 */
-	@Override
-	public Differentiable derivative(final Variable... withRespectTo)
-	{
-		Differentiable result = this;
-		for(Variable variable : withRespectTo)
-		{
-			result = result.derivative(variable);
-		}
-		
-		return result;
-	}
-	
-	/**
-	 * Take the derivative with respect to the specified variable.
-	 *  
-	 * @param withRespectTo The variable in question.
-	 * @return Partial with respect to the specified variable.
-	 */
-	protected abstract Differentiable derivativeCore(Variable withRespectTo);
-		
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#gradient()
-	 */
-	@Override
-	public Gradient gradient()
-	{
-		return new DefaultGradient(this, variables());
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#gradient()
-	 */
-	@Override
-	public Gradient gradient(final Set<Variable> variables)
-	{
-		return new DefaultGradient(this, variables);
-	}
-		
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#hessian()
-	 */
-	@Override
-	public Hessian hessian()
-	{
-		return new DefaultHessian(this);
-	}
-	
-	// "operator" implementations.
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#negate()
-	 */
-	@Override
-	public Differentiable negate()
-	{
-		return Negation.negate(this);
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#plus(org.teneighty.leibniz.Differentiable)
-	 */
-	@Override
-	public Differentiable plus(Differentiable that)
-	{
-		return Addition.add(this, that);
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#plus(double)
-	 */
-	@Override
-	public Differentiable plus(final double that)
-	{
-		return plus(new Constant(that));
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#minus(org.teneighty.leibniz.Differentiable)
-	 */
-	@Override
-	public Differentiable minus(final Differentiable that)
-	{
-		return Subtraction.subtract(this, that);
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#minus(double)
-	 */
-	@Override
-	public Differentiable minus(final double that)
-	{
-		return minus(new Constant(that));
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#times(org.teneighty.leibniz.Differentiable)
-	 */
-	@Override
-	public Differentiable times(final Differentiable that)
-	{
-		return Multiplication.multiply(this, that);
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#times(double)
-	 */
-	@Override
-	public Differentiable times(final double that)
-	{
-		return times(new Constant(that));
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#over(org.teneighty.leibniz.Differentiable)
-	 */
-	@Override
-	public Differentiable over(final Differentiable that)
-	{
-		return dividedBy(that);
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#over(double)
-	 */
-	@Override
-	public Differentiable over(final double that)
-	{
-		return over(new Constant(that));
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#dividedBy(org.teneighty.leibniz.Differentiable)
-	 */
-	@Override
-	public Differentiable dividedBy(final Differentiable that)
-	{
-		return Division.divide(this, that);
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#dividedBy(double)
-	 */
-	@Override
-	public Differentiable dividedBy(final double that)
-	{
-		return dividedBy(new Constant(that));
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#squared()
-	 */
-	@Override
-	public Differentiable squared()
-	{
-		return Power.power(this, 2);
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#cubed()
-	 */
-	@Override
-	public Differentiable cubed()
-	{
-		return Power.power(this, 3);
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#power(org.teneighty.leibniz.Differentiable)
-	 */
-	@Override
-	public Differentiable power(final Differentiable index)
-	{
-		return Exponentiation.power(this, index);
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#power(double)
-	 */
-	@Override
-	public Differentiable power(final double index)
-	{
-		return Power.power(this, index);
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#toThe(org.teneighty.leibniz.Differentiable)
-	 */
-	@Override
-	public Differentiable toThe(final Differentiable index)
-	{
-		return Exponentiation.power(this, index);
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#toThe(double)
-	 */
-	@Override
-	public Differentiable toThe(final double index)
-	{
-		return Power.power(this, index);
-	}
-		
-	// simplifcation methods.
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#isZero()
-	 */
-	@Override
-	public boolean isZero()
-	{
-		return false;
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#isOne()
-	 */
-	@Override
-	public boolean isOne()
-	{
-		return false;
-	}
-	
-	// compilation magic.
-	
-	/**
-	 * @see org.teneighty.leibniz.Differentiable#compile()
-	 */
-	@Override
-	public CompiledDifferentiable compile()
-	{
-		return Compiler.compile(this);
-	}
-	
-	// re-abstraction of equals and hashcode.
-	
-	/**
-	 * @see java.lang.Object#hashCode()
-	 */
-	@Override
-	public abstract int hashCode();
-	
-	/**
-	 * @see java.lang.Object#equals(java.lang.Object)
-	 */
-	@Override
-	public abstract boolean equals(final Object other);
-
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.teneighty.leibniz.compilation.Compiler;
+import org.teneighty.leibniz.function.Addition;
+import org.teneighty.leibniz.function.Division;
+import org.teneighty.leibniz.function.Exponentiation;
+import org.teneighty.leibniz.function.Multiplication;
+import org.teneighty.leibniz.function.Negation;
+import org.teneighty.leibniz.function.Power;
+import org.teneighty.leibniz.function.Subtraction;
+
+
+/**
+ * Base class from which all actual differentiables can (and probably should) extend.
+ */
+public abstract class AbstractDifferentiable
+	implements Differentiable
+{
+	
+	/**
+	 * The largest number of derivatives cached in an array rather than a map.
+	 */
+	private static final int SMALL_CACHE = 8;
+	
+	/**
+	 * Updater for {@link #derivativeCache}.
+	 */
+	private static final AtomicReferenceFieldUpdater<AbstractDifferentiable, Object> DERIVATIVE_CACHE =
+			AtomicReferenceFieldUpdater.newUpdater(AbstractDifferentiable.class, Object.class, "derivativeCache");
+	
+	/**
+	 * Cache of first order derivative by variable.
+	 * <p>
+	 * Most differentiables are never differentiated, or only with respect to
+	 * a few variables, so the cache is <code>null</code> until the first
+	 * derivative is stored, then an array of alternating variables and
+	 * values, copied on every store, and only once it outgrows
+	 * {@link #SMALL_CACHE} entries a concurrent map. All updates are
+	 * compare-and-set, so derivatives are published once: if several threads
+	 * build the same derivative concurrently, all of them return the first
+	 * one stored. Values are either derivatives or references to them,
+	 * depending on the {@link DerivativeCache} policy in effect when they were
+	 * stored.
+	 */
+	private volatile Object derivativeCache;
+		
+	/**
+	 * Constructor.
+	 */
+	protected AbstractDifferentiable()
+	{
+	}
+	
+	// partial derivative business.
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#derivative(org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	public Differentiable derivative(final Variable withRespectTo)
+	{
+		Differentiable derivative = cachedDerivative(withRespectTo);
+		if(derivative == null)
+		{
+			// differentiate the arguments first, so that derivativeCore does
+			// not recurse.
+			derivative = Graphs.derivative(this, withRespectTo);
+		}
+		
+		return derivative;
+	}
+	
+	/**
+	 * Get the derivative with respect to the specified variable, if cached.
+	 * 
+	 * @param withRespectTo The variable in question.
+	 * @return The cached derivative, or <code>null</code>.
+	 */
+	final Differentiable cachedDerivative(final Variable withRespectTo)
+	{
+		return DerivativeCache.resolve(cached(withRespectTo));
+	}
+	
+	/**
+	 * Take the derivative with respect to the specified variable, assuming
+	 * that the derivatives of any arguments are already cached.
+	 * 
+	 * @param withRespectTo The variable in question.
+	 * @return Partial with respect to the specified variable.
+	 */
+	final Differentiable differentiate(final Variable withRespectTo)
+	{
+		Differentiable derivative = cachedDerivative(withRespectTo);
+		if(derivative == null)
+		{
+			derivative = derivativeCore(withRespectTo);
+			
+			// store in cache, deferring to any derivative another thread
+			// stored in the meantime.
+			derivative = DerivativeCache.publish(this, withRespectTo, derivative);
+		}
+		
+		return derivative;
+	}
+	
+	/**
+	 * Get the derivatives currently cached by this differentiable.
+	 * 
+	 * @return The cached derivatives.
+	 */
+	@SuppressWarnings("unchecked")
+	final Collection<Differentiable> cachedDerivatives()
+	{
+		Collection<Differentiable> derivatives = new ArrayList<Differentiable>();
+		Object cache = derivativeCache;
+		if(cache instanceof Object[])
+		{
+			Object[] entries = (Object[])cache;
+			for(int index = 1; index < entries.length; index += 2)
+			{
+				Differentiable derivative = DerivativeCache.resolve(entries[index]);
+				if(derivative != null)
+				{
+					derivatives.add(derivative);
+				}
+			}
+		}
+		else if(cache != null)
+		{
+			DerivativeCache.resolveAll(((ConcurrentMap<Variable, Object>)cache).values(), derivatives);
+		}
+		
+		return derivatives;
+	}
+	
+	/**
+	 * Get the cache value for the specified variable.
+	 * 
+	 * @param variable The variable.
+	 * @return The value, or <code>null</code> if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	final Object cached(final Variable variable)
+	{
+		Object cache = derivativeCache;
+		if(cache instanceof Object[])
+		{
+			Object[] entries = (Object[])cache;
+			int position = find(entries, variable);
+			return (position < 0) ? null : entries[position + 1];
+		}
+		
+		if(cache != null)
+		{
+			return ((ConcurrentMap<Variable, Object>)cache).get(variable);
+		}
+		
+		if(variable == null)
+		{
+			throw new NullPointerException("variable");
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Atomically replace the cache value for the specified variable, if it is
+	 * the expected one.
+	 * 
+	 * @param variable The variable.
+	 * @param expected The expected value, or <code>null</code> if there
+	 *            should be none.
+	 * @param value The new value, or <code>null</code> to remove the entry.
+	 * @return <code>true</code> if replaced; <code>false</code> otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	final boolean replaceCached(final Variable variable, final Object expected, final Object value)
+	{
+		if(expected == null && value == null)
+		{
+			return false;
+		}
+		
+		while(true)
+		{
+			Object cache = derivativeCache;
+			if(cache != null && (cache instanceof Object[]) == false)
+			{
+				ConcurrentMap<Variable, Object> map = (ConcurrentMap<Variable, Object>)cache;
+				if(expected == null)
+				{
+					return map.putIfAbsent(variable, value) == null;
+				}
+				
+				if(map.get(variable) != expected)
+				{
+					return false;
+				}
+				
+				return (value == null) ? map.remove(variable, expected) : map.replace(variable, expected, value);
+			}
+			
+			Object[] entries = (cache == null) ? new Object[0] : (Object[])cache;
+			int position = find(entries, variable);
+			if(((position < 0) ? null : entries[position + 1]) != expected)
+			{
+				return false;
+			}
+			
+			Object replacement;
+			if(position >= 0 && value != null)
+			{
+				Object[] copy = entries.clone();
+				copy[position + 1] = value;
+				replacement = copy;
+			}
+			else if(position >= 0)
+			{
+				Object[] copy = new Object[entries.length - 2];
+				System.arraycopy(entries, 0, copy, 0, position);
+				System.arraycopy(entries, position + 2, copy, position, copy.length - position);
+				replacement = (copy.length == 0) ? null : copy;
+			}
+			else if(entries.length < 2 * SMALL_CACHE)
+			{
+				Object[] copy = Arrays.copyOf(entries, entries.length + 2);
+				copy[entries.length] = variable;
+				copy[entries.length + 1] = value;
+				replacement = copy;
+			}
+			else
+			{
+				ConcurrentMap<Variable, Object> map = new ConcurrentHashMap<Variable, Object>(4 * SMALL_CACHE, 0.75f, 1);
+				for(int index = 0; index < entries.length; index += 2)
+				{
+					map.put((Variable)entries[index], entries[index + 1]);
+				}
+				
+				map.put(variable, value);
+				replacement = map;
+			}
+			
+			if(DERIVATIVE_CACHE.compareAndSet(this, cache, replacement))
+			{
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Find the position of the specified variable in a small cache.
+	 * 
+	 * @param entries The alternating variables and values.
+	 * @param variable The variable.
+	 * @return The position of the variable, or <code>-1</code> if absent.
+	 * @throws NullPointerException If <code>variable</code> is
+	 *             <code>null</code>.
+	 */
+	private static int find(final Object[] entries, final Variable variable)
+		throws NullPointerException
+	{
+		if(variable == null)
+		{
+			throw new NullPointerException("variable");
+		}
+		
+		for(int position = 0; position < entries.length; position += 2)
+		{
+			if(entries[position] == variable || variable.equals(entries[position]))
+			{
+				return position;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#derivative(org.teneighty.leibniz.Variable[])
+	 */
+	@Override
+	public Differentiable derivative(final Variable... withRespectTo)
+	{
+		Differentiable result = this;
+		for(Variable variable : withRespectTo)
+		{
+			result = result.derivative(variable);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Take the derivative with respect to the specified variable.
+	 *  
+	 * @param withRespectTo The variable in question.
+	 * @return Partial with respect to the specified variable.
+	 */
+	protected abstract Differentiable derivativeCore(Variable withRespectTo);
+		
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#gradient()
+	 */
+	@Override
+	public Gradient gradient()
+	{
+		return new DefaultGradient(this, variables());
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#gradient()
+	 */
+	@Override
+	public Gradient gradient(final Set<Variable> variables)
+	{
+		return new DefaultGradient(this, variables);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#gradient(org.teneighty.leibniz.Mode)
+	 */
+	@Override
+	public Gradient gradient(final Mode mode)
+	{
+		return gradient(variables(), mode);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#gradient(java.util.Set, org.teneighty.leibniz.Mode)
+	 */
+	@Override
+	public Gradient gradient(final Set<Variable> variables, final Mode mode)
+	{
+		if(mode == null)
+		{
+			throw new NullPointerException("mode");
+		}
+		
+		switch(mode)
+		{
+			case SYMBOLIC:
+				return new DefaultGradient(this, variables);
+			case REVERSE:
+				return new ReverseGradient(this, variables);
+			case FORWARD:
+				return new ForwardGradient(this, variables);
+			default:
+				throw new IllegalArgumentException("mode");
+		}
+	}
+		
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#hessian()
+	 */
+	@Override
+	public Hessian hessian()
+	{
+		return new DefaultHessian(this);
+	}
+	
+	// "operator" implementations.
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#negate()
+	 */
+	@Override
+	public Differentiable negate()
+	{
+		return Negation.negate(this);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#plus(org.teneighty.leibniz.Differentiable)
+	 */
+	@Override
+	public Differentiable plus(Differentiable that)
+	{
+		return Addition.add(this, that);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#plus(double)
+	 */
+	@Override
+	public Differentiable plus(final double that)
+	{
+		return plus(new Constant(that));
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#minus(org.teneighty.leibniz.Differentiable)
+	 */
+	@Override
+	public Differentiable minus(final Differentiable that)
+	{
+		return Subtraction.subtract(this, that);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#minus(double)
+	 */
+	@Override
+	public Differentiable minus(final double that)
+	{
+		return minus(new Constant(that));
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#times(org.teneighty.leibniz.Differentiable)
+	 */
+	@Override
+	public Differentiable times(final Differentiable that)
+	{
+		return Multiplication.multiply(this, that);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#times(double)
+	 */
+	@Override
+	public Differentiable times(final double that)
+	{
+		return times(new Constant(that));
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#over(org.teneighty.leibniz.Differentiable)
+	 */
+	@Override
+	public Differentiable over(final Differentiable that)
+	{
+		return dividedBy(that);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#over(double)
+	 */
+	@Override
+	public Differentiable over(final double that)
+	{
+		return over(new Constant(that));
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#dividedBy(org.teneighty.leibniz.Differentiable)
+	 */
+	@Override
+	public Differentiable dividedBy(final Differentiable that)
+	{
+		return Division.divide(this, that);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#dividedBy(double)
+	 */
+	@Override
+	public Differentiable dividedBy(final double that)
+	{
+		return dividedBy(new Constant(that));
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#squared()
+	 */
+	@Override
+	public Differentiable squared()
+	{
+		return Power.power(this, 2);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#cubed()
+	 */
+	@Override
+	public Differentiable cubed()
+	{
+		return Power.power(this, 3);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#power(org.teneighty.leibniz.Differentiable)
+	 */
+	@Override
+	public Differentiable power(final Differentiable index)
+	{
+		return Exponentiation.power(this, index);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#power(double)
+	 */
+	@Override
+	public Differentiable power(final double index)
+	{
+		return Power.power(this, index);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#toThe(org.teneighty.leibniz.Differentiable)
+	 */
+	@Override
+	public Differentiable toThe(final Differentiable index)
+	{
+		return Exponentiation.power(this, index);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#toThe(double)
+	 */
+	@Override
+	public Differentiable toThe(final double index)
+	{
+		return Power.power(this, index);
+	}
+		
+	// simplifcation methods.
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#isZero()
+	 */
+	@Override
+	public boolean isZero()
+	{
+		return false;
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#isOne()
+	 */
+	@Override
+	public boolean isOne()
+	{
+		return false;
+	}
+	
+	// compilation magic.
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#compile()
+	 */
+	@Override
+	public CompiledDifferentiable compile()
+	{
+		return Compiler.compile(this);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#interpret()
+	 */
+	@Override
+	public InterpretedDifferentiable interpret()
+	{
+		return new InterpretedDifferentiable(this);
+	}
+	
+	// re-abstraction of equals and hashcode.
+	
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public abstract int hashCode();
+	
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public abstract boolean equals(final Object other);
+
+}
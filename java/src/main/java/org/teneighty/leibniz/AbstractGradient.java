@@ -1,79 +1,79 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz;
-
-import org.teneighty.leibniz.compilation.Compiler;
-
-
-/**
- * Base class from which actual gradient implementations can extend.
- */
-public abstract class AbstractGradient
-	implements Gradient
-{
-		
-	/**
-	 * @see org.teneighty.leibniz.Gradient#compile()
-	 */
-	@Override
-	public CompiledGradient compile()
-	{
-		return Compiler.compile(this);
-	}
-	
-	/**
-	 * @see java.lang.Object#equals(java.lang.Object)
-	 */
-	@Override
-	public boolean equals(final Object other)
-	{
-		if(other == null)
-		{
-			return false;
-		}
-		
-		if(other == this)			
-		{
-			return true;
-		}
-		
-		if(other instanceof Gradient)
-		{
-			Gradient that = (Gradient)other;
-			return differentiable().equals(that.differentiable());
-		}
-		
-		return false;
-	}
-
-	/**
-	 * @see java.lang.Object#hashCode()
-	 */
-	@Override
-	public int hashCode()
-	{
-		return differentiable().hashCode();
-	}
-	
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import org.teneighty.leibniz.compilation.Compiler;
+
+
+/**
+ * Base class from which actual gradient implementations can extend.
+ */
+public abstract class AbstractGradient
+	implements Gradient
+{
+		
+	/**
+	 * @see org.teneighty.leibniz.Gradient#compile()
+	 */
+	@Override
+	public CompiledGradient compile()
+	{
+		return Compiler.compile(this);
+	}
+	
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+		
+		if(other == this)			
+		{
+			return true;
+		}
+		
+		if(other instanceof Gradient)
+		{
+			Gradient that = (Gradient)other;
+			return differentiable().equals(that.differentiable());
+		}
+		
+		return false;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return differentiable().hashCode();
+	}
+	
+}
@@ -0,0 +1,199 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * An assignment backed by a <code>double[]</code> laid out by a
+ * {@link VariableIndex}.
+ * <p>
+ * Every indexed variable is always set; variables outside the index are never
+ * set. The backing array is shared, not copied, so callers may fill it directly
+ * (for example, in a tight loop) and pass this assignment or the array itself
+ * to a compiled function.
+ */
+public final class ArrayAssignment
+	implements Assignment
+{
+
+	/**
+	 * The layout.
+	 */
+	private final VariableIndex index;
+
+	/**
+	 * The values, in slot order.
+	 */
+	private final double[] values;
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * All variables are initially assigned zero.
+	 *
+	 * @param index The layout.
+	 * @throws NullPointerException If <code>index</code> is <code>null</code>.
+	 */
+	public ArrayAssignment(final VariableIndex index)
+		throws NullPointerException
+	{
+		this(index, new double[checkIndex(index).size()]);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param index The layout.
+	 * @param values The backing array, which is used as-is and not copied.
+	 * @throws NullPointerException If <code>index</code> or <code>values</code>
+	 *             is <code>null</code>.
+	 * @throws IllegalArgumentException If the length of <code>values</code>
+	 *             differs from the size of <code>index</code>.
+	 */
+	public ArrayAssignment(final VariableIndex index, final double[] values)
+		throws NullPointerException, IllegalArgumentException
+	{
+		checkIndex(index);
+		if(values == null)
+		{
+			throw new NullPointerException("values");
+		}
+
+		if(values.length != index.size())
+		{
+			String message = String.format("Expected %1$s values but got %2$s", index.size(), values.length);
+			throw new IllegalArgumentException(message);
+		}
+
+		this.index = index;
+		this.values = values;
+	}
+
+	/**
+	 * Check that the specified index is not <code>null</code>.
+	 *
+	 * @param index The index.
+	 * @return <code>index</code>.
+	 * @throws NullPointerException If <code>index</code> is <code>null</code>.
+	 */
+	private static VariableIndex checkIndex(final VariableIndex index)
+		throws NullPointerException
+	{
+		if(index == null)
+		{
+			throw new NullPointerException("index");
+		}
+
+		return index;
+	}
+
+	/**
+	 * Get the layout of this assignment.
+	 *
+	 * @return The index.
+	 */
+	public VariableIndex index()
+	{
+		return index;
+	}
+
+	/**
+	 * Get the backing array.
+	 * <p>
+	 * Changes to the returned array are reflected in this assignment.
+	 *
+	 * @return The values, in slot order.
+	 */
+	public double[] values()
+	{
+		return values;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Assignment#get(org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	public double get(final Variable variable)
+		throws IllegalArgumentException, NullPointerException
+	{
+		return values[index.slot(variable)];
+	}
+
+	/**
+	 * Get the value in the specified slot.
+	 *
+	 * @param slot The slot.
+	 * @return The value.
+	 * @throws IndexOutOfBoundsException If <code>slot</code> is out of range.
+	 */
+	public double get(final int slot)
+		throws IndexOutOfBoundsException
+	{
+		return values[slot];
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Assignment#isSet(org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	public boolean isSet(final Variable variable)
+		throws NullPointerException
+	{
+		if(variable == null)
+		{
+			throw new NullPointerException("variable");
+		}
+
+		return index.contains(variable);
+	}
+
+	/**
+	 * Set the value of the specified variable.
+	 *
+	 * @param variable The variable.
+	 * @param value The value.
+	 * @throws NullPointerException If <code>variable</code> is
+	 *             <code>null</code>.
+	 * @throws IllegalArgumentException If <code>variable</code> is not indexed.
+	 */
+	public void set(final Variable variable, final double value)
+		throws NullPointerException, IllegalArgumentException
+	{
+		values[index.slot(variable)] = value;
+	}
+
+	/**
+	 * Set the value in the specified slot.
+	 *
+	 * @param slot The slot.
+	 * @param value The value.
+	 * @throws IndexOutOfBoundsException If <code>slot</code> is out of range.
+	 */
+	public void set(final int slot, final double value)
+		throws IndexOutOfBoundsException
+	{
+		values[slot] = value;
+	}
+
+}
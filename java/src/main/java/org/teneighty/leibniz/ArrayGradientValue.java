@@ -0,0 +1,138 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * A gradient value backed by a <code>double[]</code> laid out by a
+ * {@link VariableIndex}.
+ * <p>
+ * The backing array is shared, not copied.
+ */
+public final class ArrayGradientValue
+	implements GradientValue
+{
+
+	/**
+	 * The layout of the components.
+	 */
+	private final VariableIndex index;
+
+	/**
+	 * The component values, in slot order.
+	 */
+	private final double[] values;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param index The layout of the components.
+	 * @param values The component values, in slot order.
+	 * @throws NullPointerException If <code>index</code> or <code>values</code>
+	 *             is <code>null</code>.
+	 * @throws IllegalArgumentException If the length of <code>values</code>
+	 *             differs from the size of <code>index</code>.
+	 */
+	public ArrayGradientValue(final VariableIndex index, final double[] values)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(index == null)
+		{
+			throw new NullPointerException("index");
+		}
+
+		if(values == null)
+		{
+			throw new NullPointerException("values");
+		}
+
+		if(values.length != index.size())
+		{
+			String message = String.format("Expected %1$s values but got %2$s", index.size(), values.length);
+			throw new IllegalArgumentException(message);
+		}
+
+		this.index = index;
+		this.values = values;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.GradientValue#value(org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	public double value(final Variable component)
+	{
+		if(index.contains(component) == false)
+		{
+			throw new IllegalArgumentException("component");
+		}
+
+		return values[index.slot(component)];
+	}
+
+	/**
+	 * Get the layout of the components.
+	 *
+	 * @return The index.
+	 */
+	public VariableIndex index()
+	{
+		return index;
+	}
+
+	/**
+	 * Get the backing array.
+	 *
+	 * @return The component values, in slot order.
+	 */
+	public double[] values()
+	{
+		return values;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		builder.append("ArrayGradientValue [values={");
+		for(int slot = 0; slot < values.length; slot++)
+		{
+			if(slot > 0)
+			{
+				builder.append(", ");
+			}
+
+			builder.append(index.variable(slot));
+			builder.append("=");
+			builder.append(values[slot]);
+		}
+
+		builder.append("}]");
+		return builder.toString();
+	}
+
+}
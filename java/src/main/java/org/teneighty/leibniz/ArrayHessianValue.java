@@ -0,0 +1,153 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * A Hessian value backed by a <code>double[]</code> holding the packed upper
+ * triangle of the Hessian, laid out by a {@link VariableIndex}.
+ * <p>
+ * The backing array is shared, not copied.
+ *
+ * @see VariableIndex#packedSlot(int, int)
+ */
+public final class ArrayHessianValue
+	extends AbstractHessianValue
+{
+
+	/**
+	 * The layout of the variables.
+	 */
+	private final VariableIndex index;
+
+	/**
+	 * The packed upper triangle.
+	 */
+	private final double[] values;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param index The layout of the variables.
+	 * @param values The packed upper triangle.
+	 * @throws NullPointerException If <code>index</code> or <code>values</code>
+	 *             is <code>null</code>.
+	 * @throws IllegalArgumentException If the length of <code>values</code>
+	 *             differs from the packed size of <code>index</code>.
+	 */
+	public ArrayHessianValue(final VariableIndex index, final double[] values)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(index == null)
+		{
+			throw new NullPointerException("index");
+		}
+
+		if(values == null)
+		{
+			throw new NullPointerException("values");
+		}
+
+		if(values.length != index.packedSize())
+		{
+			String message = String.format("Expected %1$s values but got %2$s", index.packedSize(), values.length);
+			throw new IllegalArgumentException(message);
+		}
+
+		this.index = index;
+		this.values = values;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractHessianValue#value(org.teneighty.leibniz.Variable, org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	public double value(final Variable first, final Variable second)
+	{
+		if(index.contains(first) == false || index.contains(second) == false)
+		{
+			String message = String.format("No value for %1$s", new HessianKey(first, second));
+			throw new IllegalArgumentException(message);
+		}
+
+		return values[index.packedSlot(index.slot(first), index.slot(second))];
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.HessianValue#value(org.teneighty.leibniz.HessianKey)
+	 */
+	@Override
+	public double value(final HessianKey key)
+	{
+		return value(key.first(), key.second());
+	}
+
+	/**
+	 * Get the layout of the variables.
+	 *
+	 * @return The index.
+	 */
+	public VariableIndex index()
+	{
+		return index;
+	}
+
+	/**
+	 * Get the backing array.
+	 *
+	 * @return The packed upper triangle.
+	 */
+	public double[] values()
+	{
+		return values;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		builder.append("ArrayHessianValue [values={");
+		for(int row = 0; row < index.size(); row++)
+		{
+			for(int column = row; column < index.size(); column++)
+			{
+				if(row > 0 || column > 0)
+				{
+					builder.append(", ");
+				}
+
+				builder.append(new HessianKey(index.variable(row), index.variable(column)));
+				builder.append("=");
+				builder.append(values[index.packedSlot(row, column)]);
+			}
+		}
+
+		builder.append("}]");
+		return builder.toString();
+	}
+
+}
@@ -1,51 +1,62 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz;
-
-
-/**
- * Base interface for compiled objects.
- * 
- * @param <TCompiled> The type of compiled object.
- */
-public interface Compiled<TCompiled>
-{
-	
-	/**
-	 * Get the uncompiled version of this function.
-	 * 
-	 * @return The uncompiled version of this function.
-	 */
-	public TCompiled uncompiled();
-	
-	/**
-	 * Get the source code for this compiled function.
-	 * <p>
-	 * Useful mostly for debugging purposes, obviously...
-	 * 
-	 * @return The source code.
-	 */
-	public String source();
-
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * Base interface for compiled objects.
+ * 
+ * @param <TCompiled> The type of compiled object.
+ */
+public interface Compiled<TCompiled>
+{
+	
+	/**
+	 * Get the uncompiled version of this function.
+	 * 
+	 * @return The uncompiled version of this function.
+	 */
+	public TCompiled uncompiled();
+	
+	/**
+	 * Get the source code for this compiled function.
+	 * <p>
+	 * Useful mostly for debugging purposes, obviously...
+	 * 
+	 * @return The source code.
+	 */
+	public String source();
+	
+	/**
+	 * Get the layout of the input array read by this compiled function.
+	 * <p>
+	 * Slot <code>i</code> of the index gives the variable whose value is read
+	 * from element <code>i</code> of the <code>inputs</code> array passed to the
+	 * <code>value(double[])</code> method of the compiled function.
+	 * 
+	 * @return The variable index.
+	 */
+	public VariableIndex variableIndex();
+
+}
@@ -0,0 +1,65 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * A compiled function that evaluates the value, gradient and Hessian of a
+ * differentiable together.
+ * <p>
+ * All three are computed by a single generated method, so intermediate
+ * results common to them - in particular the primal subexpressions, on which
+ * every derivative depends - are computed once rather than three times.
+ */
+public interface CompiledDerivatives
+	extends Compiled<Hessian>
+{
+
+	/**
+	 * Evaluate the value, gradient and Hessian, reading variable values
+	 * directly from the specified input array.
+	 * <p>
+	 * This method allocates nothing, so it is suitable for tight loops that
+	 * reuse their buffers.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @param gradient The array into which to write the components of the
+	 *            gradient, laid out by {@link #componentIndex()}.
+	 * @param hessian The array into which to write the packed upper triangle
+	 *            of the Hessian, laid out by
+	 *            {@link VariableIndex#packedSlot(int, int)} of
+	 *            {@link #componentIndex()}.
+	 * @return The value.
+	 */
+	public double value(double[] inputs, double[] gradient, double[] hessian);
+
+	/**
+	 * Get the layout of the components of the gradient and Hessian in the
+	 * arrays of {@link #value(double[], double[], double[])}.
+	 * 
+	 * @return The component index.
+	 */
+	public VariableIndex componentIndex();
+
+}
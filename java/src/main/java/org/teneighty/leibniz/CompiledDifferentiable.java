@@ -1,34 +1,68 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz;
-
-
-/**
- * A compiled differentiable function.
- */
-public interface CompiledDifferentiable
-	extends Differentiable, Compiled<Differentiable>
-{
-	
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * A compiled differentiable function.
+ */
+public interface CompiledDifferentiable
+	extends Differentiable, Compiled<Differentiable>
+{
+	
+	/**
+	 * Get the value of this function, reading variable values directly from
+	 * the specified array.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @return The value.
+	 */
+	public double value(double[] inputs);
+	
+	/**
+	 * Evaluate this function over a batch of assignments.
+	 * <p>
+	 * Inputs are given by column: the value of the variable in slot
+	 * <code>i</code> of {@link #variableIndex()} for row <code>r</code> is
+	 * <code>inputs[i][r]</code>. The value for row <code>r</code> is written to
+	 * <code>outputs[r]</code>. Only rows <code>from</code> (inclusive) through
+	 * <code>to</code> (exclusive) are read or written, so disjoint ranges of the
+	 * same batch may be evaluated concurrently. Each value is exactly that
+	 * returned by {@link #value(double[])} for the same row.
+	 * 
+	 * @param inputs The input columns.
+	 * @param outputs The output column.
+	 * @param from The first row, inclusive.
+	 * @param to The last row, exclusive.
+	 * @throws NullPointerException If <code>inputs</code>, any of its first
+	 *             {@link VariableIndex#size()} columns, or <code>outputs</code>
+	 *             is <code>null</code>.
+	 * @throws IllegalArgumentException If the range is invalid, or if
+	 *             <code>inputs</code> has too few columns or any column is
+	 *             too short.
+	 */
+	public void value(double[][] inputs, double[] outputs, int from, int to)
+		throws NullPointerException, IllegalArgumentException;
+	
+}
@@ -0,0 +1,53 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * Compiled directional derivatives.
+ * <p>
+ * The generated method is the vector forward sweep of
+ * {@link DirectionalDerivatives} unrolled over the expression graph, with one
+ * tangent local per node and direction.
+ */
+public interface CompiledDirectionalDerivatives
+	extends Compiled<DirectionalDerivatives>
+{
+
+	/**
+	 * Compute the value and the derivatives along the specified directions,
+	 * reading variable values directly from the specified input array.
+	 * <p>
+	 * This method allocates nothing.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @param directions The directions, laid out slot by slot as described by
+	 *            {@link DirectionalDerivatives}.
+	 * @param derivatives The array into which to write the derivative along
+	 *            each direction.
+	 * @return The value.
+	 */
+	public double value(double[] inputs, double[] directions, double[] derivatives);
+
+}
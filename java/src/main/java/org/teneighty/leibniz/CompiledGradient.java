@@ -1,34 +1,90 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz;
-
-
-/**
- * Compiled gradient.
- */
-public interface CompiledGradient
-	extends Gradient, Compiled<Gradient>
-{
-
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * Compiled gradient.
+ */
+public interface CompiledGradient
+	extends Gradient, Compiled<Gradient>
+{
+	
+	/**
+	 * Get the value of this gradient, reading variable values directly from
+	 * the specified array.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @return The value.
+	 */
+	public GradientValue value(double[] inputs);
+	
+	/**
+	 * Evaluate this gradient into the specified array, reading variable values
+	 * directly from the specified input array.
+	 * <p>
+	 * This method allocates nothing, so it is suitable for tight loops that
+	 * reuse their buffers.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @param outputs The array into which to write the components of the
+	 *            gradient, laid out by {@link #componentIndex()}.
+	 */
+	public void value(double[] inputs, double[] outputs);
+	
+	/**
+	 * Evaluate this gradient over a batch of assignments.
+	 * <p>
+	 * Inputs are given by column: the value of the variable in slot
+	 * <code>i</code> of {@link #variableIndex()} for row <code>r</code> is
+	 * <code>inputs[i][r]</code>. Outputs are written by column too: element
+	 * <code>j</code> of the <code>outputs</code> array of
+	 * {@link #value(double[], double[])} for row <code>r</code> is written to
+	 * <code>outputs[j][r]</code>, with <code>j</code> laid out by
+	 * {@link #componentIndex()}. Only rows <code>from</code> (inclusive) through
+	 * <code>to</code> (exclusive) are read or written, so disjoint ranges of the
+	 * same batch may be evaluated concurrently.
+	 * 
+	 * @param inputs The input columns.
+	 * @param outputs The output columns.
+	 * @param from The first row, inclusive.
+	 * @param to The last row, exclusive.
+	 * @throws NullPointerException If <code>inputs</code>,
+	 *             <code>outputs</code> or any of their required columns is
+	 *             <code>null</code>.
+	 * @throws IllegalArgumentException If the range is invalid, or if either
+	 *             array has too few columns or any column is too short.
+	 */
+	public void value(double[][] inputs, double[][] outputs, int from, int to)
+		throws NullPointerException, IllegalArgumentException;
+	
+	/**
+	 * Get the layout of the components of this gradient in the
+	 * <code>outputs</code> array of {@link #value(double[], double[])}.
+	 * 
+	 * @return The component index.
+	 */
+	public VariableIndex componentIndex();
+
+}
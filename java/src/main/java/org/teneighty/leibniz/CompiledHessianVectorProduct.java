@@ -0,0 +1,53 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * A compiled Hessian-vector product.
+ * <p>
+ * The generated method is the forward-over-reverse sweep of
+ * {@link HessianVectorProduct} unrolled over the expression graph, so its
+ * size is proportional to that of the graph rather than to that of the
+ * Hessian.
+ */
+public interface CompiledHessianVectorProduct
+	extends Compiled<HessianVectorProduct>
+{
+
+	/**
+	 * Compute the product of the Hessian with the specified direction,
+	 * reading variable values directly from the specified input array.
+	 * <p>
+	 * This method allocates nothing, so it is suitable for the inner loops of
+	 * truncated Newton and Krylov solvers.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @param direction The direction, laid out by {@link #variableIndex()}.
+	 * @param result The array into which to write the product, laid out by
+	 *            {@link #variableIndex()}.
+	 */
+	public void value(double[] inputs, double[] direction, double[] result);
+
+}
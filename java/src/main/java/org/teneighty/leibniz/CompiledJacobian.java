@@ -0,0 +1,61 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * A compiled Jacobian, which evaluates the outputs of a
+ * {@link DifferentiableVector} and the structurally nonzero entries of their
+ * Jacobian together.
+ * <p>
+ * All outputs and entries are computed by a single generated method, so
+ * intermediate results common to any of them are computed once.
+ */
+public interface CompiledJacobian
+	extends Compiled<Jacobian>
+{
+
+	/**
+	 * Evaluate the outputs and the Jacobian, reading variable values directly
+	 * from the specified input array.
+	 * <p>
+	 * This method allocates nothing, so it is suitable for tight loops that
+	 * reuse their buffers.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @param outputs The array into which to write the value of each output.
+	 * @param jacobian The array into which to write the nonzero entries of the
+	 *            Jacobian, laid out by {@link #sparsity()}.
+	 */
+	public void value(double[] inputs, double[] outputs, double[] jacobian);
+
+	/**
+	 * Get the layout of the entries in the Jacobian array of
+	 * {@link #value(double[], double[], double[])}.
+	 * 
+	 * @return The pattern.
+	 */
+	public JacobianPattern sparsity();
+
+}
@@ -0,0 +1,461 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Policy and bookkeeping for the derivative caches of
+ * {@link AbstractDifferentiable}.
+ * <p>
+ * Every differentiable caches its first order derivatives by variable, so
+ * that repeated differentiation (as done by gradients and Hessians) shares
+ * work. How strongly those derivatives are held is governed by a global
+ * {@link Policy}:
+ * <ul>
+ * <li>{@link Policy#STRONG} keeps every derivative for as long as the
+ * differentiable itself is reachable. This is the default.</li>
+ * <li>{@link Policy#SOFT} and {@link Policy#WEAK} hold derivatives through
+ * soft and weak references, respectively, so they can be reclaimed by the
+ * garbage collector (and are rebuilt if requested again).</li>
+ * <li>{@link Policy#BOUNDED} holds derivatives strongly, but caps the total
+ * number of cached derivatives across all differentiables, evicting the
+ * oldest first.</li>
+ * </ul>
+ * The policy can be set with {@link #setPolicy(Policy)} or the system property
+ * <code>org.teneighty.leibniz.derivativeCachePolicy</code>; the bound with
+ * {@link #setMaximumSize(int)} or
+ * <code>org.teneighty.leibniz.derivativeCacheSize</code>. An unrecognized
+ * policy name in the system property is ignored in favor of the default. A
+ * change of policy applies to derivatives cached from then on.
+ * <p>
+ * {@link #retainedSize(Differentiable)} measures how much of a derivative graph
+ * a differentiable keeps reachable. This class is safe for use by multiple
+ * threads and cannot be instantiated.
+ */
+public final class DerivativeCache
+{
+
+	/**
+	 * Derivative caching policies.
+	 */
+	public static enum Policy
+	{
+
+		/**
+		 * Hold derivatives strongly.
+		 */
+		STRONG,
+
+		/**
+		 * Hold derivatives softly.
+		 */
+		SOFT,
+
+		/**
+		 * Hold derivatives weakly.
+		 */
+		WEAK,
+
+		/**
+		 * Hold derivatives strongly, up to a global maximum count.
+		 */
+		BOUNDED;
+
+	}
+
+	/**
+	 * The system property naming the policy.
+	 */
+	public static final String POLICY_PROPERTY = "org.teneighty.leibniz.derivativeCachePolicy";
+
+	/**
+	 * The system property giving the maximum size of the bounded policy.
+	 */
+	public static final String SIZE_PROPERTY = "org.teneighty.leibniz.derivativeCacheSize";
+
+	/**
+	 * The default maximum size of the bounded policy.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 100000;
+
+	/**
+	 * The policy.
+	 */
+	private static volatile Policy policy = parsePolicy(System.getProperty(POLICY_PROPERTY));
+
+	/**
+	 * The maximum size of the bounded policy.
+	 */
+	private static volatile int maximumSize = Integer.getInteger(SIZE_PROPERTY, DEFAULT_MAXIMUM_SIZE).intValue();
+
+	/**
+	 * Derivatives cached under the bounded policy, oldest first.
+	 */
+	private static final ConcurrentLinkedQueue<Entry> BOUNDED = new ConcurrentLinkedQueue<Entry>();
+
+	/**
+	 * The number of derivatives in {@link #BOUNDED}.
+	 */
+	private static final AtomicInteger SIZE = new AtomicInteger();
+
+	/**
+	 * The number of evictions.
+	 */
+	private static final AtomicLong EVICTIONS = new AtomicLong();
+
+	/**
+	 * Parse the specified policy name.
+	 * 
+	 * @param name The name; may be <code>null</code>.
+	 * @return The policy, or {@link Policy#STRONG} if <code>name</code> is
+	 *         <code>null</code> or names no policy.
+	 */
+	static Policy parsePolicy(final String name)
+	{
+		if(name == null)
+		{
+			return Policy.STRONG;
+		}
+
+		try
+		{
+			return Policy.valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+		}
+		catch(final IllegalArgumentException e)
+		{
+			return Policy.STRONG;
+		}
+	}
+
+	/**
+	 * Get the policy.
+	 * 
+	 * @return The policy.
+	 */
+	public static Policy policy()
+	{
+		return policy;
+	}
+
+	/**
+	 * Set the policy.
+	 * 
+	 * @param policy The policy.
+	 * @throws NullPointerException If <code>policy</code> is <code>null</code>.
+	 */
+	public static void setPolicy(final Policy policy)
+		throws NullPointerException
+	{
+		if(policy == null)
+		{
+			throw new NullPointerException("policy");
+		}
+
+		DerivativeCache.policy = policy;
+	}
+
+	/**
+	 * Get the maximum number of derivatives cached under the bounded policy.
+	 * 
+	 * @return The maximum size.
+	 */
+	public static int maximumSize()
+	{
+		return maximumSize;
+	}
+
+	/**
+	 * Set the maximum number of derivatives cached under the bounded policy,
+	 * evicting derivatives as necessary.
+	 * 
+	 * @param maximumSize The maximum size.
+	 * @throws IllegalArgumentException If <code>maximumSize</code> is negative.
+	 */
+	public static void setMaximumSize(final int maximumSize)
+		throws IllegalArgumentException
+	{
+		if(maximumSize < 0)
+		{
+			String message = String.format("Illegal maximum size: %1$d", Integer.valueOf(maximumSize));
+			throw new IllegalArgumentException(message);
+		}
+
+		DerivativeCache.maximumSize = maximumSize;
+		evict();
+	}
+
+	/**
+	 * Get the number of derivatives currently cached under the bounded policy.
+	 * 
+	 * @return The size.
+	 */
+	public static int size()
+	{
+		return SIZE.get();
+	}
+
+	/**
+	 * Get the number of derivatives evicted under the bounded policy.
+	 * 
+	 * @return The eviction count.
+	 */
+	public static long evictions()
+	{
+		return EVICTIONS.get();
+	}
+
+	/**
+	 * Count the distinct differentiables reachable from the specified
+	 * differentiable through arguments and cached derivatives, i.e. the size
+	 * of the graph it keeps alive.
+	 * 
+	 * @param differentiable The differentiable.
+	 * @return The number of distinct differentiables, including
+	 *         <code>differentiable</code> itself.
+	 * @throws NullPointerException If <code>differentiable</code> is
+	 *             <code>null</code>.
+	 */
+	public static int retainedSize(final Differentiable differentiable)
+		throws NullPointerException
+	{
+		if(differentiable == null)
+		{
+			throw new NullPointerException("differentiable");
+		}
+
+		Map<Differentiable, Boolean> visited = new IdentityHashMap<Differentiable, Boolean>();
+		Deque<Differentiable> pending = new ArrayDeque<Differentiable>();
+		pending.push(differentiable);
+
+		while(pending.isEmpty() == false)
+		{
+			Differentiable current = pending.pop();
+			if(visited.put(current, Boolean.TRUE) != null)
+			{
+				continue;
+			}
+
+			if(current instanceof AbstractComposedDifferentiable)
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)current;
+				for(int index = 0; index < composed.argumentCount(); index++)
+				{
+					pending.push(composed.argument(index));
+				}
+			}
+
+			if(current instanceof AbstractDifferentiable)
+			{
+				for(Differentiable derivative : ((AbstractDifferentiable)current).cachedDerivatives())
+				{
+					pending.push(derivative);
+				}
+			}
+		}
+
+		return visited.size();
+	}
+
+	/**
+	 * Get the derivative stored in a cache value.
+	 * 
+	 * @param value The cache value; may be <code>null</code>.
+	 * @return The derivative, or <code>null</code> if there is none or it has
+	 *         been reclaimed.
+	 */
+	@SuppressWarnings("unchecked")
+	static Differentiable resolve(final Object value)
+	{
+		if(value instanceof Reference<?>)
+		{
+			return ((Reference<Differentiable>)value).get();
+		}
+
+		return (Differentiable)value;
+	}
+
+	/**
+	 * Resolve all derivatives in the specified cache values.
+	 * 
+	 * @param values The cache values.
+	 * @param derivatives The collection to which to add the derivatives.
+	 */
+	static void resolveAll(final Collection<Object> values, final Collection<Differentiable> derivatives)
+	{
+		for(Object value : values)
+		{
+			Differentiable derivative = resolve(value);
+			if(derivative != null)
+			{
+				derivatives.add(derivative);
+			}
+		}
+	}
+
+	/**
+	 * Publish a derivative into the cache of the specified differentiable
+	 * under the current policy.
+	 * <p>
+	 * If another derivative is already cached for the variable, it is returned
+	 * instead, so that all callers see the same derivative.
+	 * 
+	 * @param owner The differentiable.
+	 * @param variable The variable.
+	 * @param derivative The derivative.
+	 * @return The published derivative.
+	 */
+	static Differentiable publish(final AbstractDifferentiable owner, final Variable variable, final Differentiable derivative)
+	{
+		Policy current = policy;
+
+		Object value;
+		switch(current)
+		{
+			case SOFT:
+				value = new SoftReference<Differentiable>(derivative);
+				break;
+			case WEAK:
+				value = new WeakReference<Differentiable>(derivative);
+				break;
+			default:
+				value = derivative;
+				break;
+		}
+
+		while(true)
+		{
+			if(owner.replaceCached(variable, null, value))
+			{
+				break;
+			}
+
+			Object existing = owner.cached(variable);
+			Differentiable published = resolve(existing);
+			if(published != null)
+			{
+				return published;
+			}
+
+			if(existing != null && owner.replaceCached(variable, existing, value))
+			{
+				break;
+			}
+		}
+
+		if(current == Policy.BOUNDED)
+		{
+			BOUNDED.add(new Entry(owner, variable, value));
+			SIZE.incrementAndGet();
+			evict();
+		}
+
+		return derivative;
+	}
+
+	/**
+	 * Evict the oldest bounded derivatives until the size is within bounds.
+	 */
+	private static void evict()
+	{
+		while(SIZE.get() > maximumSize)
+		{
+			Entry entry = BOUNDED.poll();
+			if(entry == null)
+			{
+				return;
+			}
+
+			SIZE.decrementAndGet();
+
+			// the derivative may since have been evicted and republished, in
+			// which case the entry is stale and the new derivative stays.
+			AbstractDifferentiable owner = entry.get();
+			Object value = entry.value.get();
+			if(owner != null && value != null && owner.replaceCached(entry.variable, value, null))
+			{
+				EVICTIONS.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * Here only for access protection.
+	 */
+	private DerivativeCache()
+	{
+	}
+
+	/**
+	 * A derivative cached under the bounded policy.
+	 * <p>
+	 * The differentiable that owns the cache is held weakly, so that tracking
+	 * a derivative does not keep it alive.
+	 */
+	private static final class Entry
+		extends WeakReference<AbstractDifferentiable>
+	{
+
+		/**
+		 * The variable.
+		 */
+		final Variable variable;
+
+		/**
+		 * The cache value published, held weakly too.
+		 */
+		final WeakReference<Object> value;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param owner The differentiable that owns the cache.
+		 * @param variable The variable.
+		 * @param value The cache value published.
+		 */
+		Entry(final AbstractDifferentiable owner, final Variable variable, final Object value)
+		{
+			super(owner);
+
+			this.variable = variable;
+			this.value = new WeakReference<Object>(value);
+		}
+
+	}
+
+}
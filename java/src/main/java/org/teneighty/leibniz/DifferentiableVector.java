@@ -0,0 +1,218 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * A vector-valued function: an ordered list of differentiables, the outputs,
+ * over a common set of variables.
+ * <p>
+ * Outputs typically share subexpressions (residuals of one model, say); the
+ * {@link Jacobian} of a vector flattens all outputs into one expression graph,
+ * so shared nodes are evaluated and differentiated once for all outputs.
+ */
+public final class DifferentiableVector
+{
+
+	/**
+	 * The outputs.
+	 */
+	private final Differentiable[] outputs;
+
+	/**
+	 * The variables of all outputs.
+	 */
+	private final Set<Variable> variables;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param outputs The outputs.
+	 * @throws NullPointerException If <code>outputs</code> or any element
+	 *             thereof is <code>null</code>.
+	 * @throws IllegalArgumentException If <code>outputs</code> is empty.
+	 */
+	public DifferentiableVector(final Differentiable... outputs)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(outputs == null)
+		{
+			throw new NullPointerException("outputs");
+		}
+
+		if(outputs.length == 0)
+		{
+			throw new IllegalArgumentException("No outputs");
+		}
+
+		this.outputs = outputs.clone();
+
+		Set<Variable> union = new HashSet<Variable>();
+		for(Differentiable output : this.outputs)
+		{
+			if(output == null)
+			{
+				throw new NullPointerException("outputs");
+			}
+
+			union.addAll(output.variables());
+		}
+
+		this.variables = Collections.unmodifiableSet(union);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param outputs The outputs.
+	 * @throws NullPointerException If <code>outputs</code> or any element
+	 *             thereof is <code>null</code>.
+	 * @throws IllegalArgumentException If <code>outputs</code> is empty.
+	 */
+	public DifferentiableVector(final List<? extends Differentiable> outputs)
+		throws NullPointerException, IllegalArgumentException
+	{
+		this(outputs.toArray(new Differentiable[outputs.size()]));
+	}
+
+	/**
+	 * Get the number of outputs.
+	 * 
+	 * @return The size.
+	 */
+	public int size()
+	{
+		return outputs.length;
+	}
+
+	/**
+	 * Get the specified output.
+	 * 
+	 * @param output The index of the output.
+	 * @return The output.
+	 * @throws IndexOutOfBoundsException If <code>output</code> is out of range.
+	 */
+	public Differentiable output(final int output)
+		throws IndexOutOfBoundsException
+	{
+		return outputs[output];
+	}
+
+	/**
+	 * Get the outputs.
+	 * 
+	 * @return An unmodifiable list of the outputs.
+	 */
+	public List<Differentiable> outputs()
+	{
+		return Collections.unmodifiableList(Arrays.asList(outputs));
+	}
+
+	/**
+	 * Get the variables of all outputs.
+	 * 
+	 * @return An unmodifiable set of the variables.
+	 */
+	public Set<Variable> variables()
+	{
+		return variables;
+	}
+
+	/**
+	 * Get the value of each output given the specified assignment.
+	 * 
+	 * @param assignment The assignment.
+	 * @return The values, in output order.
+	 */
+	public double[] value(final Assignment assignment)
+	{
+		double[] values = new double[outputs.length];
+		for(int output = 0; output < outputs.length; output++)
+		{
+			values[output] = outputs[output].value(assignment);
+		}
+
+		return values;
+	}
+
+	/**
+	 * Get the Jacobian of this vector with respect to all of its variables.
+	 * 
+	 * @return The Jacobian.
+	 */
+	public Jacobian jacobian()
+	{
+		return new Jacobian(this);
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+
+		if(other == this)
+		{
+			return true;
+		}
+
+		if(other instanceof DifferentiableVector)
+		{
+			DifferentiableVector that = (DifferentiableVector)other;
+			return Arrays.equals(outputs, that.outputs);
+		}
+
+		return false;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return Arrays.hashCode(outputs);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return Arrays.toString(outputs);
+	}
+
+}
@@ -0,0 +1,275 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Set;
+
+import org.teneighty.leibniz.compilation.Compiler;
+
+
+/**
+ * The derivatives of a differentiable along several directions at once,
+ * computed in vector forward mode.
+ * <p>
+ * A single sweep over the expression graph computes the value of every node
+ * together with its derivative along each direction (a dual number with
+ * several tangents), using the local partials of each node. No derivative
+ * graph is ever built, so this is the cheapest way to get directional
+ * derivatives, and, with one direction per variable, the gradient of a
+ * function with few variables but many intermediates (see
+ * {@link Mode#FORWARD}).
+ * <p>
+ * Directions are laid out slot by slot: the component of direction
+ * <code>d</code> for the variable in slot <code>s</code> of {@link #index()}
+ * is element <code>(s * count) + d</code> of the directions array, where
+ * <code>count</code> is {@link #count()}.
+ */
+public final class DirectionalDerivatives
+{
+
+	/**
+	 * The differentiable.
+	 */
+	private final Differentiable differentiable;
+
+	/**
+	 * The number of directions.
+	 */
+	private final int count;
+
+	/**
+	 * The flattened expression graph.
+	 */
+	private final Tape tape;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param differentiable The differentiable.
+	 * @param count The number of directions.
+	 * @throws NullPointerException If <code>differentiable</code> is
+	 *             <code>null</code>.
+	 * @throws IllegalArgumentException If <code>count</code> is less than one.
+	 */
+	public DirectionalDerivatives(final Differentiable differentiable, final int count)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(differentiable == null)
+		{
+			throw new NullPointerException("differentiable");
+		}
+
+		if(count < 1)
+		{
+			String message = String.format("Expected at least one direction but got %1$s", count);
+			throw new IllegalArgumentException(message);
+		}
+
+		this.differentiable = differentiable;
+		this.count = count;
+
+		tape = new Tape(differentiable);
+	}
+
+	/**
+	 * Get the differentiable.
+	 * 
+	 * @return The differentiable.
+	 */
+	public Differentiable differentiable()
+	{
+		return differentiable;
+	}
+
+	/**
+	 * Get the number of directions.
+	 * 
+	 * @return The count.
+	 */
+	public int count()
+	{
+		return count;
+	}
+
+	/**
+	 * Get the variables.
+	 * 
+	 * @return The variables.
+	 */
+	public Set<Variable> variables()
+	{
+		return differentiable.variables();
+	}
+
+	/**
+	 * Get the layout of the inputs and directions: the variables, sorted by
+	 * name.
+	 * 
+	 * @return The index.
+	 */
+	public VariableIndex index()
+	{
+		return tape.index();
+	}
+
+	/**
+	 * Compute the derivatives along the specified directions at the specified
+	 * assignment.
+	 * 
+	 * @param assignment The assignment.
+	 * @param directions The directions, exactly {@link #count()} of them; the
+	 *            component of each for each variable is read through
+	 *            {@link GradientValue#value(Variable)}.
+	 * @return The derivative along each direction.
+	 * @throws NullPointerException If either argument is <code>null</code>.
+	 * @throws IllegalArgumentException If the number of directions is wrong.
+	 */
+	public double[] value(final Assignment assignment, final GradientValue... directions)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(directions == null)
+		{
+			throw new NullPointerException("directions");
+		}
+
+		if(directions.length != count)
+		{
+			String message = String.format("Expected %1$s directions but got %2$s", count, directions.length);
+			throw new IllegalArgumentException(message);
+		}
+
+		VariableIndex index = tape.index();
+		double[] seeds = new double[index.size() * count];
+		for(int slot = 0; slot < index.size(); slot++)
+		{
+			for(int direction = 0; direction < count; direction++)
+			{
+				seeds[(slot * count) + direction] = directions[direction].value(index.variable(slot));
+			}
+		}
+
+		double[] derivatives = new double[count];
+		value(index.values(assignment), seeds, derivatives);
+
+		return derivatives;
+	}
+
+	/**
+	 * Compute the value and the derivatives along the specified directions,
+	 * reading variable values directly from the specified input array.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #index()}.
+	 * @param directions The directions, laid out slot by slot.
+	 * @param derivatives The array into which to write the derivative along
+	 *            each direction.
+	 * @return The value.
+	 * @throws NullPointerException If any array is <code>null</code>.
+	 * @throws IllegalArgumentException If any array has the wrong length.
+	 */
+	public double value(final double[] inputs, final double[] directions, final double[] derivatives)
+		throws NullPointerException, IllegalArgumentException
+	{
+		VariableIndex index = tape.index();
+		check(inputs, "inputs", index.size());
+		check(directions, "directions", index.size() * count);
+		check(derivatives, "derivatives", count);
+
+		double[] values = new double[tape.size()];
+		double[] tangents = new double[tape.size() * count];
+		tape.forward(inputs, directions, count, values, tangents);
+
+		System.arraycopy(tangents, tape.root() * count, derivatives, 0, count);
+		return values[tape.root()];
+	}
+
+	/**
+	 * Compile these derivatives.
+	 * 
+	 * @return Compiled derivatives.
+	 */
+	public CompiledDirectionalDerivatives compile()
+	{
+		return Compiler.compile(this);
+	}
+
+	/**
+	 * Check the length of an array argument.
+	 * 
+	 * @param array The array.
+	 * @param name The name of the argument.
+	 * @param length The expected length.
+	 * @throws NullPointerException If <code>array</code> is <code>null</code>.
+	 * @throws IllegalArgumentException If <code>array</code> has a different
+	 *             length.
+	 */
+	private static void check(final double[] array, final String name, final int length)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(array == null)
+		{
+			throw new NullPointerException(name);
+		}
+
+		if(array.length != length)
+		{
+			String message = String.format("Expected %1$s of length %2$s but got %3$s", name, length, array.length);
+			throw new IllegalArgumentException(message);
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+
+		if(other == this)
+		{
+			return true;
+		}
+
+		if(other instanceof DirectionalDerivatives)
+		{
+			DirectionalDerivatives that = (DirectionalDerivatives)other;
+			return (count == that.count) && differentiable.equals(that.differentiable);
+		}
+
+		return false;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return (31 * differentiable.hashCode()) + count;
+	}
+
+}
@@ -0,0 +1,166 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Set;
+
+
+/**
+ * Forward mode gradient implementation.
+ * <p>
+ * All components are computed in one vector forward sweep over the
+ * expression graph, with one tangent per variable (see
+ * {@link DirectionalDerivatives}). The cost grows with the number of
+ * variables but not with the size of their symbolic derivatives, so this
+ * suits functions of few variables with many intermediates.
+ * <p>
+ * Component differentiables are still available (they are simply the symbolic
+ * derivatives, built lazily), so this class is a drop-in replacement for
+ * {@link DefaultGradient}.
+ */
+public class ForwardGradient
+	extends AbstractGradient
+{
+
+	/**
+	 * The differentiable.
+	 */
+	private final Differentiable differentiable;
+
+	/**
+	 * The variables.
+	 */
+	private final Set<Variable> variables;
+
+	/**
+	 * The flattened expression graph.
+	 */
+	private final Tape tape;
+
+	/**
+	 * The variables of the gradient that appear in the graph, one per
+	 * direction.
+	 */
+	private final Variable[] seeded;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param differentiable The differentiable.
+	 * @param variables The variables.
+	 */
+	public ForwardGradient(final Differentiable differentiable,
+			final Set<Variable> variables)
+	{
+		this.differentiable = differentiable;
+		this.variables = variables;
+		this.tape = new Tape(differentiable);
+
+		int count = 0;
+		Variable[] present = new Variable[variables.size()];
+		for(Variable variable : variables)
+		{
+			if(tape.register(variable) >= 0)
+			{
+				present[count] = variable;
+				count += 1;
+			}
+		}
+
+		seeded = new Variable[count];
+		System.arraycopy(present, 0, seeded, 0, count);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#value(org.teneighty.leibniz.Assignment)
+	 */
+	@Override
+	public GradientValue value(final Assignment assignment)
+	{
+		MutableGradientValue value = new MutableGradientValue();
+		for(Variable variable : variables)
+		{
+			value.set(variable, 0d);
+		}
+
+		int count = seeded.length;
+		if(count == 0)
+		{
+			return value;
+		}
+
+		// one unit direction per seeded variable.
+		VariableIndex index = tape.index();
+		double[] directions = new double[index.size() * count];
+		for(int direction = 0; direction < count; direction++)
+		{
+			directions[(index.slot(seeded[direction]) * count) + direction] = 1d;
+		}
+
+		double[] values = new double[tape.size()];
+		double[] tangents = new double[tape.size() * count];
+		tape.forward(index.values(assignment), directions, count, values, tangents);
+
+		int root = tape.root() * count;
+		for(int direction = 0; direction < count; direction++)
+		{
+			value.set(seeded[direction], tangents[root + direction]);
+		}
+
+		return value;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#differentiable()
+	 */
+	@Override
+	public Differentiable differentiable()
+	{
+		return differentiable;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#variables()
+	 */
+	@Override
+	public Set<Variable> variables()
+	{
+		return variables;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#component(org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	public Differentiable component(final Variable variable)
+	{
+		if(variables.contains(variable) == false)
+		{
+			return null;
+		}
+
+		return differentiable.derivative(variable);
+	}
+
+}
@@ -0,0 +1,549 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Iterative algorithms over expression graphs.
+ * <p>
+ * Every algorithm here walks the graph with an explicit work stack and visits
+ * each shared subgraph once, so graph depth is limited only by the heap and
+ * the cost is linear in the number of distinct nodes. Only the arguments of
+ * {@link AbstractComposedDifferentiable}s are traversed; every other
+ * differentiable is a leaf, and is asked directly for its value, derivative,
+ * and so on. This class cannot be instantiated.
+ */
+final class Graphs
+{
+
+	/**
+	 * The largest expression tree evaluated recursively.
+	 */
+	static final int SMALL = 64;
+
+	/**
+	 * Get the distinct nodes of the specified graph in post-order, i.e. every
+	 * node after all of its arguments and the root last.
+	 * 
+	 * @param root The root of the graph.
+	 * @return The nodes.
+	 */
+	static List<Differentiable> postOrder(final Differentiable root)
+	{
+		List<Differentiable> order = new ArrayList<Differentiable>();
+		Map<Differentiable, Boolean> visited = new IdentityHashMap<Differentiable, Boolean>();
+
+		// a node is emitted only once all of its arguments have been.
+		List<Differentiable> stack = new ArrayList<Differentiable>();
+		stack.add(root);
+		while(stack.isEmpty() == false)
+		{
+			Differentiable node = stack.get(stack.size() - 1);
+			if(visited.containsKey(node))
+			{
+				stack.remove(stack.size() - 1);
+				continue;
+			}
+
+			boolean ready = true;
+			if(node instanceof AbstractComposedDifferentiable)
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+				for(int index = composed.argumentCount() - 1; index >= 0; index--)
+				{
+					Differentiable argument = composed.argument(index);
+					if(visited.containsKey(argument) == false)
+					{
+						stack.add(argument);
+						ready = false;
+					}
+				}
+			}
+
+			if(ready)
+			{
+				stack.remove(stack.size() - 1);
+				visited.put(node, Boolean.TRUE);
+				order.add(node);
+			}
+		}
+
+		return order;
+	}
+
+	/**
+	 * Evaluate the specified graph.
+	 * <p>
+	 * Graphs whose expression tree has at most {@link #SMALL} nodes are
+	 * evaluated as trees, recursively; the size of the tree bounds both the
+	 * work and the depth of the recursion. Functions that do not implement
+	 * {@link AbstractComposedDifferentiable#evaluate(double[])} are opaque, and
+	 * are evaluated with their own {@link Differentiable#value(Assignment)}.
+	 * 
+	 * @param root The root of the graph.
+	 * @param assignment The assignment.
+	 * @return The value.
+	 */
+	static double value(final AbstractComposedDifferentiable root, final Assignment assignment)
+	{
+		if(root.isTransparent() == false)
+		{
+			// an opaque root without a value method of its own.
+			double[] argumentValues = new double[root.argumentCount()];
+			for(int index = 0; index < argumentValues.length; index++)
+			{
+				argumentValues[index] = root.argument(index).value(assignment);
+			}
+
+			return root.evaluate(argumentValues);
+		}
+		
+		if(root.size() <= SMALL)
+		{
+			return evaluate(root, assignment);
+		}
+		
+		Map<Differentiable, Double> values = new IdentityHashMap<Differentiable, Double>();
+		double value = 0d;
+		for(Differentiable node : postOrder(root))
+		{
+			if(isTransparent(node))
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+				double[] argumentValues = new double[composed.argumentCount()];
+				for(int index = 0; index < argumentValues.length; index++)
+				{
+					argumentValues[index] = values.get(composed.argument(index)).doubleValue();
+				}
+
+				value = composed.evaluate(argumentValues);
+			}
+			else
+			{
+				value = node.value(assignment);
+			}
+
+			values.put(node, Double.valueOf(value));
+		}
+
+		return value;
+	}
+
+	/**
+	 * Check if the specified node is a function that can be evaluated from the
+	 * values of its arguments.
+	 * 
+	 * @param node The node.
+	 * @return <code>true</code> if so; <code>false</code> otherwise.
+	 */
+	static boolean isTransparent(final Differentiable node)
+	{
+		return (node instanceof AbstractComposedDifferentiable) && ((AbstractComposedDifferentiable)node).isTransparent();
+	}
+
+	/**
+	 * Evaluate the specified expression tree recursively.
+	 * 
+	 * @param node The root of the tree.
+	 * @param assignment The assignment.
+	 * @return The value.
+	 */
+	private static double evaluate(final Differentiable node, final Assignment assignment)
+	{
+		if(isTransparent(node))
+		{
+			AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+			double[] argumentValues = new double[composed.argumentCount()];
+			for(int index = 0; index < argumentValues.length; index++)
+			{
+				argumentValues[index] = evaluate(composed.argument(index), assignment);
+			}
+
+			return composed.evaluate(argumentValues);
+		}
+
+		return node.value(assignment);
+	}
+
+	/**
+	 * Differentiate the specified graph, bottom up.
+	 * <p>
+	 * Every node is differentiated after all of its arguments, so the
+	 * {@link AbstractDifferentiable#derivativeCore(Variable)} of each node
+	 * finds the derivatives of its arguments already cached and never recurses
+	 * more than one level. The walk does not descend into functions that do
+	 * not depend on the variable, nor into nodes whose derivative is already
+	 * cached, so its cost is proportional to the part of the graph that has
+	 * yet to be differentiated.
+	 * 
+	 * @param root The root of the graph.
+	 * @param withRespectTo The variable.
+	 * @return The derivative of the root.
+	 */
+	static Differentiable derivative(final Differentiable root, final Variable withRespectTo)
+	{
+		// the derivatives are held here too, so that softly or weakly cached
+		// ones survive until their parents have been differentiated.
+		Map<Differentiable, Differentiable> derivatives = new IdentityHashMap<Differentiable, Differentiable>();
+
+		List<Differentiable> stack = new ArrayList<Differentiable>();
+		stack.add(root);
+		while(stack.isEmpty() == false)
+		{
+			Differentiable node = stack.get(stack.size() - 1);
+			if(derivatives.containsKey(node))
+			{
+				stack.remove(stack.size() - 1);
+				continue;
+			}
+
+			Differentiable derivative = null;
+			if(node instanceof AbstractComposedDifferentiable)
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+				derivative = composed.dependsOn(withRespectTo) ? composed.cachedDerivative(withRespectTo) : Constant.ZERO;
+				if(derivative == null)
+				{
+					boolean ready = true;
+					for(int index = composed.argumentCount() - 1; index >= 0; index--)
+					{
+						Differentiable argument = composed.argument(index);
+						if(derivatives.containsKey(argument) == false)
+						{
+							stack.add(argument);
+							ready = false;
+						}
+					}
+
+					if(ready == false)
+					{
+						continue;
+					}
+
+					derivative = composed.differentiate(withRespectTo);
+				}
+			}
+			else if(node instanceof AbstractDifferentiable)
+			{
+				derivative = ((AbstractDifferentiable)node).differentiate(withRespectTo);
+			}
+			else
+			{
+				derivative = node.derivative(withRespectTo);
+			}
+
+			stack.remove(stack.size() - 1);
+			derivatives.put(node, derivative);
+		}
+
+		return derivatives.get(root);
+	}
+
+	/**
+	 * Check if the specified graphs are structurally equal.
+	 * <p>
+	 * Pairs of nodes are compared from the roots down, skipping identical
+	 * nodes and pairs already compared, and rejecting pairs whose cached hash
+	 * codes differ. The arguments of commutative nodes are paired up by
+	 * identity or else by hash code; where they could still match either way
+	 * round, both sides are numbered by structure instead (see
+	 * {@link #identify(Differentiable, Map, Map)}) and compared by number.
+	 * 
+	 * @param first The first root.
+	 * @param second The second root.
+	 * @return <code>true</code> if equal; <code>false</code> otherwise.
+	 */
+	static boolean equal(final Differentiable first, final Differentiable second)
+	{
+		Map<Differentiable, Differentiable> compared = new IdentityHashMap<Differentiable, Differentiable>();
+		Map<Object, Integer> structures = null;
+		Map<Differentiable, Integer> identities = null;
+
+		List<Differentiable> stack = new ArrayList<Differentiable>();
+		stack.add(first);
+		stack.add(second);
+		while(stack.isEmpty() == false)
+		{
+			Differentiable right = stack.remove(stack.size() - 1);
+			Differentiable left = stack.remove(stack.size() - 1);
+			if(left == right)
+			{
+				continue;
+			}
+
+			if((left instanceof AbstractComposedDifferentiable) == false || (right instanceof AbstractComposedDifferentiable) == false)
+			{
+				if(left.equals(right) == false)
+				{
+					return false;
+				}
+
+				continue;
+			}
+
+			AbstractComposedDifferentiable leftComposed = (AbstractComposedDifferentiable)left;
+			AbstractComposedDifferentiable rightComposed = (AbstractComposedDifferentiable)right;
+			if(compared.get(left) == right)
+			{
+				continue;
+			}
+
+			if(leftComposed.isDistinctCanonical(right) || shallowEqual(leftComposed, rightComposed) == false)
+			{
+				return false;
+			}
+
+			compared.put(left, right);
+			int count = leftComposed.argumentCount();
+			if(leftComposed.isCommutative() && count == 2)
+			{
+				Differentiable left0 = leftComposed.argument(0);
+				Differentiable left1 = leftComposed.argument(1);
+				Differentiable right0 = rightComposed.argument(0);
+				Differentiable right1 = rightComposed.argument(1);
+				boolean straight = (left0 == right0 || left1 == right1);
+				boolean crossed = (straight == false) && (left0 == right1 || left1 == right0);
+				if(straight == false && crossed == false)
+				{
+					// go by hash codes; equal arguments have equal ones.
+					straight = (left0.hashCode() == right0.hashCode()) && (left1.hashCode() == right1.hashCode());
+					crossed = (left0.hashCode() == right1.hashCode()) && (left1.hashCode() == right0.hashCode());
+					if(straight == false && crossed == false)
+					{
+						return false;
+					}
+				}
+
+				if(straight && crossed)
+				{
+					// either way round might match; number both sides.
+					if(structures == null)
+					{
+						structures = new HashMap<Object, Integer>();
+						identities = new IdentityHashMap<Differentiable, Integer>();
+					}
+
+					if(identify(left, structures, identities) != identify(right, structures, identities))
+					{
+						return false;
+					}
+				}
+				else if(straight)
+				{
+					stack.add(left0);
+					stack.add(right0);
+					stack.add(left1);
+					stack.add(right1);
+				}
+				else
+				{
+					stack.add(left0);
+					stack.add(right1);
+					stack.add(left1);
+					stack.add(right0);
+				}
+
+				continue;
+			}
+
+			for(int index = count - 1; index >= 0; index--)
+			{
+				stack.add(leftComposed.argument(index));
+				stack.add(rightComposed.argument(index));
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Check if the specified composed nodes agree in everything but their
+	 * arguments.
+	 * 
+	 * @param left The first node.
+	 * @param right The second node.
+	 * @return <code>true</code> if so; <code>false</code> otherwise.
+	 */
+	private static boolean shallowEqual(final AbstractComposedDifferentiable left, final AbstractComposedDifferentiable right)
+	{
+		return left.hashCode() == right.hashCode() &&
+				left.getClass().equals(right.getClass()) &&
+				left.argumentCount() == right.argumentCount() &&
+				Arrays.equals(left.parameters(), right.parameters());
+	}
+
+	/**
+	 * Number the nodes of the specified graph such that two nodes get the
+	 * same number exactly when they are structurally equal.
+	 * <p>
+	 * Leaves are numbered by equality; composed nodes by their class,
+	 * parameters and argument numbers, the latter sorted if the node is
+	 * commutative. Numbers are shared by all graphs numbered with the same
+	 * maps.
+	 * 
+	 * @param root The root of the graph.
+	 * @param structures The number of each structure seen so far.
+	 * @param identities The number of each node seen so far.
+	 * @return The number of the root.
+	 */
+	private static int identify(final Differentiable root, final Map<Object, Integer> structures, final Map<Differentiable, Integer> identities)
+	{
+		List<Differentiable> stack = new ArrayList<Differentiable>();
+		stack.add(root);
+		while(stack.isEmpty() == false)
+		{
+			Differentiable node = stack.get(stack.size() - 1);
+			if(identities.containsKey(node))
+			{
+				stack.remove(stack.size() - 1);
+				continue;
+			}
+
+			Object structure = node;
+			if(node instanceof AbstractComposedDifferentiable)
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+				int[] arguments = new int[composed.argumentCount()];
+				boolean ready = true;
+				for(int index = arguments.length - 1; index >= 0; index--)
+				{
+					Integer identity = identities.get(composed.argument(index));
+					if(identity == null)
+					{
+						stack.add(composed.argument(index));
+						ready = false;
+					}
+					else
+					{
+						arguments[index] = identity.intValue();
+					}
+				}
+
+				if(ready == false)
+				{
+					continue;
+				}
+
+				if(composed.isCommutative())
+				{
+					Arrays.sort(arguments);
+				}
+
+				structure = new Structure(composed.getClass(), composed.parameters(), arguments);
+			}
+
+			stack.remove(stack.size() - 1);
+			Integer identity = structures.get(structure);
+			if(identity == null)
+			{
+				identity = Integer.valueOf(structures.size());
+				structures.put(structure, identity);
+			}
+
+			identities.put(node, identity);
+		}
+
+		return identities.get(root).intValue();
+	}
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * Here only for access protection.
+	 */
+	private Graphs()
+	{
+	}
+
+	/**
+	 * The structure of a composed node, in terms of the numbers of its
+	 * arguments.
+	 */
+	private static final class Structure
+	{
+
+		/**
+		 * The class.
+		 */
+		private final Class<?> type;
+
+		/**
+		 * The parameters.
+		 */
+		private final double[] parameters;
+
+		/**
+		 * The argument numbers.
+		 */
+		private final int[] arguments;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param type The class.
+		 * @param parameters The parameters.
+		 * @param arguments The argument numbers.
+		 */
+		Structure(final Class<?> type, final double[] parameters, final int[] arguments)
+		{
+			this.type = type;
+			this.parameters = parameters;
+			this.arguments = arguments;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object other)
+		{
+			if(other instanceof Structure)
+			{
+				Structure that = (Structure)other;
+				return type.equals(that.type) && Arrays.equals(parameters, that.parameters) && Arrays.equals(arguments, that.arguments);
+			}
+
+			return false;
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode()
+		{
+			return (31 * ((31 * type.hashCode()) + Arrays.hashCode(parameters))) + Arrays.hashCode(arguments);
+		}
+
+	}
+
+}
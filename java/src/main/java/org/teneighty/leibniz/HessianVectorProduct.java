@@ -0,0 +1,259 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Set;
+
+import org.teneighty.leibniz.compilation.Compiler;
+
+
+/**
+ * The product of the Hessian of a differentiable with a direction, computed
+ * without evaluating the Hessian itself.
+ * <p>
+ * The product is computed forward-over-reverse: a forward sweep evaluates
+ * every node, a tangent sweep propagates the direction, and a single
+ * backward sweep propagates both the adjoints and their tangents along that
+ * direction. The tangents of the adjoints of the variables are the product,
+ * so its cost is a small multiple of that of one gradient, regardless of the
+ * number of variables.
+ */
+public final class HessianVectorProduct
+{
+
+	/**
+	 * The differentiable.
+	 */
+	private final Differentiable differentiable;
+
+	/**
+	 * The flattened expression graph.
+	 */
+	private final Tape tape;
+
+	/**
+	 * The register of each variable, laid out by {@link #index()}.
+	 */
+	private final int[] variableRegisters;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param differentiable The differentiable.
+	 * @throws NullPointerException If <code>differentiable</code> is
+	 *             <code>null</code>.
+	 */
+	public HessianVectorProduct(final Differentiable differentiable)
+		throws NullPointerException
+	{
+		if(differentiable == null)
+		{
+			throw new NullPointerException("differentiable");
+		}
+
+		this.differentiable = differentiable;
+
+		tape = new Tape(differentiable);
+		VariableIndex index = tape.index();
+		variableRegisters = new int[index.size()];
+		for(int slot = 0; slot < variableRegisters.length; slot++)
+		{
+			variableRegisters[slot] = tape.register(index.variable(slot));
+		}
+	}
+
+	/**
+	 * Get the differentiable whose Hessian this multiplies.
+	 * 
+	 * @return The differentiable.
+	 */
+	public Differentiable differentiable()
+	{
+		return differentiable;
+	}
+
+	/**
+	 * Get the variables.
+	 * 
+	 * @return The variables.
+	 */
+	public Set<Variable> variables()
+	{
+		return differentiable.variables();
+	}
+
+	/**
+	 * Get the layout of the inputs, directions and products: the variables,
+	 * sorted by name.
+	 * 
+	 * @return The index.
+	 */
+	public VariableIndex index()
+	{
+		return tape.index();
+	}
+
+	/**
+	 * Compute the product of the Hessian at the specified assignment with the
+	 * specified direction.
+	 * 
+	 * @param assignment The assignment.
+	 * @param direction The direction; its component for each variable is read
+	 *            through {@link GradientValue#value(Variable)}.
+	 * @return The product.
+	 * @throws NullPointerException If either argument is <code>null</code>.
+	 */
+	public GradientValue value(final Assignment assignment, final GradientValue direction)
+		throws NullPointerException
+	{
+		if(direction == null)
+		{
+			throw new NullPointerException("direction");
+		}
+
+		VariableIndex index = tape.index();
+		double[] directions = new double[index.size()];
+		for(int slot = 0; slot < directions.length; slot++)
+		{
+			directions[slot] = direction.value(index.variable(slot));
+		}
+
+		double[] result = new double[index.size()];
+		value(index.values(assignment), directions, result);
+
+		return new ArrayGradientValue(index, result);
+	}
+
+	/**
+	 * Compute the product of the Hessian with the specified direction,
+	 * reading variable values directly from the specified input array.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #index()}.
+	 * @param direction The direction, laid out by {@link #index()}.
+	 * @param result The array into which to write the product, laid out by
+	 *            {@link #index()}.
+	 * @throws NullPointerException If any array is <code>null</code>.
+	 * @throws IllegalArgumentException If any array has the wrong length.
+	 */
+	public void value(final double[] inputs, final double[] direction, final double[] result)
+		throws NullPointerException, IllegalArgumentException
+	{
+		VariableIndex index = tape.index();
+		check(inputs, "inputs", index.size());
+		check(direction, "direction", index.size());
+		check(result, "result", index.size());
+		Assignment assignment = new ArrayAssignment(index, inputs);
+
+		double[] values = new double[tape.size()];
+		tape.forward(inputs, values);
+
+		double[] tangents = new double[tape.size()];
+		for(int slot = 0; slot < variableRegisters.length; slot++)
+		{
+			tangents[variableRegisters[slot]] = direction[slot];
+		}
+
+		tape.tangent(assignment, values, tangents);
+
+		double[] adjoints = new double[tape.size()];
+		double[] adjointTangents = new double[tape.size()];
+		adjoints[tape.root()] = 1d;
+		tape.reverseTangent(assignment, values, tangents, adjoints, adjointTangents);
+
+		for(int slot = 0; slot < variableRegisters.length; slot++)
+		{
+			result[slot] = adjointTangents[variableRegisters[slot]];
+		}
+	}
+
+	/**
+	 * Compile this product.
+	 * 
+	 * @return A compiled product.
+	 */
+	public CompiledHessianVectorProduct compile()
+	{
+		return Compiler.compile(this);
+	}
+
+	/**
+	 * Check the length of an array argument.
+	 * 
+	 * @param array The array.
+	 * @param name The name of the argument.
+	 * @param length The expected length.
+	 * @throws NullPointerException If <code>array</code> is <code>null</code>.
+	 * @throws IllegalArgumentException If <code>array</code> has a different
+	 *             length.
+	 */
+	private static void check(final double[] array, final String name, final int length)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(array == null)
+		{
+			throw new NullPointerException(name);
+		}
+
+		if(array.length != length)
+		{
+			String message = String.format("Expected %1$s of length %2$s but got %3$s", name, length, array.length);
+			throw new IllegalArgumentException(message);
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+
+		if(other == this)
+		{
+			return true;
+		}
+
+		if(other instanceof HessianVectorProduct)
+		{
+			HessianVectorProduct that = (HessianVectorProduct)other;
+			return differentiable.equals(that.differentiable);
+		}
+
+		return false;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return differentiable.hashCode();
+	}
+
+}
@@ -0,0 +1,310 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+
+/**
+ * Hash-consing table for composed differentiables.
+ * <p>
+ * When interning is enabled, the factory methods of the built-in functions
+ * (such as {@link org.teneighty.leibniz.function.Addition#add(Differentiable, Differentiable)})
+ * return a single canonical instance for each distinct structure, so equal
+ * subexpressions built independently (including the many shared
+ * subexpressions of derivative graphs) occupy memory only once. Equality of
+ * two canonical differentiables reduces to identity.
+ * <p>
+ * A differentiable is only made canonical if all of its composed arguments
+ * are canonical; this keeps lookups constant-time, since arguments are
+ * compared by identity. Leaves (variables, constants and other
+ * non-composed differentiables) are compared with <code>equals</code>.
+ * Canonical instances are held weakly and are discarded once no longer
+ * otherwise reachable.
+ * <p>
+ * Interning is disabled by default; it can be enabled with
+ * {@link #setEnabled(boolean)} or by setting the system property
+ * <code>org.teneighty.leibniz.interning</code> to <code>true</code>. This
+ * class is safe for use by multiple threads and cannot be instantiated.
+ */
+public final class Interner
+{
+
+	/**
+	 * The system property that enables interning.
+	 */
+	public static final String ENABLED_PROPERTY = "org.teneighty.leibniz.interning";
+
+	/**
+	 * Initial table capacity. Must be a power of two.
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Whether interning is enabled.
+	 */
+	private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+	/**
+	 * Lock guarding the table.
+	 */
+	private static final Object LOCK = new Object();
+
+	/**
+	 * Queue of cleared references.
+	 */
+	private static final ReferenceQueue<AbstractComposedDifferentiable> QUEUE = new ReferenceQueue<AbstractComposedDifferentiable>();
+
+	/**
+	 * The table buckets.
+	 */
+	private static Entry[] table = new Entry[INITIAL_CAPACITY];
+
+	/**
+	 * The number of entries in the table.
+	 */
+	private static int size;
+
+	/**
+	 * Check if interning is enabled.
+	 * 
+	 * @return <code>true</code> if interning is enabled; <code>false</code>
+	 *         otherwise.
+	 */
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Enable or disable interning.
+	 * <p>
+	 * Disabling interning does not affect differentiables that are already
+	 * canonical; it only stops new ones from being made canonical.
+	 * 
+	 * @param enabled Whether interning should be enabled.
+	 */
+	public static void setEnabled(final boolean enabled)
+	{
+		Interner.enabled = enabled;
+	}
+
+	/**
+	 * Get the number of canonical differentiables currently in the table.
+	 * 
+	 * @return The size.
+	 */
+	public static int size()
+	{
+		synchronized(LOCK)
+		{
+			expunge();
+			return size;
+		}
+	}
+
+	/**
+	 * Get the canonical instance of the specified differentiable.
+	 * <p>
+	 * If interning is disabled, or if some composed argument of
+	 * <code>differentiable</code> is not canonical, <code>differentiable</code>
+	 * is returned as is.
+	 * 
+	 * @param differentiable The differentiable.
+	 * @return The canonical instance, or <code>differentiable</code>.
+	 * @throws NullPointerException If <code>differentiable</code> is
+	 *             <code>null</code>.
+	 */
+	public static Differentiable intern(final AbstractComposedDifferentiable differentiable)
+		throws NullPointerException
+	{
+		if(differentiable == null)
+		{
+			throw new NullPointerException("differentiable");
+		}
+
+		if(enabled == false || differentiable.isCanonical())
+		{
+			return differentiable;
+		}
+
+		int hash = 0;
+		for(int index = 0; index < differentiable.argumentCount(); index++)
+		{
+			Differentiable argument = differentiable.argument(index);
+			if(argument instanceof AbstractComposedDifferentiable)
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)argument;
+				if(composed.isCanonical() == false)
+				{
+					return differentiable;
+				}
+
+				hash += System.identityHashCode(composed);
+			}
+			else
+			{
+				hash += argument.hashCode();
+			}
+		}
+
+		// Argument hashes are summed so that commutative functions, whose
+		// equality ignores argument order, hash consistently.
+		hash = (31 * hash) + Arrays.hashCode(differentiable.parameters());
+		hash = (31 * hash) + differentiable.getClass().getName().hashCode();
+		hash ^= (hash >>> 16);
+
+		synchronized(LOCK)
+		{
+			expunge();
+
+			int bucket = hash & (table.length - 1);
+			for(Entry entry = table[bucket]; entry != null; entry = entry.next)
+			{
+				if(entry.hash == hash)
+				{
+					AbstractComposedDifferentiable canonical = entry.get();
+					if(canonical != null && differentiable.equals(canonical))
+					{
+						return canonical;
+					}
+				}
+			}
+
+			differentiable.markCanonical();
+			table[bucket] = new Entry(differentiable, hash, table[bucket]);
+			size++;
+
+			if(size > (table.length - (table.length >>> 2)))
+			{
+				resize();
+			}
+
+			return differentiable;
+		}
+	}
+
+	/**
+	 * Remove the entries of collected differentiables. Must be called with the
+	 * lock held.
+	 */
+	private static void expunge()
+	{
+		Object reference;
+		while((reference = QUEUE.poll()) != null)
+		{
+			Entry expunged = (Entry)reference;
+			int bucket = expunged.hash & (table.length - 1);
+
+			Entry previous = null;
+			for(Entry entry = table[bucket]; entry != null; entry = entry.next)
+			{
+				if(entry == expunged)
+				{
+					if(previous == null)
+					{
+						table[bucket] = entry.next;
+					}
+					else
+					{
+						previous.next = entry.next;
+					}
+
+					size--;
+					break;
+				}
+
+				previous = entry;
+			}
+		}
+	}
+
+	/**
+	 * Double the capacity of the table. Must be called with the lock held.
+	 */
+	private static void resize()
+	{
+		Entry[] resized = new Entry[table.length * 2];
+		for(Entry head : table)
+		{
+			Entry entry = head;
+			while(entry != null)
+			{
+				Entry next = entry.next;
+				int bucket = entry.hash & (resized.length - 1);
+				entry.next = resized[bucket];
+				resized[bucket] = entry;
+				entry = next;
+			}
+		}
+
+		table = resized;
+	}
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * Here only for access protection.
+	 */
+	private Interner()
+	{
+	}
+
+	/**
+	 * A table entry.
+	 */
+	private static final class Entry
+		extends WeakReference<AbstractComposedDifferentiable>
+	{
+
+		/**
+		 * The structural hash.
+		 */
+		final int hash;
+
+		/**
+		 * The next entry in the bucket.
+		 */
+		Entry next;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param differentiable The canonical differentiable.
+		 * @param hash The structural hash.
+		 * @param next The next entry in the bucket.
+		 */
+		Entry(final AbstractComposedDifferentiable differentiable, final int hash, final Entry next)
+		{
+			super(differentiable, QUEUE);
+
+			this.hash = hash;
+			this.next = next;
+		}
+
+	}
+
+}
@@ -0,0 +1,291 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.teneighty.leibniz.compilation.expression.Expression;
+
+
+/**
+ * A differentiable evaluated by a linear interpreter.
+ * <p>
+ * The expression graph of the underlying function is flattened once, at
+ * construction, into a topologically sorted register program over primitive
+ * arrays. Evaluation is then a single loop over the registers: each distinct
+ * node is evaluated exactly once per call, without recursion, and the common
+ * arithmetic and elementary functions are evaluated inline. This makes an
+ * interpreted function a cheap middle tier between the plain (recursive)
+ * evaluation of a differentiable and a compiled function.
+ * <p>
+ * Like a compiled function, an interpreted function can read its inputs from
+ * a <code>double[]</code> laid out by its {@link #variableIndex()}. Derivatives
+ * are those of the underlying function, and are not themselves interpreted.
+ */
+public final class InterpretedDifferentiable
+	extends AbstractDifferentiable
+{
+
+	/**
+	 * The underlying function.
+	 */
+	private final Differentiable differentiable;
+
+	/**
+	 * The flattened expression graph.
+	 */
+	private final Tape tape;
+
+	/**
+	 * The variables.
+	 */
+	private final Set<Variable> variables;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param differentiable The function to interpret.
+	 * @throws NullPointerException If <code>differentiable</code> is
+	 *             <code>null</code>.
+	 */
+	public InterpretedDifferentiable(final Differentiable differentiable)
+		throws NullPointerException
+	{
+		if(differentiable == null)
+		{
+			throw new NullPointerException("differentiable");
+		}
+
+		this.differentiable = differentiable;
+		this.tape = new Tape(differentiable);
+		this.variables = Collections.unmodifiableSet(new HashSet<Variable>(tape.index().variables()));
+	}
+
+	/**
+	 * Get the underlying function.
+	 * 
+	 * @return The function.
+	 */
+	public Differentiable uninterpreted()
+	{
+		return differentiable;
+	}
+
+	/**
+	 * Get the layout of the input array read by {@link #value(double[])}:
+	 * every variable of this function, sorted by name.
+	 * 
+	 * @return The index.
+	 */
+	public VariableIndex variableIndex()
+	{
+		return tape.index();
+	}
+
+	/**
+	 * Get the number of registers, i.e. the number of distinct nodes in the
+	 * expression graph.
+	 * 
+	 * @return The register count.
+	 */
+	public int registerCount()
+	{
+		return tape.size();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#value(org.teneighty.leibniz.Assignment)
+	 */
+	@Override
+	public double value(final Assignment assignment)
+	{
+		return value(tape.index().values(assignment));
+	}
+
+	/**
+	 * Evaluate this function.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @return The value.
+	 * @throws NullPointerException If <code>inputs</code> is <code>null</code>.
+	 * @throws IllegalArgumentException If <code>inputs</code> has the wrong
+	 *             length.
+	 */
+	public double value(final double[] inputs)
+		throws NullPointerException, IllegalArgumentException
+	{
+		return value(inputs, new double[tape.size()]);
+	}
+
+	/**
+	 * Evaluate this function without allocating, using the specified register
+	 * file.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @param registers Scratch space of at least {@link #registerCount()}
+	 *            elements.
+	 * @return The value.
+	 * @throws NullPointerException If <code>inputs</code> or
+	 *             <code>registers</code> is <code>null</code>.
+	 * @throws IllegalArgumentException If either array has the wrong length.
+	 */
+	public double value(final double[] inputs, final double[] registers)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(inputs == null)
+		{
+			throw new NullPointerException("inputs");
+		}
+
+		if(registers == null)
+		{
+			throw new NullPointerException("registers");
+		}
+
+		if(inputs.length != tape.index().size())
+		{
+			String message = String.format("Expected %1$s inputs but got %2$s", tape.index().size(), inputs.length);
+			throw new IllegalArgumentException(message);
+		}
+
+		if(registers.length < tape.size())
+		{
+			String message = String.format("Expected at least %1$s registers but got %2$s", tape.size(), registers.length);
+			throw new IllegalArgumentException(message);
+		}
+
+		tape.forward(inputs, registers);
+		return registers[tape.root()];
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#derivativeCore(org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	protected Differentiable derivativeCore(final Variable withRespectTo)
+	{
+		return differentiable.derivative(withRespectTo);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#variables()
+	 */
+	@Override
+	public Set<Variable> variables()
+	{
+		return variables;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#isConstant()
+	 */
+	@Override
+	public boolean isConstant()
+	{
+		return differentiable.isConstant();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#isZero()
+	 */
+	@Override
+	public boolean isZero()
+	{
+		return differentiable.isZero();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#isOne()
+	 */
+	@Override
+	public boolean isOne()
+	{
+		return differentiable.isOne();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#compile()
+	 */
+	@Override
+	public CompiledDifferentiable compile()
+	{
+		return differentiable.compile();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#interpret()
+	 */
+	@Override
+	public InterpretedDifferentiable interpret()
+	{
+		// already interpreted...
+		return this;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#expression(org.teneighty.leibniz.Context)
+	 */
+	@Override
+	public Expression expression(final Context codeContext)
+	{
+		return differentiable.expression(codeContext);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return differentiable.hashCode();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+
+		if(other == this)
+		{
+			return true;
+		}
+
+		if(other instanceof InterpretedDifferentiable)
+		{
+			InterpretedDifferentiable that = (InterpretedDifferentiable)other;
+			return that.differentiable.equals(differentiable);
+		}
+
+		return false;
+	}
+
+}
@@ -0,0 +1,416 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.teneighty.leibniz.compilation.Compiler;
+
+
+/**
+ * The Jacobian of a {@link DifferentiableVector}.
+ * <p>
+ * All outputs are flattened into a single expression graph. A
+ * Jacobian-vector product is then one forward sweep and one tangent sweep
+ * over that graph, and a vector-Jacobian product one forward sweep and one
+ * backward sweep, regardless of the number of outputs or variables.
+ * <p>
+ * The full Jacobian is evaluated in sparse form: the pattern (see
+ * {@link JacobianPattern}) is detected once, and each entry is recovered from
+ * one product per color of whichever of its column and row colorings has
+ * fewer colors.
+ */
+public final class Jacobian
+{
+
+	/**
+	 * The vector.
+	 */
+	private final DifferentiableVector vector;
+
+	/**
+	 * The flattened expression graph of all outputs.
+	 */
+	private final Tape tape;
+
+	/**
+	 * The sparsity pattern.
+	 */
+	private final JacobianPattern pattern;
+
+	/**
+	 * Whether entries are recovered from tangent (column) sweeps rather than
+	 * backward (row) sweeps.
+	 */
+	private final boolean tangent;
+
+	/**
+	 * For each color, the registers to seed with one.
+	 */
+	private final int[][] seeds;
+
+	/**
+	 * For each color, the positions of the entries recovered from it.
+	 */
+	private final int[][] entries;
+
+	/**
+	 * For each color, the register holding each recovered entry.
+	 */
+	private final int[][] registers;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param vector The vector.
+	 * @throws NullPointerException If <code>vector</code> is <code>null</code>.
+	 */
+	public Jacobian(final DifferentiableVector vector)
+		throws NullPointerException
+	{
+		if(vector == null)
+		{
+			throw new NullPointerException("vector");
+		}
+
+		this.vector = vector;
+
+		Differentiable[] outputs = vector.outputs().toArray(new Differentiable[vector.size()]);
+		tape = new Tape(outputs);
+		pattern = tape.jacobianPattern();
+		tangent = (pattern.columnColorCount() <= pattern.rowColorCount());
+
+		VariableIndex index = pattern.index();
+		int[] colors = tangent ? pattern.columnColors() : pattern.rowColors();
+		int colorCount = tangent ? pattern.columnColorCount() : pattern.rowColorCount();
+		int[] rows = pattern.rows();
+		int[] columns = pattern.columns();
+
+		seeds = new int[colorCount][];
+		entries = new int[colorCount][];
+		registers = new int[colorCount][];
+		for(int color = 0; color < colorCount; color++)
+		{
+			int seedCount = 0;
+			for(int line = 0; line < colors.length; line++)
+			{
+				if(colors[line] == color)
+				{
+					seedCount += 1;
+				}
+			}
+
+			seeds[color] = new int[seedCount];
+			seedCount = 0;
+			for(int line = 0; line < colors.length; line++)
+			{
+				if(colors[line] == color)
+				{
+					// a column seeds its variable; a row seeds its output.
+					seeds[color][seedCount] = tangent ? tape.register(index.variable(line)) : tape.root(line);
+					seedCount += 1;
+				}
+			}
+
+			int entryCount = 0;
+			for(int entry = 0; entry < columns.length; entry++)
+			{
+				if(colors[tangent ? columns[entry] : rows[entry]] == color)
+				{
+					entryCount += 1;
+				}
+			}
+
+			entries[color] = new int[entryCount];
+			registers[color] = new int[entryCount];
+			entryCount = 0;
+			for(int entry = 0; entry < columns.length; entry++)
+			{
+				if(colors[tangent ? columns[entry] : rows[entry]] == color)
+				{
+					// a column sweep is read at the output; a row sweep at the
+					// variable.
+					entries[color][entryCount] = entry;
+					registers[color][entryCount] = tangent ? tape.root(rows[entry]) : tape.register(index.variable(columns[entry]));
+					entryCount += 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the vector of which this is the Jacobian.
+	 * 
+	 * @return The vector.
+	 */
+	public DifferentiableVector vector()
+	{
+		return vector;
+	}
+
+	/**
+	 * Get the variables, i.e. the columns.
+	 * 
+	 * @return The variables.
+	 */
+	public Set<Variable> variables()
+	{
+		return vector.variables();
+	}
+
+	/**
+	 * Get the layout of the inputs and columns: the variables, sorted by name.
+	 * 
+	 * @return The index.
+	 */
+	public VariableIndex index()
+	{
+		return pattern.index();
+	}
+
+	/**
+	 * Get the structural sparsity pattern.
+	 * 
+	 * @return The pattern.
+	 */
+	public JacobianPattern sparsity()
+	{
+		return pattern;
+	}
+
+	/**
+	 * Get the differentiable for the specified entry.
+	 * 
+	 * @param row The output.
+	 * @param variable The variable.
+	 * @return The partial derivative of the output with respect to the
+	 *         variable; {@link Constant#ZERO} if it is structurally zero.
+	 * @throws IndexOutOfBoundsException If <code>row</code> is out of range.
+	 */
+	public Differentiable component(final int row, final Variable variable)
+		throws IndexOutOfBoundsException
+	{
+		if(pattern.contains(row, variable) == false)
+		{
+			return Constant.ZERO;
+		}
+
+		return vector.output(row).derivative(variable);
+	}
+
+	/**
+	 * Evaluate the structurally nonzero entries, reading variable values
+	 * directly from the specified input array.
+	 * <p>
+	 * Together with {@link JacobianPattern#rowPointers()},
+	 * {@link JacobianPattern#rows()} and {@link JacobianPattern#columns()},
+	 * <code>values</code> is then a compressed sparse row or coordinate form
+	 * of the Jacobian.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #index()}.
+	 * @param values The array into which to write the entries, laid out by
+	 *            {@link #sparsity()}.
+	 * @throws NullPointerException If either array is <code>null</code>.
+	 * @throws IllegalArgumentException If either array has the wrong length.
+	 */
+	public void value(final double[] inputs, final double[] values)
+		throws NullPointerException, IllegalArgumentException
+	{
+		check(inputs, "inputs", pattern.index().size());
+		check(values, "values", pattern.size());
+		Assignment assignment = new ArrayAssignment(pattern.index(), inputs);
+
+		double[] registerValues = new double[tape.size()];
+		tape.forward(inputs, registerValues);
+
+		double[] sweep = new double[tape.size()];
+		for(int color = 0; color < seeds.length; color++)
+		{
+			Arrays.fill(sweep, 0d);
+			for(int seed : seeds[color])
+			{
+				sweep[seed] += 1d;
+			}
+
+			if(tangent)
+			{
+				tape.tangent(assignment, registerValues, sweep);
+			}
+			else
+			{
+				tape.reverse(assignment, registerValues, sweep);
+			}
+
+			int[] colorEntries = entries[color];
+			int[] colorRegisters = registers[color];
+			for(int entry = 0; entry < colorEntries.length; entry++)
+			{
+				values[colorEntries[entry]] = sweep[colorRegisters[entry]];
+			}
+		}
+	}
+
+	/**
+	 * Compute the product of this Jacobian with the specified direction, i.e.
+	 * the directional derivative of every output.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #index()}.
+	 * @param direction The direction, laid out by {@link #index()}.
+	 * @param result The array into which to write the product, one element per
+	 *            output.
+	 * @throws NullPointerException If any array is <code>null</code>.
+	 * @throws IllegalArgumentException If any array has the wrong length.
+	 */
+	public void jacobianVectorProduct(final double[] inputs, final double[] direction, final double[] result)
+		throws NullPointerException, IllegalArgumentException
+	{
+		VariableIndex index = pattern.index();
+		check(inputs, "inputs", index.size());
+		check(direction, "direction", index.size());
+		check(result, "result", vector.size());
+		Assignment assignment = new ArrayAssignment(index, inputs);
+
+		double[] registerValues = new double[tape.size()];
+		tape.forward(inputs, registerValues);
+
+		double[] tangents = new double[tape.size()];
+		for(int slot = 0; slot < index.size(); slot++)
+		{
+			tangents[tape.register(index.variable(slot))] = direction[slot];
+		}
+
+		tape.tangent(assignment, registerValues, tangents);
+		for(int output = 0; output < result.length; output++)
+		{
+			result[output] = tangents[tape.root(output)];
+		}
+	}
+
+	/**
+	 * Compute the product of the specified weights with this Jacobian, i.e.
+	 * the gradient of the weighted sum of the outputs.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #index()}.
+	 * @param weights The weights, one element per output.
+	 * @param result The array into which to write the product, laid out by
+	 *            {@link #index()}.
+	 * @throws NullPointerException If any array is <code>null</code>.
+	 * @throws IllegalArgumentException If any array has the wrong length.
+	 */
+	public void vectorJacobianProduct(final double[] inputs, final double[] weights, final double[] result)
+		throws NullPointerException, IllegalArgumentException
+	{
+		VariableIndex index = pattern.index();
+		check(inputs, "inputs", index.size());
+		check(weights, "weights", vector.size());
+		check(result, "result", index.size());
+		Assignment assignment = new ArrayAssignment(index, inputs);
+
+		double[] registerValues = new double[tape.size()];
+		tape.forward(inputs, registerValues);
+
+		double[] adjoints = new double[tape.size()];
+		for(int output = 0; output < weights.length; output++)
+		{
+			adjoints[tape.root(output)] += weights[output];
+		}
+
+		tape.reverse(assignment, registerValues, adjoints);
+		for(int slot = 0; slot < result.length; slot++)
+		{
+			result[slot] = adjoints[tape.register(index.variable(slot))];
+		}
+	}
+
+	/**
+	 * Compile this Jacobian.
+	 * 
+	 * @return A compiled Jacobian.
+	 */
+	public CompiledJacobian compile()
+	{
+		return Compiler.compile(this);
+	}
+
+	/**
+	 * Check the length of an array argument.
+	 * 
+	 * @param array The array.
+	 * @param name The name of the argument.
+	 * @param length The expected length.
+	 * @throws NullPointerException If <code>array</code> is <code>null</code>.
+	 * @throws IllegalArgumentException If <code>array</code> has a different
+	 *             length.
+	 */
+	private static void check(final double[] array, final String name, final int length)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(array == null)
+		{
+			throw new NullPointerException(name);
+		}
+
+		if(array.length != length)
+		{
+			String message = String.format("Expected %1$s of length %2$s but got %3$s", name, length, array.length);
+			throw new IllegalArgumentException(message);
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+
+		if(other == this)
+		{
+			return true;
+		}
+
+		if(other instanceof Jacobian)
+		{
+			Jacobian that = (Jacobian)other;
+			return vector.equals(that.vector);
+		}
+
+		return false;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return vector.hashCode();
+	}
+
+}
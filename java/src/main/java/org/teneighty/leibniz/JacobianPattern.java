@@ -0,0 +1,380 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * The structural sparsity pattern of a Jacobian: one row per output of a
+ * {@link DifferentiableVector}, one column per variable of a
+ * {@link VariableIndex}.
+ * <p>
+ * An entry is structurally nonzero if the output depends on the variable.
+ * Entries are stored in row-major order; the position of an entry in that
+ * order is its position in the values array of a {@link Jacobian}, so the
+ * arrays returned by {@link #rowPointers()}, {@link #rows()} and
+ * {@link #columns()} describe such an array in compressed sparse row and
+ * coordinate form.
+ * <p>
+ * The pattern carries two colorings. In the column coloring, no two columns
+ * of the same color have a nonzero in the same row, so one Jacobian-vector
+ * product per color recovers every entry. In the row coloring, no two rows of
+ * the same color have a nonzero in the same column, so one vector-Jacobian
+ * product per color does.
+ */
+public final class JacobianPattern
+	implements Serializable
+{
+
+	/**
+	 * Serial version.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The layout of the columns.
+	 */
+	private final VariableIndex index;
+
+	/**
+	 * Offset of the first entry of each row, plus a trailing total.
+	 */
+	private final int[] rowPointers;
+
+	/**
+	 * The row of each entry.
+	 */
+	private final int[] rows;
+
+	/**
+	 * The column of each entry.
+	 */
+	private final int[] columns;
+
+	/**
+	 * The color of each column.
+	 */
+	private final int[] columnColors;
+
+	/**
+	 * The color of each row.
+	 */
+	private final int[] rowColors;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param index The layout of the columns.
+	 * @param pattern The nonzero columns of each row.
+	 */
+	JacobianPattern(final VariableIndex index, final BitSet[] pattern)
+	{
+		this.index = index;
+
+		rowPointers = new int[pattern.length + 1];
+		for(int row = 0; row < pattern.length; row++)
+		{
+			rowPointers[row + 1] = rowPointers[row] + pattern[row].cardinality();
+		}
+
+		rows = new int[rowPointers[pattern.length]];
+		columns = new int[rowPointers[pattern.length]];
+		for(int row = 0; row < pattern.length; row++)
+		{
+			int entry = rowPointers[row];
+			for(int column = pattern[row].nextSetBit(0); column >= 0; column = pattern[row].nextSetBit(column + 1))
+			{
+				rows[entry] = row;
+				columns[entry] = column;
+				entry += 1;
+			}
+		}
+
+		BitSet[] transpose = new BitSet[index.size()];
+		for(int column = 0; column < transpose.length; column++)
+		{
+			transpose[column] = new BitSet(pattern.length);
+		}
+
+		for(int entry = 0; entry < columns.length; entry++)
+		{
+			transpose[columns[entry]].set(rows[entry]);
+		}
+
+		columnColors = color(transpose, pattern);
+		rowColors = color(pattern, transpose);
+	}
+
+	/**
+	 * Greedily color the lines (rows or columns) of a pattern such that no two
+	 * lines of one color cross the same line of the other kind.
+	 * 
+	 * @param lines The crossing lines of each line to be colored.
+	 * @param crossing The lines crossed by each crossing line.
+	 * @return The color of each line.
+	 */
+	private static int[] color(final BitSet[] lines, final BitSet[] crossing)
+	{
+		int[] colors = new int[lines.length];
+		Arrays.fill(colors, -1);
+
+		BitSet forbidden = new BitSet();
+		for(int line = 0; line < lines.length; line++)
+		{
+			forbidden.clear();
+			for(int cross = lines[line].nextSetBit(0); cross >= 0; cross = lines[line].nextSetBit(cross + 1))
+			{
+				BitSet neighbours = crossing[cross];
+				for(int other = neighbours.nextSetBit(0); other >= 0; other = neighbours.nextSetBit(other + 1))
+				{
+					if(colors[other] >= 0)
+					{
+						forbidden.set(colors[other]);
+					}
+				}
+			}
+
+			colors[line] = forbidden.nextClearBit(0);
+		}
+
+		return colors;
+	}
+
+	/**
+	 * Count the colors of the specified coloring.
+	 * 
+	 * @param colors The coloring.
+	 * @return The number of colors.
+	 */
+	private static int count(final int[] colors)
+	{
+		int count = 0;
+		for(int color : colors)
+		{
+			count = Math.max(count, color + 1);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Get the layout of the columns.
+	 * 
+	 * @return The index.
+	 */
+	public VariableIndex index()
+	{
+		return index;
+	}
+
+	/**
+	 * Get the number of rows.
+	 * 
+	 * @return The row count.
+	 */
+	public int rowCount()
+	{
+		return rowPointers.length - 1;
+	}
+
+	/**
+	 * Get the number of structurally nonzero entries.
+	 * 
+	 * @return The number of entries.
+	 */
+	public int size()
+	{
+		return columns.length;
+	}
+
+	/**
+	 * Get the compressed sparse row pointers: the entries of row
+	 * <code>i</code> occupy positions <code>rowPointers[i]</code> (inclusive)
+	 * to <code>rowPointers[i + 1]</code> (exclusive).
+	 * 
+	 * @return A new array of length <code>rowCount() + 1</code>.
+	 */
+	public int[] rowPointers()
+	{
+		return rowPointers.clone();
+	}
+
+	/**
+	 * Get the row of each entry, for coordinate form.
+	 * 
+	 * @return A new array of length {@link #size()}.
+	 */
+	public int[] rows()
+	{
+		return rows.clone();
+	}
+
+	/**
+	 * Get the column of each entry, for both compressed sparse row and
+	 * coordinate form.
+	 * 
+	 * @return A new array of length {@link #size()}.
+	 */
+	public int[] columns()
+	{
+		return columns.clone();
+	}
+
+	/**
+	 * Get the position of the specified entry.
+	 * 
+	 * @param row The row.
+	 * @param column The column slot.
+	 * @return The position, or <code>-1</code> if the entry is structurally
+	 *         zero.
+	 * @throws IndexOutOfBoundsException If either argument is out of range.
+	 */
+	public int position(final int row, final int column)
+		throws IndexOutOfBoundsException
+	{
+		if(row < 0 || row >= rowCount())
+		{
+			throw new IndexOutOfBoundsException(String.valueOf(row));
+		}
+
+		if(column < 0 || column >= index.size())
+		{
+			throw new IndexOutOfBoundsException(String.valueOf(column));
+		}
+
+		int position = Arrays.binarySearch(columns, rowPointers[row], rowPointers[row + 1], column);
+		return (position < 0) ? -1 : position;
+	}
+
+	/**
+	 * Check if the entry for the specified row and variable is structurally
+	 * nonzero.
+	 * 
+	 * @param row The row.
+	 * @param variable The variable.
+	 * @return <code>true</code> if the entry may be nonzero; <code>false</code>
+	 *         if it is always zero, including when the variable is not indexed.
+	 * @throws IndexOutOfBoundsException If <code>row</code> is out of range.
+	 */
+	public boolean contains(final int row, final Variable variable)
+		throws IndexOutOfBoundsException
+	{
+		if(index.contains(variable) == false)
+		{
+			return false;
+		}
+
+		return position(row, index.slot(variable)) >= 0;
+	}
+
+	/**
+	 * Get the color of each column.
+	 * 
+	 * @return A new array of length <code>index().size()</code>.
+	 */
+	public int[] columnColors()
+	{
+		return columnColors.clone();
+	}
+
+	/**
+	 * Get the number of column colors, i.e. the number of Jacobian-vector
+	 * products needed to recover every entry.
+	 * 
+	 * @return The color count.
+	 */
+	public int columnColorCount()
+	{
+		return count(columnColors);
+	}
+
+	/**
+	 * Get the color of each row.
+	 * 
+	 * @return A new array of length {@link #rowCount()}.
+	 */
+	public int[] rowColors()
+	{
+		return rowColors.clone();
+	}
+
+	/**
+	 * Get the number of row colors, i.e. the number of vector-Jacobian
+	 * products needed to recover every entry.
+	 * 
+	 * @return The color count.
+	 */
+	public int rowColorCount()
+	{
+		return count(rowColors);
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+
+		if(other == this)
+		{
+			return true;
+		}
+
+		if(other instanceof JacobianPattern)
+		{
+			JacobianPattern that = (JacobianPattern)other;
+			return index.equals(that.index) && Arrays.equals(rowPointers, that.rowPointers) && Arrays.equals(columns, that.columns);
+		}
+
+		return false;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return (31 * index.hashCode()) + Arrays.hashCode(columns);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("JacobianPattern[%1$s of %2$s entries, %3$s column colors, %4$s row colors]", 
+				columns.length, rowCount() * index.size(), columnColorCount(), rowColorCount());
+	}
+
+}
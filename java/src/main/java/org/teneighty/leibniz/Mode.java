@@ -0,0 +1,61 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+
+/**
+ * Differentiation mode used to compute gradients.
+ */
+public enum Mode
+{
+
+	/**
+	 * Symbolic mode: each component of the gradient is a separate derivative
+	 * graph, built with {@link Differentiable#derivative(Variable)} and
+	 * evaluated on its own.
+	 * <p>
+	 * The cost of evaluating a gradient grows with the number of variables.
+	 */
+	SYMBOLIC,
+
+	/**
+	 * Reverse (adjoint) mode: the whole gradient is computed with one forward
+	 * sweep and one backward sweep over the expression graph.
+	 * <p>
+	 * The cost of evaluating a gradient is a small constant multiple of the
+	 * cost of evaluating the function, regardless of the number of variables.
+	 */
+	REVERSE,
+
+	/**
+	 * Forward (tangent) mode: the whole gradient is computed with one vector
+	 * forward sweep over the expression graph, carrying one tangent per
+	 * variable.
+	 * <p>
+	 * The cost of evaluating a gradient grows with the number of variables,
+	 * but not with the size of their symbolic derivatives.
+	 */
+	FORWARD;
+
+}
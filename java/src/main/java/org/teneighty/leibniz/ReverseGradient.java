@@ -0,0 +1,131 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Set;
+
+
+/**
+ * Reverse (adjoint) mode gradient implementation.
+ * <p>
+ * Rather than building a separate derivative graph for each variable, this
+ * gradient flattens the expression graph of the differentiable once and then
+ * computes all components with a single forward and a single backward sweep.
+ * <p>
+ * Component differentiables are still available (they are simply the symbolic
+ * derivatives, built lazily), so this class is a drop-in replacement for
+ * {@link DefaultGradient}.
+ */
+public class ReverseGradient
+	extends AbstractGradient
+{
+
+	/**
+	 * The differentiable.
+	 */
+	private final Differentiable differentiable;
+
+	/**
+	 * The variables.
+	 */
+	private final Set<Variable> variables;
+
+	/**
+	 * The flattened expression graph.
+	 */
+	private final Tape tape;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param differentiable The differentiable.
+	 * @param variables The variables.
+	 */
+	public ReverseGradient(final Differentiable differentiable,
+			final Set<Variable> variables)
+	{
+		this.differentiable = differentiable;
+		this.variables = variables;
+		this.tape = new Tape(differentiable);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#value(org.teneighty.leibniz.Assignment)
+	 */
+	@Override
+	public GradientValue value(final Assignment assignment)
+	{
+		int size = tape.size();
+
+		double[] values = new double[size];
+		tape.forward(assignment, values);
+
+		double[] adjoints = new double[size];
+		adjoints[tape.root()] = 1d;
+		tape.reverse(assignment, values, adjoints);
+
+		MutableGradientValue value = new MutableGradientValue();
+		for(Variable variable : variables)
+		{
+			int register = tape.register(variable);
+			double componentValue = (register < 0) ? 0d : adjoints[register];
+			value.set(variable, componentValue);
+		}
+
+		return value;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#differentiable()
+	 */
+	@Override
+	public Differentiable differentiable()
+	{
+		return differentiable;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#variables()
+	 */
+	@Override
+	public Set<Variable> variables()
+	{
+		return variables;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#component(org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	public Differentiable component(final Variable variable)
+	{
+		if(variables.contains(variable) == false)
+		{
+			return null;
+		}
+
+		return differentiable.derivative(variable);
+	}
+
+}
@@ -0,0 +1,745 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teneighty.leibniz.function.Addition;
+import org.teneighty.leibniz.function.Division;
+import org.teneighty.leibniz.function.Exponential;
+import org.teneighty.leibniz.function.Exponentiation;
+import org.teneighty.leibniz.function.Multiplication;
+import org.teneighty.leibniz.function.Negation;
+import org.teneighty.leibniz.function.Power;
+import org.teneighty.leibniz.function.Subtraction;
+
+
+/**
+ * Algebraic simplifier for differentiables.
+ * <p>
+ * The simplifier rewrites a differentiable bottom up, producing an equivalent
+ * (and usually much smaller) graph. It:
+ * <ul>
+ * <li>folds constant subexpressions;</li>
+ * <li>flattens sums, collecting like terms and their coefficients, so that
+ * <code>x + 2x - x</code> becomes <code>2x</code>;</li>
+ * <li>flattens products, collecting like factors into powers (merging powers
+ * of the same base), so that <code>x * x * 2 * 1</code> becomes
+ * <code>2x<sup>2</sup></code>;</li>
+ * <li>reduces exponentiation by a constant to a {@link Power}, and by
+ * <code><i>e</i></code> to an {@link Exponential};</li>
+ * <li>orders the operands of sums and products canonically, so that equal
+ * subexpressions built in different orders become a single shared node.</li>
+ * </ul>
+ * Rewrites that would define the simplified function where the original is
+ * not are avoided: powers are only distributed over products, or merged with
+ * other powers, for integer exponents, so <code>(x<sup>1/2</sup>)<sup>2</sup></code>
+ * stays as it is; a factor only cancels against its reciprocal, as in
+ * <code>x / x</code>, when it cannot be zero; and constants that are not a
+ * number are kept. Like terms are still collected, so <code>x - x</code>
+ * becomes <code>0</code> even where <code>x</code> is infinite.
+ * <p>
+ * A simplifier remembers everything it has simplified, so simplifying several
+ * related differentiables (such as the components of a gradient) with the same
+ * instance preserves sharing between them. Instances of this class are not
+ * safe for use by multiple threads.
+ */
+public final class Simplifier
+{
+
+	/**
+	 * Orders nodes by digest.
+	 */
+	private final Comparator<Differentiable> order = new Comparator<Differentiable>()
+	{
+
+		/**
+		 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+		 */
+		@Override
+		public int compare(final Differentiable first, final Differentiable second)
+		{
+			long firstDigest = digest(first);
+			long secondDigest = digest(second);
+			return (firstDigest < secondDigest) ? -1 : ((firstDigest == secondDigest) ? 0 : 1);
+		}
+
+	};
+
+	/**
+	 * Map of original differentiables to their simplified forms.
+	 */
+	private final Map<Differentiable, Differentiable> simplified;
+
+	/**
+	 * Structural digests of canonical nodes.
+	 */
+	private final Map<Differentiable, Long> digests;
+
+	/**
+	 * Canonical nodes by digest.
+	 */
+	private final Map<Long, List<Differentiable>> canonical;
+
+	/**
+	 * Constructor.
+	 */
+	public Simplifier()
+	{
+		simplified = new IdentityHashMap<Differentiable, Differentiable>();
+		digests = new IdentityHashMap<Differentiable, Long>();
+		canonical = new HashMap<Long, List<Differentiable>>();
+	}
+
+	/**
+	 * Simplify the specified differentiable.
+	 * 
+	 * @param differentiable The differentiable.
+	 * @return An equivalent, simplified differentiable.
+	 * @throws NullPointerException If <code>differentiable</code> is
+	 *             <code>null</code>.
+	 */
+	public Differentiable simplify(final Differentiable differentiable)
+		throws NullPointerException
+	{
+		if(differentiable == null)
+		{
+			throw new NullPointerException("differentiable");
+		}
+
+		// post-order walk with an explicit stack, so deep graphs cannot
+		// overflow the call stack.
+		Deque<Differentiable> pending = new ArrayDeque<Differentiable>();
+		pending.push(differentiable);
+
+		while(pending.isEmpty() == false)
+		{
+			Differentiable current = pending.peek();
+			if(simplified.containsKey(current))
+			{
+				pending.pop();
+				continue;
+			}
+
+			boolean ready = true;
+			if(current instanceof AbstractComposedDifferentiable)
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)current;
+				for(int index = composed.argumentCount() - 1; index >= 0; index--)
+				{
+					Differentiable argument = composed.argument(index);
+					if(simplified.containsKey(argument) == false)
+					{
+						pending.push(argument);
+						ready = false;
+					}
+				}
+			}
+
+			if(ready)
+			{
+				pending.pop();
+				simplified.put(current, rewrite(current));
+			}
+		}
+
+		return simplified.get(differentiable);
+	}
+
+	/**
+	 * Rewrite a node whose arguments have all been simplified.
+	 * 
+	 * @param node The node.
+	 * @return The simplified node.
+	 */
+	private Differentiable rewrite(final Differentiable node)
+	{
+		if((node instanceof AbstractComposedDifferentiable) == false)
+		{
+			return canonical(node);
+		}
+
+		AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+		Differentiable[] arguments = new Differentiable[composed.argumentCount()];
+		double[] values = new double[arguments.length];
+		boolean constant = true;
+		for(int index = 0; index < arguments.length; index++)
+		{
+			arguments[index] = simplified.get(composed.argument(index));
+			if(arguments[index] instanceof Constant)
+			{
+				values[index] = ((Constant)arguments[index]).value();
+			}
+			else
+			{
+				constant = false;
+			}
+		}
+
+		if(constant && composed.isTransparent())
+		{
+			return canonical(new Constant(composed.evaluate(values)));
+		}
+
+		if(node instanceof Addition || node instanceof Subtraction || node instanceof Negation)
+		{
+			Sum sum = new Sum();
+			sum.add(arguments[0], (node instanceof Negation) ? -1d : 1d);
+			if(arguments.length > 1)
+			{
+				sum.add(arguments[1], (node instanceof Subtraction) ? -1d : 1d);
+			}
+
+			return sum.build();
+		}
+
+		if(node instanceof Multiplication || node instanceof Division || node instanceof Power)
+		{
+			Product product = new Product();
+			product.multiply(arguments[0], (node instanceof Power) ? composed.parameters()[0] : 1d);
+			if(arguments.length > 1)
+			{
+				product.multiply(arguments[1], (node instanceof Division) ? -1d : 1d);
+			}
+
+			return product.build();
+		}
+
+		if(node instanceof Exponentiation)
+		{
+			if(arguments[1] instanceof Constant)
+			{
+				Product product = new Product();
+				product.multiply(arguments[0], ((Constant)arguments[1]).value());
+				return product.build();
+			}
+
+			if(arguments[0] instanceof Constant && ((Constant)arguments[0]).value() == Math.E)
+			{
+				return canonical(Exponential.exp(arguments[1]));
+			}
+		}
+
+		Differentiable recomposed = composed.recompose(arguments);
+		if(recomposed == null)
+		{
+			// not something we know how to rebuild; keep it as is.
+			return canonical(node);
+		}
+
+		return canonical(recomposed);
+	}
+
+	/**
+	 * Get the canonical instance of the specified node, whose arguments (if
+	 * any) must already be canonical.
+	 * 
+	 * @param node The node.
+	 * @return The canonical instance.
+	 */
+	private Differentiable canonical(final Differentiable node)
+	{
+		if(digests.containsKey(node))
+		{
+			return node;
+		}
+
+		long digest = computeDigest(node);
+		Long key = Long.valueOf(digest);
+
+		List<Differentiable> candidates = canonical.get(key);
+		if(candidates == null)
+		{
+			candidates = new ArrayList<Differentiable>(1);
+			canonical.put(key, candidates);
+		}
+
+		for(Differentiable candidate : candidates)
+		{
+			if(shallowEquals(node, candidate))
+			{
+				return candidate;
+			}
+		}
+
+		candidates.add(node);
+		digests.put(node, key);
+
+		return node;
+	}
+
+	/**
+	 * Get the digest of a node, making it canonical if need be.
+	 * 
+	 * @param node The node.
+	 * @return The digest.
+	 */
+	private long digest(final Differentiable node)
+	{
+		Long digest = digests.get(canonical(node));
+		return digest.longValue();
+	}
+
+	/**
+	 * Compute the structural digest of a node.
+	 * <p>
+	 * The digest depends only on the structure of the node, so orders based on
+	 * it are reproducible.
+	 * 
+	 * @param node The node.
+	 * @return The digest.
+	 */
+	private long computeDigest(final Differentiable node)
+	{
+		long digest = mix(0L, node.getClass().getName().hashCode());
+
+		if(node instanceof Variable)
+		{
+			return mix(digest, ((Variable)node).name().hashCode());
+		}
+
+		if(node instanceof Constant)
+		{
+			return mix(digest, Double.doubleToLongBits(((Constant)node).value()));
+		}
+
+		if(node instanceof AbstractComposedDifferentiable)
+		{
+			AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+			for(double parameter : composed.parameters())
+			{
+				digest = mix(digest, Double.doubleToLongBits(parameter));
+			}
+
+			for(int index = 0; index < composed.argumentCount(); index++)
+			{
+				digest = mix(digest, digest(composed.argument(index)));
+			}
+
+			return digest;
+		}
+
+		return mix(digest, node.hashCode());
+	}
+
+	/**
+	 * Mix a value into a digest.
+	 * 
+	 * @param digest The digest.
+	 * @param value The value.
+	 * @return The new digest.
+	 */
+	private static long mix(final long digest, final long value)
+	{
+		long mixed = (digest ^ value) * 0x9e3779b97f4a7c15L;
+		return mixed ^ (mixed >>> 29);
+	}
+
+	/**
+	 * Check if two nodes have the same structure, assuming their arguments are
+	 * canonical.
+	 * 
+	 * @param first The first node.
+	 * @param second The second node.
+	 * @return <code>true</code> if so; <code>false</code> otherwise.
+	 */
+	private static boolean shallowEquals(final Differentiable first, final Differentiable second)
+	{
+		if(first.getClass() != second.getClass())
+		{
+			return false;
+		}
+
+		if((first instanceof AbstractComposedDifferentiable) == false)
+		{
+			return first.equals(second);
+		}
+
+		AbstractComposedDifferentiable firstComposed = (AbstractComposedDifferentiable)first;
+		AbstractComposedDifferentiable secondComposed = (AbstractComposedDifferentiable)second;
+		if(Arrays.equals(firstComposed.parameters(), secondComposed.parameters()) == false)
+		{
+			return false;
+		}
+
+		for(int index = 0; index < firstComposed.argumentCount(); index++)
+		{
+			if(firstComposed.argument(index) != secondComposed.argument(index))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Check if the specified number is an integer.
+	 * 
+	 * @param number The number.
+	 * @return <code>true</code> if so; <code>false</code> otherwise.
+	 */
+	private static boolean isInteger(final double number)
+	{
+		return number == Math.rint(number) && Double.isInfinite(number) == false;
+	}
+
+	/**
+	 * Multiply a canonical node by a coefficient, in the shape {@link Sum}
+	 * recognizes.
+	 * 
+	 * @param node The node.
+	 * @param coefficient The coefficient.
+	 * @return The scaled node.
+	 */
+	private Differentiable scale(final Differentiable node, final double coefficient)
+	{
+		if(coefficient == 1d)
+		{
+			return node;
+		}
+
+		if(coefficient == -1d)
+		{
+			return canonical(Negation.negate(node));
+		}
+
+		return canonical(Multiplication.multiply(canonical(new Constant(coefficient)), node));
+	}
+
+	/**
+	 * A linear combination of terms plus a constant.
+	 */
+	private final class Sum
+	{
+
+		/**
+		 * Coefficients by term.
+		 */
+		private final Map<Differentiable, double[]> coefficients = new IdentityHashMap<Differentiable, double[]>();
+
+		/**
+		 * The terms, in order of appearance.
+		 */
+		private final List<Differentiable> terms = new ArrayList<Differentiable>();
+
+		/**
+		 * The constant.
+		 */
+		private double constant;
+
+		/**
+		 * Add a canonical node, times a coefficient, to this sum.
+		 * 
+		 * @param node The node.
+		 * @param coefficient The coefficient.
+		 */
+		void add(final Differentiable node, final double coefficient)
+		{
+			Deque<Differentiable> nodes = new ArrayDeque<Differentiable>();
+			Deque<Double> scales = new ArrayDeque<Double>();
+			nodes.push(node);
+			scales.push(Double.valueOf(coefficient));
+
+			while(nodes.isEmpty() == false)
+			{
+				Differentiable current = nodes.pop();
+				double scale = scales.pop().doubleValue();
+
+				if(current instanceof Constant)
+				{
+					constant += scale * ((Constant)current).value();
+					continue;
+				}
+
+				if(current instanceof Addition || current instanceof Subtraction)
+				{
+					AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)current;
+					nodes.push(composed.argument(0));
+					scales.push(Double.valueOf(scale));
+					nodes.push(composed.argument(1));
+					scales.push(Double.valueOf((current instanceof Addition) ? scale : -scale));
+					continue;
+				}
+
+				if(current instanceof Negation)
+				{
+					nodes.push(((AbstractComposedDifferentiable)current).argument(0));
+					scales.push(Double.valueOf(-scale));
+					continue;
+				}
+
+				if(current instanceof Multiplication)
+				{
+					AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)current;
+					if(composed.argument(0) instanceof Constant)
+					{
+						nodes.push(composed.argument(1));
+						scales.push(Double.valueOf(scale * ((Constant)composed.argument(0)).value()));
+						continue;
+					}
+				}
+
+				double[] existing = coefficients.get(current);
+				if(existing == null)
+				{
+					coefficients.put(current, new double[] { scale });
+					terms.add(current);
+				}
+				else
+				{
+					existing[0] += scale;
+				}
+			}
+		}
+
+		/**
+		 * Build the canonical node for this sum.
+		 * 
+		 * @return The node.
+		 */
+		Differentiable build()
+		{
+			List<Differentiable> sorted = new ArrayList<Differentiable>(terms);
+			Collections.sort(sorted, order);
+
+			Differentiable result = null;
+			for(Differentiable term : sorted)
+			{
+				double coefficient = coefficients.get(term)[0];
+				if(coefficient == 0d)
+				{
+					continue;
+				}
+
+				if(result == null)
+				{
+					result = scale(term, coefficient);
+				}
+				else if(coefficient > 0d)
+				{
+					result = canonical(Addition.add(result, scale(term, coefficient)));
+				}
+				else
+				{
+					result = canonical(Subtraction.subtract(result, scale(term, -coefficient)));
+				}
+			}
+
+			if(result == null)
+			{
+				return canonical(new Constant(constant));
+			}
+
+			if(constant < 0d)
+			{
+				result = canonical(Subtraction.subtract(result, canonical(new Constant(-constant))));
+			}
+			else if(constant != 0d || Double.isNaN(constant))
+			{
+				result = canonical(Addition.add(result, canonical(new Constant(constant))));
+			}
+
+			return result;
+		}
+
+	}
+
+	/**
+	 * A product of powers of factors, times a coefficient.
+	 */
+	private final class Product
+	{
+
+		/**
+		 * Exponents by factor: the sum of the positive ones, and the sum of
+		 * the negative ones.
+		 */
+		private final Map<Differentiable, double[]> exponents = new IdentityHashMap<Differentiable, double[]>();
+
+		/**
+		 * The factors, in order of appearance.
+		 */
+		private final List<Differentiable> factors = new ArrayList<Differentiable>();
+
+		/**
+		 * The coefficient.
+		 */
+		private double coefficient = 1d;
+
+		/**
+		 * Multiply this product by a canonical node raised to an exponent.
+		 * 
+		 * @param node The node.
+		 * @param exponent The exponent.
+		 */
+		void multiply(final Differentiable node, final double exponent)
+		{
+			Deque<Differentiable> nodes = new ArrayDeque<Differentiable>();
+			Deque<Double> powers = new ArrayDeque<Double>();
+			nodes.push(node);
+			powers.push(Double.valueOf(exponent));
+
+			while(nodes.isEmpty() == false)
+			{
+				Differentiable current = nodes.pop();
+				double power = powers.pop().doubleValue();
+
+				if(current instanceof Constant)
+				{
+					coefficient *= Math.pow(((Constant)current).value(), power);
+					continue;
+				}
+
+				// powers only distribute over products exactly for integer
+				// exponents.
+				if(isInteger(power))
+				{
+					if(current instanceof Multiplication || current instanceof Division)
+					{
+						AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)current;
+						nodes.push(composed.argument(0));
+						powers.push(Double.valueOf(power));
+						nodes.push(composed.argument(1));
+						powers.push(Double.valueOf((current instanceof Multiplication) ? power : -power));
+						continue;
+					}
+
+					if(current instanceof Negation)
+					{
+						coefficient *= Math.pow(-1d, power);
+						nodes.push(((AbstractComposedDifferentiable)current).argument(0));
+						powers.push(Double.valueOf(power));
+						continue;
+					}
+
+					if(current instanceof Power && isInteger(((AbstractComposedDifferentiable)current).parameters()[0]))
+					{
+						AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)current;
+						nodes.push(composed.argument(0));
+						powers.push(Double.valueOf(power * composed.parameters()[0]));
+						continue;
+					}
+				}
+				else
+				{
+					// a non-integer power is a factor of its own, so that it
+					// never merges with other powers of its base.
+					current = canonical(Power.power(current, Math.abs(power)));
+					power = Math.signum(power);
+				}
+
+				double[] existing = exponents.get(current);
+				if(existing == null)
+				{
+					existing = new double[2];
+					exponents.put(current, existing);
+					factors.add(current);
+				}
+
+				existing[(power > 0d) ? 0 : 1] += power;
+			}
+		}
+
+		/**
+		 * Check if the specified factor is known to be nonzero wherever it is
+		 * defined, so that it may cancel against its reciprocal.
+		 * 
+		 * @param factor The factor.
+		 * @return <code>true</code> if so; <code>false</code> otherwise.
+		 */
+		private boolean isNonzero(final Differentiable factor)
+		{
+			return factor instanceof Exponential;
+		}
+
+		/**
+		 * Build the canonical node for this product.
+		 * 
+		 * @return The node.
+		 */
+		Differentiable build()
+		{
+			if(coefficient == 0d)
+			{
+				return canonical(Constant.ZERO);
+			}
+
+			List<Differentiable> sorted = new ArrayList<Differentiable>(factors);
+			Collections.sort(sorted, order);
+
+			Differentiable numerator = null;
+			Differentiable denominator = null;
+			for(Differentiable factor : sorted)
+			{
+				double[] exponent = exponents.get(factor);
+				double positive = exponent[0];
+				double negative = -exponent[1];
+				if(isNonzero(factor))
+				{
+					// cancel the reciprocals.
+					double net = positive - negative;
+					positive = Math.max(net, 0d);
+					negative = Math.max(-net, 0d);
+				}
+
+				if(positive != 0d)
+				{
+					Differentiable power = (positive == 1d) ? factor : canonical(Power.power(factor, positive));
+					numerator = (numerator == null) ? power : canonical(Multiplication.multiply(numerator, power));
+				}
+
+				if(negative != 0d)
+				{
+					Differentiable power = (negative == 1d) ? factor : canonical(Power.power(factor, negative));
+					denominator = (denominator == null) ? power : canonical(Multiplication.multiply(denominator, power));
+				}
+			}
+
+			Differentiable monomial = numerator;
+			if(denominator != null)
+			{
+				monomial = canonical(Division.divide((numerator == null) ? Constant.ONE : numerator, denominator));
+			}
+
+			if(monomial == null)
+			{
+				return canonical(new Constant(coefficient));
+			}
+
+			return scale(monomial, coefficient);
+		}
+
+	}
+
+}
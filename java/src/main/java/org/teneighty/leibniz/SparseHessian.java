@@ -0,0 +1,285 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Set;
+
+
+/**
+ * Hessian implementation that computes only structurally nonzero components.
+ * <p>
+ * The sparsity pattern is detected once, by static dependency analysis of the
+ * expression graph (see {@link SparsityPattern}). Evaluation then uses the
+ * column coloring of the pattern: for each color, the gradient components of
+ * the variables of that color are summed into one first-derivative graph, and
+ * a single reverse sweep over that graph yields the product of the Hessian
+ * with the seed vector of the color. As no two columns of one color share a
+ * row, every nonzero entry is read directly from one of these products. A
+ * partially separable function therefore costs a number of sweeps that
+ * depends on its coupling, not on its number of variables.
+ * <p>
+ * Components are still available as differentiables, built lazily; those that
+ * are structurally zero are {@link Constant#ZERO}.
+ */
+public class SparseHessian
+	extends AbstractHessian
+{
+
+	/**
+	 * The differentiable.
+	 */
+	private final Differentiable differentiable;
+
+	/**
+	 * The sparsity pattern.
+	 */
+	private final SparsityPattern pattern;
+
+	/**
+	 * The flattened first-derivative graph of each color.
+	 */
+	private final Tape[] tapes;
+
+	/**
+	 * For each color, the input slot, in the pattern layout, of each slot of
+	 * the tape layout.
+	 */
+	private final int[][] inputSlots;
+
+	/**
+	 * For each color, the positions of the entries recovered from it.
+	 */
+	private final int[][] entries;
+
+	/**
+	 * For each color, the register holding each recovered entry.
+	 */
+	private final int[][] registers;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param differentiable The differentiable.
+	 * @throws NullPointerException If <code>differentiable</code> is
+	 *             <code>null</code>.
+	 */
+	public SparseHessian(final Differentiable differentiable)
+		throws NullPointerException
+	{
+		if(differentiable == null)
+		{
+			throw new NullPointerException("differentiable");
+		}
+
+		this.differentiable = differentiable;
+		this.pattern = new Tape(differentiable).hessianPattern();
+
+		VariableIndex index = pattern.index();
+		int[] colors = pattern.colors();
+		int[] rows = pattern.rows();
+		int[] columns = pattern.columns();
+
+		tapes = new Tape[pattern.colorCount()];
+		inputSlots = new int[tapes.length][];
+		entries = new int[tapes.length][];
+		registers = new int[tapes.length][];
+
+		for(int color = 0; color < tapes.length; color++)
+		{
+			// the directional derivative along the seed vector of this color.
+			Differentiable seeded = Constant.ZERO;
+			for(int column = 0; column < colors.length; column++)
+			{
+				if(colors[column] == color)
+				{
+					seeded = seeded.plus(differentiable.derivative(index.variable(column)));
+				}
+			}
+
+			Tape tape = new Tape(seeded);
+			tapes[color] = tape;
+
+			VariableIndex tapeIndex = tape.index();
+			inputSlots[color] = new int[tapeIndex.size()];
+			for(int slot = 0; slot < tapeIndex.size(); slot++)
+			{
+				inputSlots[color][slot] = index.slot(tapeIndex.variable(slot));
+			}
+
+			// entry (row, column) is the row component of the product.
+			int count = 0;
+			for(int entry = 0; entry < columns.length; entry++)
+			{
+				if(colors[columns[entry]] == color)
+				{
+					count += 1;
+				}
+			}
+
+			entries[color] = new int[count];
+			registers[color] = new int[count];
+			count = 0;
+			for(int entry = 0; entry < columns.length; entry++)
+			{
+				if(colors[columns[entry]] == color)
+				{
+					entries[color][count] = entry;
+					registers[color][count] = tape.register(index.variable(rows[entry]));
+					count += 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Hessian#value(org.teneighty.leibniz.Assignment)
+	 */
+	@Override
+	public HessianValue value(final Assignment assignment)
+	{
+		VariableIndex index = pattern.index();
+		double[] values = new double[pattern.size()];
+		value(index.values(assignment), values);
+
+		double[] packed = new double[index.packedSize()];
+		pattern.unpack(values, packed);
+
+		return new ArrayHessianValue(index, packed);
+	}
+
+	/**
+	 * Evaluate the structurally nonzero entries of the upper triangle,
+	 * reading variable values directly from the specified input array.
+	 * <p>
+	 * Together with {@link SparsityPattern#rowPointers()},
+	 * {@link SparsityPattern#rows()} and {@link SparsityPattern#columns()},
+	 * <code>values</code> is then a compressed sparse row or coordinate form
+	 * of the upper triangle of the Hessian.
+	 * 
+	 * @param inputs The variable values, laid out by the index of
+	 *            {@link #sparsity()}.
+	 * @param values The array into which to write the entries, laid out by
+	 *            {@link #sparsity()}.
+	 * @throws NullPointerException If either array is <code>null</code>.
+	 * @throws IllegalArgumentException If <code>inputs</code> does not match
+	 *             the index of the pattern, or <code>values</code> is too
+	 *             short.
+	 */
+	public void value(final double[] inputs, final double[] values)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(inputs == null)
+		{
+			throw new NullPointerException("inputs");
+		}
+
+		if(values == null)
+		{
+			throw new NullPointerException("values");
+		}
+
+		if(values.length < pattern.size())
+		{
+			String message = String.format("Expected at least %1$s values but got %2$s", pattern.size(), values.length);
+			throw new IllegalArgumentException(message);
+		}
+
+		Assignment assignment = new ArrayAssignment(pattern.index(), inputs);
+		for(int color = 0; color < tapes.length; color++)
+		{
+			Tape tape = tapes[color];
+			int[] slots = inputSlots[color];
+
+			double[] tapeInputs = new double[slots.length];
+			for(int slot = 0; slot < slots.length; slot++)
+			{
+				tapeInputs[slot] = inputs[slots[slot]];
+			}
+
+			double[] registerValues = new double[tape.size()];
+			tape.forward(tapeInputs, registerValues);
+
+			double[] adjoints = new double[tape.size()];
+			adjoints[tape.root()] = 1d;
+			tape.reverse(assignment, registerValues, adjoints);
+
+			int[] colorEntries = entries[color];
+			int[] colorRegisters = registers[color];
+			for(int entry = 0; entry < colorEntries.length; entry++)
+			{
+				int register = colorRegisters[entry];
+				values[colorEntries[entry]] = (register < 0) ? 0d : adjoints[register];
+			}
+		}
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Hessian#differentiable()
+	 */
+	@Override
+	public Differentiable differentiable()
+	{
+		return differentiable;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Hessian#variables()
+	 */
+	@Override
+	public Set<Variable> variables()
+	{
+		return differentiable.variables();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Hessian#sparsity()
+	 */
+	@Override
+	public SparsityPattern sparsity()
+	{
+		return pattern;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Hessian#component(org.teneighty.leibniz.HessianKey)
+	 */
+	@Override
+	public Differentiable component(final HessianKey key)
+	{
+		Set<Variable> variables = variables();
+		if((variables.contains(key.first()) == false) || (variables.contains(key.second()) == false))
+		{
+			String message = String.format("No component for %1$s", key);
+			throw new IllegalArgumentException(message);
+		}
+
+		if(pattern.contains(key.first(), key.second()) == false)
+		{
+			return Constant.ZERO;
+		}
+
+		return differentiable.derivative(key.first(), key.second());
+	}
+
+}
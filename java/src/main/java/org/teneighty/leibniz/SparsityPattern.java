@@ -0,0 +1,370 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * The structural sparsity pattern of a symmetric matrix, such as a Hessian,
+ * over a {@link VariableIndex}.
+ * <p>
+ * An entry is structurally nonzero if it may be nonzero for some assignment;
+ * every other entry is zero for every assignment. The pattern stores only the
+ * upper triangle (diagonal included), in row-major order; the position of an
+ * entry in that order is its position in the values array of a
+ * {@link SparseHessian}, so the arrays returned by {@link #rowPointers()},
+ * {@link #rows()} and {@link #columns()} describe such an array in compressed
+ * sparse row and coordinate form.
+ * <p>
+ * The pattern also carries a coloring of its columns in which no two columns
+ * of the same color have a nonzero in the same row. Each entry can therefore
+ * be read directly from the product of the matrix with the sum of the unit
+ * vectors of one color, which is how {@link SparseHessian} computes a Hessian
+ * with one second-order sweep per color instead of one per variable.
+ */
+public final class SparsityPattern
+	implements Serializable
+{
+
+	/**
+	 * Serial version.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The layout of rows and columns.
+	 */
+	private final VariableIndex index;
+
+	/**
+	 * Offset of the first entry of each row, plus a trailing total.
+	 */
+	private final int[] rowPointers;
+
+	/**
+	 * The row of each entry.
+	 */
+	private final int[] rows;
+
+	/**
+	 * The column of each entry.
+	 */
+	private final int[] columns;
+
+	/**
+	 * The color of each column.
+	 */
+	private final int[] colors;
+
+	/**
+	 * The number of colors.
+	 */
+	private final int colorCount;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param index The layout of rows and columns.
+	 * @param pattern The nonzero columns of each row; must be symmetric.
+	 */
+	SparsityPattern(final VariableIndex index, final BitSet[] pattern)
+	{
+		this.index = index;
+
+		int size = index.size();
+		rowPointers = new int[size + 1];
+		for(int row = 0; row < size; row++)
+		{
+			rowPointers[row + 1] = rowPointers[row] + pattern[row].get(row, size).cardinality();
+		}
+
+		rows = new int[rowPointers[size]];
+		columns = new int[rowPointers[size]];
+		for(int row = 0; row < size; row++)
+		{
+			int entry = rowPointers[row];
+			for(int column = pattern[row].nextSetBit(row); column >= 0; column = pattern[row].nextSetBit(column + 1))
+			{
+				rows[entry] = row;
+				columns[entry] = column;
+				entry += 1;
+			}
+		}
+
+		colors = color(pattern);
+		int count = 0;
+		for(int color : colors)
+		{
+			count = Math.max(count, color + 1);
+		}
+
+		colorCount = count;
+	}
+
+	/**
+	 * Greedily color the columns of the specified pattern such that no two
+	 * columns sharing a row get the same color.
+	 * 
+	 * @param pattern The nonzero columns of each row.
+	 * @return The color of each column.
+	 */
+	private static int[] color(final BitSet[] pattern)
+	{
+		int[] colors = new int[pattern.length];
+		Arrays.fill(colors, -1);
+
+		BitSet forbidden = new BitSet();
+		for(int column = 0; column < pattern.length; column++)
+		{
+			// by symmetry, the rows in which this column is nonzero are the
+			// columns of its own row.
+			forbidden.clear();
+			BitSet rowsOfColumn = pattern[column];
+			for(int row = rowsOfColumn.nextSetBit(0); row >= 0; row = rowsOfColumn.nextSetBit(row + 1))
+			{
+				BitSet neighbours = pattern[row];
+				for(int other = neighbours.nextSetBit(0); other >= 0; other = neighbours.nextSetBit(other + 1))
+				{
+					if(colors[other] >= 0)
+					{
+						forbidden.set(colors[other]);
+					}
+				}
+			}
+
+			colors[column] = forbidden.nextClearBit(0);
+		}
+
+		return colors;
+	}
+
+	/**
+	 * Get the layout of rows and columns.
+	 * 
+	 * @return The index.
+	 */
+	public VariableIndex index()
+	{
+		return index;
+	}
+
+	/**
+	 * Get the number of structurally nonzero entries in the upper triangle.
+	 * 
+	 * @return The number of entries.
+	 */
+	public int size()
+	{
+		return columns.length;
+	}
+
+	/**
+	 * Get the compressed sparse row pointers of the upper triangle: the entries
+	 * of row <code>i</code> occupy positions <code>rowPointers[i]</code>
+	 * (inclusive) to <code>rowPointers[i + 1]</code> (exclusive).
+	 * 
+	 * @return A new array of length <code>index().size() + 1</code>.
+	 */
+	public int[] rowPointers()
+	{
+		return rowPointers.clone();
+	}
+
+	/**
+	 * Get the row of each entry of the upper triangle, for coordinate form.
+	 * 
+	 * @return A new array of length {@link #size()}.
+	 */
+	public int[] rows()
+	{
+		return rows.clone();
+	}
+
+	/**
+	 * Get the column of each entry of the upper triangle, for both compressed
+	 * sparse row and coordinate form.
+	 * 
+	 * @return A new array of length {@link #size()}.
+	 */
+	public int[] columns()
+	{
+		return columns.clone();
+	}
+
+	/**
+	 * Get the position of the specified entry.
+	 * <p>
+	 * The order of the arguments does not matter.
+	 * 
+	 * @param first The first slot.
+	 * @param second The second slot.
+	 * @return The position, or <code>-1</code> if the entry is structurally
+	 *         zero.
+	 * @throws IndexOutOfBoundsException If either slot is out of range.
+	 */
+	public int position(final int first, final int second)
+		throws IndexOutOfBoundsException
+	{
+		if(first < 0 || first >= index.size())
+		{
+			throw new IndexOutOfBoundsException(String.valueOf(first));
+		}
+
+		if(second < 0 || second >= index.size())
+		{
+			throw new IndexOutOfBoundsException(String.valueOf(second));
+		}
+
+		int row = Math.min(first, second);
+		int column = Math.max(first, second);
+		int position = Arrays.binarySearch(columns, rowPointers[row], rowPointers[row + 1], column);
+
+		return (position < 0) ? -1 : position;
+	}
+
+	/**
+	 * Check if the entry for the specified pair of variables is structurally
+	 * nonzero.
+	 * 
+	 * @param first The first variable.
+	 * @param second The second variable.
+	 * @return <code>true</code> if the entry may be nonzero; <code>false</code>
+	 *         if it is always zero, including when either variable is not
+	 *         indexed.
+	 */
+	public boolean contains(final Variable first, final Variable second)
+	{
+		if((index.contains(first) == false) || (index.contains(second) == false))
+		{
+			return false;
+		}
+
+		return position(index.slot(first), index.slot(second)) >= 0;
+	}
+
+	/**
+	 * Get the color of each column.
+	 * 
+	 * @return A new array of length <code>index().size()</code>, with values
+	 *         from zero to <code>colorCount() - 1</code>.
+	 */
+	public int[] colors()
+	{
+		return colors.clone();
+	}
+
+	/**
+	 * Get the number of colors, i.e. the number of matrix-vector products
+	 * needed to recover every entry.
+	 * 
+	 * @return The color count.
+	 */
+	public int colorCount()
+	{
+		return colorCount;
+	}
+
+	/**
+	 * Scatter values laid out by this pattern into a packed upper triangle, as
+	 * used by {@link CompiledHessian#value(double[], double[])}.
+	 * 
+	 * @param values The values, laid out by this pattern.
+	 * @param packed The packed array, laid out by
+	 *            {@link VariableIndex#packedSlot(int, int)}; structurally
+	 *            zero entries are set to zero.
+	 * @throws NullPointerException If either array is <code>null</code>.
+	 * @throws IllegalArgumentException If either array is too short.
+	 */
+	public void unpack(final double[] values, final double[] packed)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(values == null)
+		{
+			throw new NullPointerException("values");
+		}
+
+		if(packed == null)
+		{
+			throw new NullPointerException("packed");
+		}
+
+		if(values.length < columns.length || packed.length < index.packedSize())
+		{
+			throw new IllegalArgumentException("Array too short");
+		}
+
+		Arrays.fill(packed, 0, index.packedSize(), 0d);
+		for(int entry = 0; entry < columns.length; entry++)
+		{
+			packed[index.packedSlot(rows[entry], columns[entry])] = values[entry];
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+
+		if(other == this)
+		{
+			return true;
+		}
+
+		if(other instanceof SparsityPattern)
+		{
+			SparsityPattern that = (SparsityPattern)other;
+			return index.equals(that.index) && Arrays.equals(rowPointers, that.rowPointers) && Arrays.equals(columns, that.columns);
+		}
+
+		return false;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return (31 * index.hashCode()) + Arrays.hashCode(columns);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("SparsityPattern[%1$s of %2$s entries, %3$s colors]", columns.length, index.packedSize(), colorCount);
+	}
+
+}
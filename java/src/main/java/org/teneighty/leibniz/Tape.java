@@ -0,0 +1,1397 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.teneighty.leibniz.function.Addition;
+import org.teneighty.leibniz.function.Division;
+import org.teneighty.leibniz.function.Exponential;
+import org.teneighty.leibniz.function.Exponentiation;
+import org.teneighty.leibniz.function.Multiplication;
+import org.teneighty.leibniz.function.NaturalLogarithm;
+import org.teneighty.leibniz.function.Negation;
+import org.teneighty.leibniz.function.Power;
+import org.teneighty.leibniz.function.Subtraction;
+import org.teneighty.leibniz.function.trigonometric.Cosine;
+import org.teneighty.leibniz.function.trigonometric.Sine;
+
+
+/**
+ * A flattened, topologically sorted view of the expression graph of a
+ * differentiable.
+ * <p>
+ * Each distinct node of the graph is assigned a register, and registers are
+ * ordered such that the arguments of a node always precede the node itself. A
+ * forward sweep over the registers therefore evaluates every node exactly once,
+ * and a backward sweep propagates adjoints from the root to the leaves.
+ * <p>
+ * Composed nodes are shared by identity; variables are shared by equality, so
+ * that two equal variable instances occupy a single register.
+ * <p>
+ * Each register also carries an instruction. The common arithmetic and
+ * elementary functions are evaluated inline by the forward sweep; any other
+ * composed node is evaluated through
+ * {@link AbstractComposedDifferentiable#evaluate(double[])}. Composed nodes
+ * that do not implement it are opaque, like differentiables of unknown type:
+ * they are evaluated and differentiated symbolically, over their variables.
+ */
+final class Tape
+{
+
+	/**
+	 * Constant node kind.
+	 */
+	private static final byte CONSTANT = 0;
+
+	/**
+	 * Variable node kind.
+	 */
+	private static final byte VARIABLE = 1;
+
+	/**
+	 * Composed node kind.
+	 */
+	private static final byte COMPOSED = 2;
+
+	/**
+	 * Opaque node kind, i.e. some differentiable whose structure we cannot see.
+	 */
+	private static final byte OPAQUE = 3;
+
+	/**
+	 * Instruction: evaluate a composed node through its evaluate method.
+	 */
+	private static final byte GENERIC = 4;
+
+	/**
+	 * Instruction: addition.
+	 */
+	private static final byte ADD = 5;
+
+	/**
+	 * Instruction: subtraction.
+	 */
+	private static final byte SUBTRACT = 6;
+
+	/**
+	 * Instruction: multiplication.
+	 */
+	private static final byte MULTIPLY = 7;
+
+	/**
+	 * Instruction: division.
+	 */
+	private static final byte DIVIDE = 8;
+
+	/**
+	 * Instruction: negation.
+	 */
+	private static final byte NEGATE = 9;
+
+	/**
+	 * Instruction: exponential.
+	 */
+	private static final byte EXP = 10;
+
+	/**
+	 * Instruction: natural logarithm.
+	 */
+	private static final byte LN = 11;
+
+	/**
+	 * Instruction: power with a constant index.
+	 */
+	private static final byte POWER = 12;
+
+	/**
+	 * Instruction: power with a differentiable index.
+	 */
+	private static final byte EXPONENTIATE = 13;
+
+	/**
+	 * Instruction: sine.
+	 */
+	private static final byte SIN = 14;
+
+	/**
+	 * Instruction: cosine.
+	 */
+	private static final byte COS = 15;
+
+	/**
+	 * The nodes, in register order.
+	 */
+	private final Differentiable[] nodes;
+
+	/**
+	 * The node kinds, in register order.
+	 */
+	private final byte[] kinds;
+
+	/**
+	 * The argument registers of each node.
+	 * <p>
+	 * For opaque nodes, these are the registers of the variables of the node.
+	 */
+	private final int[][] arguments;
+
+	/**
+	 * The instructions, in register order.
+	 */
+	private final byte[] instructions;
+
+	/**
+	 * The first argument register of each node, or for variables, the input
+	 * slot.
+	 */
+	private final int[] first;
+
+	/**
+	 * The second argument register of each binary node.
+	 */
+	private final int[] second;
+
+	/**
+	 * Values of the constant nodes, and indexes of powers.
+	 */
+	private final double[] constants;
+
+	/**
+	 * Layout of the inputs read by {@link #forward(double[], double[])}.
+	 */
+	private final VariableIndex index;
+
+	/**
+	 * Registers of variables.
+	 */
+	private final Map<Variable, Integer> variableRegisters;
+
+	/**
+	 * The largest number of arguments taken by any node.
+	 */
+	private final int maximumArity;
+
+	/**
+	 * The registers of the roots.
+	 */
+	private final int[] roots;
+
+	/**
+	 * Layout of the placeholder variables over which
+	 * {@link #curvatures()} are expressed; built with them.
+	 */
+	private VariableIndex placeholders;
+
+	/**
+	 * Symbolic second partials of composed nodes, or <code>null</code> if
+	 * not yet built.
+	 */
+	private volatile Differentiable[][][] curvatures;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param roots The differentiables to flatten; nodes shared between them
+	 *            are flattened only once.
+	 */
+	Tape(final Differentiable... roots)
+	{
+		if(roots == null || roots.length == 0)
+		{
+			throw new NullPointerException("roots");
+		}
+
+		variableRegisters = new HashMap<Variable, Integer>();
+
+		Map<Differentiable, Integer> registers = new IdentityHashMap<Differentiable, Integer>();
+		List<Differentiable> order = new ArrayList<Differentiable>();
+		List<int[]> argumentList = new ArrayList<int[]>();
+
+		// iterative post-order traversal; a node is assigned a register only
+		// once all of its arguments have been.
+		List<Differentiable> stack = new ArrayList<Differentiable>();
+		for(int root = roots.length - 1; root >= 0; root--)
+		{
+			if(roots[root] == null)
+			{
+				throw new NullPointerException("roots");
+			}
+
+			stack.add(roots[root]);
+		}
+		while(stack.isEmpty() == false)
+		{
+			Differentiable node = stack.get(stack.size() - 1);
+			if(register(node, registers) >= 0)
+			{
+				stack.remove(stack.size() - 1);
+				continue;
+			}
+
+			Differentiable[] children = children(node);
+			boolean ready = true;
+			for(int index = children.length - 1; index >= 0; index--)
+			{
+				if(register(children[index], registers) < 0)
+				{
+					stack.add(children[index]);
+					ready = false;
+				}
+			}
+
+			if(ready)
+			{
+				stack.remove(stack.size() - 1);
+
+				int[] argumentRegisters = new int[children.length];
+				for(int index = 0; index < children.length; index++)
+				{
+					argumentRegisters[index] = register(children[index], registers);
+				}
+
+				int register = order.size();
+				if(node instanceof Variable)
+				{
+					variableRegisters.put((Variable)node, register);
+				}
+				else
+				{
+					registers.put(node, register);
+				}
+
+				order.add(node);
+				argumentList.add(argumentRegisters);
+			}
+		}
+
+		int size = order.size();
+		nodes = order.toArray(new Differentiable[size]);
+		arguments = argumentList.toArray(new int[size][]);
+		kinds = new byte[size];
+		instructions = new byte[size];
+		first = new int[size];
+		second = new int[size];
+		constants = new double[size];
+		index = VariableIndex.sorted(variableRegisters.keySet());
+
+		int arity = 0;
+		for(int register = 0; register < size; register++)
+		{
+			Differentiable node = nodes[register];
+			int[] argumentRegisters = arguments[register];
+			if(node instanceof Constant)
+			{
+				kinds[register] = CONSTANT;
+				instructions[register] = CONSTANT;
+				constants[register] = ((Constant)node).value();
+			}
+			else if(node instanceof Variable)
+			{
+				kinds[register] = VARIABLE;
+				instructions[register] = VARIABLE;
+				first[register] = index.slot((Variable)node);
+			}
+			else if(Graphs.isTransparent(node))
+			{
+				kinds[register] = COMPOSED;
+				instructions[register] = instruction(node);
+				first[register] = (argumentRegisters.length > 0) ? argumentRegisters[0] : -1;
+				second[register] = (argumentRegisters.length > 1) ? argumentRegisters[1] : -1;
+				if(node instanceof Power)
+				{
+					constants[register] = ((Power)node).parameters()[0];
+				}
+			}
+			else
+			{
+				kinds[register] = OPAQUE;
+				instructions[register] = OPAQUE;
+			}
+
+			arity = Math.max(arity, arguments[register].length);
+		}
+
+		maximumArity = arity;
+
+		this.roots = new int[roots.length];
+		for(int root = 0; root < roots.length; root++)
+		{
+			this.roots[root] = register(roots[root], registers);
+		}
+	}
+
+	/**
+	 * Get the instruction that evaluates the specified composed node.
+	 * <p>
+	 * Only final library classes are evaluated inline, so the instruction is
+	 * known to match {@link AbstractComposedDifferentiable#evaluate(double[])}.
+	 *
+	 * @param node The node.
+	 * @return The instruction.
+	 */
+	private static byte instruction(final Differentiable node)
+	{
+		Class<?> type = node.getClass();
+		if(type == Addition.class)
+		{
+			return ADD;
+		}
+		else if(type == Subtraction.class)
+		{
+			return SUBTRACT;
+		}
+		else if(type == Multiplication.class)
+		{
+			return MULTIPLY;
+		}
+		else if(type == Division.class)
+		{
+			return DIVIDE;
+		}
+		else if(type == Negation.class)
+		{
+			return NEGATE;
+		}
+		else if(type == Exponential.class)
+		{
+			return EXP;
+		}
+		else if(type == NaturalLogarithm.class)
+		{
+			return LN;
+		}
+		else if(type == Power.class)
+		{
+			return POWER;
+		}
+		else if(type == Exponentiation.class)
+		{
+			return EXPONENTIATE;
+		}
+		else if(type == Sine.class)
+		{
+			return SIN;
+		}
+		else if(type == Cosine.class)
+		{
+			return COS;
+		}
+
+		return GENERIC;
+	}
+
+	/**
+	 * Get the register of the specified node.
+	 *
+	 * @param node The node.
+	 * @param registers Registers of non-variable nodes.
+	 * @return The register, or <code>-1</code> if not yet assigned.
+	 */
+	private int register(final Differentiable node, final Map<Differentiable, Integer> registers)
+	{
+		Integer register = (node instanceof Variable) ? variableRegisters.get(node) : registers.get(node);
+		return (register == null) ? -1 : register.intValue();
+	}
+
+	/**
+	 * Get the children of the specified node, as seen by the tape.
+	 *
+	 * @param node The node.
+	 * @return The children.
+	 */
+	private static Differentiable[] children(final Differentiable node)
+	{
+		if((node instanceof Constant) || (node instanceof Variable))
+		{
+			return new Differentiable[0];
+		}
+
+		if(Graphs.isTransparent(node))
+		{
+			AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+			Differentiable[] children = new Differentiable[composed.argumentCount()];
+			for(int index = 0; index < children.length; index++)
+			{
+				children[index] = composed.argument(index);
+			}
+
+			return children;
+		}
+
+		// opaque; we can see only its variables.
+		Set<Variable> variables = node.variables();
+		return variables.toArray(new Differentiable[variables.size()]);
+	}
+
+	/**
+	 * Get the number of registers.
+	 *
+	 * @return The register count.
+	 */
+	int size()
+	{
+		return nodes.length;
+	}
+
+	/**
+	 * Get the register holding the (first) root of the graph.
+	 *
+	 * @return The root register.
+	 */
+	int root()
+	{
+		return roots[0];
+	}
+
+	/**
+	 * Get the number of roots.
+	 *
+	 * @return The root count.
+	 */
+	int rootCount()
+	{
+		return roots.length;
+	}
+
+	/**
+	 * Get the register holding the specified root.
+	 *
+	 * @param root The index of the root, in constructor order.
+	 * @return The root register.
+	 */
+	int root(final int root)
+	{
+		return roots[root];
+	}
+
+	/**
+	 * Get the layout of the inputs read by
+	 * {@link #forward(double[], double[])}: every variable of the graph,
+	 * sorted by name.
+	 *
+	 * @return The index.
+	 */
+	VariableIndex index()
+	{
+		return index;
+	}
+
+	/**
+	 * Get the register of the specified variable.
+	 *
+	 * @param variable The variable.
+	 * @return The register, or <code>-1</code> if the variable does not appear in
+	 *         the graph.
+	 */
+	int register(final Variable variable)
+	{
+		Integer register = variableRegisters.get(variable);
+		return (register == null) ? -1 : register.intValue();
+	}
+
+	/**
+	 * Get the set of variable slots, laid out by {@link #index()}, on which
+	 * each register depends.
+	 *
+	 * @return The dependency sets, in register order.
+	 */
+	private BitSet[] dependencies()
+	{
+		BitSet[] dependencies = new BitSet[nodes.length];
+		for(int register = 0; register < nodes.length; register++)
+		{
+			BitSet dependency = new BitSet(index.size());
+			if(kinds[register] == VARIABLE)
+			{
+				dependency.set(first[register]);
+			}
+
+			for(int argument : arguments[register])
+			{
+				dependency.or(dependencies[argument]);
+			}
+
+			dependencies[register] = dependency;
+		}
+
+		return dependencies;
+	}
+
+	/**
+	 * Detect the sparsity pattern of the Jacobian of the roots by static
+	 * dependency analysis: the entry for a root and a variable is
+	 * structurally nonzero exactly when the root depends on the variable.
+	 *
+	 * @return The pattern, with one row per root and columns laid out by
+	 *         {@link #index()}.
+	 */
+	JacobianPattern jacobianPattern()
+	{
+		BitSet[] dependencies = dependencies();
+		BitSet[] pattern = new BitSet[roots.length];
+		for(int root = 0; root < roots.length; root++)
+		{
+			pattern[root] = dependencies[roots[root]];
+		}
+
+		return new JacobianPattern(index, pattern);
+	}
+
+	/**
+	 * Detect the sparsity pattern of the Hessian of the roots by static
+	 * dependency analysis.
+	 * <p>
+	 * Each register depends on a set of variables. A pair of variables can
+	 * have a nonzero second derivative only if some node combines them
+	 * nonlinearly: sums, differences and negations are linear and add
+	 * nothing; a product couples the variables of one factor with those of
+	 * the other; a quotient additionally couples the variables of the
+	 * denominator with each other; and any other node (conservatively)
+	 * couples all the variables of its arguments with each other.
+	 * <p>
+	 * With several roots, the pattern is that of their sum.
+	 *
+	 * @return The pattern, laid out by {@link #index()}.
+	 */
+	SparsityPattern hessianPattern()
+	{
+		BitSet[] pattern = new BitSet[index.size()];
+		for(int slot = 0; slot < pattern.length; slot++)
+		{
+			pattern[slot] = new BitSet(pattern.length);
+		}
+
+		BitSet[] dependencies = dependencies();
+		for(int register = 0; register < nodes.length; register++)
+		{
+			BitSet dependency = dependencies[register];
+			switch(instructions[register])
+			{
+				case CONSTANT:
+				case VARIABLE:
+				case ADD:
+				case SUBTRACT:
+				case NEGATE:
+					break;
+
+				case MULTIPLY:
+					couple(pattern, dependencies[first[register]], dependencies[second[register]]);
+					break;
+
+				case DIVIDE:
+					couple(pattern, dependencies[first[register]], dependencies[second[register]]);
+					couple(pattern, dependencies[second[register]], dependencies[second[register]]);
+					break;
+
+				case POWER:
+					if(constants[register] != 0d && constants[register] != 1d)
+					{
+						couple(pattern, dependency, dependency);
+					}
+					break;
+
+				default:
+					couple(pattern, dependency, dependency);
+					break;
+			}
+		}
+
+		return new SparsityPattern(index, pattern);
+	}
+
+	/**
+	 * Mark every pair of one variable from each of the specified sets as
+	 * structurally nonzero, symmetrically.
+	 *
+	 * @param pattern The nonzero columns of each row.
+	 * @param left The first set.
+	 * @param right The second set.
+	 */
+	private static void couple(final BitSet[] pattern, final BitSet left, final BitSet right)
+	{
+		for(int slot = left.nextSetBit(0); slot >= 0; slot = left.nextSetBit(slot + 1))
+		{
+			pattern[slot].or(right);
+		}
+
+		for(int slot = right.nextSetBit(0); slot >= 0; slot = right.nextSetBit(slot + 1))
+		{
+			pattern[slot].or(left);
+		}
+	}
+
+	/**
+	 * Forward sweep: compute the value of every node.
+	 *
+	 * @param assignment The variable assignment.
+	 * @param values The register file into which to write node values.
+	 */
+	void forward(final Assignment assignment, final double[] values)
+	{
+		double[] argumentValues = new double[maximumArity];
+		for(int register = 0; register < nodes.length; register++)
+		{
+			switch(kinds[register])
+			{
+				case CONSTANT:
+					values[register] = constants[register];
+					break;
+
+				case VARIABLE:
+					values[register] = assignment.get((Variable)nodes[register]);
+					break;
+
+				case COMPOSED:
+					int[] argumentRegisters = arguments[register];
+					for(int index = 0; index < argumentRegisters.length; index++)
+					{
+						argumentValues[index] = values[argumentRegisters[index]];
+					}
+
+					values[register] = ((AbstractComposedDifferentiable)nodes[register]).evaluate(argumentValues);
+					break;
+
+				default:
+					values[register] = nodes[register].value(assignment);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Forward sweep over an input array: compute the value of every node.
+	 * <p>
+	 * Inputs are laid out by {@link #index()}.
+	 *
+	 * @param inputs The variable values.
+	 * @param values The register file into which to write node values.
+	 */
+	void forward(final double[] inputs, final double[] values)
+	{
+		double[] argumentValues = null;
+		Assignment assignment = null;
+		for(int register = 0; register < instructions.length; register++)
+		{
+			switch(instructions[register])
+			{
+				case CONSTANT:
+					values[register] = constants[register];
+					break;
+
+				case VARIABLE:
+					values[register] = inputs[first[register]];
+					break;
+
+				case ADD:
+					values[register] = values[first[register]] + values[second[register]];
+					break;
+
+				case SUBTRACT:
+					values[register] = values[first[register]] - values[second[register]];
+					break;
+
+				case MULTIPLY:
+					values[register] = values[first[register]] * values[second[register]];
+					break;
+
+				case DIVIDE:
+					values[register] = values[first[register]] / values[second[register]];
+					break;
+
+				case NEGATE:
+					values[register] = -values[first[register]];
+					break;
+
+				case EXP:
+					values[register] = Math.exp(values[first[register]]);
+					break;
+
+				case LN:
+					values[register] = Math.log(values[first[register]]);
+					break;
+
+				case POWER:
+					values[register] = Math.pow(values[first[register]], constants[register]);
+					break;
+
+				case EXPONENTIATE:
+					values[register] = Math.pow(values[first[register]], values[second[register]]);
+					break;
+
+				case SIN:
+					values[register] = Math.sin(values[first[register]]);
+					break;
+
+				case COS:
+					values[register] = Math.cos(values[first[register]]);
+					break;
+
+				case GENERIC:
+					if(argumentValues == null)
+					{
+						argumentValues = new double[maximumArity];
+					}
+
+					int[] argumentRegisters = arguments[register];
+					for(int argument = 0; argument < argumentRegisters.length; argument++)
+					{
+						argumentValues[argument] = values[argumentRegisters[argument]];
+					}
+
+					values[register] = ((AbstractComposedDifferentiable)nodes[register]).evaluate(argumentValues);
+					break;
+
+				default:
+					if(assignment == null)
+					{
+						assignment = new ArrayAssignment(index, inputs);
+					}
+
+					values[register] = nodes[register].value(assignment);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Vector forward sweep: compute the value of every node together with
+	 * its derivatives along several directions at once.
+	 * <p>
+	 * Tangents are stored register by register, so the derivative of register
+	 * <code>r</code> along direction <code>d</code> is written to
+	 * <code>tangents[(r * count) + d]</code>; the directions are laid out the
+	 * same way, slot by slot. As in the reverse sweep, a zero tangent
+	 * contributes nothing, even through a local partial that is infinite or
+	 * NaN, so subtrees on which a direction does not depend cannot poison it.
+	 *
+	 * @param inputs The variable values, laid out by {@link #index()}.
+	 * @param directions The directions, laid out by {@link #index()}.
+	 * @param count The number of directions.
+	 * @param values The register file into which to write node values.
+	 * @param tangents The register file into which to write node tangents.
+	 */
+	void forward(final double[] inputs, final double[] directions, final int count, final double[] values, final double[] tangents)
+	{
+		double[] argumentValues = null;
+		Assignment assignment = null;
+		for(int register = 0; register < instructions.length; register++)
+		{
+			int base = register * count;
+			int left = first[register] * count;
+			int right = second[register] * count;
+			switch(instructions[register])
+			{
+				case CONSTANT:
+					values[register] = constants[register];
+					for(int direction = 0; direction < count; direction++)
+					{
+						tangents[base + direction] = 0d;
+					}
+					break;
+
+				case VARIABLE:
+					values[register] = inputs[first[register]];
+					System.arraycopy(directions, left, tangents, base, count);
+					break;
+
+				case ADD:
+					values[register] = values[first[register]] + values[second[register]];
+					for(int direction = 0; direction < count; direction++)
+					{
+						tangents[base + direction] = tangents[left + direction] + tangents[right + direction];
+					}
+					break;
+
+				case SUBTRACT:
+					values[register] = values[first[register]] - values[second[register]];
+					for(int direction = 0; direction < count; direction++)
+					{
+						tangents[base + direction] = tangents[left + direction] - tangents[right + direction];
+					}
+					break;
+
+				case MULTIPLY:
+					double leftValue = values[first[register]];
+					double rightValue = values[second[register]];
+					values[register] = leftValue * rightValue;
+					for(int direction = 0; direction < count; direction++)
+					{
+						tangents[base + direction] = product(rightValue, tangents[left + direction]) + product(leftValue, tangents[right + direction]);
+					}
+					break;
+
+				case DIVIDE:
+					double denominator = values[second[register]];
+					double quotient = values[first[register]] / denominator;
+					values[register] = quotient;
+					for(int direction = 0; direction < count; direction++)
+					{
+						double leftTangent = tangents[left + direction];
+						double rightTangent = tangents[right + direction];
+						if(leftTangent == 0d && rightTangent == 0d)
+						{
+							tangents[base + direction] = 0d;
+						}
+						else
+						{
+							tangents[base + direction] = (leftTangent - product(quotient, rightTangent)) / denominator;
+						}
+					}
+					break;
+
+				case NEGATE:
+					values[register] = -values[first[register]];
+					for(int direction = 0; direction < count; direction++)
+					{
+						tangents[base + direction] = -tangents[left + direction];
+					}
+					break;
+
+				case EXP:
+					values[register] = Math.exp(values[first[register]]);
+					scale(tangents, base, left, count, values[register]);
+					break;
+
+				case LN:
+					values[register] = Math.log(values[first[register]]);
+					scale(tangents, base, left, count, 1d / values[first[register]]);
+					break;
+
+				case POWER:
+					double power = constants[register];
+					values[register] = Math.pow(values[first[register]], power);
+					scale(tangents, base, left, count, power * Math.pow(values[first[register]], power - 1d));
+					break;
+
+				case SIN:
+					values[register] = Math.sin(values[first[register]]);
+					scale(tangents, base, left, count, Math.cos(values[first[register]]));
+					break;
+
+				case COS:
+					values[register] = Math.cos(values[first[register]]);
+					scale(tangents, base, left, count, -Math.sin(values[first[register]]));
+					break;
+
+				case EXPONENTIATE:
+				case GENERIC:
+					if(argumentValues == null)
+					{
+						argumentValues = new double[maximumArity];
+					}
+
+					AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)nodes[register];
+					int[] argumentRegisters = arguments[register];
+					for(int argument = 0; argument < argumentRegisters.length; argument++)
+					{
+						argumentValues[argument] = values[argumentRegisters[argument]];
+					}
+
+					values[register] = composed.evaluate(argumentValues);
+					for(int direction = 0; direction < count; direction++)
+					{
+						tangents[base + direction] = 0d;
+					}
+
+					for(int argument = 0; argument < argumentRegisters.length; argument++)
+					{
+						double partial = composed.partial(argument, argumentValues, values[register]);
+						accumulate(tangents, base, argumentRegisters[argument] * count, count, partial);
+					}
+					break;
+
+				default:
+					if(assignment == null)
+					{
+						assignment = new ArrayAssignment(index, inputs);
+					}
+
+					values[register] = nodes[register].value(assignment);
+					for(int direction = 0; direction < count; direction++)
+					{
+						tangents[base + direction] = 0d;
+					}
+
+					for(int variable : arguments[register])
+					{
+						double partial = nodes[register].derivative((Variable)nodes[variable]).value(assignment);
+						accumulate(tangents, base, variable * count, count, partial);
+					}
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Set a block of tangents to a multiple of another.
+	 *
+	 * @param tangents The tangent register file.
+	 * @param base The start of the block to set.
+	 * @param from The start of the block to scale.
+	 * @param count The block length.
+	 * @param factor The multiple.
+	 */
+	private static void scale(final double[] tangents, final int base, final int from, final int count, final double factor)
+	{
+		for(int direction = 0; direction < count; direction++)
+		{
+			tangents[base + direction] = product(factor, tangents[from + direction]);
+		}
+	}
+
+	/**
+	 * Add a multiple of a block of tangents to another.
+	 *
+	 * @param tangents The tangent register file.
+	 * @param base The start of the block to add to.
+	 * @param from The start of the block to scale.
+	 * @param count The block length.
+	 * @param factor The multiple.
+	 */
+	private static void accumulate(final double[] tangents, final int base, final int from, final int count, final double factor)
+	{
+		if(factor == 0d)
+		{
+			return;
+		}
+
+		for(int direction = 0; direction < count; direction++)
+		{
+			tangents[base + direction] += product(factor, tangents[from + direction]);
+		}
+	}
+
+	/**
+	 * Multiply a tangent by a local partial, treating a zero tangent as a
+	 * strong zero.
+	 *
+	 * @param partial The local partial.
+	 * @param tangent The tangent.
+	 * @return The product, or zero if <code>tangent</code> is zero.
+	 */
+	private static double product(final double partial, final double tangent)
+	{
+		return (tangent == 0d) ? 0d : partial * tangent;
+	}
+
+	/**
+	 * Tangent sweep: propagate directional derivatives from the variables to
+	 * every node.
+	 * <p>
+	 * The caller seeds the variable registers of <code>tangents</code> with
+	 * the direction (and leaves every other register zero); on return, each
+	 * register holds the derivative of that node along the direction.
+	 *
+	 * @param assignment The variable assignment, used only by opaque nodes.
+	 * @param values The register file populated by a forward sweep.
+	 * @param tangents The tangent register file.
+	 */
+	void tangent(final Assignment assignment, final double[] values, final double[] tangents)
+	{
+		double[] argumentValues = new double[maximumArity];
+		for(int register = 0; register < nodes.length; register++)
+		{
+			int[] argumentRegisters = arguments[register];
+			switch(kinds[register])
+			{
+				case COMPOSED:
+					AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)nodes[register];
+					for(int index = 0; index < argumentRegisters.length; index++)
+					{
+						argumentValues[index] = values[argumentRegisters[index]];
+					}
+
+					double tangent = 0d;
+					for(int index = 0; index < argumentRegisters.length; index++)
+					{
+						double argumentTangent = tangents[argumentRegisters[index]];
+						if(argumentTangent != 0d)
+						{
+							tangent += composed.partial(index, argumentValues, values[register]) * argumentTangent;
+						}
+					}
+
+					tangents[register] = tangent;
+					break;
+
+				case OPAQUE:
+					double opaqueTangent = 0d;
+					for(int index = 0; index < argumentRegisters.length; index++)
+					{
+						double argumentTangent = tangents[argumentRegisters[index]];
+						if(argumentTangent != 0d)
+						{
+							Variable variable = (Variable)nodes[argumentRegisters[index]];
+							opaqueTangent += nodes[register].derivative(variable).value(assignment) * argumentTangent;
+						}
+					}
+
+					tangents[register] = opaqueTangent;
+					break;
+
+				default:
+					// leaves keep their seeds.
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Backward sweep: propagate adjoints from each node to its arguments.
+	 * <p>
+	 * The caller seeds <code>adjoints</code> (typically with one in the root
+	 * register); on return, each register holds the partial derivative of the
+	 * seeded output with respect to that node.
+	 *
+	 * @param assignment The variable assignment.
+	 * @param values The register file populated by {@link #forward(Assignment, double[])}.
+	 * @param adjoints The adjoint register file.
+	 */
+	void reverse(final Assignment assignment, final double[] values, final double[] adjoints)
+	{
+		double[] argumentValues = new double[maximumArity];
+		for(int register = nodes.length - 1; register >= 0; register--)
+		{
+			double adjoint = adjoints[register];
+			if(adjoint == 0d)
+			{
+				continue;
+			}
+
+			int[] argumentRegisters = arguments[register];
+			switch(kinds[register])
+			{
+				case COMPOSED:
+					AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)nodes[register];
+					for(int index = 0; index < argumentRegisters.length; index++)
+					{
+						argumentValues[index] = values[argumentRegisters[index]];
+					}
+
+					for(int index = 0; index < argumentRegisters.length; index++)
+					{
+						double partial = composed.partial(index, argumentValues, values[register]);
+						adjoints[argumentRegisters[index]] += adjoint * partial;
+					}
+					break;
+
+				case OPAQUE:
+					for(int index = 0; index < argumentRegisters.length; index++)
+					{
+						Variable variable = (Variable)nodes[argumentRegisters[index]];
+						double partial = nodes[register].derivative(variable).value(assignment);
+						adjoints[argumentRegisters[index]] += adjoint * partial;
+					}
+					break;
+
+				default:
+					// leaves have nothing to propagate.
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Second-order backward sweep (forward-over-reverse): propagate adjoints
+	 * and their tangents from each node to its arguments.
+	 * <p>
+	 * The caller runs a forward sweep into <code>values</code> and a tangent
+	 * sweep along some direction into <code>tangents</code>, then seeds the
+	 * root register of <code>adjoints</code> with one and leaves
+	 * <code>adjointTangents</code> zero. On return, each variable register of
+	 * <code>adjoints</code> holds a gradient component and the same register
+	 * of <code>adjointTangents</code> holds the matching component of the
+	 * product of the Hessian and the direction.
+	 *
+	 * @param assignment The variable assignment, used only by opaque nodes.
+	 * @param values The register file populated by a forward sweep.
+	 * @param tangents The register file populated by a tangent sweep.
+	 * @param adjoints The adjoint register file.
+	 * @param adjointTangents The adjoint tangent register file.
+	 * @throws UnsupportedOperationException If the graph contains a composed
+	 *             node that cannot be recomposed.
+	 */
+	void reverseTangent(final Assignment assignment, final double[] values, final double[] tangents, final double[] adjoints,
+			final double[] adjointTangents)
+		throws UnsupportedOperationException
+	{
+		double[] argumentValues = null;
+		for(int register = nodes.length - 1; register >= 0; register--)
+		{
+			double adjoint = adjoints[register];
+			double adjointTangent = adjointTangents[register];
+			if(adjoint == 0d && adjointTangent == 0d)
+			{
+				continue;
+			}
+
+			int left = first[register];
+			int right = second[register];
+			switch(instructions[register])
+			{
+				case ADD:
+					adjoints[left] += adjoint;
+					adjointTangents[left] += adjointTangent;
+					adjoints[right] += adjoint;
+					adjointTangents[right] += adjointTangent;
+					break;
+
+				case SUBTRACT:
+					adjoints[left] += adjoint;
+					adjointTangents[left] += adjointTangent;
+					adjoints[right] -= adjoint;
+					adjointTangents[right] -= adjointTangent;
+					break;
+
+				case NEGATE:
+					adjoints[left] -= adjoint;
+					adjointTangents[left] -= adjointTangent;
+					break;
+
+				case MULTIPLY:
+					adjoints[left] += adjoint * values[right];
+					adjointTangents[left] += (adjointTangent * values[right]) + (adjoint * tangents[right]);
+					adjoints[right] += adjoint * values[left];
+					adjointTangents[right] += (adjointTangent * values[left]) + (adjoint * tangents[left]);
+					break;
+
+				case DIVIDE:
+					double denominator = values[right];
+					double denominatorSquared = denominator * denominator;
+					adjoints[left] += adjoint / denominator;
+					adjointTangents[left] += (adjointTangent / denominator) - (adjoint * tangents[right] / denominatorSquared);
+					adjoints[right] -= adjoint * values[register] / denominator;
+					adjointTangents[right] += (adjoint * ((2d * values[register] * tangents[right]) - tangents[left]) / denominatorSquared)
+							- (adjointTangent * values[register] / denominator);
+					break;
+
+				case EXP:
+					adjoints[left] += adjoint * values[register];
+					adjointTangents[left] += ((adjointTangent * values[register]) + (adjoint * values[register] * tangents[left]));
+					break;
+
+				case LN:
+					double argument = values[left];
+					adjoints[left] += adjoint / argument;
+					adjointTangents[left] += (adjointTangent / argument) - (adjoint * tangents[left] / (argument * argument));
+					break;
+
+				case POWER:
+					double power = constants[register];
+					double base = values[left];
+					adjoints[left] += adjoint * power * Math.pow(base, power - 1d);
+					adjointTangents[left] += (adjointTangent * power * Math.pow(base, power - 1d))
+							+ (adjoint * power * (power - 1d) * Math.pow(base, power - 2d) * tangents[left]);
+					break;
+
+				case SIN:
+					adjoints[left] += adjoint * Math.cos(values[left]);
+					adjointTangents[left] += (adjointTangent * Math.cos(values[left])) - (adjoint * values[register] * tangents[left]);
+					break;
+
+				case COS:
+					adjoints[left] -= adjoint * Math.sin(values[left]);
+					adjointTangents[left] -= (adjointTangent * Math.sin(values[left])) + (adjoint * values[register] * tangents[left]);
+					break;
+
+				case EXPONENTIATE:
+				case GENERIC:
+					if(argumentValues == null)
+					{
+						argumentValues = new double[maximumArity];
+					}
+
+					reverseTangentComposed(register, values, tangents, adjoints, adjointTangents, argumentValues);
+					break;
+
+				case OPAQUE:
+					reverseTangentOpaque(register, assignment, tangents, adjoints, adjointTangents);
+					break;
+
+				default:
+					// leaves have nothing to propagate.
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Second-order backward step through a composed node that is not
+	 * evaluated inline, using its symbolic second partials.
+	 *
+	 * @param register The register of the node.
+	 * @param values The register file populated by a forward sweep.
+	 * @param tangents The register file populated by a tangent sweep.
+	 * @param adjoints The adjoint register file.
+	 * @param adjointTangents The adjoint tangent register file.
+	 * @param argumentValues Scratch space for the argument values.
+	 */
+	private void reverseTangentComposed(final int register, final double[] values, final double[] tangents, final double[] adjoints,
+			final double[] adjointTangents, final double[] argumentValues)
+	{
+		AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)nodes[register];
+		Differentiable[][] curvature = curvatures()[register];
+		int[] argumentRegisters = arguments[register];
+		for(int index = 0; index < argumentRegisters.length; index++)
+		{
+			argumentValues[index] = values[argumentRegisters[index]];
+		}
+
+		Assignment local = new ArrayAssignment(placeholders, argumentValues);
+		double adjoint = adjoints[register];
+		double adjointTangent = adjointTangents[register];
+		for(int index = 0; index < argumentRegisters.length; index++)
+		{
+			double partial = composed.partial(index, argumentValues, values[register]);
+			double partialTangent = 0d;
+			for(int other = 0; other < argumentRegisters.length; other++)
+			{
+				double argumentTangent = tangents[argumentRegisters[other]];
+				if(argumentTangent != 0d && curvature[index][other] != null)
+				{
+					partialTangent += curvature[index][other].value(local) * argumentTangent;
+				}
+			}
+
+			adjoints[argumentRegisters[index]] += adjoint * partial;
+			adjointTangents[argumentRegisters[index]] += (adjointTangent * partial) + (adjoint * partialTangent);
+		}
+	}
+
+	/**
+	 * Second-order backward step through an opaque node, using its symbolic
+	 * derivatives.
+	 *
+	 * @param register The register of the node.
+	 * @param assignment The variable assignment.
+	 * @param tangents The register file populated by a tangent sweep.
+	 * @param adjoints The adjoint register file.
+	 * @param adjointTangents The adjoint tangent register file.
+	 */
+	private void reverseTangentOpaque(final int register, final Assignment assignment, final double[] tangents, final double[] adjoints,
+			final double[] adjointTangents)
+	{
+		Differentiable node = nodes[register];
+		int[] argumentRegisters = arguments[register];
+		double adjoint = adjoints[register];
+		double adjointTangent = adjointTangents[register];
+		for(int index = 0; index < argumentRegisters.length; index++)
+		{
+			Differentiable derivative = node.derivative((Variable)nodes[argumentRegisters[index]]);
+			double partial = derivative.value(assignment);
+			double partialTangent = 0d;
+			for(int other = 0; other < argumentRegisters.length; other++)
+			{
+				double argumentTangent = tangents[argumentRegisters[other]];
+				if(argumentTangent != 0d)
+				{
+					partialTangent += derivative.derivative((Variable)nodes[argumentRegisters[other]]).value(assignment) * argumentTangent;
+				}
+			}
+
+			adjoints[argumentRegisters[index]] += adjoint * partial;
+			adjointTangents[argumentRegisters[index]] += (adjointTangent * partial) + (adjoint * partialTangent);
+		}
+	}
+
+	/**
+	 * Get the symbolic second partials of every composed node that is not
+	 * evaluated inline, building them on first use.
+	 * <p>
+	 * Each such node is recomposed over placeholder variables, one per
+	 * argument, and differentiated twice; entry <code>[i][k]</code> of a
+	 * register is then the second partial with respect to arguments
+	 * <code>i</code> and <code>k</code>, as a function of the placeholders
+	 * laid out by {@link #placeholders}, or <code>null</code> if it is
+	 * identically zero.
+	 *
+	 * @return The second partials, in register order.
+	 * @throws UnsupportedOperationException If a node cannot be recomposed.
+	 */
+	private Differentiable[][][] curvatures()
+		throws UnsupportedOperationException
+	{
+		Differentiable[][][] table = curvatures;
+		if(table != null)
+		{
+			return table;
+		}
+
+		synchronized(this)
+		{
+			if(curvatures != null)
+			{
+				return curvatures;
+			}
+
+			Variable[] locals = new Variable[maximumArity];
+			for(int index = 0; index < locals.length; index++)
+			{
+				locals[index] = new Variable(String.format("#%1$s", index));
+			}
+
+			table = new Differentiable[nodes.length][][];
+			for(int register = 0; register < nodes.length; register++)
+			{
+				if(instructions[register] != GENERIC && instructions[register] != EXPONENTIATE)
+				{
+					continue;
+				}
+
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)nodes[register];
+				Variable[] arguments = new Variable[composed.argumentCount()];
+				System.arraycopy(locals, 0, arguments, 0, arguments.length);
+				Differentiable recomposed = composed.recompose(arguments);
+				if(recomposed == null)
+				{
+					String message = String.format("%1$s cannot be recomposed", composed.getClass().getName());
+					throw new UnsupportedOperationException(message);
+				}
+
+				table[register] = new Differentiable[arguments.length][arguments.length];
+				for(int index = 0; index < arguments.length; index++)
+				{
+					Differentiable partial = recomposed.derivative(arguments[index]);
+					for(int other = 0; other < arguments.length; other++)
+					{
+						Differentiable second = partial.derivative(arguments[other]);
+						table[register][index][other] = second.isZero() ? null : second;
+					}
+				}
+			}
+
+			placeholders = new VariableIndex(locals);
+			curvatures = table;
+			return table;
+		}
+	}
+
+}
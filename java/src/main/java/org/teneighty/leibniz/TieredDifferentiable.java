@@ -0,0 +1,681 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.teneighty.leibniz.compilation.Backend;
+import org.teneighty.leibniz.compilation.Compiler;
+import org.teneighty.leibniz.compilation.expression.Expression;
+
+
+/**
+ * A differentiable that is interpreted at first and compiled once it proves
+ * hot.
+ * <p>
+ * A tiered function starts out evaluating through an
+ * {@link InterpretedDifferentiable}, which is cheap to create. Once it has been
+ * called a certain number of times, or a certain time has passed since it was
+ * created, it is compiled on a background executor; callers keep using the
+ * interpreter in the meantime, and the compiled function is swapped in
+ * atomically when ready. Functions larger than a size budget are never
+ * compiled, since compiling them would take longer than it is likely to save
+ * (or would exceed the size limits of a class file); the same goes for
+ * functions whose compilation fails.
+ * <p>
+ * This class is safe for use by multiple threads.
+ */
+public final class TieredDifferentiable
+	extends AbstractDifferentiable
+{
+
+	/**
+	 * The execution tiers.
+	 */
+	public static enum Tier
+	{
+
+		/**
+		 * Interpreted; not yet hot enough to compile.
+		 */
+		INTERPRETED,
+
+		/**
+		 * Interpreted, while compiling in the background.
+		 */
+		COMPILING,
+
+		/**
+		 * Compiled.
+		 */
+		COMPILED,
+
+		/**
+		 * Interpreted for good, because the function is over budget or its
+		 * compilation failed.
+		 */
+		INTERPRETED_PERMANENTLY;
+
+	}
+
+	/**
+	 * The default call threshold.
+	 */
+	public static final long DEFAULT_CALL_THRESHOLD = 1000;
+
+	/**
+	 * The default size budget, in distinct nodes.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 5000;
+
+	/**
+	 * Executor used unless another is specified: a single daemon thread,
+	 * created on first use.
+	 */
+	private static ExecutorService defaultExecutor;
+
+	/**
+	 * Get the default executor.
+	 * 
+	 * @return The executor.
+	 */
+	private static synchronized Executor defaultExecutor()
+	{
+		if(defaultExecutor == null)
+		{
+			defaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory()
+			{
+
+				/**
+				 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+				 */
+				@Override
+				public Thread newThread(final Runnable runnable)
+				{
+					Thread thread = new Thread(runnable, "leibniz-tiered-compiler");
+					thread.setDaemon(true);
+					return thread;
+				}
+
+			});
+		}
+
+		return defaultExecutor;
+	}
+
+	/**
+	 * The underlying function.
+	 */
+	private final Differentiable differentiable;
+
+	/**
+	 * The interpreted tier.
+	 */
+	private final InterpretedDifferentiable interpreted;
+
+	/**
+	 * The compiled tier, once available.
+	 */
+	private volatile CompiledDifferentiable compiled;
+
+	/**
+	 * The current tier.
+	 */
+	private final AtomicReference<Tier> tier;
+
+	/**
+	 * Number of interpreted evaluations so far.
+	 */
+	private final AtomicLong calls;
+
+	/**
+	 * Number of calls after which to compile.
+	 */
+	private final long callThreshold;
+
+	/**
+	 * Time, in the units of {@link System#nanoTime()}, after which to compile.
+	 */
+	private final long deadline;
+
+	/**
+	 * The backend.
+	 */
+	private final Backend backend;
+
+	/**
+	 * The executor on which to compile.
+	 */
+	private final Executor executor;
+
+	/**
+	 * The compilation failure, if any.
+	 */
+	private volatile RuntimeException failure;
+
+	/**
+	 * Constructor, using the default thresholds, budget, backend and executor.
+	 * 
+	 * @param differentiable The function.
+	 * @throws NullPointerException If <code>differentiable</code> is
+	 *             <code>null</code>.
+	 */
+	public TieredDifferentiable(final Differentiable differentiable)
+		throws NullPointerException
+	{
+		this(Build.start(differentiable));
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param build The build.
+	 */
+	private TieredDifferentiable(final Build build)
+	{
+		this.differentiable = build.differentiable;
+		this.interpreted = build.differentiable.interpret();
+		this.compiled = null;
+		this.calls = new AtomicLong();
+		this.callThreshold = build.callThreshold;
+		this.backend = build.backend;
+		this.executor = (build.executor == null) ? defaultExecutor() : build.executor;
+
+		if(build.millisecondThreshold < 0)
+		{
+			this.deadline = Long.MAX_VALUE;
+		}
+		else
+		{
+			this.deadline = System.nanoTime() + (build.millisecondThreshold * 1000000L);
+		}
+
+		boolean overBudget = (interpreted.registerCount() > build.maximumSize);
+		this.tier = new AtomicReference<Tier>(overBudget ? Tier.INTERPRETED_PERMANENTLY : Tier.INTERPRETED);
+	}
+
+	/**
+	 * Get the underlying function.
+	 * 
+	 * @return The function.
+	 */
+	public Differentiable untiered()
+	{
+		return differentiable;
+	}
+
+	/**
+	 * Get the current tier.
+	 * 
+	 * @return The tier.
+	 */
+	public Tier tier()
+	{
+		return tier.get();
+	}
+
+	/**
+	 * Get the number of interpreted evaluations so far. Evaluations by the
+	 * compiled tier are not counted.
+	 * 
+	 * @return The call count.
+	 */
+	public long calls()
+	{
+		return calls.get();
+	}
+
+	/**
+	 * Get the compilation failure that made this function permanently
+	 * interpreted, if any.
+	 * 
+	 * @return The failure, or <code>null</code>.
+	 */
+	public RuntimeException failure()
+	{
+		return failure;
+	}
+
+	/**
+	 * Get the layout of the input array read by {@link #value(double[])}.
+	 * 
+	 * @return The index.
+	 */
+	public VariableIndex variableIndex()
+	{
+		return interpreted.variableIndex();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#value(org.teneighty.leibniz.Assignment)
+	 */
+	@Override
+	public double value(final Assignment assignment)
+	{
+		return value(interpreted.variableIndex().values(assignment));
+	}
+
+	/**
+	 * Evaluate this function through the fastest tier available.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @return The value.
+	 */
+	public double value(final double[] inputs)
+	{
+		CompiledDifferentiable current = compiled;
+		if(current != null)
+		{
+			return current.value(inputs);
+		}
+
+		long count = calls.incrementAndGet();
+		if(count >= callThreshold || (deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0))
+		{
+			promote();
+		}
+
+		return interpreted.value(inputs);
+	}
+
+	/**
+	 * Start compiling in the background, unless already started.
+	 */
+	private void promote()
+	{
+		if(tier.compareAndSet(Tier.INTERPRETED, Tier.COMPILING) == false)
+		{
+			return;
+		}
+
+		try
+		{
+			executor.execute(new Runnable()
+			{
+
+				/**
+				 * @see java.lang.Runnable#run()
+				 */
+				@Override
+				public void run()
+				{
+					compileAndSwap(backend);
+				}
+
+			});
+		}
+		catch(final RejectedExecutionException e)
+		{
+			// try again on a later call.
+			tier.set(Tier.INTERPRETED);
+		}
+	}
+
+	/**
+	 * Compile the underlying function and swap it in.
+	 * <p>
+	 * Any failure, including an error such as a {@link LinkageError} thrown
+	 * while loading the generated class, leaves this function permanently
+	 * interpreted. Virtual machine errors other than stack overflows are
+	 * rethrown once recorded.
+	 * 
+	 * @param compilationBackend The backend.
+	 */
+	private void compileAndSwap(final Backend compilationBackend)
+	{
+		try
+		{
+			CompiledDifferentiable result = Compiler.compile(differentiable, compilationBackend);
+			if(result.variableIndex().equals(interpreted.variableIndex()) == false)
+			{
+				throw new IllegalStateException("Compiled and interpreted input layouts differ");
+			}
+
+			compiled = result;
+			tier.set(Tier.COMPILED);
+		}
+		catch(final RuntimeException e)
+		{
+			failure = e;
+			tier.set(Tier.INTERPRETED_PERMANENTLY);
+		}
+		catch(final StackOverflowError e)
+		{
+			failure = new IllegalStateException("Expression graph is too deep to compile", e);
+			tier.set(Tier.INTERPRETED_PERMANENTLY);
+		}
+		catch(final Error e)
+		{
+			failure = new IllegalStateException("Compilation failed", e);
+			tier.set(Tier.INTERPRETED_PERMANENTLY);
+
+			if(e instanceof VirtualMachineError)
+			{
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#derivativeCore(org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	protected Differentiable derivativeCore(final Variable withRespectTo)
+	{
+		return differentiable.derivative(withRespectTo);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#variables()
+	 */
+	@Override
+	public Set<Variable> variables()
+	{
+		return interpreted.variables();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#isConstant()
+	 */
+	@Override
+	public boolean isConstant()
+	{
+		return differentiable.isConstant();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#isZero()
+	 */
+	@Override
+	public boolean isZero()
+	{
+		return differentiable.isZero();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#isOne()
+	 */
+	@Override
+	public boolean isOne()
+	{
+		return differentiable.isOne();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#compile()
+	 */
+	@Override
+	public CompiledDifferentiable compile()
+	{
+		return differentiable.compile();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#interpret()
+	 */
+	@Override
+	public InterpretedDifferentiable interpret()
+	{
+		return interpreted;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Differentiable#expression(org.teneighty.leibniz.Context)
+	 */
+	@Override
+	public Expression expression(final Context codeContext)
+	{
+		return differentiable.expression(codeContext);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return differentiable.hashCode();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+
+		if(other == this)
+		{
+			return true;
+		}
+
+		if(other instanceof TieredDifferentiable)
+		{
+			TieredDifferentiable that = (TieredDifferentiable)other;
+			return that.differentiable.equals(differentiable);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Builder for tiered functions.
+	 */
+	public static final class Build
+	{
+
+		/**
+		 * Start building a tiered version of the specified function.
+		 * 
+		 * @param differentiable The function.
+		 * @return A new build.
+		 * @throws NullPointerException If <code>differentiable</code> is
+		 *             <code>null</code>.
+		 */
+		public static Build start(final Differentiable differentiable)
+			throws NullPointerException
+		{
+			return new Build(differentiable);
+		}
+
+		/**
+		 * The function.
+		 */
+		private final Differentiable differentiable;
+
+		/**
+		 * Number of calls after which to compile.
+		 */
+		private long callThreshold;
+
+		/**
+		 * Milliseconds after creation after which to compile, or
+		 * <code>-1</code> for no time threshold.
+		 */
+		private long millisecondThreshold;
+
+		/**
+		 * The size budget.
+		 */
+		private int maximumSize;
+
+		/**
+		 * The backend.
+		 */
+		private Backend backend;
+
+		/**
+		 * The executor, or <code>null</code> for the default.
+		 */
+		private Executor executor;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param differentiable The function.
+		 * @throws NullPointerException If <code>differentiable</code> is
+		 *             <code>null</code>.
+		 */
+		private Build(final Differentiable differentiable)
+			throws NullPointerException
+		{
+			if(differentiable == null)
+			{
+				throw new NullPointerException("differentiable");
+			}
+
+			this.differentiable = differentiable;
+			this.callThreshold = DEFAULT_CALL_THRESHOLD;
+			this.millisecondThreshold = -1;
+			this.maximumSize = DEFAULT_MAXIMUM_SIZE;
+			this.backend = Compiler.DEFAULT_BACKEND;
+			this.executor = null;
+		}
+
+		/**
+		 * Compile after the specified number of calls.
+		 * 
+		 * @param threshold The call threshold; zero compiles on first use.
+		 * @return This object.
+		 * @throws IllegalArgumentException If <code>threshold</code> is
+		 *             negative.
+		 */
+		public Build afterCalls(final long threshold)
+			throws IllegalArgumentException
+		{
+			if(threshold < 0)
+			{
+				throw new IllegalArgumentException("threshold");
+			}
+
+			callThreshold = threshold;
+			return this;
+		}
+
+		/**
+		 * Compile on the first call made at least the specified number of
+		 * milliseconds after creation, even if the call threshold has not been
+		 * reached.
+		 * 
+		 * @param threshold The time threshold, in milliseconds.
+		 * @return This object.
+		 * @throws IllegalArgumentException If <code>threshold</code> is
+		 *             negative.
+		 */
+		public Build afterMillis(final long threshold)
+			throws IllegalArgumentException
+		{
+			if(threshold < 0)
+			{
+				throw new IllegalArgumentException("threshold");
+			}
+
+			millisecondThreshold = threshold;
+			return this;
+		}
+
+		/**
+		 * Never compile functions with more than the specified number of
+		 * distinct nodes.
+		 * 
+		 * @param size The size budget.
+		 * @return This object.
+		 * @throws IllegalArgumentException If <code>size</code> is negative.
+		 */
+		public Build maximumSize(final int size)
+			throws IllegalArgumentException
+		{
+			if(size < 0)
+			{
+				throw new IllegalArgumentException("size");
+			}
+
+			maximumSize = size;
+			return this;
+		}
+
+		/**
+		 * Compile with the specified backend.
+		 * 
+		 * @param compilationBackend The backend.
+		 * @return This object.
+		 * @throws NullPointerException If <code>compilationBackend</code> is
+		 *             <code>null</code>.
+		 */
+		public Build backend(final Backend compilationBackend)
+			throws NullPointerException
+		{
+			if(compilationBackend == null)
+			{
+				throw new NullPointerException("backend");
+			}
+
+			backend = compilationBackend;
+			return this;
+		}
+
+		/**
+		 * Compile on the specified executor.
+		 * 
+		 * @param compilationExecutor The executor.
+		 * @return This object.
+		 * @throws NullPointerException If <code>compilationExecutor</code> is
+		 *             <code>null</code>.
+		 */
+		public Build executor(final Executor compilationExecutor)
+			throws NullPointerException
+		{
+			if(compilationExecutor == null)
+			{
+				throw new NullPointerException("executor");
+			}
+
+			executor = compilationExecutor;
+			return this;
+		}
+
+		/**
+		 * Finish building a tiered function.
+		 * 
+		 * @return The tiered function.
+		 */
+		public TieredDifferentiable finish()
+		{
+			return new TieredDifferentiable(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,323 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+
+/**
+ * An immutable layout of variables, mapping each variable to an integer slot.
+ * <p>
+ * A variable index lets variable values be stored in, and read from, a plain
+ * <code>double[]</code>: the value of the variable in slot <code>i</code> lives
+ * at index <code>i</code> of the array. Compiled functions use an index to read
+ * their inputs directly from an array rather than through an
+ * {@link Assignment}.
+ */
+public final class VariableIndex
+	implements Serializable
+{
+
+	/**
+	 * Serial version.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Create an index of the specified variables, sorted by name.
+	 * <p>
+	 * The resulting layout depends only on the variables themselves (and not on
+	 * the iteration order of <code>variables</code>), so two indexes created
+	 * from equal collections are always equal.
+	 *
+	 * @param variables The variables.
+	 * @return A new index.
+	 * @throws NullPointerException If <code>variables</code> is
+	 *             <code>null</code>.
+	 */
+	public static VariableIndex sorted(final Collection<Variable> variables)
+		throws NullPointerException
+	{
+		if(variables == null)
+		{
+			throw new NullPointerException("variables");
+		}
+
+		TreeSet<Variable> sorted = new TreeSet<Variable>(variables);
+		return new VariableIndex(sorted.toArray(new Variable[sorted.size()]));
+	}
+
+	/**
+	 * The variables, in slot order.
+	 */
+	private final Variable[] variables;
+
+	/**
+	 * Map of variables to slots.
+	 */
+	private final Map<Variable, Integer> slots;
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * Variables are assigned slots in the order given.
+	 *
+	 * @param variables The variables.
+	 * @throws NullPointerException If <code>variables</code> or any element
+	 *             thereof is <code>null</code>.
+	 * @throws IllegalArgumentException If a variable appears more than once.
+	 */
+	public VariableIndex(final Variable... variables)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(variables == null)
+		{
+			throw new NullPointerException("variables");
+		}
+
+		this.variables = variables.clone();
+		this.slots = new HashMap<Variable, Integer>();
+
+		for(int slot = 0; slot < this.variables.length; slot++)
+		{
+			Variable variable = this.variables[slot];
+			if(variable == null)
+			{
+				throw new NullPointerException("variables");
+			}
+
+			if(slots.put(variable, Integer.valueOf(slot)) != null)
+			{
+				String message = String.format("Variable %1$s appears more than once", variable.name());
+				throw new IllegalArgumentException(message);
+			}
+		}
+	}
+
+	/**
+	 * Get the number of slots in this index.
+	 *
+	 * @return The size.
+	 */
+	public int size()
+	{
+		return variables.length;
+	}
+
+	/**
+	 * Check if the specified variable has a slot in this index.
+	 *
+	 * @param variable The variable.
+	 * @return <code>true</code> if <code>variable</code> has a slot;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean contains(final Variable variable)
+	{
+		return slots.containsKey(variable);
+	}
+
+	/**
+	 * Get the slot of the specified variable.
+	 *
+	 * @param variable The variable.
+	 * @return The slot.
+	 * @throws NullPointerException If <code>variable</code> is
+	 *             <code>null</code>.
+	 * @throws IllegalArgumentException If <code>variable</code> has no slot in
+	 *             this index.
+	 */
+	public int slot(final Variable variable)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(variable == null)
+		{
+			throw new NullPointerException("variable");
+		}
+
+		Integer slot = slots.get(variable);
+		if(slot == null)
+		{
+			String message = String.format("Variable %1$s is not indexed", variable.name());
+			throw new IllegalArgumentException(message);
+		}
+
+		return slot.intValue();
+	}
+
+	/**
+	 * Get the variable in the specified slot.
+	 *
+	 * @param slot The slot.
+	 * @return The variable.
+	 * @throws IndexOutOfBoundsException If <code>slot</code> is out of range.
+	 */
+	public Variable variable(final int slot)
+		throws IndexOutOfBoundsException
+	{
+		return variables[slot];
+	}
+
+	/**
+	 * Get the number of distinct unordered pairs of slots, i.e. the length of a
+	 * packed upper triangle of a symmetric matrix over this index.
+	 *
+	 * @return The packed size.
+	 */
+	public int packedSize()
+	{
+		return (variables.length * (variables.length + 1)) / 2;
+	}
+
+	/**
+	 * Get the position of the specified pair of slots in a packed upper
+	 * triangle.
+	 * <p>
+	 * The upper triangle is packed row by row, so for <code>n</code> slots the
+	 * order is <code>(0, 0), (0, 1), ..., (0, n - 1), (1, 1), ..., (n - 1, n - 1)</code>.
+	 * The order of the arguments does not matter.
+	 *
+	 * @param first The first slot.
+	 * @param second The second slot.
+	 * @return The packed position.
+	 * @throws IndexOutOfBoundsException If either slot is out of range.
+	 */
+	public int packedSlot(final int first, final int second)
+		throws IndexOutOfBoundsException
+	{
+		if(first < 0 || first >= variables.length)
+		{
+			throw new IndexOutOfBoundsException(String.valueOf(first));
+		}
+
+		if(second < 0 || second >= variables.length)
+		{
+			throw new IndexOutOfBoundsException(String.valueOf(second));
+		}
+
+		int row = Math.min(first, second);
+		int column = Math.max(first, second);
+
+		return (row * variables.length) - ((row * (row - 1)) / 2) + (column - row);
+	}
+
+	/**
+	 * Get the variables, in slot order.
+	 *
+	 * @return An unmodifiable list of the variables.
+	 */
+	public List<Variable> variables()
+	{
+		return Collections.unmodifiableList(Arrays.asList(variables));
+	}
+
+	/**
+	 * Get the values of the indexed variables from the specified assignment.
+	 * <p>
+	 * If <code>assignment</code> is an {@link ArrayAssignment} laid out by an
+	 * equal index, its backing array is returned directly and nothing is copied.
+	 *
+	 * @param assignment The assignment.
+	 * @return The values, in slot order.
+	 * @throws NullPointerException If <code>assignment</code> is
+	 *             <code>null</code>.
+	 * @throws IllegalArgumentException If <code>assignment</code> is missing the
+	 *             value of an indexed variable.
+	 */
+	public double[] values(final Assignment assignment)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(assignment == null)
+		{
+			throw new NullPointerException("assignment");
+		}
+
+		if(assignment instanceof ArrayAssignment)
+		{
+			ArrayAssignment arrayAssignment = (ArrayAssignment)assignment;
+			if(equals(arrayAssignment.index()))
+			{
+				return arrayAssignment.values();
+			}
+		}
+
+		double[] values = new double[variables.length];
+		for(int slot = 0; slot < variables.length; slot++)
+		{
+			values[slot] = assignment.get(variables[slot]);
+		}
+
+		return values;
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+
+		if(other == this)
+		{
+			return true;
+		}
+
+		if(other instanceof VariableIndex)
+		{
+			VariableIndex that = (VariableIndex)other;
+			return Arrays.equals(variables, that.variables);
+		}
+
+		return false;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return Arrays.hashCode(variables);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("VariableIndex%1$s", Arrays.toString(variables));
+	}
+
+}
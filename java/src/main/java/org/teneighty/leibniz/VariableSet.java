@@ -0,0 +1,659 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * An immutable set of variables, stored as a sparse bitset over interned
+ * variable ids.
+ * <p>
+ * Every variable name is interned to a small integer id the first time a
+ * variable of that name is created. The id is held by every variable of that
+ * name, and the registry refers to it only weakly: once no variable of the
+ * name is reachable, the id is reclaimed and handed out again, smallest
+ * first, so programs that keep minting fresh variable names neither leak nor
+ * grow their tries. The bits are kept in a persistent 64-ary trie whose
+ * leaves are 64-bit words, along with the member variables themselves, so
+ * lookups touch at most six nodes, and the union of two sets shares every
+ * subtree that the result has in common with either of them. This keeps the
+ * sets cached by every node of a graph small even when, say, each node of a
+ * long sum adds one more variable.
+ */
+final class VariableSet
+	extends AbstractSet<Variable>
+{
+
+	/**
+	 * The empty set.
+	 */
+	static final VariableSet EMPTY = new VariableSet(null);
+
+	/**
+	 * The number of id bits resolved by each level of the trie.
+	 */
+	private static final int BITS = 6;
+
+	/**
+	 * Map of variable names to weak references to their ids.
+	 */
+	private static final ConcurrentMap<String, IdReference> ids = new ConcurrentHashMap<String, IdReference>();
+
+	/**
+	 * Queue to which references to unreachable ids are enqueued.
+	 */
+	private static final ReferenceQueue<Id> reclaimed = new ReferenceQueue<Id>();
+
+	/**
+	 * The ids free for reuse, below <code>registered</code>; guarded by the
+	 * class lock.
+	 */
+	private static final BitSet free = new BitSet();
+
+	/**
+	 * The number of ids handed out so far, reclaimed or not; guarded by the
+	 * class lock.
+	 */
+	private static int registered;
+
+	/**
+	 * Get the id of the name of the specified variable, interning it if
+	 * necessary.
+	 * 
+	 * @param variable The variable.
+	 * @return The id.
+	 */
+	static Id intern(final Variable variable)
+	{
+		IdReference reference = ids.get(variable.name());
+		Id id = (reference == null) ? null : reference.get();
+		if(id == null)
+		{
+			id = register(variable.name());
+		}
+
+		return id;
+	}
+
+	/**
+	 * Hand out an id for the specified name, unless another thread got there
+	 * first, reusing a reclaimed id if there is one.
+	 * 
+	 * @param name The name.
+	 * @return The id.
+	 */
+	private static synchronized Id register(final String name)
+	{
+		reclaim();
+
+		IdReference reference = ids.get(name);
+		Id id = (reference == null) ? null : reference.get();
+		if(id == null)
+		{
+			int value = free.nextSetBit(0);
+			if(value < 0)
+			{
+				value = registered;
+				registered += 1;
+			}
+			else
+			{
+				free.clear(value);
+			}
+
+			id = new Id(value);
+			ids.put(name, new IdReference(name, id, reclaimed));
+		}
+
+		return id;
+	}
+
+	/**
+	 * Free the ids of names no variable refers to anymore; must hold the
+	 * class lock.
+	 */
+	private static void reclaim()
+	{
+		for(Reference<? extends Id> cleared = reclaimed.poll(); cleared != null; cleared = reclaimed.poll())
+		{
+			IdReference reference = (IdReference)cleared;
+			ids.remove(reference.name, reference);
+			free.set(reference.value);
+		}
+	}
+
+	/**
+	 * Get the set of just the specified variable.
+	 * 
+	 * @param variable The variable.
+	 * @return The set.
+	 */
+	static VariableSet of(final Variable variable)
+	{
+		int id = variable.id();
+		Node node = new Node(1L << (id & 63), new Variable[] { variable });
+		for(int shift = BITS; ((long)id >>> shift) != 0; shift += BITS)
+		{
+			node = new Node(shift, 1L << (((long)id >>> shift) & 63), new Node[] { node }, 1);
+		}
+
+		return new VariableSet(node);
+	}
+
+	/**
+	 * Get a set of the specified variables.
+	 * 
+	 * @param variables The variables.
+	 * @return The set; <code>variables</code> itself if it already is one.
+	 */
+	static VariableSet copyOf(final Collection<Variable> variables)
+	{
+		if(variables instanceof VariableSet)
+		{
+			return (VariableSet)variables;
+		}
+
+		VariableSet copy = EMPTY;
+		for(Variable variable : variables)
+		{
+			copy = union(copy, of(variable));
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Get the union of the specified sets.
+	 * <p>
+	 * If the union equals either set, that set itself is returned.
+	 * 
+	 * @param first The first set.
+	 * @param second The second set.
+	 * @return The union.
+	 */
+	static VariableSet union(final VariableSet first, final VariableSet second)
+	{
+		Node root = union(first.root, second.root);
+		if(root == first.root)
+		{
+			return first;
+		}
+
+		if(root == second.root)
+		{
+			return second;
+		}
+
+		return new VariableSet(root);
+	}
+
+	/**
+	 * Get the union of the specified tries.
+	 * 
+	 * @param first The first trie; may be <code>null</code>.
+	 * @param second The second trie; may be <code>null</code>.
+	 * @return The union, sharing as much of either trie as possible.
+	 */
+	private static Node union(final Node first, final Node second)
+	{
+		if(first == null || first == second)
+		{
+			return second;
+		}
+
+		if(second == null)
+		{
+			return first;
+		}
+
+		Node higher = (first.shift >= second.shift) ? first : second;
+		Node lower = (higher == first) ? second : first;
+		if(higher.shift > lower.shift)
+		{
+			// every id of the lower trie lies under the first child of the
+			// higher one.
+			Node child = higher.child(0);
+			Node merged = (child == null) ? lower.liftTo(higher.shift - BITS) : union(child, lower);
+			return (merged == child) ? higher : higher.with(0, merged);
+		}
+
+		long bitmap = first.bitmap | second.bitmap;
+		if(first.shift == 0)
+		{
+			if(bitmap == first.bitmap)
+			{
+				return first;
+			}
+
+			if(bitmap == second.bitmap)
+			{
+				return second;
+			}
+
+			Variable[] variables = new Variable[Long.bitCount(bitmap)];
+			int position = 0;
+			for(long remaining = bitmap; remaining != 0; remaining &= (remaining - 1))
+			{
+				int digit = Long.numberOfTrailingZeros(remaining);
+				Node source = (((first.bitmap >>> digit) & 1L) != 0) ? first : second;
+				variables[position] = source.variables[Long.bitCount(source.bitmap & ((1L << digit) - 1))];
+				position += 1;
+			}
+
+			return new Node(bitmap, variables);
+		}
+
+		Node[] children = new Node[Long.bitCount(bitmap)];
+		boolean sameAsFirst = (bitmap == first.bitmap);
+		boolean sameAsSecond = (bitmap == second.bitmap);
+		int size = 0;
+		int position = 0;
+		for(long remaining = bitmap; remaining != 0; remaining &= (remaining - 1))
+		{
+			int digit = Long.numberOfTrailingZeros(remaining);
+			Node firstChild = first.child(digit);
+			Node secondChild = second.child(digit);
+			Node child = union(firstChild, secondChild);
+			sameAsFirst &= (child == firstChild);
+			sameAsSecond &= (child == secondChild);
+			children[position] = child;
+			size += child.size;
+			position += 1;
+		}
+
+		if(sameAsFirst)
+		{
+			return first;
+		}
+
+		return sameAsSecond ? second : new Node(first.shift, bitmap, children, size);
+	}
+
+	/**
+	 * The root of the trie, or <code>null</code> if this set is empty.
+	 */
+	private final Node root;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param root The root of the trie.
+	 */
+	private VariableSet(final Node root)
+	{
+		this.root = root;
+	}
+
+	/**
+	 * Check if this set contains the specified variable.
+	 * 
+	 * @param variable The variable.
+	 * @return <code>true</code> if so; <code>false</code> otherwise.
+	 * @throws NullPointerException If <code>variable</code> is
+	 *             <code>null</code>.
+	 */
+	boolean contains(final Variable variable)
+		throws NullPointerException
+	{
+		int id = variable.id();
+		Node node = root;
+		if(node == null || ((long)id >>> (node.shift + BITS)) != 0)
+		{
+			return false;
+		}
+
+		while(node.shift > 0)
+		{
+			node = node.child((int)(((long)id >>> node.shift) & 63));
+			if(node == null)
+			{
+				return false;
+			}
+		}
+
+		return ((node.bitmap >>> (id & 63)) & 1L) != 0;
+	}
+
+	/**
+	 * @see java.util.AbstractCollection#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(final Object other)
+	{
+		return (other instanceof Variable) && contains((Variable)other);
+	}
+
+	/**
+	 * @see java.util.AbstractCollection#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty()
+	{
+		return root == null;
+	}
+
+	/**
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size()
+	{
+		return (root == null) ? 0 : root.size;
+	}
+
+	/**
+	 * Iterates in id order.
+	 * 
+	 * @see java.util.AbstractCollection#iterator()
+	 */
+	@Override
+	public Iterator<Variable> iterator()
+	{
+		final Variable[] members = new Variable[size()];
+		if(root != null)
+		{
+			root.collect(members, 0);
+		}
+
+		return new Iterator<Variable>()
+		{
+
+			/**
+			 * The position of the next member.
+			 */
+			private int next = 0;
+
+			/**
+			 * @see java.util.Iterator#hasNext()
+			 */
+			@Override
+			public boolean hasNext()
+			{
+				return next < members.length;
+			}
+
+			/**
+			 * @see java.util.Iterator#next()
+			 */
+			@Override
+			public Variable next()
+			{
+				if(next == members.length)
+				{
+					throw new NoSuchElementException();
+				}
+
+				Variable variable = members[next];
+				next += 1;
+				return variable;
+			}
+
+			/**
+			 * @see java.util.Iterator#remove()
+			 */
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+
+		};
+	}
+
+	/**
+	 * A node of the trie.
+	 */
+	private static final class Node
+	{
+
+		/**
+		 * The position of the id bits resolved by this node; <code>0</code>
+		 * for a leaf.
+		 */
+		final int shift;
+
+		/**
+		 * The ids present, for a leaf; otherwise the children present.
+		 */
+		final long bitmap;
+
+		/**
+		 * The children present, in digit order; <code>null</code> for a leaf.
+		 */
+		final Node[] children;
+
+		/**
+		 * The variables present, in id order, for a leaf; otherwise
+		 * <code>null</code>.
+		 * <p>
+		 * Holding the variables keeps their ids from being reclaimed while
+		 * any set refers to them.
+		 */
+		final Variable[] variables;
+
+		/**
+		 * The number of ids under this node.
+		 */
+		final int size;
+
+		/**
+		 * Constructor for a leaf.
+		 * 
+		 * @param bitmap The ids present.
+		 * @param variables The variables present, in id order.
+		 */
+		Node(final long bitmap, final Variable[] variables)
+		{
+			this.shift = 0;
+			this.bitmap = bitmap;
+			this.children = null;
+			this.variables = variables;
+			this.size = variables.length;
+		}
+
+		/**
+		 * Constructor for an inner node.
+		 * 
+		 * @param shift The position of the id bits resolved by this node.
+		 * @param bitmap The children present.
+		 * @param children The children present.
+		 * @param size The number of ids under this node.
+		 */
+		Node(final int shift, final long bitmap, final Node[] children, final int size)
+		{
+			this.shift = shift;
+			this.bitmap = bitmap;
+			this.children = children;
+			this.variables = null;
+			this.size = size;
+		}
+
+		/**
+		 * Get the child for the specified digit.
+		 * 
+		 * @param digit The digit.
+		 * @return The child, or <code>null</code> if absent.
+		 */
+		Node child(final int digit)
+		{
+			if(((bitmap >>> digit) & 1L) == 0)
+			{
+				return null;
+			}
+
+			return children[Long.bitCount(bitmap & ((1L << digit) - 1))];
+		}
+
+		/**
+		 * Get a copy of this node with the child for the specified digit
+		 * replaced or added.
+		 * 
+		 * @param digit The digit.
+		 * @param child The new child.
+		 * @return The copy.
+		 */
+		Node with(final int digit, final Node child)
+		{
+			Node previous = child(digit);
+			int position = Long.bitCount(bitmap & ((1L << digit) - 1));
+			Node[] copy;
+			if(previous == null)
+			{
+				copy = new Node[children.length + 1];
+				System.arraycopy(children, 0, copy, 0, position);
+				System.arraycopy(children, position, copy, position + 1, children.length - position);
+			}
+			else
+			{
+				copy = children.clone();
+			}
+
+			copy[position] = child;
+			int delta = child.size - ((previous == null) ? 0 : previous.size);
+			return new Node(shift, bitmap | (1L << digit), copy, size + delta);
+		}
+
+		/**
+		 * Wrap this node in a parent one level up, as its first child.
+		 * 
+		 * @return The parent.
+		 */
+		Node lift()
+		{
+			return new Node(shift + BITS, 1L, new Node[] { this }, size);
+		}
+
+		/**
+		 * Wrap this node in parents up to the specified level.
+		 * 
+		 * @param target The shift of the outermost parent.
+		 * @return The outermost parent.
+		 */
+		Node liftTo(final int target)
+		{
+			Node node = this;
+			while(node.shift < target)
+			{
+				node = node.lift();
+			}
+
+			return node;
+		}
+
+		/**
+		 * Write the variables under this node, in id order.
+		 * 
+		 * @param target The array to write to.
+		 * @param offset The position of the first variable in
+		 *            <code>target</code>.
+		 * @return The position after the last variable written.
+		 */
+		int collect(final Variable[] target, final int offset)
+		{
+			if(shift == 0)
+			{
+				System.arraycopy(variables, 0, target, offset, variables.length);
+				return offset + variables.length;
+			}
+
+			int position = offset;
+			for(Node child : children)
+			{
+				position = child.collect(target, position);
+			}
+
+			return position;
+		}
+
+	}
+
+	/**
+	 * The interned id of a variable name, held by every variable of that
+	 * name.
+	 */
+	static final class Id
+	{
+
+		/**
+		 * The id.
+		 */
+		final int value;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param value The id.
+		 */
+		Id(final int value)
+		{
+			this.value = value;
+		}
+
+	}
+
+	/**
+	 * A weak reference to an id, remembering the name and value so that
+	 * both can be reclaimed after the id itself is gone.
+	 */
+	private static final class IdReference
+		extends WeakReference<Id>
+	{
+
+		/**
+		 * The name.
+		 */
+		final String name;
+
+		/**
+		 * The id value.
+		 */
+		final int value;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param name The name.
+		 * @param id The id.
+		 * @param queue The queue to enqueue to once the id is unreachable.
+		 */
+		IdReference(final String name, final Id id, final ReferenceQueue<Id> queue)
+		{
+			super(id, queue);
+			this.name = name;
+			this.value = id.value;
+		}
+
+	}
+
+}
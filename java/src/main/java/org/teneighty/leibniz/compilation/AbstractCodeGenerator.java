@@ -1,49 +1,56 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz.compilation;
-
-import java.util.UUID;
-
-
-/**
- * Base class for code generators.
- * 
- * @param <TUncompiled> The uncompiled type.
- */
-abstract class AbstractCodeGenerator<TUncompiled>
-	implements CodeGenerator<TUncompiled>
-{
-	
-	/**
-	 * Get a unique class name.
-	 * 
-	 * @return A unique class name.
-	 */
-	protected static String getUniqueClassName()
-	{
-		UUID id = UUID.randomUUID();
-		return String.format("Compiled_%1$s", id.toString().replace('-', '_'));
-	}
-				
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.UUID;
+
+
+/**
+ * Base class for code generators.
+ * 
+ * @param <TUncompiled> The uncompiled type.
+ */
+abstract class AbstractCodeGenerator<TUncompiled>
+	implements CodeGenerator<TUncompiled>
+{
+
+	/**
+	 * Version of the generated code: the methods it emits and the abstract
+	 * compiled base classes it extends. Persisted classes written by another
+	 * version are never loaded, so bump this whenever either changes.
+	 */
+	static final int GENERATOR_VERSION = 3;
+	
+	/**
+	 * Get a unique class name.
+	 * 
+	 * @return A unique class name.
+	 */
+	protected static String getUniqueClassName()
+	{
+		UUID id = UUID.randomUUID();
+		return String.format("Compiled_%1$s", id.toString().replace('-', '_'));
+	}
+				
+}
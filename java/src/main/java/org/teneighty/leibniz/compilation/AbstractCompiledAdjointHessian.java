@@ -0,0 +1,315 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.teneighty.leibniz.Hessian;
+import org.teneighty.leibniz.SparsityPattern;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Base class for compiled Hessians generated as a Hessian-vector product.
+ * <p>
+ * The generated method is a single forward-over-reverse sweep, so its size is
+ * proportional to the expression graph rather than to the number of Hessian
+ * entries. The Hessian is recovered from one product per color of the
+ * sparsity pattern: the seed of a color is the sum of the unit vectors of its
+ * columns, and since no two columns of a color share a row, each entry can be
+ * read directly from the product. A dense Hessian thus costs one sweep per
+ * variable.
+ * <p>
+ * User code should <b>not</b> extend or otherwise reference this class.
+ */
+public abstract class AbstractCompiledAdjointHessian
+	extends AbstractCompiledHessian
+{
+
+	/**
+	 * For each color, the input slots of its seed vector.
+	 */
+	private final int[][] seeds;
+
+	/**
+	 * For each color, the input slots of the product components it recovers.
+	 */
+	private final int[][] sources;
+
+	/**
+	 * For each color, the packed output slots of the entries it recovers.
+	 */
+	private final int[][] targets;
+
+	/**
+	 * The packed output slots of the entries no color recovers, which are
+	 * structurally zero.
+	 */
+	private final int[] zeros;
+
+	/**
+	 * Per-thread direction and product buffers, and the column into which
+	 * batches write the components they throw away, created lazily.
+	 */
+	private transient volatile ThreadLocal<double[][]> buffers;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param uncompiledHessian The uncompiled Hessian.
+	 * @param sourceCode The source code.
+	 * @param variableIndex The layout of the input array, the direction array
+	 *            and the product array.
+	 */
+	protected AbstractCompiledAdjointHessian(final Hessian uncompiledHessian, final String sourceCode, final VariableIndex variableIndex)
+	{
+		super(uncompiledHessian, sourceCode, variableIndex);
+
+		SparsityPattern pattern = uncompiledHessian.sparsity();
+		VariableIndex patternIndex = pattern.index();
+		VariableIndex componentIndex = componentIndex();
+		int[] colors = pattern.colors();
+		int[] rows = pattern.rows();
+		int[] columns = pattern.columns();
+
+		seeds = new int[pattern.colorCount()][];
+		sources = new int[seeds.length][];
+		targets = new int[seeds.length][];
+		for(int color = 0; color < seeds.length; color++)
+		{
+			List<Integer> seed = new ArrayList<Integer>();
+			for(int column = 0; column < colors.length; column++)
+			{
+				if(colors[column] == color)
+				{
+					seed.add(Integer.valueOf(variableIndex.slot(patternIndex.variable(column))));
+				}
+			}
+
+			// entry (row, column) is the row component of the product; entries
+			// outside the components of this Hessian are not stored.
+			List<Integer> source = new ArrayList<Integer>();
+			List<Integer> target = new ArrayList<Integer>();
+			for(int entry = 0; entry < columns.length; entry++)
+			{
+				Variable row = patternIndex.variable(rows[entry]);
+				Variable column = patternIndex.variable(columns[entry]);
+				if(colors[columns[entry]] == color && componentIndex.contains(row) && componentIndex.contains(column))
+				{
+					source.add(Integer.valueOf(variableIndex.slot(row)));
+					target.add(Integer.valueOf(componentIndex.packedSlot(componentIndex.slot(row), componentIndex.slot(column))));
+				}
+			}
+
+			seeds[color] = toArray(seed);
+			sources[color] = toArray(source);
+			targets[color] = toArray(target);
+		}
+
+		boolean[] recovered = new boolean[componentIndex.packedSize()];
+		for(int[] target : targets)
+		{
+			for(int slot : target)
+			{
+				recovered[slot] = true;
+			}
+		}
+
+		List<Integer> zero = new ArrayList<Integer>();
+		for(int slot = 0; slot < recovered.length; slot++)
+		{
+			if(recovered[slot] == false)
+			{
+				zero.add(Integer.valueOf(slot));
+			}
+		}
+
+		zeros = toArray(zero);
+	}
+
+	/**
+	 * Convert the specified list to an array.
+	 * 
+	 * @param list The list.
+	 * @return The array.
+	 */
+	private static int[] toArray(final List<Integer> list)
+	{
+		int[] array = new int[list.size()];
+		for(int index = 0; index < array.length; index++)
+		{
+			array[index] = list.get(index).intValue();
+		}
+
+		return array;
+	}
+
+	/**
+	 * Compute the product of this Hessian and the specified direction, with a
+	 * single forward-over-reverse sweep.
+	 * 
+	 * @param inputs The variable values, laid out by {@link #variableIndex()}.
+	 * @param direction The direction, laid out by {@link #variableIndex()}.
+	 * @param result The array into which to write the product, laid out by
+	 *            {@link #variableIndex()}.
+	 */
+	public abstract void value(double[] inputs, double[] direction, double[] result);
+
+	/**
+	 * Compute the products of this Hessian and the specified direction over
+	 * the specified rows, without checking the arguments.
+	 * 
+	 * @param inputs The input columns, laid out by {@link #variableIndex()}.
+	 * @param direction The direction, shared by all rows, laid out by
+	 *            {@link #variableIndex()}.
+	 * @param results The columns into which to write the products, laid out
+	 *            by {@link #variableIndex()}.
+	 * @param from The first row, inclusive.
+	 * @param to The last row, exclusive.
+	 */
+	protected abstract void batch(double[][] inputs, double[] direction, double[][] results, int from, int to);
+
+	/**
+	 * @see org.teneighty.leibniz.CompiledHessian#value(double[], double[])
+	 */
+	@Override
+	public void value(final double[] inputs, final double[] outputs)
+	{
+		double[][] scratch = buffers().get();
+		double[] direction = scratch[0];
+		double[] result = scratch[1];
+
+		Arrays.fill(outputs, 0, componentIndex().packedSize(), 0d);
+		for(int color = 0; color < seeds.length; color++)
+		{
+			int[] seed = seeds[color];
+			for(int index = 0; index < seed.length; index++)
+			{
+				direction[seed[index]] = 1d;
+			}
+
+			value(inputs, direction, result);
+
+			for(int index = 0; index < seed.length; index++)
+			{
+				direction[seed[index]] = 0d;
+			}
+
+			int[] source = sources[color];
+			int[] target = targets[color];
+			for(int index = 0; index < source.length; index++)
+			{
+				outputs[target[index]] = result[source[index]];
+			}
+		}
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.AbstractCompiledHessian#batch(double[][], double[][], int, int)
+	 */
+	@Override
+	protected void batch(final double[][] inputs, final double[][] outputs, final int from, final int to)
+	{
+		for(int slot : zeros)
+		{
+			Arrays.fill(outputs[slot], from, to, 0d);
+		}
+
+		// each color writes the components it recovers straight into their
+		// output columns, and the others into a column that is thrown away;
+		// the kernel indexes it by absolute row, so it grows geometrically
+		// rather than being reallocated for every chunk of a parallel batch.
+		double[][] scratch = buffers().get();
+		double[] direction = scratch[0];
+		double[] discarded = scratch[2];
+		if(discarded.length < to)
+		{
+			discarded = new double[Math.max(to, discarded.length * 2)];
+			scratch[2] = discarded;
+		}
+
+		double[][] results = new double[direction.length][];
+		for(int color = 0; color < seeds.length; color++)
+		{
+			int[] source = sources[color];
+			int[] target = targets[color];
+			Arrays.fill(results, discarded);
+			for(int index = 0; index < source.length; index++)
+			{
+				results[source[index]] = outputs[target[index]];
+			}
+
+			int[] seed = seeds[color];
+			for(int index = 0; index < seed.length; index++)
+			{
+				direction[seed[index]] = 1d;
+			}
+
+			batch(inputs, direction, results, from, to);
+
+			for(int index = 0; index < seed.length; index++)
+			{
+				direction[seed[index]] = 0d;
+			}
+		}
+	}
+
+	/**
+	 * Get the per-thread buffers, creating them if necessary.
+	 * <p>
+	 * The direction buffer is left zeroed between products; the discarded
+	 * column starts out empty.
+	 * 
+	 * @return The buffers.
+	 */
+	private ThreadLocal<double[][]> buffers()
+	{
+		ThreadLocal<double[][]> local = buffers;
+		if(local == null)
+		{
+			final int size = variableIndex().size();
+			local = new ThreadLocal<double[][]>()
+			{
+
+				/**
+				 * @see java.lang.ThreadLocal#initialValue()
+				 */
+				@Override
+				protected double[][] initialValue()
+				{
+					return new double[][] { new double[size], new double[size], new double[0] };
+				}
+
+			};
+
+			buffers = local;
+		}
+
+		return local;
+	}
+
+}
@@ -0,0 +1,96 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import org.teneighty.leibniz.CompiledDirectionalDerivatives;
+import org.teneighty.leibniz.DirectionalDerivatives;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Base class for compiled directional derivatives implementations.
+ * <p>
+ * User code should <b>not</b> extend or otherwise reference this class.
+ */
+public abstract class AbstractCompiledDirectionalDerivatives
+	implements CompiledDirectionalDerivatives
+{
+
+	/**
+	 * The uncompiled directional derivatives.
+	 */
+	private final DirectionalDerivatives uncompiledDerivatives;
+
+	/**
+	 * The source code.
+	 */
+	private final String sourceCode;
+
+	/**
+	 * The layout of the input array.
+	 */
+	private final VariableIndex variableIndex;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param uncompiledDerivatives The derivatives from which this was generated.
+	 * @param sourceCode The source code.
+	 * @param variableIndex The layout of the input array.
+	 */
+	protected AbstractCompiledDirectionalDerivatives(final DirectionalDerivatives uncompiledDerivatives, final String sourceCode, final VariableIndex variableIndex)
+	{
+		this.uncompiledDerivatives = uncompiledDerivatives;
+		this.sourceCode = sourceCode;
+		this.variableIndex = variableIndex;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Compiled#uncompiled()
+	 */
+	@Override
+	public DirectionalDerivatives uncompiled()
+	{
+		return uncompiledDerivatives;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Compiled#source()
+	 */
+	@Override
+	public String source()
+	{
+		return sourceCode;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Compiled#variableIndex()
+	 */
+	@Override
+	public VariableIndex variableIndex()
+	{
+		return variableIndex;
+	}
+
+}
@@ -1,145 +1,236 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz.compilation;
-
-import org.teneighty.leibniz.AbstractGradient;
-import org.teneighty.leibniz.CompiledGradient;
-import org.teneighty.leibniz.Differentiable;
-import org.teneighty.leibniz.Gradient;
-import org.teneighty.leibniz.Variable;
-
-
-/**
- * Base class for compiled gradient implementations.
- * <p>
- * User code should <b>not</b> extend or otherwise reference this class.
- */
-public abstract class AbstractCompiledGradient
-	extends AbstractGradient
-	implements CompiledGradient
-{
-
-	/**
-	 * The uncompiled gradient.
-	 */
-	private final Gradient uncompiledGradient;
-	
-	/**
-	 * The source code.
-	 */
-	private final String soureCode;
-	
-	/**
-	 * Constructor.
-	 * 
-	 * @param uncompiledGradient Uncompiled function.
-	 * @param soureCode The source code.
-	 */
-	public AbstractCompiledGradient(final Gradient uncompiledGradient,
-			final String soureCode)
-	{
-		this.uncompiledGradient = uncompiledGradient;
-		this.soureCode = soureCode;
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Gradient#differentiable()
-	 */
-	@Override
-	public Differentiable differentiable()
-	{
-		return uncompiled().differentiable();
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Gradient#component(org.teneighty.leibniz.Variable)
-	 */
-	@Override
-	public Differentiable component(final Variable component)
-	{
-		return uncompiled().component(component);
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.Gradient#compile()
-	 */
-	@Override
-	public CompiledGradient compile()
-	{
-		return this;
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Compiled#uncompiled()
-	 */
-	@Override
-	public Gradient uncompiled()
-	{
-		return uncompiledGradient;
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.Compiled#source()
-	 */
-	@Override
-	public String source()
-	{
-		return soureCode;
-	}
-	
-	/**
-	 * @see org.teneighty.leibniz.AbstractDifferentiable#hashCode()
-	 */
-	@Override
-	public int hashCode()
-	{
-		return uncompiled().hashCode();
-	}
-
-	/**
-	 * @see org.teneighty.leibniz.AbstractDifferentiable#equals(java.lang.Object)
-	 */
-	@Override
-	public boolean equals(final Object other)
-	{
-		if(other == null)
-		{
-			return false;
-		}
-		
-		if(other == this)
-		{
-			return true;
-		}
-		
-		if(other instanceof CompiledGradient)
-		{
-			CompiledGradient that = (CompiledGradient)other;
-			return that.uncompiled().equals(uncompiled());
-		}
-		
-		return false;
-	}		
-
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.Set;
+
+import org.teneighty.leibniz.AbstractGradient;
+import org.teneighty.leibniz.ArrayGradientValue;
+import org.teneighty.leibniz.Assignment;
+import org.teneighty.leibniz.CompiledGradient;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Gradient;
+import org.teneighty.leibniz.GradientValue;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Base class for compiled gradient implementations.
+ * <p>
+ * User code should <b>not</b> extend or otherwise reference this class.
+ */
+public abstract class AbstractCompiledGradient
+	extends AbstractGradient
+	implements CompiledGradient
+{
+
+	/**
+	 * The uncompiled gradient.
+	 */
+	private final Gradient uncompiledGradient;
+	
+	/**
+	 * The source code.
+	 */
+	private final String soureCode;
+	
+	/**
+	 * The layout of the input array.
+	 */
+	private final VariableIndex variableIndex;
+	
+	/**
+	 * The layout of the output array.
+	 */
+	private final VariableIndex componentIndex;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param uncompiledGradient Uncompiled function.
+	 * @param soureCode The source code.
+	 * @param variableIndex The layout of the input array.
+	 */
+	public AbstractCompiledGradient(final Gradient uncompiledGradient,
+			final String soureCode, final VariableIndex variableIndex)
+	{
+		this.uncompiledGradient = uncompiledGradient;
+		this.soureCode = soureCode;
+		this.variableIndex = variableIndex;
+		this.componentIndex = VariableIndex.sorted(uncompiledGradient.variables());
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Gradient#value(org.teneighty.leibniz.Assignment)
+	 */
+	@Override
+	public GradientValue value(final Assignment assignment)
+	{
+		return value(variableIndex.values(assignment));
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.CompiledGradient#value(double[])
+	 */
+	@Override
+	public GradientValue value(final double[] inputs)
+	{
+		double[] outputs = new double[componentIndex.size()];
+		value(inputs, outputs);
+		
+		return new ArrayGradientValue(componentIndex, outputs);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.CompiledGradient#value(double[][], double[][], int, int)
+	 */
+	@Override
+	public void value(final double[][] inputs, final double[][] outputs, final int from, final int to)
+		throws NullPointerException, IllegalArgumentException
+	{
+		BatchArguments.checkInputs(variableIndex, inputs, from, to);
+		BatchArguments.checkOutputs(outputs, componentIndex.size(), to);
+		
+		batch(inputs, outputs, from, to);
+	}
+	
+	/**
+	 * Evaluate this gradient over the specified rows, without checking the
+	 * arguments.
+	 * 
+	 * @param inputs The input columns.
+	 * @param outputs The output columns.
+	 * @param from The first row, inclusive.
+	 * @param to The last row, exclusive.
+	 */
+	protected abstract void batch(double[][] inputs, double[][] outputs, int from, int to);
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#differentiable()
+	 */
+	@Override
+	public Differentiable differentiable()
+	{
+		return uncompiled().differentiable();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#component(org.teneighty.leibniz.Variable)
+	 */
+	@Override
+	public Differentiable component(final Variable component)
+	{
+		return uncompiled().component(component);
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Gradient#variables()
+	 */
+	@Override
+	public Set<Variable> variables()
+	{
+		return uncompiled().variables();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Gradient#compile()
+	 */
+	@Override
+	public CompiledGradient compile()
+	{
+		return this;
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Compiled#uncompiled()
+	 */
+	@Override
+	public Gradient uncompiled()
+	{
+		return uncompiledGradient;
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Compiled#source()
+	 */
+	@Override
+	public String source()
+	{
+		return soureCode;
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Compiled#variableIndex()
+	 */
+	@Override
+	public VariableIndex variableIndex()
+	{
+		return variableIndex;
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.CompiledGradient#componentIndex()
+	 */
+	@Override
+	public VariableIndex componentIndex()
+	{
+		return componentIndex;
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return uncompiled().hashCode();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.AbstractDifferentiable#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object other)
+	{
+		if(other == null)
+		{
+			return false;
+		}
+		
+		if(other == this)
+		{
+			return true;
+		}
+		
+		if(other instanceof CompiledGradient)
+		{
+			CompiledGradient that = (CompiledGradient)other;
+			return that.uncompiled().equals(uncompiled());
+		}
+		
+		return false;
+	}		
+
+}
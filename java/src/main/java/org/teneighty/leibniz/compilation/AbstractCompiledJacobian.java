@@ -0,0 +1,106 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import org.teneighty.leibniz.CompiledJacobian;
+import org.teneighty.leibniz.Jacobian;
+import org.teneighty.leibniz.JacobianPattern;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Base class for compiled Jacobian implementations.
+ * <p>
+ * User code should <b>not</b> extend or otherwise reference this class.
+ */
+public abstract class AbstractCompiledJacobian
+	implements CompiledJacobian
+{
+
+	/**
+	 * The uncompiled Jacobian.
+	 */
+	private final Jacobian uncompiledJacobian;
+
+	/**
+	 * The source code.
+	 */
+	private final String sourceCode;
+
+	/**
+	 * The layout of the input array.
+	 */
+	private final VariableIndex variableIndex;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param uncompiledJacobian The Jacobian from which this was generated.
+	 * @param sourceCode The source code.
+	 * @param variableIndex The layout of the input array.
+	 */
+	protected AbstractCompiledJacobian(final Jacobian uncompiledJacobian, final String sourceCode, final VariableIndex variableIndex)
+	{
+		this.uncompiledJacobian = uncompiledJacobian;
+		this.sourceCode = sourceCode;
+		this.variableIndex = variableIndex;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Compiled#uncompiled()
+	 */
+	@Override
+	public Jacobian uncompiled()
+	{
+		return uncompiledJacobian;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Compiled#source()
+	 */
+	@Override
+	public String source()
+	{
+		return sourceCode;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.Compiled#variableIndex()
+	 */
+	@Override
+	public VariableIndex variableIndex()
+	{
+		return variableIndex;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.CompiledJacobian#sparsity()
+	 */
+	@Override
+	public JacobianPattern sparsity()
+	{
+		return uncompiledJacobian.sparsity();
+	}
+
+}
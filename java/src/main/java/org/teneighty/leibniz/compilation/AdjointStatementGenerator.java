@@ -0,0 +1,216 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.expression.ConstantDoubleExpression;
+import org.teneighty.leibniz.compilation.expression.Expression;
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+
+/**
+ * Generates the statements of an unrolled reverse sweep over the expression
+ * graph of a differentiable.
+ * <p>
+ * The values and local partials of every node are generated by a
+ * {@link ForwardStatementGenerator}; then, in reverse order, every node gets
+ * a <code>bar_</code> local holding its adjoint. The adjoint of the variable
+ * in each slot is a component of the gradient, and the method is linear in
+ * the size of the graph rather than in the size of the symbolic gradient.
+ * <p>
+ * If tangents are requested, the forward sweep also carries one tangent
+ * along the <code>direction</code> array, and each node also gets a
+ * <code>dbar_</code> local holding the derivative of its adjoint along that
+ * direction (forward-over-reverse); the <code>dbar_</code> of each variable
+ * is then a component of the product of the Hessian and the direction.
+ */
+final class AdjointStatementGenerator
+{
+
+	/**
+	 * The name of the direction array read by the tangents.
+	 */
+	static final String DIRECTION = "direction";
+
+	/**
+	 * The layout of the input array.
+	 */
+	private final VariableIndex variableIndex;
+
+	/**
+	 * The forward sweep.
+	 */
+	private final ForwardStatementGenerator forward;
+
+	/**
+	 * The adjoint of each node, or <code>null</code> if zero.
+	 */
+	private final Expression[] adjoints;
+
+	/**
+	 * The adjoint tangent of each node, or <code>null</code> if zero.
+	 */
+	private final Expression[] adjointTangents;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param uncompiled The differentiable.
+	 * @param variableIndex The layout of the input array, and of the
+	 *            direction array if generating tangents.
+	 * @param tangents Whether to generate tangents and adjoint tangents.
+	 * @throws UnsupportedOperationException If the graph contains a composed
+	 *             node that cannot be recomposed.
+	 */
+	AdjointStatementGenerator(final Differentiable uncompiled, final VariableIndex variableIndex, final boolean tangents)
+		throws UnsupportedOperationException
+	{
+		this.variableIndex = variableIndex;
+		forward = new ForwardStatementGenerator(uncompiled, variableIndex, DIRECTION, tangents ? 1 : 0, tangents);
+
+		int size = forward.size();
+		adjoints = new Expression[size];
+		adjointTangents = new Expression[size];
+
+		List<List<Expression>> adjointTerms = new ArrayList<List<Expression>>();
+		List<List<Expression>> adjointTangentTerms = new ArrayList<List<Expression>>();
+		for(int register = 0; register < size; register++)
+		{
+			adjointTerms.add(new ArrayList<Expression>());
+			adjointTangentTerms.add(new ArrayList<Expression>());
+		}
+
+		adjointTerms.get(forward.root()).add(new ConstantDoubleExpression(1d));
+		for(int register = size - 1; register >= 0; register--)
+		{
+			Expression adjoint = ForwardStatementGenerator.sum(adjointTerms.get(register));
+			Expression adjointTangent = ForwardStatementGenerator.sum(adjointTangentTerms.get(register));
+			if(forward.isDifferentiated(register) == false)
+			{
+				// leaves, and nodes that depend on no variable.
+				adjoints[register] = adjoint;
+				adjointTangents[register] = adjointTangent;
+				continue;
+			}
+
+			adjoints[register] = forward.local("bar", adjoint);
+			adjointTangents[register] = forward.local("dbar", adjointTangent);
+
+			int[] argumentRegisters = forward.arguments(register);
+			for(int index = 0; index < argumentRegisters.length; index++)
+			{
+				Expression partial = forward.partial(register, index);
+				if(partial == null)
+				{
+					continue;
+				}
+
+				Expression term = ForwardStatementGenerator.times(adjoints[register], partial);
+				if(term != null)
+				{
+					adjointTerms.get(argumentRegisters[index]).add(term);
+				}
+
+				if(tangents)
+				{
+					Expression tangentTerm = ForwardStatementGenerator.plus(ForwardStatementGenerator.times(adjointTangents[register], partial),
+							ForwardStatementGenerator.times(adjoints[register], forward.partialTangent(register, index, 0)));
+					if(tangentTerm != null)
+					{
+						adjointTangentTerms.get(argumentRegisters[index]).add(tangentTerm);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the statements.
+	 * 
+	 * @return The statements.
+	 */
+	List<Statement> getStatements()
+	{
+		return forward.getStatements();
+	}
+
+	/**
+	 * Get the expression for the value of the differentiable.
+	 * 
+	 * @return The expression.
+	 */
+	Expression value()
+	{
+		return forward.value(forward.root());
+	}
+
+	/**
+	 * Get the expression for the adjoint of the variable in the specified
+	 * slot, i.e. a component of the gradient.
+	 * 
+	 * @param slot The slot.
+	 * @return The expression.
+	 */
+	Expression adjoint(final int slot)
+	{
+		return orZero(adjoints, slot);
+	}
+
+	/**
+	 * Get the expression for the adjoint tangent of the variable in the
+	 * specified slot, i.e. a component of the product of the Hessian and the
+	 * direction.
+	 * 
+	 * @param slot The slot.
+	 * @return The expression.
+	 */
+	Expression adjointTangent(final int slot)
+	{
+		return orZero(adjointTangents, slot);
+	}
+
+	/**
+	 * Get the expression for the variable in the specified slot from the
+	 * specified register expressions.
+	 * 
+	 * @param expressions The register expressions.
+	 * @param slot The slot.
+	 * @return The expression, or a zero constant.
+	 */
+	private Expression orZero(final Expression[] expressions, final int slot)
+	{
+		int register = forward.register(variableIndex.variable(slot));
+		if(register < 0 || expressions[register] == null)
+		{
+			return new ConstantDoubleExpression(0d);
+		}
+
+		return expressions[register];
+	}
+
+}
@@ -0,0 +1,159 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+/**
+ * Compilation backends, i.e. the ways in which generated code is turned into
+ * a loadable class.
+ */
+public enum Backend
+{
+
+	/**
+	 * Write generated Java source and compile it with the system Java compiler.
+	 * <p>
+	 * Requires a JDK (rather than a JRE) at runtime, and is slow: every
+	 * compilation runs the full <code>javax.tools</code> pipeline.
+	 */
+	JAVAC
+	{
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.Backend#compiler()
+		 */
+		@Override
+		ClassFileCompiler compiler()
+		{
+			return new CodeCompiler();
+		}
+
+	},
+
+	/**
+	 * Emit JVM bytecode directly from the generated statements.
+	 * <p>
+	 * Requires only a JRE, and is typically faster than {@link #JAVAC} by well
+	 * over an order of magnitude.
+	 */
+	BYTECODE
+	{
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.Backend#compiler()
+		 */
+		@Override
+		ClassFileCompiler compiler()
+		{
+			return new BytecodeCompiler();
+		}
+
+	},
+
+	/**
+	 * As {@link #JAVAC}, but with batch methods that use the Java Vector API
+	 * (<code>jdk.incubator.vector</code>) to evaluate several rows per
+	 * instruction.
+	 * <p>
+	 * The Vector API is only available on Java 16 and later, to JVMs started
+	 * with <code>--add-modules jdk.incubator.vector</code>; elsewhere this
+	 * backend produces exactly what {@link #JAVAC} does. Batch values are
+	 * exact for arithmetic, but elementary functions computed by vector
+	 * kernels may differ from the scalar value method in the last bit, and
+	 * so may depend on how a batch is split into ranges.
+	 */
+	VECTOR
+	{
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.Backend#compiler()
+		 */
+		@Override
+		ClassFileCompiler compiler()
+		{
+			if(VectorBatchSourceWriter.isAvailable())
+			{
+				// the incubator module draws a warning on every compilation.
+				return new CodeCompiler("--add-modules", "jdk.incubator.vector", "-nowarn");
+			}
+
+			return new CodeCompiler();
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.Backend#writeBatchMethod(java.io.PrintWriter, org.teneighty.leibniz.compilation.ValueMethod, java.util.List)
+		 */
+		@Override
+		void writeBatchMethod(final PrintWriter writer, final ValueMethod valueMethod, final List<Statement> statements)
+		{
+			VectorBatchSourceWriter.write(writer, valueMethod, statements);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.Backend#cacheName()
+		 */
+		@Override
+		String cacheName()
+		{
+			// classes that use the Vector API can't be loaded where it is
+			// unavailable.
+			return VectorBatchSourceWriter.isAvailable() ? name() : String.format("%1$s_SCALAR", name());
+		}
+
+	};
+
+	/**
+	 * Get a class file compiler for this backend.
+	 * 
+	 * @return A compiler.
+	 */
+	abstract ClassFileCompiler compiler();
+
+	/**
+	 * Write the source of the batch method of a generated class.
+	 * 
+	 * @param writer The writer.
+	 * @param valueMethod The value method signature.
+	 * @param statements The value method body statements.
+	 */
+	void writeBatchMethod(final PrintWriter writer, final ValueMethod valueMethod, final List<Statement> statements)
+	{
+		BatchSourceWriter.write(writer, valueMethod, statements);
+	}
+
+	/**
+	 * Get the name under which classes compiled by this backend are persisted.
+	 * 
+	 * @return The name.
+	 */
+	String cacheName()
+	{
+		return name();
+	}
+
+}
@@ -0,0 +1,156 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Argument checks shared by the batch methods of compiled functions.
+ * <p>
+ * Generated batch methods index their columns without checks of their own,
+ * so everything they will touch is checked here first; a batch is thus
+ * either evaluated in full or rejected before any output is written.
+ */
+final class BatchArguments
+{
+
+	/**
+	 * Check the input columns and row range of a batch.
+	 *
+	 * @param variableIndex The layout of the input columns.
+	 * @param inputs The input columns.
+	 * @param from The first row, inclusive.
+	 * @param to The last row, exclusive.
+	 * @throws NullPointerException If <code>inputs</code> or any indexed
+	 *             column is <code>null</code>.
+	 * @throws IllegalArgumentException If the range is invalid, or if there are
+	 *             too few columns or any indexed column is too short.
+	 */
+	static void checkInputs(final VariableIndex variableIndex, final double[][] inputs, final int from, final int to)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(inputs == null)
+		{
+			throw new NullPointerException("inputs");
+		}
+
+		if(from < 0 || from > to)
+		{
+			String message = String.format("Invalid row range [%1$s, %2$s)", from, to);
+			throw new IllegalArgumentException(message);
+		}
+
+		checkColumns("inputs", inputs, variableIndex.size(), to);
+	}
+
+	/**
+	 * Check the output column of a batch.
+	 *
+	 * @param outputs The output column.
+	 * @param to The last row, exclusive.
+	 * @throws NullPointerException If <code>outputs</code> is
+	 *             <code>null</code>.
+	 * @throws IllegalArgumentException If <code>outputs</code> is too short.
+	 */
+	static void checkOutput(final double[] outputs, final int to)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(outputs == null)
+		{
+			throw new NullPointerException("outputs");
+		}
+
+		if(outputs.length < to)
+		{
+			String message = String.format("Column outputs has %1$s rows; %2$s required", outputs.length, to);
+			throw new IllegalArgumentException(message);
+		}
+	}
+
+	/**
+	 * Check the output columns of a batch.
+	 *
+	 * @param outputs The output columns.
+	 * @param columns The number of output columns required.
+	 * @param to The last row, exclusive.
+	 * @throws NullPointerException If <code>outputs</code> or any required
+	 *             column is <code>null</code>.
+	 * @throws IllegalArgumentException If there are too few columns or any
+	 *             required column is too short.
+	 */
+	static void checkOutputs(final double[][] outputs, final int columns, final int to)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(outputs == null)
+		{
+			throw new NullPointerException("outputs");
+		}
+
+		checkColumns("outputs", outputs, columns, to);
+	}
+
+	/**
+	 * Check the specified columns.
+	 *
+	 * @param name The name of the columns.
+	 * @param columns The columns.
+	 * @param count The number of columns required.
+	 * @param to The last row, exclusive.
+	 * @throws NullPointerException If a required column is <code>null</code>.
+	 * @throws IllegalArgumentException If there are too few columns or any
+	 *             required column is too short.
+	 */
+	private static void checkColumns(final String name, final double[][] columns, final int count, final int to)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(columns.length < count)
+		{
+			String message = String.format("Array %1$s has %2$s columns; %3$s required", name, columns.length, count);
+			throw new IllegalArgumentException(message);
+		}
+
+		for(int column = 0; column < count; column++)
+		{
+			if(columns[column] == null)
+			{
+				throw new NullPointerException(String.format("%1$s[%2$s]", name, column));
+			}
+
+			if(columns[column].length < to)
+			{
+				String message = String.format("Column %1$s[%2$s] has %3$s rows; %4$s required", name, column, columns[column].length, to);
+				throw new IllegalArgumentException(message);
+			}
+		}
+	}
+
+	/**
+	 * Here only for access protection.
+	 */
+	private BatchArguments()
+	{
+	}
+
+}
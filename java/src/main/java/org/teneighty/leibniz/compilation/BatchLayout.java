@@ -0,0 +1,221 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.List;
+import java.util.TreeSet;
+
+import org.teneighty.leibniz.compilation.expression.BinaryOperator;
+import org.teneighty.leibniz.compilation.expression.Expression;
+import org.teneighty.leibniz.compilation.expression.ExpressionVisitor;
+import org.teneighty.leibniz.compilation.expression.UnaryOperator;
+import org.teneighty.leibniz.compilation.statement.Statement;
+import org.teneighty.leibniz.compilation.statement.StatementVisitor;
+
+
+/**
+ * The columns touched by a batch method: the input columns its statements
+ * read, and the output columns they write.
+ * <p>
+ * Batch methods load each of these columns once, before their loop over
+ * rows, so the loop body indexes plain <code>double[]</code> locals. The
+ * statements may also read the elements of the array that the batch method
+ * takes whole (see {@link ValueMethod#sharedArray()}), but no other array.
+ */
+final class BatchLayout
+	implements StatementVisitor, ExpressionVisitor
+{
+
+	/**
+	 * The input slots read, in order.
+	 */
+	private final TreeSet<Integer> inputs;
+
+	/**
+	 * The output slots written, in order.
+	 */
+	private final TreeSet<Integer> outputs;
+
+	/**
+	 * The name of the array that the batch method takes whole, or
+	 * <code>null</code>.
+	 */
+	private final String sharedArray;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param valueMethod The value method signature.
+	 * @param statements The statements of the value method.
+	 */
+	BatchLayout(final ValueMethod valueMethod, final List<Statement> statements)
+	{
+		sharedArray = valueMethod.sharedArray();
+		inputs = new TreeSet<Integer>();
+		outputs = new TreeSet<Integer>();
+
+		for(Statement statement : statements)
+		{
+			statement.accept(this);
+		}
+	}
+
+	/**
+	 * Get the input slots read.
+	 *
+	 * @return The slots, in order.
+	 */
+	int[] inputs()
+	{
+		return toArray(inputs);
+	}
+
+	/**
+	 * Get the output slots written.
+	 *
+	 * @return The slots, in order.
+	 */
+	int[] outputs()
+	{
+		return toArray(outputs);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitLocalDoubleDeclaration(java.lang.String, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitLocalDoubleDeclaration(final String localName, final Expression expression)
+	{
+		expression.accept(this);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitArrayElementAssignment(java.lang.String, int, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitArrayElementAssignment(final String arrayName, final int index, final Expression expression)
+	{
+		outputs.add(Integer.valueOf(index));
+		expression.accept(this);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitReturn(org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitReturn(final Expression expression)
+	{
+		expression.accept(this);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitConstant(double)
+	 */
+	@Override
+	public void visitConstant(final double value)
+	{
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitInput(int)
+	 */
+	@Override
+	public void visitInput(final int slot)
+	{
+		inputs.add(Integer.valueOf(slot));
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitArrayElement(java.lang.String, int)
+	 */
+	@Override
+	public void visitArrayElement(final String arrayName, final int index)
+	{
+		if(arrayName.equals(sharedArray))
+		{
+			return;
+		}
+
+		String message = String.format("Array %1$s cannot be read by a batch method", arrayName);
+		throw new IllegalStateException(message);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitLocal(java.lang.String)
+	 */
+	@Override
+	public void visitLocal(final String localName)
+	{
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitUnaryOperation(org.teneighty.leibniz.compilation.expression.UnaryOperator, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitUnaryOperation(final UnaryOperator operator, final Expression operand)
+	{
+		operand.accept(this);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitBinaryOperation(org.teneighty.leibniz.compilation.expression.Expression, org.teneighty.leibniz.compilation.expression.BinaryOperator, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitBinaryOperation(final Expression left, final BinaryOperator operator, final Expression right)
+	{
+		left.accept(this);
+		right.accept(this);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitStaticMethodCall(java.lang.String, java.lang.String, org.teneighty.leibniz.compilation.expression.Expression[])
+	 */
+	@Override
+	public void visitStaticMethodCall(final String fullyQualifiedClassName, final String methodName, final Expression[] arguments)
+	{
+		for(Expression argument : arguments)
+		{
+			argument.accept(this);
+		}
+	}
+
+	/**
+	 * Copy the specified slots to an array.
+	 *
+	 * @param slots The slots.
+	 * @return The array.
+	 */
+	private static int[] toArray(final TreeSet<Integer> slots)
+	{
+		int[] array = new int[slots.size()];
+		int position = 0;
+		for(Integer slot : slots)
+		{
+			array[position++] = slot.intValue();
+		}
+
+		return array;
+	}
+
+}
@@ -0,0 +1,235 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+import org.teneighty.leibniz.compilation.expression.BinaryOperator;
+import org.teneighty.leibniz.compilation.expression.Expression;
+import org.teneighty.leibniz.compilation.expression.ExpressionVisitor;
+import org.teneighty.leibniz.compilation.expression.UnaryOperator;
+import org.teneighty.leibniz.compilation.statement.Statement;
+import org.teneighty.leibniz.compilation.statement.StatementVisitor;
+
+
+/**
+ * Writes the Java source of a batch method.
+ * <p>
+ * The batch method wraps the statements of the value method in a loop over
+ * rows. Inputs are read from, and outputs written to, columns that are loaded
+ * into locals before the loop; a return of the value method becomes a store
+ * into the single output column. Elements of an array that the batch method
+ * takes whole are read from its parameter of the same name.
+ */
+final class BatchSourceWriter
+	implements StatementVisitor, ExpressionVisitor
+{
+
+	/**
+	 * Write the batch method for the specified value method statements.
+	 *
+	 * @param writer The writer.
+	 * @param valueMethod The value method signature.
+	 * @param statements The value method body statements.
+	 */
+	static void write(final PrintWriter writer, final ValueMethod valueMethod, final List<Statement> statements)
+	{
+		writer.println(String.format("\t%1$s", valueMethod.batchSignature()));
+		writer.println("\t{");
+		writeColumns(writer, new BatchLayout(valueMethod, statements));
+		writeRows(writer, "for(int row = from; row < to; row++)", statements);
+		writer.println("\t}");
+		writer.println();
+	}
+
+	/**
+	 * Write the declarations of the column locals touched by a batch method.
+	 *
+	 * @param writer The writer.
+	 * @param layout The columns.
+	 */
+	static void writeColumns(final PrintWriter writer, final BatchLayout layout)
+	{
+		for(int slot : layout.inputs())
+		{
+			writer.println(String.format("\t\tfinal double[] input_%1$s = inputs[%1$s];", slot));
+		}
+
+		for(int slot : layout.outputs())
+		{
+			writer.println(String.format("\t\tfinal double[] output_%1$s = outputs[%1$s];", slot));
+		}
+	}
+
+	/**
+	 * Write a loop that evaluates the specified statements one row at a time.
+	 *
+	 * @param writer The writer.
+	 * @param loop The loop header, which declares or advances <code>row</code>.
+	 * @param statements The value method body statements.
+	 */
+	static void writeRows(final PrintWriter writer, final String loop, final List<Statement> statements)
+	{
+		writer.println(String.format("\t\t%1$s", loop));
+		writer.println("\t\t{");
+
+		BatchSourceWriter statementWriter = new BatchSourceWriter();
+		for(Statement statement : statements)
+		{
+			statement.accept(statementWriter);
+			writer.print("\t\t\t");
+			writer.println(statementWriter.code);
+			statementWriter.code.setLength(0);
+		}
+
+		writer.println("\t\t}");
+	}
+
+	/**
+	 * The code of the current statement.
+	 */
+	private final StringBuilder code;
+
+	/**
+	 * Constructor.
+	 */
+	private BatchSourceWriter()
+	{
+		code = new StringBuilder();
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitLocalDoubleDeclaration(java.lang.String, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitLocalDoubleDeclaration(final String localName, final Expression expression)
+	{
+		code.append("double ").append(localName).append(" = ");
+		expression.accept(this);
+		code.append(";");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitArrayElementAssignment(java.lang.String, int, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitArrayElementAssignment(final String arrayName, final int index, final Expression expression)
+	{
+		code.append("output_").append(index).append("[row] = ");
+		expression.accept(this);
+		code.append(";");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitReturn(org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitReturn(final Expression expression)
+	{
+		code.append("outputs[row] = ");
+		expression.accept(this);
+		code.append(";");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitConstant(double)
+	 */
+	@Override
+	public void visitConstant(final double value)
+	{
+		code.append(value).append("d");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitInput(int)
+	 */
+	@Override
+	public void visitInput(final int slot)
+	{
+		code.append("input_").append(slot).append("[row]");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitArrayElement(java.lang.String, int)
+	 */
+	@Override
+	public void visitArrayElement(final String arrayName, final int index)
+	{
+		code.append(arrayName).append("[").append(index).append("]");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitLocal(java.lang.String)
+	 */
+	@Override
+	public void visitLocal(final String localName)
+	{
+		code.append(localName);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitUnaryOperation(org.teneighty.leibniz.compilation.expression.UnaryOperator, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitUnaryOperation(final UnaryOperator operator, final Expression operand)
+	{
+		code.append("(").append(operator.code()).append("(");
+		operand.accept(this);
+		code.append("))");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitBinaryOperation(org.teneighty.leibniz.compilation.expression.Expression, org.teneighty.leibniz.compilation.expression.BinaryOperator, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitBinaryOperation(final Expression left, final BinaryOperator operator, final Expression right)
+	{
+		code.append("(");
+		left.accept(this);
+		code.append(" ").append(operator.code()).append(" ");
+		right.accept(this);
+		code.append(")");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitStaticMethodCall(java.lang.String, java.lang.String, org.teneighty.leibniz.compilation.expression.Expression[])
+	 */
+	@Override
+	public void visitStaticMethodCall(final String fullyQualifiedClassName, final String methodName, final Expression[] arguments)
+	{
+		code.append(fullyQualifiedClassName).append(".").append(methodName).append("(");
+
+		String separator = "";
+		for(Expression argument : arguments)
+		{
+			code.append(separator);
+			argument.accept(this);
+			separator = ", ";
+		}
+
+		code.append(")");
+	}
+
+}
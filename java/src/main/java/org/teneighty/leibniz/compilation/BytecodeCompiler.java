@@ -0,0 +1,803 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.expression.BinaryOperator;
+import org.teneighty.leibniz.compilation.expression.Expression;
+import org.teneighty.leibniz.compilation.expression.ExpressionVisitor;
+import org.teneighty.leibniz.compilation.expression.UnaryOperator;
+import org.teneighty.leibniz.compilation.statement.Statement;
+import org.teneighty.leibniz.compilation.statement.StatementVisitor;
+
+
+/**
+ * Compiles a source code unit by emitting JVM bytecode directly from its
+ * statements, bypassing the Java compiler.
+ * <p>
+ * The emitted class is equivalent to the unit's Java source: it has the same
+ * name, super class, constructor, value method and batch method.
+ */
+final class BytecodeCompiler
+	implements ClassFileCompiler
+{
+
+	// opcodes.
+
+	/**
+	 * Load reference from local 0.
+	 */
+	private static final int ALOAD_0 = 0x2A;
+
+	/**
+	 * Load reference from local 1.
+	 */
+	private static final int ALOAD_1 = 0x2B;
+
+	/**
+	 * Load reference from local 2.
+	 */
+	private static final int ALOAD_2 = 0x2C;
+
+	/**
+	 * Load reference from local 3.
+	 */
+	private static final int ALOAD_3 = 0x2D;
+
+	/**
+	 * Push int constant -1; <code>ICONST_0</code> through <code>ICONST_5</code>
+	 * follow consecutively.
+	 */
+	private static final int ICONST_M1 = 0x02;
+
+	/**
+	 * Push double constant 0.
+	 */
+	private static final int DCONST_0 = 0x0E;
+
+	/**
+	 * Push double constant 1.
+	 */
+	private static final int DCONST_1 = 0x0F;
+
+	/**
+	 * Push byte.
+	 */
+	private static final int BIPUSH = 0x10;
+
+	/**
+	 * Push short.
+	 */
+	private static final int SIPUSH = 0x11;
+
+	/**
+	 * Push int constant from the constant pool.
+	 */
+	private static final int LDC = 0x12;
+
+	/**
+	 * Push int constant from the constant pool (wide index).
+	 */
+	private static final int LDC_W = 0x13;
+
+	/**
+	 * Push double constant from the constant pool.
+	 */
+	private static final int LDC2_W = 0x14;
+
+	/**
+	 * Load int from local.
+	 */
+	private static final int ILOAD = 0x15;
+
+	/**
+	 * Load double from local.
+	 */
+	private static final int DLOAD = 0x18;
+
+	/**
+	 * Load reference from local.
+	 */
+	private static final int ALOAD = 0x19;
+
+	/**
+	 * Load double from array.
+	 */
+	private static final int DALOAD = 0x31;
+
+	/**
+	 * Load reference from array.
+	 */
+	private static final int AALOAD = 0x32;
+
+	/**
+	 * Store int into local.
+	 */
+	private static final int ISTORE = 0x36;
+
+	/**
+	 * Store double into local.
+	 */
+	private static final int DSTORE = 0x39;
+
+	/**
+	 * Store reference into local.
+	 */
+	private static final int ASTORE = 0x3A;
+
+	/**
+	 * Store double into array.
+	 */
+	private static final int DASTORE = 0x52;
+
+	/**
+	 * Add doubles.
+	 */
+	private static final int DADD = 0x63;
+
+	/**
+	 * Subtract doubles.
+	 */
+	private static final int DSUB = 0x67;
+
+	/**
+	 * Multiply doubles.
+	 */
+	private static final int DMUL = 0x6B;
+
+	/**
+	 * Divide doubles.
+	 */
+	private static final int DDIV = 0x6F;
+
+	/**
+	 * Negate double.
+	 */
+	private static final int DNEG = 0x77;
+
+	/**
+	 * Increment int local.
+	 */
+	private static final int IINC = 0x84;
+
+	/**
+	 * Branch if int less than.
+	 */
+	private static final int IF_ICMPLT = 0xA1;
+
+	/**
+	 * Return double.
+	 */
+	private static final int DRETURN = 0xAF;
+
+	/**
+	 * Return void.
+	 */
+	private static final int RETURN = 0xB1;
+
+	/**
+	 * Invoke constructor or super method.
+	 */
+	private static final int INVOKESPECIAL = 0xB7;
+
+	/**
+	 * Invoke static method.
+	 */
+	private static final int INVOKESTATIC = 0xB8;
+
+	/**
+	 * Widen the local index of the next instruction.
+	 */
+	private static final int WIDE = 0xC4;
+
+	/**
+	 * Jump with a four-byte offset.
+	 */
+	private static final int GOTO_W = 0xC8;
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.ClassFileCompiler#compile(org.teneighty.leibniz.compilation.SourceCodeUnit)
+	 */
+	@Override
+	public byte[] compile(final SourceCodeUnit sourceCodeUnit)
+		throws IllegalStateException
+	{
+		String internalName = sourceCodeUnit.getFullyQualifiedClassName().replace('.', '/');
+		String superInternalName = ClassFileWriter.internalName(sourceCodeUnit.getSuperclass());
+
+		ClassFileWriter writer = new ClassFileWriter(internalName, superInternalName, ClassFileWriter.internalName(Serializable.class));
+		writer.addLongConstantField(ClassFileWriter.ACC_PRIVATE, "serialVersionUID", 1L);
+
+		writeConstructor(writer, superInternalName, sourceCodeUnit.getUncompiledType());
+		writeValueMethod(writer, sourceCodeUnit);
+		if(sourceCodeUnit.getValueMethod().hasBatch())
+		{
+			writeBatchMethod(writer, sourceCodeUnit, internalName);
+		}
+
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Write the constructor, which simply passes its arguments to the super
+	 * class.
+	 *
+	 * @param writer The class file writer.
+	 * @param superInternalName The internal name of the super class.
+	 * @param uncompiledType The uncompiled type.
+	 */
+	private void writeConstructor(final ClassFileWriter writer, final String superInternalName, final Class<?> uncompiledType)
+	{
+		String descriptor = String.format("(%1$s%2$s%3$s)V",
+				ClassFileWriter.descriptor(uncompiledType),
+				ClassFileWriter.descriptor(String.class),
+				ClassFileWriter.descriptor(VariableIndex.class));
+
+		ClassFileWriter.Code code = new ClassFileWriter.Code(4);
+		code.emit(ALOAD_0, 1);
+		code.emit(ALOAD_1, 1);
+		code.emit(ALOAD_2, 1);
+		code.emit(ALOAD_3, 1);
+		code.emitShort(INVOKESPECIAL, writer.methodConstant(superInternalName, "<init>", descriptor), -4);
+		code.emit(RETURN, 0);
+
+		writer.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", descriptor, code);
+	}
+
+	/**
+	 * Write the value method.
+	 *
+	 * @param writer The class file writer.
+	 * @param sourceCodeUnit The unit.
+	 */
+	private void writeValueMethod(final ClassFileWriter writer, final SourceCodeUnit sourceCodeUnit)
+	{
+		ValueMethod valueMethod = sourceCodeUnit.getValueMethod();
+		
+		// this, then the arrays.
+		String[] arrays = valueMethod.arrays();
+		ClassFileWriter.Code code = new ClassFileWriter.Code(1 + arrays.length);
+
+		MethodEmitter emitter = new MethodEmitter(writer, code, arrays);
+		for(Statement statement : sourceCodeUnit.getStatements())
+		{
+			statement.accept(emitter);
+		}
+
+		if(valueMethod.returnsValue() == false)
+		{
+			code.emit(RETURN, 0);
+		}
+
+		writer.addMethod(ClassFileWriter.ACC_PUBLIC, "value", valueMethod.descriptor(), code);
+	}
+
+	/**
+	 * Write the batch method, which loads the columns it touches and then loops
+	 * over its rows.
+	 *
+	 * @param writer The class file writer.
+	 * @param sourceCodeUnit The unit.
+	 * @param internalName The internal name of the class.
+	 */
+	private void writeBatchMethod(final ClassFileWriter writer, final SourceCodeUnit sourceCodeUnit, final String internalName)
+	{
+		ValueMethod valueMethod = sourceCodeUnit.getValueMethod();
+		List<Statement> statements = sourceCodeUnit.getStatements();
+
+		// this, inputs, the shared array if any, outputs, from and to.
+		String sharedArray = valueMethod.sharedArray();
+		List<String> frameLocals = new ArrayList<String>();
+		frameLocals.add(internalName);
+		frameLocals.add("[[D");
+		if(sharedArray != null)
+		{
+			frameLocals.add("[D");
+		}
+
+		frameLocals.add(valueMethod.returnsValue() ? "[D" : "[[D");
+		frameLocals.add("I");
+		frameLocals.add("I");
+
+		ClassFileWriter.Code code = new ClassFileWriter.Code(frameLocals.size());
+		BatchMethodEmitter emitter = new BatchMethodEmitter(writer, code, sharedArray);
+		emitter.emitLoop(statements, new BatchLayout(valueMethod, statements), frameLocals);
+
+		writer.addMethod(ClassFileWriter.ACC_PROTECTED, "batch", valueMethod.batchDescriptor(), code);
+	}
+
+	/**
+	 * Emits the instructions of a method body.
+	 */
+	private static class MethodEmitter
+		implements StatementVisitor, ExpressionVisitor
+	{
+
+		/**
+		 * The class file writer, for constants.
+		 */
+		final ClassFileWriter writer;
+
+		/**
+		 * The code.
+		 */
+		final ClassFileWriter.Code code;
+
+		/**
+		 * Local words of the declared locals, by name.
+		 */
+		private final Map<String, Integer> locals;
+
+		/**
+		 * Local words of the array parameters, by name.
+		 */
+		private final Map<String, Integer> arrays;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param writer The class file writer.
+		 * @param code The code.
+		 * @param arrayNames The names of the array parameters, in order.
+		 */
+		MethodEmitter(final ClassFileWriter writer, final ClassFileWriter.Code code, final String... arrayNames)
+		{
+			this.writer = writer;
+			this.code = code;
+
+			locals = new HashMap<String, Integer>();
+			arrays = new HashMap<String, Integer>();
+			for(int index = 0; index < arrayNames.length; index++)
+			{
+				arrays.put(arrayNames[index], Integer.valueOf(index + 1));
+			}
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitLocalDoubleDeclaration(java.lang.String, org.teneighty.leibniz.compilation.expression.Expression)
+		 */
+		@Override
+		public void visitLocalDoubleDeclaration(final String localName, final Expression expression)
+		{
+			expression.accept(this);
+
+			int local = code.allocateLocal(2);
+			locals.put(localName, Integer.valueOf(local));
+			emitLocal(DSTORE, local, -2);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitArrayElementAssignment(java.lang.String, int, org.teneighty.leibniz.compilation.expression.Expression)
+		 */
+		@Override
+		public void visitArrayElementAssignment(final String arrayName, final int index, final Expression expression)
+		{
+			Integer array = arrays.get(arrayName);
+			if(array == null)
+			{
+				String message = String.format("Unknown array %1$s", arrayName);
+				throw new IllegalStateException(message);
+			}
+
+			code.emit(ALOAD_0 + array.intValue(), 1);
+			pushInteger(index);
+			expression.accept(this);
+			code.emit(DASTORE, -4);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitReturn(org.teneighty.leibniz.compilation.expression.Expression)
+		 */
+		@Override
+		public void visitReturn(final Expression expression)
+		{
+			expression.accept(this);
+			code.emit(DRETURN, -2);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitConstant(double)
+		 */
+		@Override
+		public void visitConstant(final double value)
+		{
+			long bits = Double.doubleToRawLongBits(value);
+			if(bits == 0L)
+			{
+				code.emit(DCONST_0, 2);
+			}
+			else if(value == 1d)
+			{
+				code.emit(DCONST_1, 2);
+			}
+			else
+			{
+				code.emitShort(LDC2_W, writer.doubleConstant(value), 2);
+			}
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitInput(int)
+		 */
+		@Override
+		public void visitInput(final int slot)
+		{
+			code.emit(ALOAD_1, 1);
+			pushInteger(slot);
+			code.emit(DALOAD, 0);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitArrayElement(java.lang.String, int)
+		 */
+		@Override
+		public void visitArrayElement(final String arrayName, final int index)
+		{
+			Integer array = arrays.get(arrayName);
+			if(array == null)
+			{
+				String message = String.format("Unknown array %1$s", arrayName);
+				throw new IllegalStateException(message);
+			}
+
+			code.emit(ALOAD_0 + array.intValue(), 1);
+			pushInteger(index);
+			code.emit(DALOAD, 0);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitLocal(java.lang.String)
+		 */
+		@Override
+		public void visitLocal(final String localName)
+		{
+			Integer local = locals.get(localName);
+			if(local == null)
+			{
+				String message = String.format("Local %1$s used before declaration", localName);
+				throw new IllegalStateException(message);
+			}
+
+			emitLocal(DLOAD, local.intValue(), 2);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitUnaryOperation(org.teneighty.leibniz.compilation.expression.UnaryOperator, org.teneighty.leibniz.compilation.expression.Expression)
+		 */
+		@Override
+		public void visitUnaryOperation(final UnaryOperator operator, final Expression operand)
+		{
+			operand.accept(this);
+
+			switch(operator)
+			{
+				case MINUS:
+					code.emit(DNEG, 0);
+					break;
+
+				default:
+					throw new IllegalStateException(operator.name());
+			}
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitBinaryOperation(org.teneighty.leibniz.compilation.expression.Expression, org.teneighty.leibniz.compilation.expression.BinaryOperator, org.teneighty.leibniz.compilation.expression.Expression)
+		 */
+		@Override
+		public void visitBinaryOperation(final Expression left, final BinaryOperator operator, final Expression right)
+		{
+			left.accept(this);
+			right.accept(this);
+
+			switch(operator)
+			{
+				case PLUS:
+					code.emit(DADD, -2);
+					break;
+
+				case MINUS:
+					code.emit(DSUB, -2);
+					break;
+
+				case TIMES:
+					code.emit(DMUL, -2);
+					break;
+
+				case DIVIDE:
+					code.emit(DDIV, -2);
+					break;
+
+				default:
+					throw new IllegalStateException(operator.name());
+			}
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitStaticMethodCall(java.lang.String, java.lang.String, org.teneighty.leibniz.compilation.expression.Expression[])
+		 */
+		@Override
+		public void visitStaticMethodCall(final String fullyQualifiedClassName, final String methodName, final Expression[] arguments)
+		{
+			StringBuilder descriptor = new StringBuilder("(");
+			for(Expression argument : arguments)
+			{
+				argument.accept(this);
+				descriptor.append('D');
+			}
+
+			descriptor.append(")D");
+
+			String owner = fullyQualifiedClassName.replace('.', '/');
+			int method = writer.methodConstant(owner, methodName, descriptor.toString());
+			code.emitShort(INVOKESTATIC, method, 2 - (2 * arguments.length));
+		}
+
+		/**
+		 * Emit a load or store of the specified local.
+		 *
+		 * @param opcode The opcode.
+		 * @param local The local index.
+		 * @param stackDelta The change in operand stack depth, in words.
+		 */
+		void emitLocal(final int opcode, final int local, final int stackDelta)
+		{
+			if(local <= 0xFF)
+			{
+				code.emitByte(opcode, local, stackDelta);
+			}
+			else
+			{
+				code.emit(WIDE, 0);
+				code.emitShort(opcode, local, stackDelta);
+			}
+		}
+
+		/**
+		 * Push the specified integer.
+		 *
+		 * @param value The value.
+		 */
+		void pushInteger(final int value)
+		{
+			if(value >= -1 && value <= 5)
+			{
+				code.emit(ICONST_M1 + value + 1, 1);
+			}
+			else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+			{
+				code.emitByte(BIPUSH, value & 0xFF, 1);
+			}
+			else if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+			{
+				code.emitShort(SIPUSH, value & 0xFFFF, 1);
+			}
+			else
+			{
+				int constant = writer.integerConstant(value);
+				if(constant <= 0xFF)
+				{
+					code.emitByte(LDC, constant, 1);
+				}
+				else
+				{
+					code.emitShort(LDC_W, constant, 1);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Emits the instructions of a batch method body.
+	 * <p>
+	 * Inputs and outputs are read from and written to the current row of
+	 * column locals, which are loaded once before the loop; elements of the
+	 * shared array, if any, are read from its parameter.
+	 */
+	private static final class BatchMethodEmitter
+		extends MethodEmitter
+	{
+
+		/**
+		 * The local of the <code>inputs</code> parameter.
+		 */
+		private static final int INPUTS = 1;
+
+		/**
+		 * The local of the <code>outputs</code> parameter.
+		 */
+		private final int outputs;
+
+		/**
+		 * The local of the <code>from</code> parameter.
+		 */
+		private final int from;
+
+		/**
+		 * The local of the <code>to</code> parameter.
+		 */
+		private final int to;
+
+		/**
+		 * The local of the row counter.
+		 */
+		private final int row;
+
+		/**
+		 * Locals of the input columns, by slot.
+		 */
+		private final Map<Integer, Integer> inputColumns;
+
+		/**
+		 * Locals of the output columns, by slot.
+		 */
+		private final Map<Integer, Integer> outputColumns;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param writer The class file writer.
+		 * @param code The code.
+		 * @param sharedArray The name of the shared array parameter, which
+		 *            follows the inputs, or <code>null</code>.
+		 */
+		BatchMethodEmitter(final ClassFileWriter writer, final ClassFileWriter.Code code, final String sharedArray)
+		{
+			super(writer, code, (sharedArray == null) ? new String[] { "inputs" } : new String[] { "inputs", sharedArray });
+
+			outputs = (sharedArray == null) ? 2 : 3;
+			from = outputs + 1;
+			to = outputs + 2;
+			row = code.allocateLocal(1);
+			inputColumns = new HashMap<Integer, Integer>();
+			outputColumns = new HashMap<Integer, Integer>();
+		}
+
+		/**
+		 * Emit the whole method: the column loads, and a loop over the rows
+		 * whose body is the specified statements.
+		 *
+		 * @param statements The value method statements.
+		 * @param layout The columns touched by the statements.
+		 * @param frameLocals The types of the parameters, for stack map frames.
+		 */
+		void emitLoop(final List<Statement> statements, final BatchLayout layout, final List<String> frameLocals)
+		{
+			frameLocals.add("I");
+			for(int slot : layout.inputs())
+			{
+				inputColumns.put(Integer.valueOf(slot), Integer.valueOf(loadColumn(INPUTS, slot)));
+				frameLocals.add("[D");
+			}
+
+			for(int slot : layout.outputs())
+			{
+				outputColumns.put(Integer.valueOf(slot), Integer.valueOf(loadColumn(outputs, slot)));
+				frameLocals.add("[D");
+			}
+
+			String[] frame = frameLocals.toArray(new String[frameLocals.size()]);
+
+			emitLocal(ILOAD, from, 1);
+			emitLocal(ISTORE, row, -1);
+
+			// while(row < to), with wide jumps since the body may be large.
+			int head = code.position();
+			code.frame(frame);
+			emitLocal(ILOAD, row, 1);
+			emitLocal(ILOAD, to, 1);
+			code.emitShort(IF_ICMPLT, 8, -2);
+			int exit = code.emitForwardJump(GOTO_W, 0);
+
+			code.frame(frame);
+			for(Statement statement : statements)
+			{
+				statement.accept(this);
+			}
+
+			code.emitShort(IINC, (row << 8) | 1, 0);
+			code.emitBackwardJump(GOTO_W, head, 0);
+
+			code.bind(exit);
+			code.frame(frame);
+			code.emit(RETURN, 0);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.BytecodeCompiler.MethodEmitter#visitArrayElementAssignment(java.lang.String, int, org.teneighty.leibniz.compilation.expression.Expression)
+		 */
+		@Override
+		public void visitArrayElementAssignment(final String arrayName, final int index, final Expression expression)
+		{
+			Integer column = outputColumns.get(Integer.valueOf(index));
+			if(column == null)
+			{
+				String message = String.format("Unknown array element %1$s[%2$s]", arrayName, index);
+				throw new IllegalStateException(message);
+			}
+
+			emitLocal(ALOAD, column.intValue(), 1);
+			emitLocal(ILOAD, row, 1);
+			expression.accept(this);
+			code.emit(DASTORE, -4);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.BytecodeCompiler.MethodEmitter#visitReturn(org.teneighty.leibniz.compilation.expression.Expression)
+		 */
+		@Override
+		public void visitReturn(final Expression expression)
+		{
+			emitLocal(ALOAD, outputs, 1);
+			emitLocal(ILOAD, row, 1);
+			expression.accept(this);
+			code.emit(DASTORE, -4);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.compilation.BytecodeCompiler.MethodEmitter#visitInput(int)
+		 */
+		@Override
+		public void visitInput(final int slot)
+		{
+			Integer column = inputColumns.get(Integer.valueOf(slot));
+			if(column == null)
+			{
+				String message = String.format("Unknown input %1$s", slot);
+				throw new IllegalStateException(message);
+			}
+
+			emitLocal(ALOAD, column.intValue(), 1);
+			emitLocal(ILOAD, row, 1);
+			code.emit(DALOAD, 0);
+		}
+
+		/**
+		 * Load the specified column of the specified array parameter into a new
+		 * local.
+		 *
+		 * @param array The local of the array parameter.
+		 * @param slot The column.
+		 * @return The new local.
+		 */
+		private int loadColumn(final int array, final int slot)
+		{
+			emitLocal(ALOAD, array, 1);
+			pushInteger(slot);
+			code.emit(AALOAD, -1);
+
+			int local = code.allocateLocal(1);
+			emitLocal(ASTORE, local, -1);
+			return local;
+		}
+
+	}
+
+}
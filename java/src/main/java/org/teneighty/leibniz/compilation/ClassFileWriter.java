@@ -0,0 +1,918 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A minimal writer of JVM class files.
+ * <p>
+ * This writer supports exactly what the bytecode backend needs: a constant pool,
+ * static constant fields and methods with simple control flow. Class files are
+ * written in version 50 (Java 6) format; methods that branch declare full
+ * stack map frames at their branch targets, so they verify with the type
+ * checking verifier.
+ */
+final class ClassFileWriter
+{
+
+	/**
+	 * Class file major version.
+	 */
+	private static final int MAJOR_VERSION = 50;
+
+	/**
+	 * Public access flag.
+	 */
+	static final int ACC_PUBLIC = 0x0001;
+
+	/**
+	 * Private access flag.
+	 */
+	static final int ACC_PRIVATE = 0x0002;
+
+	/**
+	 * Protected access flag.
+	 */
+	static final int ACC_PROTECTED = 0x0004;
+
+	/**
+	 * Static access flag.
+	 */
+	static final int ACC_STATIC = 0x0008;
+
+	/**
+	 * Final access flag.
+	 */
+	static final int ACC_FINAL = 0x0010;
+
+	/**
+	 * Super access flag (always set on classes).
+	 */
+	static final int ACC_SUPER = 0x0020;
+
+	/**
+	 * Full stack map frame type.
+	 */
+	private static final int FULL_FRAME = 255;
+
+	/**
+	 * Integer verification type tag.
+	 */
+	private static final int ITEM_INTEGER = 1;
+
+	/**
+	 * Object verification type tag.
+	 */
+	private static final int ITEM_OBJECT = 7;
+
+	/**
+	 * Utf8 constant tag.
+	 */
+	private static final int CONSTANT_UTF8 = 1;
+
+	/**
+	 * Integer constant tag.
+	 */
+	private static final int CONSTANT_INTEGER = 3;
+
+	/**
+	 * Long constant tag.
+	 */
+	private static final int CONSTANT_LONG = 5;
+
+	/**
+	 * Double constant tag.
+	 */
+	private static final int CONSTANT_DOUBLE = 6;
+
+	/**
+	 * Class constant tag.
+	 */
+	private static final int CONSTANT_CLASS = 7;
+
+	/**
+	 * Method reference constant tag.
+	 */
+	private static final int CONSTANT_METHODREF = 10;
+
+	/**
+	 * Name and type constant tag.
+	 */
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+	/**
+	 * The constant pool, as written.
+	 */
+	private final ByteArrayOutputStream constantPoolBytes;
+
+	/**
+	 * Output stream over the constant pool.
+	 */
+	private final DataOutputStream constantPool;
+
+	/**
+	 * Constant pool entries already written, keyed by tag and content.
+	 */
+	private final Map<String, Integer> constants;
+
+	/**
+	 * The next free constant pool index.
+	 */
+	private int nextConstant;
+
+	/**
+	 * Constant pool index of this class.
+	 */
+	private final int thisClass;
+
+	/**
+	 * Constant pool index of the super class.
+	 */
+	private final int superClass;
+
+	/**
+	 * Constant pool indexes of the interfaces.
+	 */
+	private final int[] interfaces;
+
+	/**
+	 * The fields, as written.
+	 */
+	private final List<byte[]> fields;
+
+	/**
+	 * The methods, as written.
+	 */
+	private final List<byte[]> methods;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param internalName The internal name of the class (e.g.
+	 *            <code>java/lang/Object</code>).
+	 * @param superInternalName The internal name of the super class.
+	 * @param interfaceInternalNames The internal names of the interfaces.
+	 */
+	ClassFileWriter(final String internalName, final String superInternalName, final String... interfaceInternalNames)
+	{
+		constantPoolBytes = new ByteArrayOutputStream();
+		constantPool = new DataOutputStream(constantPoolBytes);
+		constants = new HashMap<String, Integer>();
+		nextConstant = 1;
+
+		fields = new ArrayList<byte[]>();
+		methods = new ArrayList<byte[]>();
+
+		thisClass = classConstant(internalName);
+		superClass = classConstant(superInternalName);
+		interfaces = new int[interfaceInternalNames.length];
+		for(int index = 0; index < interfaces.length; index++)
+		{
+			interfaces[index] = classConstant(interfaceInternalNames[index]);
+		}
+	}
+
+	/**
+	 * Get the internal name of the specified class.
+	 *
+	 * @param clazz The class.
+	 * @return The internal name.
+	 */
+	static String internalName(final Class<?> clazz)
+	{
+		return clazz.getName().replace('.', '/');
+	}
+
+	/**
+	 * Get the descriptor of the specified class.
+	 *
+	 * @param clazz The class.
+	 * @return The descriptor.
+	 */
+	static String descriptor(final Class<?> clazz)
+	{
+		return String.format("L%1$s;", internalName(clazz));
+	}
+
+	/**
+	 * Get the constant pool index of a Utf8 constant.
+	 *
+	 * @param value The value.
+	 * @return The index.
+	 */
+	int utf8Constant(final String value)
+	{
+		String key = "U" + value;
+		Integer index = constants.get(key);
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		try
+		{
+			constantPool.writeByte(CONSTANT_UTF8);
+			constantPool.writeUTF(value);
+		}
+		catch(final IOException ioException)
+		{
+			throw new IllegalStateException(ioException);
+		}
+
+		return register(key, 1);
+	}
+
+	/**
+	 * Get the constant pool index of a class constant.
+	 *
+	 * @param internalName The internal class name.
+	 * @return The index.
+	 */
+	int classConstant(final String internalName)
+	{
+		String key = "C" + internalName;
+		Integer index = constants.get(key);
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		int name = utf8Constant(internalName);
+		writeEntry(CONSTANT_CLASS, name);
+
+		return register(key, 1);
+	}
+
+	/**
+	 * Get the constant pool index of a method reference constant.
+	 *
+	 * @param ownerInternalName The internal name of the owning class.
+	 * @param name The method name.
+	 * @param descriptor The method descriptor.
+	 * @return The index.
+	 */
+	int methodConstant(final String ownerInternalName, final String name, final String descriptor)
+	{
+		String key = "M" + ownerInternalName + "." + name + descriptor;
+		Integer index = constants.get(key);
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		int owner = classConstant(ownerInternalName);
+		int nameAndType = nameAndTypeConstant(name, descriptor);
+		writeEntry(CONSTANT_METHODREF, owner, nameAndType);
+
+		return register(key, 1);
+	}
+
+	/**
+	 * Get the constant pool index of a name and type constant.
+	 *
+	 * @param name The name.
+	 * @param descriptor The descriptor.
+	 * @return The index.
+	 */
+	private int nameAndTypeConstant(final String name, final String descriptor)
+	{
+		String key = "N" + name + ":" + descriptor;
+		Integer index = constants.get(key);
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		int nameIndex = utf8Constant(name);
+		int descriptorIndex = utf8Constant(descriptor);
+		writeEntry(CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex);
+
+		return register(key, 1);
+	}
+
+	/**
+	 * Get the constant pool index of an integer constant.
+	 *
+	 * @param value The value.
+	 * @return The index.
+	 */
+	int integerConstant(final int value)
+	{
+		String key = "I" + value;
+		Integer index = constants.get(key);
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		try
+		{
+			constantPool.writeByte(CONSTANT_INTEGER);
+			constantPool.writeInt(value);
+		}
+		catch(final IOException ioException)
+		{
+			throw new IllegalStateException(ioException);
+		}
+
+		return register(key, 1);
+	}
+
+	/**
+	 * Get the constant pool index of a long constant.
+	 *
+	 * @param value The value.
+	 * @return The index.
+	 */
+	int longConstant(final long value)
+	{
+		String key = "J" + value;
+		Integer index = constants.get(key);
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		try
+		{
+			constantPool.writeByte(CONSTANT_LONG);
+			constantPool.writeLong(value);
+		}
+		catch(final IOException ioException)
+		{
+			throw new IllegalStateException(ioException);
+		}
+
+		// longs take two entries.
+		return register(key, 2);
+	}
+
+	/**
+	 * Get the constant pool index of a double constant.
+	 *
+	 * @param value The value.
+	 * @return The index.
+	 */
+	int doubleConstant(final double value)
+	{
+		// key on the bits, so that e.g. 0.0 and -0.0 are distinct.
+		long bits = Double.doubleToRawLongBits(value);
+		String key = "D" + bits;
+		Integer index = constants.get(key);
+		if(index != null)
+		{
+			return index.intValue();
+		}
+
+		try
+		{
+			constantPool.writeByte(CONSTANT_DOUBLE);
+			constantPool.writeLong(bits);
+		}
+		catch(final IOException ioException)
+		{
+			throw new IllegalStateException(ioException);
+		}
+
+		// doubles take two entries.
+		return register(key, 2);
+	}
+
+	/**
+	 * Write a constant pool entry consisting of a tag and two byte indexes.
+	 *
+	 * @param tag The tag.
+	 * @param indexes The indexes.
+	 */
+	private void writeEntry(final int tag, final int... indexes)
+	{
+		try
+		{
+			constantPool.writeByte(tag);
+			for(int index : indexes)
+			{
+				constantPool.writeShort(index);
+			}
+		}
+		catch(final IOException ioException)
+		{
+			throw new IllegalStateException(ioException);
+		}
+	}
+
+	/**
+	 * Register the constant just written.
+	 *
+	 * @param key The constant key.
+	 * @param width The number of entries taken by the constant.
+	 * @return The index of the constant.
+	 */
+	private int register(final String key, final int width)
+	{
+		int index = nextConstant;
+		nextConstant += width;
+		if(nextConstant > 0xFFFF)
+		{
+			throw new IllegalStateException("Constant pool overflow");
+		}
+
+		constants.put(key, Integer.valueOf(index));
+		return index;
+	}
+
+	/**
+	 * Add a static final long field with a constant value.
+	 *
+	 * @param access The access flags, in addition to static and final.
+	 * @param name The field name.
+	 * @param value The value.
+	 */
+	void addLongConstantField(final int access, final String name, final long value)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream field = new DataOutputStream(bytes);
+		try
+		{
+			field.writeShort(access | ACC_STATIC | ACC_FINAL);
+			field.writeShort(utf8Constant(name));
+			field.writeShort(utf8Constant("J"));
+
+			// one ConstantValue attribute.
+			field.writeShort(1);
+			field.writeShort(utf8Constant("ConstantValue"));
+			field.writeInt(2);
+			field.writeShort(longConstant(value));
+		}
+		catch(final IOException ioException)
+		{
+			throw new IllegalStateException(ioException);
+		}
+
+		fields.add(bytes.toByteArray());
+	}
+
+	/**
+	 * Add a method.
+	 *
+	 * @param access The access flags.
+	 * @param name The method name.
+	 * @param descriptor The method descriptor.
+	 * @param code The method code.
+	 */
+	void addMethod(final int access, final String name, final String descriptor, final Code code)
+	{
+		byte[] instructions = code.instructions();
+		if(instructions.length > 0xFFFF)
+		{
+			String message = String.format("Method %1$s is too large (%2$s bytes)", name, instructions.length);
+			throw new IllegalStateException(message);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream method = new DataOutputStream(bytes);
+		try
+		{
+			method.writeShort(access);
+			method.writeShort(utf8Constant(name));
+			method.writeShort(utf8Constant(descriptor));
+
+			byte[] stackMap = stackMap(code);
+
+			// one Code attribute, with no exception table, and a stack map
+			// table if the code branches.
+			method.writeShort(1);
+			method.writeShort(utf8Constant("Code"));
+			method.writeInt(12 + instructions.length + ((stackMap == null) ? 0 : 6 + stackMap.length));
+			method.writeShort(code.maximumStack());
+			method.writeShort(code.maximumLocals());
+			method.writeInt(instructions.length);
+			method.write(instructions);
+			method.writeShort(0);
+			if(stackMap == null)
+			{
+				method.writeShort(0);
+			}
+			else
+			{
+				method.writeShort(1);
+				method.writeShort(utf8Constant("StackMapTable"));
+				method.writeInt(stackMap.length);
+				method.write(stackMap);
+			}
+		}
+		catch(final IOException ioException)
+		{
+			throw new IllegalStateException(ioException);
+		}
+
+		methods.add(bytes.toByteArray());
+	}
+
+	/**
+	 * Write the stack map table of the specified code.
+	 *
+	 * @param code The code.
+	 * @return The table, or <code>null</code> if the code declares no frames.
+	 * @throws IOException Never, in practice.
+	 */
+	private byte[] stackMap(final Code code)
+		throws IOException
+	{
+		if(code.frames.isEmpty())
+		{
+			return null;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream table = new DataOutputStream(bytes);
+		table.writeShort(code.frames.size());
+
+		int previous = -1;
+		for(Frame frame : code.frames)
+		{
+			table.writeByte(FULL_FRAME);
+			table.writeShort(frame.position - previous - 1);
+			table.writeShort(frame.locals.length);
+			for(String local : frame.locals)
+			{
+				if(local.equals("I"))
+				{
+					table.writeByte(ITEM_INTEGER);
+				}
+				else
+				{
+					table.writeByte(ITEM_OBJECT);
+					table.writeShort(classConstant(local));
+				}
+			}
+
+			// the operand stack is always empty at a frame.
+			table.writeShort(0);
+			previous = frame.position;
+		}
+
+		table.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Get the class file.
+	 *
+	 * @return The class file bytes.
+	 */
+	byte[] toByteArray()
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream classFile = new DataOutputStream(bytes);
+		try
+		{
+			classFile.writeInt(0xCAFEBABE);
+			classFile.writeShort(0);
+			classFile.writeShort(MAJOR_VERSION);
+
+			constantPool.flush();
+			classFile.writeShort(nextConstant);
+			constantPoolBytes.writeTo(classFile);
+
+			classFile.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+			classFile.writeShort(thisClass);
+			classFile.writeShort(superClass);
+			classFile.writeShort(interfaces.length);
+			for(int index : interfaces)
+			{
+				classFile.writeShort(index);
+			}
+
+			classFile.writeShort(fields.size());
+			for(byte[] field : fields)
+			{
+				classFile.write(field);
+			}
+
+			classFile.writeShort(methods.size());
+			for(byte[] method : methods)
+			{
+				classFile.write(method);
+			}
+
+			// no class attributes.
+			classFile.writeShort(0);
+			classFile.flush();
+		}
+		catch(final IOException ioException)
+		{
+			throw new IllegalStateException(ioException);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Method code, with operand stack tracking.
+	 */
+	static final class Code
+	{
+
+		/**
+		 * The instructions.
+		 */
+		private final Instructions instructions;
+
+		/**
+		 * The stack map frames, in order of position.
+		 */
+		private final List<Frame> frames;
+
+		/**
+		 * The current operand stack depth, in words.
+		 */
+		private int stack;
+
+		/**
+		 * The maximum operand stack depth, in words.
+		 */
+		private int maximumStack;
+
+		/**
+		 * The number of local words.
+		 */
+		private int maximumLocals;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param parameterWords The number of words taken by <code>this</code>
+		 *            and the parameters.
+		 */
+		Code(final int parameterWords)
+		{
+			instructions = new Instructions();
+			frames = new ArrayList<Frame>();
+			maximumLocals = parameterWords;
+		}
+
+		/**
+		 * Emit an instruction.
+		 *
+		 * @param opcode The opcode.
+		 * @param stackDelta The change in operand stack depth, in words.
+		 */
+		void emit(final int opcode, final int stackDelta)
+		{
+			instructions.write(opcode);
+			adjustStack(stackDelta);
+		}
+
+		/**
+		 * Emit an instruction with a one-byte operand.
+		 *
+		 * @param opcode The opcode.
+		 * @param operand The operand.
+		 * @param stackDelta The change in operand stack depth, in words.
+		 */
+		void emitByte(final int opcode, final int operand, final int stackDelta)
+		{
+			instructions.write(opcode);
+			instructions.write(operand);
+			adjustStack(stackDelta);
+		}
+
+		/**
+		 * Emit an instruction with a two-byte operand.
+		 *
+		 * @param opcode The opcode.
+		 * @param operand The operand.
+		 * @param stackDelta The change in operand stack depth, in words.
+		 */
+		void emitShort(final int opcode, final int operand, final int stackDelta)
+		{
+			instructions.write(opcode);
+			instructions.write((operand >>> 8) & 0xFF);
+			instructions.write(operand & 0xFF);
+			adjustStack(stackDelta);
+		}
+
+		/**
+		 * Emit a jump with a four-byte offset, such as <code>goto_w</code>, whose
+		 * target is not yet known; see {@link #bind(int)}.
+		 *
+		 * @param opcode The opcode.
+		 * @param stackDelta The change in operand stack depth, in words.
+		 * @return The position of the jump.
+		 */
+		int emitForwardJump(final int opcode, final int stackDelta)
+		{
+			int jump = position();
+			emitJump(opcode, 0, stackDelta);
+			return jump;
+		}
+
+		/**
+		 * Emit a jump with a four-byte offset, such as <code>goto_w</code>, to the
+		 * specified position.
+		 *
+		 * @param opcode The opcode.
+		 * @param target The target position.
+		 * @param stackDelta The change in operand stack depth, in words.
+		 */
+		void emitBackwardJump(final int opcode, final int target, final int stackDelta)
+		{
+			emitJump(opcode, target - position(), stackDelta);
+		}
+
+		/**
+		 * Point a jump emitted by {@link #emitForwardJump(int, int)} at the
+		 * current position.
+		 *
+		 * @param jump The position of the jump.
+		 */
+		void bind(final int jump)
+		{
+			int offset = position() - jump;
+			for(int shift = 24, position = jump + 1; shift >= 0; shift -= 8, position++)
+			{
+				instructions.patch(position, (offset >>> shift) & 0xFF);
+			}
+		}
+
+		/**
+		 * Declare a stack map frame, with an empty operand stack, at the current
+		 * position. Frames must be declared in order of position.
+		 *
+		 * @param locals The types of the locals: <code>I</code> for
+		 *            integers, or the internal name of a class or array type.
+		 */
+		void frame(final String... locals)
+		{
+			frames.add(new Frame(position(), locals.clone()));
+		}
+
+		/**
+		 * Emit a jump with a four-byte offset.
+		 *
+		 * @param opcode The opcode.
+		 * @param offset The offset, relative to the jump.
+		 * @param stackDelta The change in operand stack depth, in words.
+		 */
+		private void emitJump(final int opcode, final int offset, final int stackDelta)
+		{
+			instructions.write(opcode);
+			for(int shift = 24; shift >= 0; shift -= 8)
+			{
+				instructions.write((offset >>> shift) & 0xFF);
+			}
+
+			adjustStack(stackDelta);
+		}
+
+		/**
+		 * Get the current position.
+		 *
+		 * @return The position, in bytes.
+		 */
+		int position()
+		{
+			return instructions.size();
+		}
+
+		/**
+		 * Allocate local words.
+		 *
+		 * @param words The number of words.
+		 * @return The index of the first word.
+		 */
+		int allocateLocal(final int words)
+		{
+			int index = maximumLocals;
+			maximumLocals += words;
+			if(maximumLocals > 0xFFFF)
+			{
+				throw new IllegalStateException("Too many locals");
+			}
+
+			return index;
+		}
+
+		/**
+		 * Adjust the operand stack depth.
+		 *
+		 * @param delta The change, in words.
+		 */
+		private void adjustStack(final int delta)
+		{
+			stack += delta;
+			maximumStack = Math.max(maximumStack, stack);
+		}
+
+		/**
+		 * Get the instructions.
+		 *
+		 * @return The instructions.
+		 */
+		byte[] instructions()
+		{
+			return instructions.toByteArray();
+		}
+
+		/**
+		 * Get the maximum operand stack depth.
+		 *
+		 * @return The maximum depth, in words.
+		 */
+		int maximumStack()
+		{
+			return maximumStack;
+		}
+
+		/**
+		 * Get the number of local words.
+		 *
+		 * @return The number of words.
+		 */
+		int maximumLocals()
+		{
+			return maximumLocals;
+		}
+
+	}
+
+	/**
+	 * A growable instruction buffer that allows branch offsets to be patched.
+	 */
+	private static final class Instructions
+		extends ByteArrayOutputStream
+	{
+
+		/**
+		 * Overwrite a byte already written.
+		 *
+		 * @param position The position.
+		 * @param value The byte.
+		 */
+		void patch(final int position, final int value)
+		{
+			buf[position] = (byte)value;
+		}
+
+	}
+
+	/**
+	 * A stack map frame.
+	 */
+	private static final class Frame
+	{
+
+		/**
+		 * The position.
+		 */
+		final int position;
+
+		/**
+		 * The local types.
+		 */
+		final String[] locals;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param position The position.
+		 * @param locals The local types.
+		 */
+		Frame(final int position, final String[] locals)
+		{
+			this.position = position;
+			this.locals = locals;
+		}
+
+	}
+
+}
@@ -0,0 +1,481 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.teneighty.leibniz.Variable;
+
+
+/**
+ * A bounded, thread-safe cache of compiled functions, keyed by structural
+ * identity.
+ * <p>
+ * Two requests share an entry if they compile structurally equal functions of
+ * the same kind over the same variables, using the same backend. Compilation
+ * is single-flight: if several threads request the same function at once, it
+ * is compiled exactly once, and every thread receives the same instance.
+ * Failed compilations are not cached.
+ * <p>
+ * Compilations in flight are tracked separately from completed entries, and
+ * only join the cache once they succeed; hence eviction never discards a
+ * running compilation. When the cache is full, the least recently used entry
+ * is evicted. A maximum size of zero disables caching altogether (though
+ * concurrent requests for the same function are still coalesced).
+ */
+public final class CompilationCache
+{
+
+	/**
+	 * The default maximum size, used unless the
+	 * <code>org.teneighty.leibniz.compilation.cacheSize</code> system property
+	 * says otherwise.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+	/**
+	 * Lock guarding <code>entries</code>, <code>pending</code> and
+	 * <code>maximumSize</code>.
+	 */
+	private final Object lock;
+
+	/**
+	 * The completed entries, in access order.
+	 */
+	private final LinkedHashMap<Key, FutureTask<Object>> entries;
+
+	/**
+	 * The compilations in flight.
+	 */
+	private final Map<Key, FutureTask<Object>> pending;
+
+	/**
+	 * The maximum number of entries.
+	 */
+	private int maximumSize;
+
+	/**
+	 * Number of requests answered from the cache.
+	 */
+	private final AtomicLong hits;
+
+	/**
+	 * Number of requests that required a compilation.
+	 */
+	private final AtomicLong misses;
+
+	/**
+	 * Number of entries evicted to respect the maximum size.
+	 */
+	private final AtomicLong evictions;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param maximumSize The maximum number of entries.
+	 * @throws IllegalArgumentException If <code>maximumSize</code> is
+	 *             negative.
+	 */
+	CompilationCache(final int maximumSize)
+		throws IllegalArgumentException
+	{
+		checkMaximumSize(maximumSize);
+
+		this.lock = new Object();
+		this.entries = new LinkedHashMap<Key, FutureTask<Object>>(16, 0.75f, true);
+		this.pending = new HashMap<Key, FutureTask<Object>>();
+		this.maximumSize = maximumSize;
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+		this.evictions = new AtomicLong();
+	}
+
+	/**
+	 * Check that the specified maximum size is non-negative.
+	 * 
+	 * @param maximumSize The maximum size.
+	 * @throws IllegalArgumentException If <code>maximumSize</code> is
+	 *             negative.
+	 */
+	private static void checkMaximumSize(final int maximumSize)
+		throws IllegalArgumentException
+	{
+		if(maximumSize < 0)
+		{
+			String message = String.format("Maximum size must be non-negative but was %1$s", maximumSize);
+			throw new IllegalArgumentException(message);
+		}
+	}
+
+	/**
+	 * Get the cached value for the specified key, computing it if necessary.
+	 * 
+	 * @param <T> The value type.
+	 * @param key The key.
+	 * @param compilation Computes the value on a miss.
+	 * @return The value.
+	 * @throws IllegalStateException If the current thread is interrupted while
+	 *             waiting for another thread to finish compiling.
+	 */
+	@SuppressWarnings("unchecked")
+	<T> T get(final Key key, final Callable<T> compilation)
+		throws IllegalStateException
+	{
+		FutureTask<Object> task;
+		boolean owner = false;
+
+		synchronized(lock)
+		{
+			task = entries.get(key);
+			if(task == null)
+			{
+				task = pending.get(key);
+			}
+
+			if(task == null)
+			{
+				task = new FutureTask<Object>((Callable<Object>)compilation);
+				pending.put(key, task);
+				owner = true;
+			}
+		}
+
+		if(owner)
+		{
+			misses.incrementAndGet();
+			task.run();
+		}
+		else
+		{
+			hits.incrementAndGet();
+		}
+
+		try
+		{
+			T value = (T)task.get();
+			if(owner)
+			{
+				publish(key, task, true);
+			}
+
+			return value;
+		}
+		catch(final ExecutionException e)
+		{
+			if(owner)
+			{
+				publish(key, task, false);
+			}
+
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException)
+			{
+				throw (RuntimeException)cause;
+			}
+
+			if(cause instanceof Error)
+			{
+				throw (Error)cause;
+			}
+
+			throw new IllegalStateException("Compilation failed", cause);
+		}
+		catch(final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for compilation", e);
+		}
+	}
+
+	/**
+	 * Move the specified finished compilation out of the in-flight map and,
+	 * if it succeeded and caching is enabled, into the cache.
+	 * 
+	 * @param key The key.
+	 * @param task The finished compilation.
+	 * @param succeeded Whether the compilation succeeded.
+	 */
+	private void publish(final Key key, final FutureTask<Object> task, final boolean succeeded)
+	{
+		synchronized(lock)
+		{
+			if(pending.get(key) != task)
+			{
+				// Cleared while compiling.
+				return;
+			}
+
+			pending.remove(key);
+			if(succeeded && maximumSize > 0)
+			{
+				entries.put(key, task);
+				evict();
+			}
+		}
+	}
+
+	/**
+	 * Evict least recently used entries until the maximum size is respected.
+	 * <p>
+	 * Callers must hold <code>lock</code>.
+	 */
+	private void evict()
+	{
+		Iterator<Key> iterator = entries.keySet().iterator();
+		while(entries.size() > maximumSize)
+		{
+			iterator.next();
+			iterator.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Get the maximum number of entries.
+	 * 
+	 * @return The maximum size.
+	 */
+	public int maximumSize()
+	{
+		synchronized(lock)
+		{
+			return maximumSize;
+		}
+	}
+
+	/**
+	 * Set the maximum number of entries, evicting entries if necessary.
+	 * 
+	 * @param maximumSize The new maximum size; zero disables caching.
+	 * @throws IllegalArgumentException If <code>maximumSize</code> is
+	 *             negative.
+	 */
+	public void setMaximumSize(final int maximumSize)
+		throws IllegalArgumentException
+	{
+		checkMaximumSize(maximumSize);
+
+		synchronized(lock)
+		{
+			this.maximumSize = maximumSize;
+			evict();
+		}
+	}
+
+	/**
+	 * Get the number of entries currently cached.
+	 * 
+	 * @return The size.
+	 */
+	public int size()
+	{
+		synchronized(lock)
+		{
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Get the number of requests answered from the cache, including requests
+	 * that waited for a concurrent compilation of the same function.
+	 * 
+	 * @return The hit count.
+	 */
+	public long hits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * Get the number of requests that required a compilation.
+	 * 
+	 * @return The miss count.
+	 */
+	public long misses()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * Get the number of entries evicted to respect the maximum size.
+	 * 
+	 * @return The eviction count.
+	 */
+	public long evictions()
+	{
+		return evictions.get();
+	}
+
+	/**
+	 * Remove all entries. Compilations in flight still complete, but their
+	 * results are not cached. The counters are not reset.
+	 */
+	public void clear()
+	{
+		synchronized(lock)
+		{
+			entries.clear();
+			pending.clear();
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("CompilationCache [size=%1$s, maximumSize=%2$s, hits=%3$s, misses=%4$s, evictions=%5$s]",
+				size(), maximumSize(), hits(), misses(), evictions());
+	}
+
+	/**
+	 * Structural identity of a compilation request.
+	 */
+	static final class Key
+	{
+
+		/**
+		 * The kind of function (differentiable, gradient or Hessian).
+		 */
+		private final Class<?> kind;
+
+		/**
+		 * The uncompiled function.
+		 */
+		private final Object uncompiled;
+
+		/**
+		 * The variables. Gradient and Hessian equality ignores these, so they
+		 * are part of the key in their own right.
+		 */
+		private final Set<Variable> variables;
+
+		/**
+		 * The backend.
+		 */
+		private final Backend backend;
+
+		/**
+		 * The hash code, computed once since structural hashing visits the
+		 * whole function.
+		 */
+		private final int hashCode;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param kind The kind of function.
+		 * @param uncompiled The uncompiled function.
+		 * @param variables The variables.
+		 * @param backend The backend.
+		 * @throws NullPointerException If any argument is <code>null</code>.
+		 */
+		Key(final Class<?> kind, final Object uncompiled,
+				final Set<Variable> variables, final Backend backend)
+			throws NullPointerException
+		{
+			if(kind == null)
+			{
+				throw new NullPointerException("kind");
+			}
+
+			if(uncompiled == null)
+			{
+				throw new NullPointerException("uncompiled");
+			}
+
+			if(variables == null)
+			{
+				throw new NullPointerException("variables");
+			}
+
+			if(backend == null)
+			{
+				throw new NullPointerException("backend");
+			}
+
+			this.kind = kind;
+			this.uncompiled = uncompiled;
+			this.variables = Collections.unmodifiableSet(new HashSet<Variable>(variables));
+			this.backend = backend;
+
+			int hash = kind.getName().hashCode();
+			hash = (31 * hash) + uncompiled.hashCode();
+			hash = (31 * hash) + this.variables.hashCode();
+			hash = (31 * hash) + backend.name().hashCode();
+			this.hashCode = hash;
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object other)
+		{
+			if(other == null)
+			{
+				return false;
+			}
+
+			if(other == this)
+			{
+				return true;
+			}
+
+			if(other instanceof Key)
+			{
+				Key that = (Key)other;
+				return hashCode == that.hashCode &&
+						kind.equals(that.kind) &&
+						backend == that.backend &&
+						variables.equals(that.variables) &&
+						uncompiled.equals(that.uncompiled);
+			}
+
+			return false;
+		}
+
+	}
+
+}
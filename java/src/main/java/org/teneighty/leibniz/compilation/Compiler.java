@@ -1,134 +1,521 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz.compilation;
-
-import java.lang.reflect.Constructor;
-
-import org.teneighty.leibniz.CompiledDifferentiable;
-import org.teneighty.leibniz.CompiledGradient;
-import org.teneighty.leibniz.CompiledHessian;
-import org.teneighty.leibniz.Differentiable;
-import org.teneighty.leibniz.Gradient;
-import org.teneighty.leibniz.Hessian;
-
-
-/**
- * Compiler framework facade class.
- * <p>
- * This class is stateless (and hence safe for use by multiple threads) and
- * cannot be instantiated.
- */
-public final class Compiler
-{
-	
-	/**
-	 * Compile the specified differentiable.
-	 * 
-	 * @param differentiable The differentiable to compile.
-	 * @return A compiled differentiable.
-	 */
-	public static CompiledDifferentiable compile(final Differentiable differentiable)
-	{
-		DifferentiableCodeGenerator codeGenerator = new DifferentiableCodeGenerator();
-		CompiledDifferentiable compiled = compile(Differentiable.class, differentiable, codeGenerator);
-		
-		return compiled;
-	}
-	
-	/**
-	 * Compile the specified gradient.
-	 * 
-	 * @param gradient The gradient to compile.
-	 * @return A compiled gradient.
-	 */
-	public static CompiledGradient compile(final Gradient gradient)
-	{
-		GradientCodeGenerator codeGenerator = new GradientCodeGenerator();
-		CompiledGradient compiled = compile(Gradient.class, gradient, codeGenerator);
-		
-		return compiled;
-	}
-
-	/**
-	 * Compile the specified Hessian.
-	 * 
-	 * @param hessian The hessian to compile.
-	 * @return A compiled Hessian.
-	 */
-	public static CompiledHessian compile(final Hessian hessian)
-	{
-		HessianCodeGenerator codeGenerator = new HessianCodeGenerator();
-		CompiledHessian compiled = compile(Hessian.class, hessian, codeGenerator);
-		
-		return compiled;
-	}
-	
-	/**
-	 * Core compile method.
-	 * 
-	 * @param <TUncompiled> The uncompiled type.
-	 * @param <TCompiled> The compiled type.
-	 * @param uncompiledType The class of the uncompiled object.
-	 * @param uncompiled The uncompiled object.
-	 * @param generator A code generator.
-	 * @return A compiled version of <code>uncompiled</code>.
-	 */
-	private static <TUncompiled, TCompiled> TCompiled compile(
-			final Class<TUncompiled> uncompiledType, 
-			final TUncompiled uncompiled, 
-			final CodeGenerator<TUncompiled> generator)
-	{
-		// generate the source.
-		SourceCodeUnit sourceCode = generator.getSourceCodeUnit(uncompiled);
-		String source = sourceCode.getSourceCode();
-		
-		// compile the code.
-		CodeCompiler<TCompiled> compiler = new CodeCompiler<TCompiled>();
-		Class<TCompiled> compiledClass = compiler.compile(sourceCode);
-		
-		try
-		{
-			// and, finally, instantiate!
-			Constructor<TCompiled> constructor = compiledClass.getConstructor(uncompiledType, String.class);			
-			TCompiled compiled = constructor.newInstance(uncompiled, source);
-			
-			return compiled;			
-		}
-		catch(final Exception e)
-		{
-			// whatever... checked exceptions can be annoying.
-			throw new IllegalArgumentException("Compilation failed", e);
-		}
-	}
-		
-	/**
-	 * Constructor.
-	 * <p>
-	 * Here only for access protection.
-	 */
-	private Compiler()
-	{		
-	}
-
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.teneighty.leibniz.CompiledDerivatives;
+import org.teneighty.leibniz.CompiledDifferentiable;
+import org.teneighty.leibniz.CompiledDirectionalDerivatives;
+import org.teneighty.leibniz.CompiledGradient;
+import org.teneighty.leibniz.CompiledHessian;
+import org.teneighty.leibniz.CompiledHessianVectorProduct;
+import org.teneighty.leibniz.CompiledJacobian;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.DirectionalDerivatives;
+import org.teneighty.leibniz.Gradient;
+import org.teneighty.leibniz.Hessian;
+import org.teneighty.leibniz.HessianVectorProduct;
+import org.teneighty.leibniz.Jacobian;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Compiler framework facade class.
+ * <p>
+ * Compiled functions are cached by structural identity (see
+ * {@link CompilationCache}), so compiling a function equal to one compiled
+ * earlier returns the earlier result rather than generating a new class. This
+ * class is safe for use by multiple threads and cannot be instantiated.
+ * <p>
+ * Optionally, compiled classes can also be persisted across runs in a
+ * {@link PersistentCache}, either by calling
+ * {@link #setPersistentCache(PersistentCache)} or by setting the
+ * <code>org.teneighty.leibniz.compilation.cacheDirectory</code> system
+ * property.
+ */
+public final class Compiler
+{
+	
+	/**
+	 * The process-wide compilation cache.
+	 */
+	private static final CompilationCache CACHE = new CompilationCache(
+			Integer.getInteger("org.teneighty.leibniz.compilation.cacheSize", CompilationCache.DEFAULT_MAXIMUM_SIZE).intValue());
+	
+	/**
+	 * The persistent cache, if any.
+	 */
+	private static volatile PersistentCache persistentCache = defaultPersistentCache();
+	
+	/**
+	 * Get the process-wide compilation cache, e.g. to adjust its size or read
+	 * its counters.
+	 * 
+	 * @return The cache.
+	 */
+	public static CompilationCache cache()
+	{
+		return CACHE;
+	}
+	
+	/**
+	 * Get the persistent cache configured by system property, if any.
+	 * 
+	 * @return The cache, or <code>null</code>.
+	 */
+	private static PersistentCache defaultPersistentCache()
+	{
+		String directory = System.getProperty("org.teneighty.leibniz.compilation.cacheDirectory");
+		if(directory == null)
+		{
+			return null;
+		}
+		
+		return new PersistentCache(new File(directory));
+	}
+	
+	/**
+	 * Get the persistent cache.
+	 * 
+	 * @return The persistent cache, or <code>null</code> if compiled classes
+	 *         are not persisted.
+	 */
+	public static PersistentCache persistentCache()
+	{
+		return persistentCache;
+	}
+	
+	/**
+	 * Set the persistent cache.
+	 * <p>
+	 * Compilations that miss the in-memory cache first look for a persisted
+	 * class, and persist the classes they do compile.
+	 * 
+	 * @param cache The persistent cache, or <code>null</code> to stop
+	 *            persisting compiled classes.
+	 */
+	public static void setPersistentCache(final PersistentCache cache)
+	{
+		persistentCache = cache;
+	}
+	
+	/**
+	 * Whether functions are simplified before code is generated for them.
+	 */
+	private static volatile boolean simplifying = Boolean.getBoolean("org.teneighty.leibniz.compilation.simplify");
+	
+	/**
+	 * Check if functions are simplified before code is generated for them.
+	 * 
+	 * @return <code>true</code> if so; <code>false</code> otherwise.
+	 */
+	public static boolean isSimplifying()
+	{
+		return simplifying;
+	}
+	
+	/**
+	 * Set whether functions (including gradient and Hessian components) are
+	 * run through a {@link org.teneighty.leibniz.Simplifier} before code is
+	 * generated for them. Simplification shrinks the generated code at the
+	 * cost of a pass over the graph; it is off unless the system property
+	 * <code>org.teneighty.leibniz.compilation.simplify</code> is
+	 * <code>true</code>.
+	 * 
+	 * @param simplify Whether to simplify.
+	 */
+	public static void setSimplifying(final boolean simplify)
+	{
+		simplifying = simplify;
+	}
+	
+	/**
+	 * The backend used when none is specified.
+	 */
+	public static final Backend DEFAULT_BACKEND = Backend.BYTECODE;
+	
+	/**
+	 * Compile the specified differentiable, using the default backend.
+	 * 
+	 * @param differentiable The differentiable to compile.
+	 * @return A compiled differentiable.
+	 */
+	public static CompiledDifferentiable compile(final Differentiable differentiable)
+	{
+		return compile(differentiable, DEFAULT_BACKEND);
+	}
+	
+	/**
+	 * Compile the specified differentiable.
+	 * 
+	 * @param differentiable The differentiable to compile.
+	 * @param backend The backend.
+	 * @return A compiled differentiable.
+	 */
+	public static CompiledDifferentiable compile(final Differentiable differentiable, final Backend backend)
+	{
+		DifferentiableCodeGenerator codeGenerator = new DifferentiableCodeGenerator();
+		CompiledDifferentiable compiled = compile(Differentiable.class, Differentiable.class, differentiable, differentiable.variables(), codeGenerator, backend);
+		
+		return compiled;
+	}
+	
+	/**
+	 * Compile the specified gradient, using the default backend.
+	 * 
+	 * @param gradient The gradient to compile.
+	 * @return A compiled gradient.
+	 */
+	public static CompiledGradient compile(final Gradient gradient)
+	{
+		return compile(gradient, DEFAULT_BACKEND);
+	}
+	
+	/**
+	 * Compile the specified gradient.
+	 * 
+	 * @param gradient The gradient to compile.
+	 * @param backend The backend.
+	 * @return A compiled gradient.
+	 */
+	public static CompiledGradient compile(final Gradient gradient, final Backend backend)
+	{
+		GradientCodeGenerator codeGenerator = new GradientCodeGenerator();
+		CompiledGradient compiled = compile(Gradient.class, Gradient.class, gradient, gradient.variables(), codeGenerator, backend);
+		
+		return compiled;
+	}
+
+	/**
+	 * Compile the specified Hessian, using the default backend.
+	 * 
+	 * @param hessian The hessian to compile.
+	 * @return A compiled Hessian.
+	 */
+	public static CompiledHessian compile(final Hessian hessian)
+	{
+		return compile(hessian, DEFAULT_BACKEND);
+	}
+
+	/**
+	 * Compile the specified Hessian.
+	 * 
+	 * @param hessian The hessian to compile.
+	 * @param backend The backend.
+	 * @return A compiled Hessian.
+	 */
+	public static CompiledHessian compile(final Hessian hessian, final Backend backend)
+	{
+		HessianCodeGenerator codeGenerator = new HessianCodeGenerator();
+		CompiledHessian compiled = compile(Hessian.class, Hessian.class, hessian, hessian.variables(), codeGenerator, backend);
+		
+		return compiled;
+	}
+	
+	/**
+	 * Compile the specified Jacobian, using the default backend.
+	 * 
+	 * @param jacobian The Jacobian to compile.
+	 * @return A compiled Jacobian.
+	 */
+	public static CompiledJacobian compile(final Jacobian jacobian)
+	{
+		return compile(jacobian, DEFAULT_BACKEND);
+	}
+
+	/**
+	 * Compile the specified Jacobian into a single function evaluating all
+	 * outputs and all structurally nonzero entries.
+	 * 
+	 * @param jacobian The Jacobian to compile.
+	 * @param backend The backend.
+	 * @return A compiled Jacobian.
+	 */
+	public static CompiledJacobian compile(final Jacobian jacobian, final Backend backend)
+	{
+		JacobianCodeGenerator codeGenerator = new JacobianCodeGenerator();
+		CompiledJacobian compiled = compile(Jacobian.class, Jacobian.class, jacobian, jacobian.variables(), codeGenerator, backend);
+		
+		return compiled;
+	}
+	
+	/**
+	 * Compile the specified Hessian-vector product, using the default
+	 * backend.
+	 * 
+	 * @param product The product to compile.
+	 * @return A compiled product.
+	 */
+	public static CompiledHessianVectorProduct compile(final HessianVectorProduct product)
+	{
+		return compile(product, DEFAULT_BACKEND);
+	}
+
+	/**
+	 * Compile the specified Hessian-vector product into a single
+	 * allocation-free function performing one forward-over-reverse sweep.
+	 * 
+	 * @param product The product to compile.
+	 * @param backend The backend.
+	 * @return A compiled product.
+	 */
+	public static CompiledHessianVectorProduct compile(final HessianVectorProduct product, final Backend backend)
+	{
+		HessianVectorProductCodeGenerator codeGenerator = new HessianVectorProductCodeGenerator();
+		CompiledHessianVectorProduct compiled = compile(HessianVectorProduct.class, HessianVectorProduct.class, product, product.variables(),
+				codeGenerator, backend);
+		
+		return compiled;
+	}
+	
+	/**
+	 * Compile the specified directional derivatives, using the default
+	 * backend.
+	 * 
+	 * @param derivatives The derivatives to compile.
+	 * @return Compiled derivatives.
+	 */
+	public static CompiledDirectionalDerivatives compile(final DirectionalDerivatives derivatives)
+	{
+		return compile(derivatives, DEFAULT_BACKEND);
+	}
+
+	/**
+	 * Compile the specified directional derivatives into a single
+	 * allocation-free function performing one vector forward sweep.
+	 * 
+	 * @param derivatives The derivatives to compile.
+	 * @param backend The backend.
+	 * @return Compiled derivatives.
+	 */
+	public static CompiledDirectionalDerivatives compile(final DirectionalDerivatives derivatives, final Backend backend)
+	{
+		DirectionalDerivativesCodeGenerator codeGenerator = new DirectionalDerivativesCodeGenerator();
+		CompiledDirectionalDerivatives compiled = compile(DirectionalDerivatives.class, DirectionalDerivatives.class, derivatives,
+				derivatives.variables(), codeGenerator, backend);
+		
+		return compiled;
+	}
+	
+	/**
+	 * Compile the value, gradient and Hessian of the specified differentiable
+	 * into a single function, using the default backend.
+	 * 
+	 * @param differentiable The differentiable to compile.
+	 * @return A compiled function computing all three together.
+	 */
+	public static CompiledDerivatives compileDerivatives(final Differentiable differentiable)
+	{
+		return compileDerivatives(differentiable.hessian(), DEFAULT_BACKEND);
+	}
+
+	/**
+	 * Compile the value, gradient and Hessian of the differentiable of the
+	 * specified Hessian into a single function.
+	 * <p>
+	 * The gradient and Hessian are taken with respect to the variables of
+	 * <code>hessian</code>. Intermediate results common to the three are
+	 * computed only once per evaluation.
+	 * 
+	 * @param hessian The Hessian to compile.
+	 * @param backend The backend.
+	 * @return A compiled function computing all three together.
+	 */
+	public static CompiledDerivatives compileDerivatives(final Hessian hessian, final Backend backend)
+	{
+		DerivativesCodeGenerator codeGenerator = new DerivativesCodeGenerator();
+		CompiledDerivatives compiled = compile(CompiledDerivatives.class, Hessian.class, hessian, hessian.variables(), codeGenerator, backend);
+		
+		return compiled;
+	}
+	
+	/**
+	 * Core compile method, going through the cache.
+	 * 
+	 * @param <TUncompiled> The uncompiled type.
+	 * @param <TCompiled> The compiled type.
+	 * @param kind The kind of compiled function, which keys the caches.
+	 * @param uncompiledType The class of the uncompiled object.
+	 * @param uncompiled The uncompiled object.
+	 * @param variables The variables of the uncompiled object.
+	 * @param generator A code generator.
+	 * @param backend The backend.
+	 * @return A compiled version of <code>uncompiled</code>.
+	 */
+	private static <TUncompiled, TCompiled> TCompiled compile(
+			final Class<?> kind,
+			final Class<TUncompiled> uncompiledType, 
+			final TUncompiled uncompiled, 
+			final Set<Variable> variables,
+			final CodeGenerator<TUncompiled> generator,
+			final Backend backend)
+	{
+		if(backend == null)
+		{
+			throw new NullPointerException("backend");
+		}
+		
+		CompilationCache.Key key = new CompilationCache.Key(kind, uncompiled, variables, backend);
+		TCompiled compiled = CACHE.get(key, new Callable<TCompiled>()
+		{
+			
+			/**
+			 * @see java.util.concurrent.Callable#call()
+			 */
+			@Override
+			public TCompiled call()
+			{
+				return Compiler.<TUncompiled, TCompiled>build(kind, uncompiledType, uncompiled, variables, generator, backend);
+			}
+			
+		});
+		
+		return compiled;
+	}
+	
+	/**
+	 * Load a persisted class or generate and compile a new one, and
+	 * instantiate it.
+	 * 
+	 * @param <TUncompiled> The uncompiled type.
+	 * @param <TCompiled> The compiled type.
+	 * @param kind The kind of compiled function, which keys the caches.
+	 * @param uncompiledType The class of the uncompiled object.
+	 * @param uncompiled The uncompiled object.
+	 * @param variables The variables of the uncompiled object.
+	 * @param generator A code generator.
+	 * @param backend The backend.
+	 * @return A compiled version of <code>uncompiled</code>.
+	 */
+	private static <TUncompiled, TCompiled> TCompiled build(
+			final Class<?> kind,
+			final Class<TUncompiled> uncompiledType, 
+			final TUncompiled uncompiled, 
+			final Set<Variable> variables,
+			final CodeGenerator<TUncompiled> generator,
+			final Backend backend)
+	{
+		PersistentCache persistent = persistentCache;
+		String digest = null;
+		
+		// try the persistent cache first.
+		if(persistent != null)
+		{
+			digest = StructuralDigest.of(kind, uncompiled, variables, backend, PersistentCache.LIBRARY_VERSION);
+			PersistentCache.Entry entry = (digest == null) ? null : persistent.load(digest);
+			if(entry != null)
+			{
+				try
+				{
+					return Compiler.<TUncompiled, TCompiled>instantiate(uncompiledType, uncompiled, 
+							entry.className(), entry.classFile(), entry.source(), entry.variableIndex());
+				}
+				catch(final LinkageError e)
+				{
+					persistent.reject(digest);
+				}
+				catch(final IllegalArgumentException e)
+				{
+					persistent.reject(digest);
+				}
+			}
+		}
+		
+		// generate the source.
+		SourceCodeUnit sourceCode = generator.getSourceCodeUnit(uncompiled, backend);
+		String source = sourceCode.getSourceCode();
+		String className = sourceCode.getFullyQualifiedClassName();
+		VariableIndex variableIndex = sourceCode.getVariableIndex();
+		
+		// compile the code.
+		byte[] classFile = backend.compiler().compile(sourceCode);
+		TCompiled compiled = Compiler.<TUncompiled, TCompiled>instantiate(uncompiledType, uncompiled, 
+				className, classFile, source, variableIndex);
+		
+		if(digest != null)
+		{
+			persistent.store(digest, new PersistentCache.Entry(className, source, variableIndex, classFile));
+		}
+		
+		return compiled;
+	}
+	
+	/**
+	 * Load and instantiate a compiled class.
+	 * 
+	 * @param <TUncompiled> The uncompiled type.
+	 * @param <TCompiled> The compiled type.
+	 * @param uncompiledType The class of the uncompiled object.
+	 * @param uncompiled The uncompiled object.
+	 * @param className The fully qualified class name.
+	 * @param classFile The class file.
+	 * @param source The source code.
+	 * @param variableIndex The input layout.
+	 * @return A compiled version of <code>uncompiled</code>.
+	 * @throws LinkageError If the class file is malformed.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <TUncompiled, TCompiled> TCompiled instantiate(
+			final Class<TUncompiled> uncompiledType, 
+			final TUncompiled uncompiled,
+			final String className,
+			final byte[] classFile,
+			final String source,
+			final VariableIndex variableIndex)
+		throws LinkageError
+	{
+		try
+		{
+			// load the class...
+			GeneratedClassLoader classLoader = new GeneratedClassLoader(Compiler.class.getClassLoader());
+			Class<TCompiled> compiledClass = (Class<TCompiled>)classLoader.define(className, classFile);
+			
+			// and, finally, instantiate!
+			Constructor<TCompiled> constructor = compiledClass.getConstructor(uncompiledType, String.class, VariableIndex.class);			
+			TCompiled compiled = constructor.newInstance(uncompiled, source, variableIndex);
+			
+			return compiled;			
+		}
+		catch(final Exception e)
+		{
+			// whatever... checked exceptions can be annoying.
+			throw new IllegalArgumentException("Compilation failed", e);
+		}
+	}
+		
+	/**
+	 * Constructor.
+	 * <p>
+	 * Here only for access protection.
+	 */
+	private Compiler()
+	{		
+	}
+
+}
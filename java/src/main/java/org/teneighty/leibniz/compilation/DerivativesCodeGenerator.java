@@ -0,0 +1,200 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.teneighty.leibniz.Constant;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Hessian;
+import org.teneighty.leibniz.HessianKey;
+import org.teneighty.leibniz.SparsityPattern;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+
+/**
+ * Fused value, gradient and Hessian code generator.
+ * <p>
+ * The value, every gradient component and every Hessian component are
+ * generated with one expression generator, so a subexpression common to any
+ * of them becomes a single local.
+ */
+final class DerivativesCodeGenerator
+	extends AbstractCodeGenerator<Hessian>
+{
+	
+	/**
+	 * @see org.teneighty.leibniz.compilation.CodeGenerator#getSourceCodeUnit(java.lang.Object, org.teneighty.leibniz.compilation.Backend)
+	 */
+	@Override
+	public SourceCodeUnit getSourceCodeUnit(final Hessian uncompiled, final Backend backend)
+	{
+		SourceCodeUnit unit = new SourceCodeUnit();
+		unit.setSimpleClassName(getUniqueClassName());
+		
+		// lay out the input array.
+		Differentiable differentiable = uncompiled.differentiable();
+		Set<Variable> variables = new HashSet<Variable>(differentiable.variables());
+		variables.addAll(uncompiled.variables());
+		VariableIndex variableIndex = VariableIndex.sorted(variables);
+		unit.setVariableIndex(variableIndex);
+		
+		ExpressionGenerator expressionGenerator = new ExpressionGenerator(variableIndex);
+		
+		// the value first: everything else is built on top of it.
+		List<ReferenceExpression> valueExpressions = expressionGenerator.generate(differentiable);
+		
+		VariableIndex componentIndex = VariableIndex.sorted(uncompiled.variables());
+		LinkedHashMap<Variable, List<ReferenceExpression>> gradientComponents = new LinkedHashMap<Variable, List<ReferenceExpression>>();
+		for(Variable variable : componentIndex.variables())
+		{
+			List<ReferenceExpression> expressions = expressionGenerator.generate(differentiable.derivative(variable));
+			gradientComponents.put(variable, expressions);
+		}
+		
+		// walk the upper triangle in packed order; structurally zero
+		// components are stored as constants without being built.
+		SparsityPattern pattern = uncompiled.sparsity();
+		LinkedHashMap<HessianKey, List<ReferenceExpression>> hessianComponents = new LinkedHashMap<HessianKey, List<ReferenceExpression>>();
+		for(int row = 0; row < componentIndex.size(); row++)
+		{
+			for(int column = row; column < componentIndex.size(); column++)
+			{
+				HessianKey key = new HessianKey(componentIndex.variable(row), componentIndex.variable(column));
+				Differentiable component = pattern.contains(key.first(), key.second()) ? uncompiled.component(key) : Constant.ZERO;
+				List<ReferenceExpression> expressions = expressionGenerator.generate(component);
+				hessianComponents.put(key, expressions);
+			}
+		}
+		
+		DerivativesMethodBodyStatementGenerator generator = new DerivativesMethodBodyStatementGenerator(componentIndex, 
+				valueExpressions, gradientComponents, hessianComponents);
+		List<Statement> statements = generator.getStatements();
+		
+		// describe the generated class.
+		unit.setSuperclass(AbstractCompiledDerivatives.class);
+		unit.setUncompiledType(Hessian.class);
+		unit.setValueMethod(ValueMethod.FUSED);
+		unit.setStatements(statements);
+
+		StringWriter writer = new StringWriter();
+		PrintWriter printWriter = new PrintWriter(writer);
+		
+		// write all the magic; there is no batch form of the fused method.
+		writeClassDefinition(printWriter, unit.getSimpleClassName());
+		writeConstructor(printWriter, unit.getSimpleClassName());
+		writeValueMethod(printWriter, unit.getValueMethod(), statements);
+		writeClassTrailer(printWriter);
+				
+		printWriter.flush();
+		writer.flush();
+		
+		// store the source code, and we're done here.
+		String sourceCode = writer.toString();
+		unit.setSourceCode(sourceCode);
+		
+		return unit;
+	}
+	
+	/**
+	 * Write the class package, import, etc.
+	 * 
+	 * @param simpleClassName The simple class name.
+	 * @param writer The write to which to write.
+	 */
+	private void writeClassDefinition(final PrintWriter writer, final String simpleClassName)
+	{
+		// write class header.
+		writer.println("package org.teneighty.leibniz.compilation;");
+		writer.println();
+		writer.println("import java.io.Serializable;");
+		writer.println();
+		writer.println("import org.teneighty.leibniz.Hessian;");
+		writer.println("import org.teneighty.leibniz.VariableIndex;");
+		writer.println();
+		writer.println(String.format("public final class %1$s", simpleClassName));
+		writer.println("\textends AbstractCompiledDerivatives");
+		writer.println("\timplements Serializable");
+		writer.println("{");
+		writer.println();
+		writer.println("private static final long serialVersionUID = 1L;");
+		writer.println();
+	}
+	
+	/**
+	 * Write the constructor.
+	 * 
+	 * @param simpleClassName The simple class name.
+	 * @param writer The writer to which to write.
+	 */
+	private void writeConstructor(final PrintWriter writer, final String simpleClassName)
+	{
+		// write constructor.
+		writer.println(String.format("\tpublic %1$s(final Hessian hessian, final String source, final VariableIndex variableIndex)", simpleClassName));
+		writer.println("\t{");
+		writer.println("\t\tsuper(hessian, source, variableIndex);");
+		writer.println("\t}");
+		writer.println();
+	}
+	
+	/**
+	 * Write the value method, given the specified code statements.
+	 * 
+	 * @param writer The writer.
+	 * @param valueMethod The value method signature.
+	 * @param statements The method body code statements.
+	 */
+	private void writeValueMethod(final PrintWriter writer, final ValueMethod valueMethod, final List<Statement> statements)
+	{
+		writer.println(String.format("\t%1$s", valueMethod.signature()));
+		writer.println("\t{");
+		
+		for(Statement statement : statements)
+		{
+			writer.print("\t\t");
+			writer.println(statement.code());
+		}
+		
+		writer.println("\t}");
+		writer.println();
+	}
+	
+	/**
+	 * Write the class trailer.
+	 * 
+	 * @param writer The writer to which to write.
+	 */
+	private void writeClassTrailer(final PrintWriter writer)
+	{
+		writer.println("}");
+	}
+
+}
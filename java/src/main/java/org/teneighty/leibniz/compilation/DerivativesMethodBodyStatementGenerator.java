@@ -0,0 +1,132 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.teneighty.leibniz.HessianKey;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.statement.ArrayElementAssignmentStatement;
+import org.teneighty.leibniz.compilation.statement.LocalDoubleDeclarationStatement;
+import org.teneighty.leibniz.compilation.statement.ReturnStatement;
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+
+/**
+ * Generates the statements of a fused value, gradient and Hessian method.
+ * <p>
+ * Every shared expression is declared as a local exactly once, the first
+ * time it is needed, whichever of the three outputs needs it first.
+ */
+final class DerivativesMethodBodyStatementGenerator
+{
+
+	/**
+	 * The statements.
+	 */
+	private final List<Statement> statements;
+
+	/**
+	 * The layout of the gradient and Hessian arrays.
+	 */
+	private final VariableIndex componentIndex;
+
+	/**
+	 * Expressions for which a local has already been declared.
+	 */
+	private final Set<ReferenceExpression> added;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param componentIndex The layout of the gradient and Hessian arrays.
+	 * @param valueExpressions The expressions of the value.
+	 * @param gradientExpressions The expressions of each gradient component.
+	 * @param hessianExpressions The expressions of each Hessian component.
+	 */
+	DerivativesMethodBodyStatementGenerator(final VariableIndex componentIndex,
+			final List<ReferenceExpression> valueExpressions,
+			final LinkedHashMap<Variable, List<ReferenceExpression>> gradientExpressions,
+			final LinkedHashMap<HessianKey, List<ReferenceExpression>> hessianExpressions)
+	{
+		this.componentIndex = componentIndex;
+		statements = new ArrayList<Statement>();
+		added = new HashSet<ReferenceExpression>();
+
+		ReferenceExpression value = declare(valueExpressions);
+
+		for(Map.Entry<Variable, List<ReferenceExpression>> entry : gradientExpressions.entrySet())
+		{
+			int slot = componentIndex.slot(entry.getKey());
+			statements.add(new ArrayElementAssignmentStatement("gradient", slot, declare(entry.getValue())));
+		}
+
+		for(Map.Entry<HessianKey, List<ReferenceExpression>> entry : hessianExpressions.entrySet())
+		{
+			HessianKey key = entry.getKey();
+			int slot = componentIndex.packedSlot(componentIndex.slot(key.first()), componentIndex.slot(key.second()));
+			statements.add(new ArrayElementAssignmentStatement("hessian", slot, declare(entry.getValue())));
+		}
+
+		statements.add(new ReturnStatement(value));
+	}
+
+	/**
+	 * Get the statements.
+	 * 
+	 * @return The statements.
+	 */
+	List<Statement> getStatements()
+	{
+		return statements;
+	}
+
+	/**
+	 * Declare locals for the shared expressions among the specified ones that
+	 * have not been declared yet.
+	 * 
+	 * @param expressions The expressions of one output, in evaluation order.
+	 * @return The last expression, which is the output itself.
+	 */
+	private ReferenceExpression declare(final List<ReferenceExpression> expressions)
+	{
+		for(ReferenceExpression reference : expressions)
+		{
+			if(reference.isLocal() && (added.contains(reference) == false))
+			{
+				statements.add(new LocalDoubleDeclarationStatement(reference.getVariableName(), reference.referent()));
+				added.add(reference);
+			}
+		}
+
+		return expressions.get(expressions.size() - 1);
+	}
+
+}
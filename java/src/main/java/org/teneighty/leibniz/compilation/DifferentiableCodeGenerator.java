@@ -1,150 +1,163 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz.compilation;
-
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.util.List;
-
-import org.teneighty.leibniz.Differentiable;
-import org.teneighty.leibniz.compilation.statement.Statement;
-
-
-/**
- * Differentiable code generator.
- */
-final class DifferentiableCodeGenerator
-	extends AbstractCodeGenerator<Differentiable>
-{
-	
-	/**
-	 * @see org.teneighty.leibniz.compilation.CodeGenerator#getSourceCodeUnit(java.lang.Object)
-	 */
-	@Override
-	public SourceCodeUnit getSourceCodeUnit(final Differentiable uncompiled)
-	{
-		// make class names.
-		String simpleClassName = getUniqueClassName();
-		SourceCodeUnit unit = new SourceCodeUnit();
-		unit.setSimpleClassName(simpleClassName);
-		
-		// get all code expressions for our differentiable.
-		ExpressionGenerator expressionGenerator = new ExpressionGenerator();
-		List<ReferenceExpression> expressions = expressionGenerator.generate(uncompiled);
-		
-		// and convert to statements.
-		DifferentiableMethodBodyStatementGenerator statementGenerator = new DifferentiableMethodBodyStatementGenerator(expressions);
-		List<Statement> statements = statementGenerator.getStatements();
-
-		StringWriter writer = new StringWriter();
-		PrintWriter printWriter = new PrintWriter(writer);
-		
-		// write all the magic.
-		writeClassDefinition(printWriter, simpleClassName);
-		writeConstructor(printWriter, simpleClassName);
-		writeValueMethod(printWriter, statements);		
-		writeClassTrailer(printWriter);
-				
-		printWriter.flush();
-		writer.flush();
-		
-		String source = writer.toString();
-		unit.setSourceCode(source);
-		
-		return unit;
-	}
-	
-	/**
-	 * Write the class package, import, etc.
-	 * 
-	 * @param simpleClassName The class name.
-	 * @param writer The write to which to write.
-	 */
-	private void writeClassDefinition(final PrintWriter writer, final String simpleClassName)
-	{
-		// write class header.
-		writer.println("package org.teneighty.leibniz.compilation;");
-		writer.println();
-		writer.println("import java.io.Serializable;");
-		writer.println();
-		writer.println("import org.teneighty.leibniz.Assignment;");
-		writer.println("import org.teneighty.leibniz.Differentiable;");
-		writer.println("import org.teneighty.leibniz.Variable;");
-		writer.println();
-		writer.println(String.format("public final class %1$s", simpleClassName));
-		writer.println("\textends AbstractCompiledDifferentiable");
-		writer.println("\timplements Serializable");
-		writer.println("{");
-		writer.println();
-		writer.println("private static final long serialVersionUID = 1L;");
-		writer.println();
-	}
-	
-	/**
-	 * Write the constructor.
-	 * 
-	 * @param simpleClassName The simple class name.
-	 * @param writer The writer to which to write.
-	 */
-	private void writeConstructor(final PrintWriter writer, final String simpleClassName)
-	{
-		// write constructor.
-		writer.println(String.format("\tpublic %1$s(final Differentiable differentiable, final String source)", simpleClassName));
-		writer.println("\t{");
-		writer.println("\t\tsuper(differentiable, source);");
-		writer.println("\t}");
-		writer.println();
-	}
-	
-	/**
-	 * Write the value method, given the specified code statements.
-	 * 
-	 * @param writer The writer.
-	 * @param statements The method body code statements.
-	 */
-	private void writeValueMethod(final PrintWriter writer, final List<Statement> statements)
-	{
-		writer.println("\tpublic double value(final Assignment assignment)");
-		writer.println("\t{");
-		
-		for(Statement statement : statements)
-		{
-			writer.println(String.format("\t\t%1$s", statement.code()));
-		}
-		
-		writer.println("\t}");
-		writer.println();
-	}
-	
-	/**
-	 * Write the class trailer.
-	 * 
-	 * @param writer The writer to which to write.
-	 */
-	private void writeClassTrailer(final PrintWriter writer)
-	{
-		writer.println("}");
-	}
-	
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+
+/**
+ * Differentiable code generator.
+ */
+final class DifferentiableCodeGenerator
+	extends AbstractCodeGenerator<Differentiable>
+{
+	
+	/**
+	 * @see org.teneighty.leibniz.compilation.CodeGenerator#getSourceCodeUnit(java.lang.Object, org.teneighty.leibniz.compilation.Backend)
+	 */
+	@Override
+	public SourceCodeUnit getSourceCodeUnit(final Differentiable uncompiled, final Backend backend)
+	{
+		// make class names.
+		String simpleClassName = getUniqueClassName();
+		SourceCodeUnit unit = new SourceCodeUnit();
+		unit.setSimpleClassName(simpleClassName);
+		
+		// lay out the input array.
+		VariableIndex variableIndex = VariableIndex.sorted(uncompiled.variables());
+		unit.setVariableIndex(variableIndex);
+		
+		// get all code expressions for our differentiable.
+		ExpressionGenerator expressionGenerator = new ExpressionGenerator(variableIndex);
+		List<ReferenceExpression> expressions = expressionGenerator.generate(uncompiled);
+		
+		// and convert to statements.
+		DifferentiableMethodBodyStatementGenerator statementGenerator = new DifferentiableMethodBodyStatementGenerator(expressions);
+		List<Statement> statements = statementGenerator.getStatements();
+		
+		// describe the generated class.
+		unit.setSuperclass(AbstractCompiledDifferentiable.class);
+		unit.setUncompiledType(Differentiable.class);
+		unit.setValueMethod(ValueMethod.SCALAR);
+		unit.setStatements(statements);
+
+		StringWriter writer = new StringWriter();
+		PrintWriter printWriter = new PrintWriter(writer);
+		
+		// write all the magic.
+		writeClassDefinition(printWriter, simpleClassName);
+		writeConstructor(printWriter, simpleClassName);
+		writeValueMethod(printWriter, unit.getValueMethod(), statements);		
+		backend.writeBatchMethod(printWriter, unit.getValueMethod(), statements);
+		writeClassTrailer(printWriter);
+				
+		printWriter.flush();
+		writer.flush();
+		
+		String source = writer.toString();
+		unit.setSourceCode(source);
+		
+		return unit;
+	}
+	
+	/**
+	 * Write the class package, import, etc.
+	 * 
+	 * @param simpleClassName The class name.
+	 * @param writer The write to which to write.
+	 */
+	private void writeClassDefinition(final PrintWriter writer, final String simpleClassName)
+	{
+		// write class header.
+		writer.println("package org.teneighty.leibniz.compilation;");
+		writer.println();
+		writer.println("import java.io.Serializable;");
+		writer.println();
+		writer.println("import org.teneighty.leibniz.Differentiable;");
+		writer.println("import org.teneighty.leibniz.VariableIndex;");
+		writer.println();
+		writer.println(String.format("public final class %1$s", simpleClassName));
+		writer.println("\textends AbstractCompiledDifferentiable");
+		writer.println("\timplements Serializable");
+		writer.println("{");
+		writer.println();
+		writer.println("private static final long serialVersionUID = 1L;");
+		writer.println();
+	}
+	
+	/**
+	 * Write the constructor.
+	 * 
+	 * @param simpleClassName The simple class name.
+	 * @param writer The writer to which to write.
+	 */
+	private void writeConstructor(final PrintWriter writer, final String simpleClassName)
+	{
+		// write constructor.
+		writer.println(String.format("\tpublic %1$s(final Differentiable differentiable, final String source, final VariableIndex variableIndex)", simpleClassName));
+		writer.println("\t{");
+		writer.println("\t\tsuper(differentiable, source, variableIndex);");
+		writer.println("\t}");
+		writer.println();
+	}
+	
+	/**
+	 * Write the value method, given the specified code statements.
+	 * 
+	 * @param writer The writer.
+	 * @param valueMethod The value method signature.
+	 * @param statements The method body code statements.
+	 */
+	private void writeValueMethod(final PrintWriter writer, final ValueMethod valueMethod, final List<Statement> statements)
+	{
+		writer.println(String.format("\t%1$s", valueMethod.signature()));
+		writer.println("\t{");
+		
+		for(Statement statement : statements)
+		{
+			writer.print("\t\t");
+			writer.println(statement.code());
+		}
+		
+		writer.println("\t}");
+		writer.println();
+	}
+	
+	/**
+	 * Write the class trailer.
+	 * 
+	 * @param writer The writer to which to write.
+	 */
+	private void writeClassTrailer(final PrintWriter writer)
+	{
+		writer.println("}");
+	}
+	
+}
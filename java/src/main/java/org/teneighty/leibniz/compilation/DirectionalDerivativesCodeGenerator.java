@@ -0,0 +1,176 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.teneighty.leibniz.DirectionalDerivatives;
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.expression.ConstantDoubleExpression;
+import org.teneighty.leibniz.compilation.expression.Expression;
+import org.teneighty.leibniz.compilation.statement.ArrayElementAssignmentStatement;
+import org.teneighty.leibniz.compilation.statement.ReturnStatement;
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+
+/**
+ * Directional derivatives code generator.
+ * <p>
+ * The derivatives are generated as an unrolled vector forward sweep (see
+ * {@link ForwardStatementGenerator}), so the generated method grows with the
+ * expression graph and the number of directions, and not with the size of
+ * any symbolic derivative.
+ */
+final class DirectionalDerivativesCodeGenerator
+	extends AbstractCodeGenerator<DirectionalDerivatives>
+{
+	
+	/**
+	 * @see org.teneighty.leibniz.compilation.CodeGenerator#getSourceCodeUnit(java.lang.Object, org.teneighty.leibniz.compilation.Backend)
+	 */
+	@Override
+	public SourceCodeUnit getSourceCodeUnit(final DirectionalDerivatives uncompiled, final Backend backend)
+	{
+		SourceCodeUnit unit = new SourceCodeUnit();
+		unit.setSimpleClassName(getUniqueClassName());
+		
+		// lay out the input array; the directions share it.
+		VariableIndex variableIndex = uncompiled.index();
+		unit.setVariableIndex(variableIndex);
+		
+		// one vector forward sweep, then the tangents of the root.
+		int count = uncompiled.count();
+		ForwardStatementGenerator generator = new ForwardStatementGenerator(uncompiled.differentiable(), variableIndex, "directions", count, false);
+		List<Statement> statements = new ArrayList<Statement>(generator.getStatements());
+		for(int direction = 0; direction < count; direction++)
+		{
+			Expression derivative = generator.tangent(generator.root(), direction);
+			statements.add(new ArrayElementAssignmentStatement("derivatives", direction,
+					(derivative == null) ? new ConstantDoubleExpression(0d) : derivative));
+		}
+		
+		statements.add(new ReturnStatement(generator.value(generator.root())));
+		
+		// describe the generated class.
+		unit.setSuperclass(AbstractCompiledDirectionalDerivatives.class);
+		unit.setUncompiledType(DirectionalDerivatives.class);
+		unit.setValueMethod(ValueMethod.DIRECTIONAL);
+		unit.setStatements(statements);
+
+		StringWriter writer = new StringWriter();
+		PrintWriter printWriter = new PrintWriter(writer);
+		
+		// write all the magic; there is no batch form of the derivatives method.
+		writeClassDefinition(printWriter, unit.getSimpleClassName());
+		writeConstructor(printWriter, unit.getSimpleClassName());
+		writeValueMethod(printWriter, unit.getValueMethod(), statements);
+		writeClassTrailer(printWriter);
+				
+		printWriter.flush();
+		writer.flush();
+		
+		// store the source code, and we're done here.
+		String sourceCode = writer.toString();
+		unit.setSourceCode(sourceCode);
+		
+		return unit;
+	}
+	
+	/**
+	 * Write the class package, import, etc.
+	 * 
+	 * @param simpleClassName The simple class name.
+	 * @param writer The write to which to write.
+	 */
+	private void writeClassDefinition(final PrintWriter writer, final String simpleClassName)
+	{
+		// write class header.
+		writer.println("package org.teneighty.leibniz.compilation;");
+		writer.println();
+		writer.println("import java.io.Serializable;");
+		writer.println();
+		writer.println("import org.teneighty.leibniz.DirectionalDerivatives;");
+		writer.println("import org.teneighty.leibniz.VariableIndex;");
+		writer.println();
+		writer.println(String.format("public final class %1$s", simpleClassName));
+		writer.println("\textends AbstractCompiledDirectionalDerivatives");
+		writer.println("\timplements Serializable");
+		writer.println("{");
+		writer.println();
+		writer.println("private static final long serialVersionUID = 1L;");
+		writer.println();
+	}
+	
+	/**
+	 * Write the constructor.
+	 * 
+	 * @param simpleClassName The simple class name.
+	 * @param writer The writer to which to write.
+	 */
+	private void writeConstructor(final PrintWriter writer, final String simpleClassName)
+	{
+		// write constructor.
+		writer.println(String.format("\tpublic %1$s(final DirectionalDerivatives derivatives, final String source, final VariableIndex variableIndex)", simpleClassName));
+		writer.println("\t{");
+		writer.println("\t\tsuper(derivatives, source, variableIndex);");
+		writer.println("\t}");
+		writer.println();
+	}
+	
+	/**
+	 * Write the value method, given the specified code statements.
+	 * 
+	 * @param writer The writer.
+	 * @param valueMethod The value method signature.
+	 * @param statements The method body code statements.
+	 */
+	private void writeValueMethod(final PrintWriter writer, final ValueMethod valueMethod, final List<Statement> statements)
+	{
+		writer.println(String.format("\t%1$s", valueMethod.signature()));
+		writer.println("\t{");
+		
+		for(Statement statement : statements)
+		{
+			writer.print("\t\t");
+			writer.println(statement.code());
+		}
+		
+		writer.println("\t}");
+		writer.println();
+	}
+	
+	/**
+	 * Write the class trailer.
+	 * 
+	 * @param writer The writer to which to write.
+	 */
+	private void writeClassTrailer(final PrintWriter writer)
+	{
+		writer.println("}");
+	}
+
+}
@@ -1,126 +1,263 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz.compilation;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import org.teneighty.leibniz.Context;
-import org.teneighty.leibniz.Differentiable;
-import org.teneighty.leibniz.compilation.expression.Expression;
-
-
-/**
- * Generates an expression list for a differentiable.
- */
-final class ExpressionGenerator
-	implements Context
-{
-
-	/**
-	 * Map of differentiables to their code expressions.
-	 */
-	private final Map<Differentiable, ReferenceExpression> differentiableExpressions;
-		
-	/**
-	 * List of expressions.
-	 */
-	private List<ReferenceExpression> expressions;
-	
-	/**
-	 * Variable id generator.
-	 */
-	private int variableIdGenerator;
-	
-	/**
-	 * Constructor.
-	 */
-	ExpressionGenerator()
-	{
-		differentiableExpressions = new HashMap<Differentiable, ReferenceExpression>();
-		variableIdGenerator = 0;
-	}
-		
-	/**
-	 * Generate expressions for the specified differentiable.
-	 * 
-	 * @param differentiable The differentiable.
-	 * @return The expression list.
-	 */
-	List<ReferenceExpression> generate(final Differentiable differentiable)
-	{
-		expressions = new ArrayList<ReferenceExpression>();
-		
-		// we already have the necessary expression for this differentiable.
-		ReferenceExpression expression = differentiableExpressions.get(differentiable);
-		if(expression != null)
-		{
-			return Collections.singletonList(expression);
-		}
-		
-		// otherwise generate all necessary expressions.
-		getExpression(differentiable);		
-		return expressions;
-	}
-		
-	/**
-	 * Get the next variable name.
-	 * 
-	 * @return The next variable name.
-	 */
-	private String getNextVariableName()
-	{
-		variableIdGenerator += 1;
-		return String.format("var_%1$s", variableIdGenerator);
-	}
-		
-	/**
-	 * @see org.teneighty.leibniz.Context#getExpression(org.teneighty.leibniz.Differentiable)
-	 */
-	@Override
-	public ReferenceExpression getExpression(final Differentiable differentiable)
-	{
-		ReferenceExpression reference = differentiableExpressions.get(differentiable);
-		if(reference != null)
-		{
-			reference.addReference();
-			return reference;
-		}
-		
-		// get the native expression.
-		Expression nativeExpression = differentiable.expression(this);
-		String localName = getNextVariableName();
-		
-		// create and cache new reference expression.
-		reference = new ReferenceExpression(localName, nativeExpression);		
-		differentiableExpressions.put(differentiable, reference);				
-		expressions.add(reference);
-		
-		return reference;
-	}
-	
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.teneighty.leibniz.AbstractComposedDifferentiable;
+import org.teneighty.leibniz.Context;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Simplifier;
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.expression.Expression;
+
+
+/**
+ * Generates an expression list for a differentiable.
+ */
+final class ExpressionGenerator
+	implements Context
+{
+
+	/**
+	 * The deepest an expression may nest inlined subexpressions before it is
+	 * spilled to a local.
+	 * <p>
+	 * Code emission walks expressions recursively, so without a limit a long
+	 * chain of single-use nodes, such as a sum of many terms, would nest as
+	 * deeply as the graph and overflow the stack of the emitters and of
+	 * <code>javac</code>.
+	 */
+	static final int MAXIMUM_INLINE_DEPTH = 64;
+
+	/**
+	 * Map of differentiables to their code expressions.
+	 */
+	private final Map<Differentiable, ReferenceExpression> differentiableExpressions;
+	
+	/**
+	 * Expressions created but not yet requested.
+	 */
+	private final Set<ReferenceExpression> unclaimed;
+	
+	/**
+	 * The nesting depth of inlined subexpressions of each expression.
+	 */
+	private final Map<ReferenceExpression, Integer> depths;
+	
+	/**
+	 * The layout of the input array.
+	 */
+	private final VariableIndex variableIndex;
+	
+	/**
+	 * The simplifier, or <code>null</code> if not simplifying.
+	 */
+	private final Simplifier simplifier;
+		
+	/**
+	 * List of expressions.
+	 */
+	private List<ReferenceExpression> expressions;
+	
+	/**
+	 * Variable id generator.
+	 */
+	private int variableIdGenerator;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param variableIndex The layout of the input array.
+	 */
+	ExpressionGenerator(final VariableIndex variableIndex)
+	{
+		this.variableIndex = variableIndex;
+		this.simplifier = Compiler.isSimplifying() ? new Simplifier() : null;
+		differentiableExpressions = new HashMap<Differentiable, ReferenceExpression>();
+		unclaimed = Collections.newSetFromMap(new IdentityHashMap<ReferenceExpression, Boolean>());
+		depths = new IdentityHashMap<ReferenceExpression, Integer>();
+		variableIdGenerator = 0;
+	}
+		
+	/**
+	 * Generate expressions for the specified differentiable.
+	 * <p>
+	 * If the compiler is simplifying, the differentiable is simplified first;
+	 * all differentiables generated by this generator share a simplifier, so
+	 * common subexpressions stay common.
+	 * 
+	 * @param uncompiled The differentiable.
+	 * @return The expression list.
+	 */
+	List<ReferenceExpression> generate(final Differentiable uncompiled)
+	{
+		expressions = new ArrayList<ReferenceExpression>();
+		Differentiable differentiable = (simplifier == null) ? uncompiled : simplifier.simplify(uncompiled);
+		
+		// we already have the necessary expression for this differentiable.
+		ReferenceExpression expression = differentiableExpressions.get(differentiable);
+		if(expression != null)
+		{
+			// the output itself is now one more use of the expression.
+			expression.addReference();
+			return Collections.singletonList(expression);
+		}
+		
+		// otherwise generate all necessary expressions.
+		getExpression(differentiable);		
+		return expressions;
+	}
+		
+	/**
+	 * Get the next variable name.
+	 * 
+	 * @return The next variable name.
+	 */
+	private String getNextVariableName()
+	{
+		variableIdGenerator += 1;
+		return "var_" + variableIdGenerator;
+	}
+		
+	/**
+	 * @see org.teneighty.leibniz.Context#getExpression(org.teneighty.leibniz.Differentiable)
+	 */
+	@Override
+	public ReferenceExpression getExpression(final Differentiable differentiable)
+	{
+		ReferenceExpression reference = differentiableExpressions.get(differentiable);
+		if(reference == null)
+		{
+			generateExpressions(differentiable);
+			reference = differentiableExpressions.get(differentiable);
+		}
+		
+		// the first use of an expression was counted when it was created.
+		if(unclaimed.remove(reference) == false)
+		{
+			reference.addReference();
+		}
+		
+		return reference;
+	}
+	
+	/**
+	 * Generate expressions for the specified differentiable and all of its
+	 * arguments that do not have one yet, arguments first.
+	 * <p>
+	 * When a native expression is requested, the expressions of its arguments
+	 * therefore already exist, so expression generation never recurses more
+	 * than one level however deep the graph. Each new expression is
+	 * unclaimed until first requested, and is spilled to a local once it
+	 * would nest more than {@link #MAXIMUM_INLINE_DEPTH} inlined levels.
+	 * 
+	 * @param root The differentiable.
+	 */
+	private void generateExpressions(final Differentiable root)
+	{
+		List<Differentiable> stack = new ArrayList<Differentiable>();
+		stack.add(root);
+		while(stack.isEmpty() == false)
+		{
+			Differentiable node = stack.get(stack.size() - 1);
+			if(differentiableExpressions.containsKey(node))
+			{
+				stack.remove(stack.size() - 1);
+				continue;
+			}
+			
+			boolean ready = true;
+			if(node instanceof AbstractComposedDifferentiable)
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+				for(int index = composed.argumentCount() - 1; index >= 0; index--)
+				{
+					Differentiable argument = composed.argument(index);
+					if(differentiableExpressions.containsKey(argument) == false)
+					{
+						stack.add(argument);
+						ready = false;
+					}
+				}
+			}
+			
+			if(ready == false)
+			{
+				continue;
+			}
+			
+			stack.remove(stack.size() - 1);
+			
+			// get the native expression.
+			Expression nativeExpression = node.expression(this);
+			String localName = getNextVariableName();
+			
+			// create and cache new reference expression.
+			ReferenceExpression reference = new ReferenceExpression(localName, nativeExpression);		
+			differentiableExpressions.put(node, reference);				
+			expressions.add(reference);
+			unclaimed.add(reference);
+			
+			// arguments referenced again later become locals anyway, so this
+			// can only overestimate the depth.
+			int depth = 1;
+			if(node instanceof AbstractComposedDifferentiable)
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+				for(int index = 0; index < composed.argumentCount(); index++)
+				{
+					ReferenceExpression argument = differentiableExpressions.get(composed.argument(index));
+					if(argument.isLocal() == false)
+					{
+						depth = Math.max(depth, depths.get(argument).intValue() + 1);
+					}
+				}
+			}
+			
+			if(depth >= MAXIMUM_INLINE_DEPTH)
+			{
+				reference.spill();
+			}
+			
+			depths.put(reference, Integer.valueOf(depth));
+		}
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.Context#variableIndex()
+	 */
+	@Override
+	public VariableIndex variableIndex()
+	{
+		return variableIndex;
+	}
+	
+}
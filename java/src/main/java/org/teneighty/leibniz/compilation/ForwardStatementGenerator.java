@@ -0,0 +1,828 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.teneighty.leibniz.AbstractComposedDifferentiable;
+import org.teneighty.leibniz.Constant;
+import org.teneighty.leibniz.Context;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Simplifier;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.expression.ArrayElementExpression;
+import org.teneighty.leibniz.compilation.expression.BinaryOperationExpression;
+import org.teneighty.leibniz.compilation.expression.BinaryOperator;
+import org.teneighty.leibniz.compilation.expression.ConstantDoubleExpression;
+import org.teneighty.leibniz.compilation.expression.Expression;
+import org.teneighty.leibniz.compilation.expression.VariableValueFromArrayExpression;
+import org.teneighty.leibniz.compilation.statement.LocalDoubleDeclarationStatement;
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+
+/**
+ * Generates the statements of an unrolled forward sweep over the expression
+ * graph of a differentiable.
+ * <p>
+ * The graph is flattened into topological order, and every node gets a
+ * <code>v_</code> local holding its value and <code>p_</code> locals holding
+ * its local partials. If tangents are requested, every node also gets a
+ * <code>t_</code> local per direction holding its derivative along that
+ * direction, read from a direction array laid out slot by slot (see
+ * {@link org.teneighty.leibniz.DirectionalDerivatives}); second order
+ * generation adds <code>pt_</code> locals holding the derivatives of the
+ * local partials along each direction.
+ * <p>
+ * Local partials are found by recomposing each node over placeholder
+ * variables and differentiating the result; nodes that are not composed are
+ * differentiated with respect to their variables directly. Structurally zero
+ * terms, and derivatives of nodes that depend on no variable, generate no
+ * code at all.
+ */
+final class ForwardStatementGenerator
+{
+
+	/**
+	 * The layout of the input array.
+	 */
+	private final VariableIndex variableIndex;
+
+	/**
+	 * The name of the direction array.
+	 */
+	private final String directionArray;
+
+	/**
+	 * The number of directions.
+	 */
+	private final int count;
+
+	/**
+	 * Whether to generate the tangents of local partials.
+	 */
+	private final boolean secondOrder;
+
+	/**
+	 * The statements.
+	 */
+	private final List<Statement> statements;
+
+	/**
+	 * The nodes, in topological order.
+	 */
+	private final List<Differentiable> nodes;
+
+	/**
+	 * The argument registers of each node.
+	 */
+	private final List<int[]> arguments;
+
+	/**
+	 * Registers of composed and opaque nodes, by identity.
+	 */
+	private final Map<Differentiable, Integer> registers;
+
+	/**
+	 * Registers of variables and constants, by equality.
+	 */
+	private final Map<Differentiable, Integer> leafRegisters;
+
+	/**
+	 * Placeholder variables, one per argument, over which composed nodes are
+	 * recomposed.
+	 */
+	private final List<Variable> placeholders;
+
+	/**
+	 * The value expression of each node.
+	 */
+	private final Expression[] values;
+
+	/**
+	 * The tangent expressions of each node, by direction, or <code>null</code>
+	 * where zero.
+	 */
+	private final Expression[][] tangents;
+
+	/**
+	 * The local partials of each node, or <code>null</code> where zero; the
+	 * partials of a node that depends on no variable are <code>null</code>
+	 * altogether.
+	 */
+	private final Expression[][] partials;
+
+	/**
+	 * The tangents of the local partials of each node, by argument and
+	 * direction, or <code>null</code> where zero.
+	 */
+	private final Expression[][][] partialTangents;
+
+	/**
+	 * The register of the root.
+	 */
+	private final int root;
+
+	/**
+	 * Local name generator.
+	 */
+	private int localIdGenerator;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param uncompiled The differentiable.
+	 * @param variableIndex The layout of the input array.
+	 * @param directionArray The name of the direction array.
+	 * @param count The number of directions, which may be zero.
+	 * @param secondOrder Whether to generate the tangents of local partials.
+	 * @throws UnsupportedOperationException If the graph contains a composed
+	 *             node that cannot be recomposed.
+	 */
+	ForwardStatementGenerator(final Differentiable uncompiled, final VariableIndex variableIndex, final String directionArray,
+			final int count, final boolean secondOrder)
+		throws UnsupportedOperationException
+	{
+		this.variableIndex = variableIndex;
+		this.directionArray = directionArray;
+		this.count = count;
+		this.secondOrder = secondOrder;
+		statements = new ArrayList<Statement>();
+		nodes = new ArrayList<Differentiable>();
+		arguments = new ArrayList<int[]>();
+		registers = new IdentityHashMap<Differentiable, Integer>();
+		leafRegisters = new HashMap<Differentiable, Integer>();
+		placeholders = new ArrayList<Variable>();
+		localIdGenerator = 0;
+
+		Differentiable differentiable = Compiler.isSimplifying() ? new Simplifier().simplify(uncompiled) : uncompiled;
+		flatten(differentiable);
+		root = register(differentiable);
+
+		int size = nodes.size();
+		values = new Expression[size];
+		tangents = new Expression[size][count];
+		partials = new Expression[size][];
+		partialTangents = new Expression[size][][];
+
+		boolean[] active = new boolean[size];
+		for(int register = 0; register < size; register++)
+		{
+			active[register] = generate(register, active);
+		}
+	}
+
+	/**
+	 * Get the statements, to which callers may add their own.
+	 * 
+	 * @return The statements.
+	 */
+	List<Statement> getStatements()
+	{
+		return statements;
+	}
+
+	/**
+	 * Get the number of nodes.
+	 * 
+	 * @return The size.
+	 */
+	int size()
+	{
+		return nodes.size();
+	}
+
+	/**
+	 * Get the register of the root.
+	 * 
+	 * @return The root.
+	 */
+	int root()
+	{
+		return root;
+	}
+
+	/**
+	 * Get the register of the specified variable.
+	 * 
+	 * @param variable The variable.
+	 * @return The register, or <code>-1</code> if the variable does not appear
+	 *         in the graph.
+	 */
+	int register(final Variable variable)
+	{
+		Integer register = leafRegisters.get(variable);
+		return (register == null) ? -1 : register.intValue();
+	}
+
+	/**
+	 * Get the argument registers of the specified node.
+	 * 
+	 * @param register The register of the node.
+	 * @return The argument registers.
+	 */
+	int[] arguments(final int register)
+	{
+		return arguments.get(register);
+	}
+
+	/**
+	 * Get the value of the specified node.
+	 * 
+	 * @param register The register of the node.
+	 * @return The value expression.
+	 */
+	Expression value(final int register)
+	{
+		return values[register];
+	}
+
+	/**
+	 * Get the tangent of the specified node along the specified direction.
+	 * 
+	 * @param register The register of the node.
+	 * @param direction The direction.
+	 * @return The tangent expression, or <code>null</code> if zero.
+	 */
+	Expression tangent(final int register, final int direction)
+	{
+		return tangents[register][direction];
+	}
+
+	/**
+	 * Check if local partials were generated for the specified node, i.e. if
+	 * it is neither a leaf nor independent of every variable.
+	 * 
+	 * @param register The register of the node.
+	 * @return <code>true</code> if so; <code>false</code> otherwise.
+	 */
+	boolean isDifferentiated(final int register)
+	{
+		return (partials[register] != null);
+	}
+
+	/**
+	 * Get a local partial of the specified node.
+	 * 
+	 * @param register The register of the node.
+	 * @param argument The argument index.
+	 * @return The partial expression, or <code>null</code> if zero.
+	 */
+	Expression partial(final int register, final int argument)
+	{
+		return partials[register][argument];
+	}
+
+	/**
+	 * Get the tangent of a local partial of the specified node along the
+	 * specified direction; only generated in second order.
+	 * 
+	 * @param register The register of the node.
+	 * @param argument The argument index.
+	 * @param direction The direction.
+	 * @return The tangent expression, or <code>null</code> if zero.
+	 */
+	Expression partialTangent(final int register, final int argument, final int direction)
+	{
+		return partialTangents[register][argument][direction];
+	}
+
+	/**
+	 * Flatten the graph into topological order, iteratively.
+	 * 
+	 * @param differentiable The root.
+	 */
+	private void flatten(final Differentiable differentiable)
+	{
+		List<Differentiable> stack = new ArrayList<Differentiable>();
+		stack.add(differentiable);
+		while(stack.isEmpty() == false)
+		{
+			Differentiable node = stack.get(stack.size() - 1);
+			if(register(node) >= 0)
+			{
+				stack.remove(stack.size() - 1);
+				continue;
+			}
+
+			Differentiable[] children = children(node);
+			boolean ready = true;
+			for(int index = children.length - 1; index >= 0; index--)
+			{
+				if(register(children[index]) < 0)
+				{
+					stack.add(children[index]);
+					ready = false;
+				}
+			}
+
+			if(ready)
+			{
+				stack.remove(stack.size() - 1);
+
+				int[] argumentRegisters = new int[children.length];
+				for(int index = 0; index < children.length; index++)
+				{
+					argumentRegisters[index] = register(children[index]);
+				}
+
+				Integer register = Integer.valueOf(nodes.size());
+				if(children.length == 0)
+				{
+					leafRegisters.put(node, register);
+				}
+				else
+				{
+					registers.put(node, register);
+				}
+
+				nodes.add(node);
+				arguments.add(argumentRegisters);
+			}
+		}
+	}
+
+	/**
+	 * Get the children of the specified node: the arguments of a composed
+	 * node, or the variables of any other.
+	 * 
+	 * @param node The node.
+	 * @return The children.
+	 */
+	private static Differentiable[] children(final Differentiable node)
+	{
+		if((node instanceof Constant) || (node instanceof Variable))
+		{
+			return new Differentiable[0];
+		}
+
+		if(node instanceof AbstractComposedDifferentiable)
+		{
+			AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+			Differentiable[] children = new Differentiable[composed.argumentCount()];
+			for(int index = 0; index < children.length; index++)
+			{
+				children[index] = composed.argument(index);
+			}
+
+			return children;
+		}
+
+		TreeSet<Variable> variables = new TreeSet<Variable>(node.variables());
+		return variables.toArray(new Differentiable[variables.size()]);
+	}
+
+	/**
+	 * Get the register of the specified node.
+	 * 
+	 * @param node The node.
+	 * @return The register, or <code>-1</code> if not yet assigned.
+	 */
+	private int register(final Differentiable node)
+	{
+		Integer register = registers.get(node);
+		if(register == null)
+		{
+			register = leafRegisters.get(node);
+		}
+
+		return (register == null) ? -1 : register.intValue();
+	}
+
+	/**
+	 * Generate the value, and if it depends on any variable the local
+	 * partials and tangents, of the specified node.
+	 * 
+	 * @param register The register of the node.
+	 * @param active Whether each preceding node depends on any variable.
+	 * @return Whether the node depends on any variable.
+	 */
+	private boolean generate(final int register, final boolean[] active)
+	{
+		Differentiable node = nodes.get(register);
+		int[] argumentRegisters = arguments.get(register);
+		if(node instanceof Constant)
+		{
+			values[register] = node.expression(new LocalContext());
+			return false;
+		}
+
+		if(node instanceof Variable)
+		{
+			int slot = variableIndex.slot((Variable)node);
+			values[register] = node.expression(new LocalContext());
+			for(int direction = 0; direction < count; direction++)
+			{
+				tangents[register][direction] = new ArrayElementExpression(directionArray, (slot * count) + direction);
+			}
+
+			return true;
+		}
+
+		// the value, from the values of the arguments.
+		LocalContext valueContext = new LocalContext();
+		if(node instanceof AbstractComposedDifferentiable)
+		{
+			for(int index = 0; index < argumentRegisters.length; index++)
+			{
+				valueContext.bind(nodes.get(argumentRegisters[index]), values[argumentRegisters[index]]);
+			}
+		}
+
+		Expression value = node.expression(valueContext);
+		valueContext.declare();
+		values[register] = local("v", value);
+
+		boolean dependent = false;
+		for(int argumentRegister : argumentRegisters)
+		{
+			dependent |= active[argumentRegister];
+		}
+
+		if(dependent)
+		{
+			differentiate(register, active);
+		}
+
+		return dependent;
+	}
+
+	/**
+	 * Generate the local partials, their tangents, and the tangents of the
+	 * specified node.
+	 * 
+	 * @param register The register of the node.
+	 * @param active Whether each preceding node depends on any variable.
+	 * @throws UnsupportedOperationException If the node cannot be recomposed.
+	 */
+	private void differentiate(final int register, final boolean[] active)
+		throws UnsupportedOperationException
+	{
+		Differentiable node = nodes.get(register);
+		int[] argumentRegisters = arguments.get(register);
+		int arity = argumentRegisters.length;
+
+		// express the node over variables standing for its arguments.
+		LocalContext context = new LocalContext();
+		Differentiable local = node;
+		Variable[] locals = new Variable[arity];
+		if(node instanceof AbstractComposedDifferentiable)
+		{
+			while(placeholders.size() < arity)
+			{
+				placeholders.add(new Variable(String.format("#%1$s", placeholders.size())));
+			}
+
+			placeholders.subList(0, arity).toArray(locals);
+			local = ((AbstractComposedDifferentiable)node).recompose(locals);
+			if(local == null)
+			{
+				String message = String.format("%1$s cannot be recomposed", node.getClass().getName());
+				throw new UnsupportedOperationException(message);
+			}
+
+			for(int index = 0; index < arity; index++)
+			{
+				context.bind(locals[index], values[argumentRegisters[index]]);
+			}
+		}
+		else
+		{
+			for(int index = 0; index < arity; index++)
+			{
+				locals[index] = (Variable)nodes.get(argumentRegisters[index]);
+			}
+		}
+
+		context.bind(local, values[register]);
+
+		Expression[] partialExpressions = new Expression[arity];
+		Expression[][] secondExpressions = new Expression[arity][arity];
+		for(int index = 0; index < arity; index++)
+		{
+			if(active[argumentRegisters[index]] == false)
+			{
+				continue;
+			}
+
+			Differentiable partial = local.derivative(locals[index]);
+			if(partial.isZero())
+			{
+				continue;
+			}
+
+			partialExpressions[index] = context.getExpression(partial);
+			for(int other = 0; secondOrder && other < arity; other++)
+			{
+				if(active[argumentRegisters[other]] == false)
+				{
+					continue;
+				}
+
+				Differentiable second = partial.derivative(locals[other]);
+				if(second.isZero() == false)
+				{
+					secondExpressions[index][other] = context.getExpression(second);
+				}
+			}
+		}
+
+		context.declare();
+
+		partials[register] = new Expression[arity];
+		partialTangents[register] = new Expression[arity][count];
+		for(int index = 0; index < arity; index++)
+		{
+			if(partialExpressions[index] == null)
+			{
+				continue;
+			}
+
+			partials[register][index] = local("p", partialExpressions[index]);
+			for(int direction = 0; secondOrder && direction < count; direction++)
+			{
+				Expression partialTangent = null;
+				for(int other = 0; other < arity; other++)
+				{
+					partialTangent = plus(partialTangent, times(secondExpressions[index][other], tangents[argumentRegisters[other]][direction]));
+				}
+
+				partialTangents[register][index][direction] = local("pt", partialTangent);
+			}
+		}
+
+		for(int direction = 0; direction < count; direction++)
+		{
+			Expression tangent = null;
+			for(int index = 0; index < arity; index++)
+			{
+				tangent = plus(tangent, times(partials[register][index], tangents[argumentRegisters[index]][direction]));
+			}
+
+			tangents[register][direction] = local("t", tangent);
+		}
+	}
+
+	/**
+	 * Declare a local holding the specified expression, unless the expression
+	 * is zero, constant, or already a local or array element.
+	 * 
+	 * @param prefix The prefix of the name of the local.
+	 * @param expression The expression, or <code>null</code> for zero.
+	 * @return An expression referring to the local; the expression itself if
+	 *         it needs no local; or <code>null</code> if zero.
+	 */
+	Expression local(final String prefix, final Expression expression)
+	{
+		if(expression == null || expression instanceof ConstantDoubleExpression || expression instanceof ArrayElementExpression
+				|| expression instanceof VariableValueFromArrayExpression)
+		{
+			return expression;
+		}
+
+		if((expression instanceof ReferenceExpression) && ((ReferenceExpression)expression).isLocal())
+		{
+			return expression;
+		}
+
+		localIdGenerator += 1;
+		String name = prefix + "_" + localIdGenerator;
+		statements.add(new LocalDoubleDeclarationStatement(name, expression));
+
+		// always refer to the local by name.
+		ReferenceExpression reference = new ReferenceExpression(name, expression);
+		reference.addReference();
+
+		return reference;
+	}
+
+	/**
+	 * Sum the specified terms.
+	 * <p>
+	 * Up to {@link ExpressionGenerator#MAXIMUM_INLINE_DEPTH} terms are summed
+	 * left to right; longer lists, such as the adjoint of a variable used
+	 * thousands of times, are summed in runs of that many, so the sum nests
+	 * logarithmically rather than linearly deep.
+	 * 
+	 * @param terms The terms.
+	 * @return The sum, or <code>null</code> if zero.
+	 */
+	static Expression sum(final List<Expression> terms)
+	{
+		int run = ExpressionGenerator.MAXIMUM_INLINE_DEPTH;
+		if(terms.size() > run)
+		{
+			List<Expression> sums = new ArrayList<Expression>();
+			for(int from = 0; from < terms.size(); from += run)
+			{
+				sums.add(sum(terms.subList(from, Math.min(from + run, terms.size()))));
+			}
+
+			return sum(sums);
+		}
+
+		Expression sum = null;
+		for(Expression term : terms)
+		{
+			sum = plus(sum, term);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Add the specified expressions, folding zeros.
+	 * 
+	 * @param left The left hand side, or <code>null</code> for zero.
+	 * @param right The right hand side, or <code>null</code> for zero.
+	 * @return The sum, or <code>null</code> if zero.
+	 */
+	static Expression plus(final Expression left, final Expression right)
+	{
+		if(left == null || isConstant(left, 0d))
+		{
+			return right;
+		}
+
+		if(right == null || isConstant(right, 0d))
+		{
+			return left;
+		}
+
+		return new BinaryOperationExpression(left, BinaryOperator.PLUS, right);
+	}
+
+	/**
+	 * Multiply the specified expressions, folding zeros and ones.
+	 * 
+	 * @param left The left hand side, or <code>null</code> for zero.
+	 * @param right The right hand side, or <code>null</code> for zero.
+	 * @return The product, or <code>null</code> if zero.
+	 */
+	static Expression times(final Expression left, final Expression right)
+	{
+		if(left == null || right == null || isConstant(left, 0d) || isConstant(right, 0d))
+		{
+			return null;
+		}
+
+		if(isConstant(left, 1d))
+		{
+			return right;
+		}
+
+		if(isConstant(right, 1d))
+		{
+			return left;
+		}
+
+		return new BinaryOperationExpression(left, BinaryOperator.TIMES, right);
+	}
+
+	/**
+	 * Check if the specified expression is the specified constant.
+	 * 
+	 * @param expression The expression.
+	 * @param value The constant.
+	 * @return <code>true</code> if it is; <code>false</code> otherwise.
+	 */
+	private static boolean isConstant(final Expression expression, final double value)
+	{
+		return (expression instanceof ConstantDoubleExpression) && (((ConstantDoubleExpression)expression).value() == value);
+	}
+
+	/**
+	 * A context for the local formulas of a single node.
+	 * <p>
+	 * Bound differentiables (the arguments of the node, or the placeholders
+	 * standing for them, and the node itself) are replaced by the expressions
+	 * bound to them; everything else is expressed inline, with a subexpression
+	 * used more than once becoming a local.
+	 */
+	private final class LocalContext
+		implements Context
+	{
+
+		/**
+		 * Bound differentiables.
+		 */
+		private final Map<Differentiable, Expression> bindings;
+
+		/**
+		 * Expressions of the unbound composed differentiables.
+		 */
+		private final Map<Differentiable, ReferenceExpression> references;
+
+		/**
+		 * The unbound references, in creation order.
+		 */
+		private final List<ReferenceExpression> created;
+
+		/**
+		 * Constructor.
+		 */
+		LocalContext()
+		{
+			bindings = new HashMap<Differentiable, Expression>();
+			references = new HashMap<Differentiable, ReferenceExpression>();
+			created = new ArrayList<ReferenceExpression>();
+		}
+
+		/**
+		 * Bind the specified differentiable to the specified expression.
+		 * 
+		 * @param differentiable The differentiable.
+		 * @param expression The expression.
+		 */
+		void bind(final Differentiable differentiable, final Expression expression)
+		{
+			bindings.put(differentiable, expression);
+		}
+
+		/**
+		 * Declare a local for each subexpression used more than once.
+		 */
+		void declare()
+		{
+			for(ReferenceExpression reference : created)
+			{
+				if(reference.isLocal())
+				{
+					statements.add(new LocalDoubleDeclarationStatement(reference.getVariableName(), reference.referent()));
+				}
+			}
+
+			created.clear();
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.Context#getExpression(org.teneighty.leibniz.Differentiable)
+		 */
+		@Override
+		public Expression getExpression(final Differentiable differentiable)
+		{
+			Expression bound = bindings.get(differentiable);
+			if(bound != null)
+			{
+				return bound;
+			}
+
+			if((differentiable instanceof Constant) || (differentiable instanceof Variable))
+			{
+				return differentiable.expression(this);
+			}
+
+			ReferenceExpression reference = references.get(differentiable);
+			if(reference != null)
+			{
+				reference.addReference();
+				return reference;
+			}
+
+			Expression expression = differentiable.expression(this);
+			localIdGenerator += 1;
+			reference = new ReferenceExpression("s_" + localIdGenerator, expression);
+			references.put(differentiable, reference);
+			created.add(reference);
+
+			return reference;
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.Context#variableIndex()
+		 */
+		@Override
+		public VariableIndex variableIndex()
+		{
+			return variableIndex;
+		}
+
+	}
+
+}
@@ -0,0 +1,61 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.security.SecureClassLoader;
+
+
+/**
+ * Class loader for generated classes.
+ * <p>
+ * Each compiled object gets its own loader, so that a generated class can be
+ * unloaded once its compiled object is no longer reachable.
+ */
+final class GeneratedClassLoader
+	extends SecureClassLoader
+{
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param parent The parent class loader.
+	 */
+	GeneratedClassLoader(final ClassLoader parent)
+	{
+		super(parent);
+	}
+
+	/**
+	 * Define the specified class.
+	 * 
+	 * @param fullyQualifiedClassName The class name.
+	 * @param classFile The class file bytes.
+	 * @return The class.
+	 */
+	Class<?> define(final String fullyQualifiedClassName, final byte[] classFile)
+	{
+		return defineClass(fullyQualifiedClassName, classFile, 0, classFile.length);
+	}
+
+}
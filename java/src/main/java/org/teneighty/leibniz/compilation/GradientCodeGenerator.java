@@ -1,161 +1,239 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz.compilation;
-
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.util.LinkedHashMap;
-import java.util.List;
-
-import org.teneighty.leibniz.Differentiable;
-import org.teneighty.leibniz.Gradient;
-import org.teneighty.leibniz.Variable;
-import org.teneighty.leibniz.compilation.statement.Statement;
-
-
-/**
- * Gradient code generator.
- */
-final class GradientCodeGenerator
-	extends AbstractCodeGenerator<Gradient>
-{
-	
-	/**
-	 * @see org.teneighty.leibniz.compilation.CodeGenerator#getSourceCodeUnit(java.lang.Object)
-	 */
-	@Override
-	public SourceCodeUnit getSourceCodeUnit(final Gradient gradient)
-	{
-		SourceCodeUnit unit = new SourceCodeUnit();
-		unit.setSimpleClassName(getUniqueClassName());
-		
-		// first, generate code expressions for each component of the 
-		// gradient.
-		ExpressionGenerator expressionGenerator = new ExpressionGenerator();		
-		LinkedHashMap<Variable, List<ReferenceExpression>> componentExpressions = new LinkedHashMap<Variable, List<ReferenceExpression>>();
-		for(Variable variable : gradient.variables())
-		{
-			Differentiable component = gradient.component(variable);
-			List<ReferenceExpression> expressions = expressionGenerator.generate(component);
-			componentExpressions.put(variable, expressions);
-		}
-
-		// and convert to statements.
-		GradientMethodBodyStatementGenerator statementGenerator = new GradientMethodBodyStatementGenerator(componentExpressions);
-		List<Statement> statements = statementGenerator.getStatements();
-
-		StringWriter writer = new StringWriter();
-		PrintWriter printWriter = new PrintWriter(writer);
-		
-		// write all the magic.
-		writeClassDefinition(printWriter, unit.getSimpleClassName());
-		writeConstructor(printWriter, unit.getSimpleClassName());
-		writeValueMethod(printWriter, statements);		
-		writeClassTrailer(printWriter);
-				
-		printWriter.flush();
-		writer.flush();
-		
-		String source = writer.toString();
-		unit.setSourceCode(source);
-		
-		return unit;
-	}
-	
-	/**
-	 * Write the class package, import, etc.
-	 * 
-	 * @param simpleClassName The simple class name.
-	 * @param writer The write to which to write.
-	 */
-	private void writeClassDefinition(final PrintWriter writer, final String simpleClassName)
-	{
-		// write class header.
-		writer.println("package org.teneighty.leibniz.compilation;");
-		writer.println();
-		writer.println("import java.io.Serializable;");
-		writer.println();
-		writer.println("import org.teneighty.leibniz.Assignment;");
-		writer.println("import org.teneighty.leibniz.Gradient;");
-		writer.println("import org.teneighty.leibniz.GradientValue;");
-		writer.println("import org.teneighty.leibniz.MutableGradientValue;");
-		writer.println("import org.teneighty.leibniz.Variable;");
-		writer.println();
-		writer.println(String.format("public final class %1$s", simpleClassName));
-		writer.println("\textends AbstractCompiledGradient");
-		writer.println("\timplements Serializable");
-		writer.println("{");
-		writer.println();
-		writer.println("private static final long serialVersionUID = 1L;");
-		writer.println();
-	}
-	
-	/**
-	 * Write the constructor.
-	 * 
-	 * @param simpleClassName The simple class name.
-	 * @param writer The writer to which to write.
-	 */
-	private void writeConstructor(final PrintWriter writer, final String simpleClassName)
-	{
-		// write constructor.
-		writer.println(String.format("\tpublic %1$s(final Gradient gradient, final String source)", simpleClassName));
-		writer.println("\t{");
-		writer.println("\t\tsuper(gradient, source);");
-		writer.println("\t}");
-		writer.println();
-	}
-	
-	/**
-	 * Write the value method, given the specified code statements.
-	 * 
-	 * @param writer The writer.
-	 * @param statements The method body code statements.
-	 */
-	private void writeValueMethod(final PrintWriter writer, final List<Statement> statements)
-	{
-		writer.println("\tpublic GradientValue value(final Assignment assignment)");
-		writer.println("\t{");
-		
-		for(Statement statement : statements)
-		{
-			writer.println(String.format("\t\t%1$s", statement.code()));
-		}
-		
-		writer.println("\t}");
-		writer.println();
-	}
-	
-	/**
-	 * Write the class trailer.
-	 * 
-	 * @param writer The writer to which to write.
-	 */
-	private void writeClassTrailer(final PrintWriter writer)
-	{
-		writer.println("}");
-	}
-
-	
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Gradient;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.expression.Expression;
+import org.teneighty.leibniz.compilation.statement.ArrayElementAssignmentStatement;
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+
+/**
+ * Gradient code generator.
+ * <p>
+ * The gradient is generated as a primal sweep into locals followed by an
+ * adjoint sweep accumulating <code>bar_</code> locals, so the generated code
+ * stays linear in the size of the expression graph whatever the number of
+ * variables. Graphs with composed nodes that cannot be recomposed fall back
+ * to one expression per component, taken from the symbolic derivatives.
+ */
+final class GradientCodeGenerator
+	extends AbstractCodeGenerator<Gradient>
+{
+	
+	/**
+	 * @see org.teneighty.leibniz.compilation.CodeGenerator#getSourceCodeUnit(java.lang.Object, org.teneighty.leibniz.compilation.Backend)
+	 */
+	@Override
+	public SourceCodeUnit getSourceCodeUnit(final Gradient gradient, final Backend backend)
+	{
+		SourceCodeUnit unit = new SourceCodeUnit();
+		unit.setSimpleClassName(getUniqueClassName());
+		
+		// lay out the input array; components may be taken with respect to
+		// variables on which the differentiable does not depend.
+		Set<Variable> variables = new HashSet<Variable>(gradient.differentiable().variables());
+		variables.addAll(gradient.variables());
+		VariableIndex variableIndex = VariableIndex.sorted(variables);
+		unit.setVariableIndex(variableIndex);
+		
+		// one primal and one adjoint sweep if the graph allows it; otherwise
+		// one expression per component.
+		VariableIndex componentIndex = VariableIndex.sorted(gradient.variables());
+		List<Statement> statements = getAdjointStatements(gradient, variableIndex, componentIndex);
+		if(statements == null)
+		{
+			statements = getComponentStatements(gradient, variableIndex, componentIndex);
+		}
+		
+		// describe the generated class.
+		unit.setSuperclass(AbstractCompiledGradient.class);
+		unit.setUncompiledType(Gradient.class);
+		unit.setValueMethod(ValueMethod.BUFFERED);
+		unit.setStatements(statements);
+
+		StringWriter writer = new StringWriter();
+		PrintWriter printWriter = new PrintWriter(writer);
+		
+		// write all the magic.
+		writeClassDefinition(printWriter, unit.getSimpleClassName());
+		writeConstructor(printWriter, unit.getSimpleClassName());
+		writeValueMethod(printWriter, unit.getValueMethod(), statements);		
+		backend.writeBatchMethod(printWriter, unit.getValueMethod(), statements);
+		writeClassTrailer(printWriter);
+				
+		printWriter.flush();
+		writer.flush();
+		
+		String source = writer.toString();
+		unit.setSourceCode(source);
+		
+		return unit;
+	}
+	
+	/**
+	 * Generate statements computing the gradient with an unrolled reverse
+	 * sweep (see {@link AdjointStatementGenerator}).
+	 * <p>
+	 * The generated method is linear in the size of the expression graph,
+	 * however many components the gradient has.
+	 * 
+	 * @param gradient The gradient.
+	 * @param variableIndex The layout of the input array.
+	 * @param componentIndex The layout of the output array.
+	 * @return The statements, or <code>null</code> if the graph contains a
+	 *         composed node that cannot be recomposed.
+	 */
+	private List<Statement> getAdjointStatements(final Gradient gradient, final VariableIndex variableIndex, final VariableIndex componentIndex)
+	{
+		AdjointStatementGenerator generator;
+		try
+		{
+			generator = new AdjointStatementGenerator(gradient.differentiable(), variableIndex, false);
+		}
+		catch(final UnsupportedOperationException e)
+		{
+			return null;
+		}
+		
+		List<Statement> statements = new ArrayList<Statement>(generator.getStatements());
+		for(Variable variable : componentIndex.variables())
+		{
+			Expression adjoint = generator.adjoint(variableIndex.slot(variable));
+			statements.add(new ArrayElementAssignmentStatement("outputs", componentIndex.slot(variable), adjoint));
+		}
+		
+		return statements;
+	}
+	
+	/**
+	 * Generate statements computing each component of the gradient from its
+	 * symbolic derivative, sharing common subexpressions.
+	 * 
+	 * @param gradient The gradient.
+	 * @param variableIndex The layout of the input array.
+	 * @param componentIndex The layout of the output array.
+	 * @return The statements.
+	 */
+	private List<Statement> getComponentStatements(final Gradient gradient, final VariableIndex variableIndex, final VariableIndex componentIndex)
+	{
+		ExpressionGenerator expressionGenerator = new ExpressionGenerator(variableIndex);		
+		LinkedHashMap<Variable, List<ReferenceExpression>> componentExpressions = new LinkedHashMap<Variable, List<ReferenceExpression>>();
+		for(Variable variable : componentIndex.variables())
+		{
+			Differentiable component = gradient.component(variable);
+			List<ReferenceExpression> expressions = expressionGenerator.generate(component);
+			componentExpressions.put(variable, expressions);
+		}
+
+		GradientMethodBodyStatementGenerator statementGenerator = new GradientMethodBodyStatementGenerator(componentIndex, componentExpressions);
+		return statementGenerator.getStatements();
+	}
+	
+	/**
+	 * Write the class package, import, etc.
+	 * 
+	 * @param simpleClassName The simple class name.
+	 * @param writer The write to which to write.
+	 */
+	private void writeClassDefinition(final PrintWriter writer, final String simpleClassName)
+	{
+		// write class header.
+		writer.println("package org.teneighty.leibniz.compilation;");
+		writer.println();
+		writer.println("import java.io.Serializable;");
+		writer.println();
+		writer.println("import org.teneighty.leibniz.Gradient;");
+		writer.println("import org.teneighty.leibniz.VariableIndex;");
+		writer.println();
+		writer.println(String.format("public final class %1$s", simpleClassName));
+		writer.println("\textends AbstractCompiledGradient");
+		writer.println("\timplements Serializable");
+		writer.println("{");
+		writer.println();
+		writer.println("private static final long serialVersionUID = 1L;");
+		writer.println();
+	}
+	
+	/**
+	 * Write the constructor.
+	 * 
+	 * @param simpleClassName The simple class name.
+	 * @param writer The writer to which to write.
+	 */
+	private void writeConstructor(final PrintWriter writer, final String simpleClassName)
+	{
+		// write constructor.
+		writer.println(String.format("\tpublic %1$s(final Gradient gradient, final String source, final VariableIndex variableIndex)", simpleClassName));
+		writer.println("\t{");
+		writer.println("\t\tsuper(gradient, source, variableIndex);");
+		writer.println("\t}");
+		writer.println();
+	}
+	
+	/**
+	 * Write the value method, given the specified code statements.
+	 * 
+	 * @param writer The writer.
+	 * @param valueMethod The value method signature.
+	 * @param statements The method body code statements.
+	 */
+	private void writeValueMethod(final PrintWriter writer, final ValueMethod valueMethod, final List<Statement> statements)
+	{
+		writer.println(String.format("\t%1$s", valueMethod.signature()));
+		writer.println("\t{");
+		
+		for(Statement statement : statements)
+		{
+			writer.print("\t\t");
+			writer.println(statement.code());
+		}
+		
+		writer.println("\t}");
+		writer.println();
+	}
+	
+	/**
+	 * Write the class trailer.
+	 * 
+	 * @param writer The writer to which to write.
+	 */
+	private void writeClassTrailer(final PrintWriter writer)
+	{
+		writer.println("}");
+	}
+
+	
 }
\ No newline at end of file
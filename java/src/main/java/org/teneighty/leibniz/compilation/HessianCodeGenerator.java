@@ -1,160 +1,258 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz.compilation;
-
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.util.LinkedHashMap;
-import java.util.List;
-
-import org.teneighty.leibniz.Differentiable;
-import org.teneighty.leibniz.Hessian;
-import org.teneighty.leibniz.HessianKey;
-import org.teneighty.leibniz.compilation.statement.Statement;
-
-
-/**
- * Hessian code generator.
- */
-final class HessianCodeGenerator
-	extends AbstractCodeGenerator<Hessian>
-{
-	
-	/**
-	 * @see org.teneighty.leibniz.compilation.CodeGenerator#getSourceCodeUnit(java.lang.Object)
-	 */
-	@Override
-	public SourceCodeUnit getSourceCodeUnit(final Hessian uncompiled)
-	{
-		SourceCodeUnit unit = new SourceCodeUnit();
-		unit.setSimpleClassName(getUniqueClassName());
-		
-		ExpressionGenerator expressionGenerator = new ExpressionGenerator();
-		
-		LinkedHashMap<HessianKey, List<ReferenceExpression>> hessianComponents = new LinkedHashMap<HessianKey, List<ReferenceExpression>>();
-		for(HessianKey key : uncompiled.keys())
-		{
-			Differentiable component = uncompiled.component(key);
-			List<ReferenceExpression> expressions = expressionGenerator.generate(component);
-			hessianComponents.put(key, expressions);
-		}
-				
-		HessianMethodBodyStatementGenerator generator = new HessianMethodBodyStatementGenerator(hessianComponents);		
-		List<Statement> statements = generator.getStatements();
-
-		StringWriter writer = new StringWriter();
-		PrintWriter printWriter = new PrintWriter(writer);
-		
-		// write all the magic.
-		writeClassDefinition(printWriter, unit.getSimpleClassName());
-		writeConstructor(printWriter, unit.getSimpleClassName());
-		writeValueMethod(printWriter, statements);		
-		writeClassTrailer(printWriter);
-				
-		printWriter.flush();
-		writer.flush();
-		
-		// store the source code, and we're done here.
-		String sourceCode = writer.toString();
-		unit.setSourceCode(sourceCode);
-		
-		return unit;
-	}
-	
-	/**
-	 * Write the class package, import, etc.
-	 * 
-	 * @param simpleClassName The simple class name.
-	 * @param writer The write to which to write.
-	 */
-	private void writeClassDefinition(final PrintWriter writer, final String simpleClassName)
-	{
-		// write class header.
-		writer.println("package org.teneighty.leibniz.compilation;");
-		writer.println();
-		writer.println("import java.io.Serializable;");
-		writer.println();
-		writer.println("import org.teneighty.leibniz.Assignment;");
-		writer.println("import org.teneighty.leibniz.Hessian;");
-		writer.println("import org.teneighty.leibniz.HessianValue;");
-		writer.println("import org.teneighty.leibniz.MutableHessianValue;");
-		writer.println("import org.teneighty.leibniz.Variable;");
-		writer.println();
-		writer.println(String.format("public final class %1$s", simpleClassName));
-		writer.println("\textends AbstractCompiledHessian");
-		writer.println("\timplements Serializable");
-		writer.println("{");
-		writer.println();
-		writer.println("private static final long serialVersionUID = 1L;");
-		writer.println();
-	}
-	
-	/**
-	 * Write the constructor.
-	 * 
-	 * @param simpleClassName The simple class name.
-	 * @param writer The writer to which to write.
-	 */
-	private void writeConstructor(final PrintWriter writer, final String simpleClassName)
-	{
-		// write constructor.
-		writer.println(String.format("\tpublic %1$s(final Hessian hessian, final String source)", simpleClassName));
-		writer.println("\t{");
-		writer.println("\t\tsuper(hessian, source);");
-		writer.println("\t}");
-		writer.println();
-	}
-	
-	/**
-	 * Write the value method, given the specified code statements.
-	 * 
-	 * @param writer The writer.
-	 * @param statements The method body code statements.
-	 */
-	private void writeValueMethod(final PrintWriter writer, final List<Statement> statements)
-	{
-		writer.println("\tpublic HessianValue value(final Assignment assignment)");
-		writer.println("\t{");
-		
-		for(Statement statement : statements)
-		{
-			writer.println(String.format("\t\t%1$s", statement.code()));
-		}
-		
-		writer.println("\t}");
-		writer.println();
-	}
-	
-	/**
-	 * Write the class trailer.
-	 * 
-	 * @param writer The writer to which to write.
-	 */
-	private void writeClassTrailer(final PrintWriter writer)
-	{
-		writer.println("}");
-	}
-
-	
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.teneighty.leibniz.Constant;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Hessian;
+import org.teneighty.leibniz.HessianKey;
+import org.teneighty.leibniz.SparsityPattern;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.statement.ArrayElementAssignmentStatement;
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+
+/**
+ * Hessian code generator.
+ * <p>
+ * The generated method is one forward-over-reverse sweep computing the
+ * product of the Hessian and a direction; {@link AbstractCompiledAdjointHessian}
+ * recovers the Hessian from one product per color of its sparsity pattern.
+ * The method thus stays proportional to the expression graph, and a dense
+ * Hessian costs about as much as one gradient per variable. Graphs with
+ * composed nodes that cannot be recomposed fall back to one expression per
+ * entry, taken from the symbolic second derivatives.
+ */
+final class HessianCodeGenerator
+	extends AbstractCodeGenerator<Hessian>
+{
+	
+	/**
+	 * @see org.teneighty.leibniz.compilation.CodeGenerator#getSourceCodeUnit(java.lang.Object, org.teneighty.leibniz.compilation.Backend)
+	 */
+	@Override
+	public SourceCodeUnit getSourceCodeUnit(final Hessian uncompiled, final Backend backend)
+	{
+		SourceCodeUnit unit = new SourceCodeUnit();
+		unit.setSimpleClassName(getUniqueClassName());
+		
+		// lay out the input array.
+		Set<Variable> variables = new HashSet<Variable>(uncompiled.differentiable().variables());
+		variables.addAll(uncompiled.variables());
+		VariableIndex variableIndex = VariableIndex.sorted(variables);
+		unit.setVariableIndex(variableIndex);
+		
+		// one forward-over-reverse sweep per color if the graph allows it;
+		// otherwise one expression per component.
+		VariableIndex componentIndex = VariableIndex.sorted(uncompiled.variables());
+		List<Statement> statements = getAdjointStatements(uncompiled, variableIndex);
+		if(statements != null)
+		{
+			unit.setSuperclass(AbstractCompiledAdjointHessian.class);
+			unit.setValueMethod(ValueMethod.HESSIAN_VECTOR);
+		}
+		else
+		{
+			statements = getComponentStatements(uncompiled, variableIndex, componentIndex);
+			unit.setSuperclass(AbstractCompiledHessian.class);
+			unit.setValueMethod(ValueMethod.BUFFERED);
+		}
+		
+		// describe the generated class.
+		unit.setUncompiledType(Hessian.class);
+		unit.setStatements(statements);
+
+		StringWriter writer = new StringWriter();
+		PrintWriter printWriter = new PrintWriter(writer);
+		
+		// write all the magic.
+		writeClassDefinition(printWriter, unit.getSimpleClassName(), unit.getSuperclass());
+		writeConstructor(printWriter, unit.getSimpleClassName());
+		writeValueMethod(printWriter, unit.getValueMethod(), statements);
+		if(unit.getValueMethod().hasBatch())
+		{
+			backend.writeBatchMethod(printWriter, unit.getValueMethod(), statements);
+		}
+
+		writeClassTrailer(printWriter);
+				
+		printWriter.flush();
+		writer.flush();
+		
+		// store the source code, and we're done here.
+		String sourceCode = writer.toString();
+		unit.setSourceCode(sourceCode);
+		
+		return unit;
+	}
+	
+	/**
+	 * Generate statements computing the product of the Hessian and a
+	 * direction with an unrolled forward-over-reverse sweep (see
+	 * {@link AdjointStatementGenerator}).
+	 * 
+	 * @param hessian The Hessian.
+	 * @param variableIndex The layout of the input, direction and result
+	 *            arrays.
+	 * @return The statements, or <code>null</code> if the graph contains a
+	 *         composed node that cannot be recomposed.
+	 */
+	private List<Statement> getAdjointStatements(final Hessian hessian, final VariableIndex variableIndex)
+	{
+		AdjointStatementGenerator generator;
+		try
+		{
+			generator = new AdjointStatementGenerator(hessian.differentiable(), variableIndex, true);
+		}
+		catch(final UnsupportedOperationException e)
+		{
+			return null;
+		}
+		
+		List<Statement> statements = new ArrayList<Statement>(generator.getStatements());
+		for(int slot = 0; slot < variableIndex.size(); slot++)
+		{
+			statements.add(new ArrayElementAssignmentStatement("result", slot, generator.adjointTangent(slot)));
+		}
+		
+		return statements;
+	}
+	
+	/**
+	 * Generate statements computing each entry of the packed upper triangle
+	 * from its symbolic second derivative, sharing common subexpressions.
+	 * 
+	 * @param hessian The Hessian.
+	 * @param variableIndex The layout of the input array.
+	 * @param componentIndex The layout of the variables of the output array.
+	 * @return The statements.
+	 */
+	private List<Statement> getComponentStatements(final Hessian hessian, final VariableIndex variableIndex, final VariableIndex componentIndex)
+	{
+		ExpressionGenerator expressionGenerator = new ExpressionGenerator(variableIndex);
+		
+		// walk the upper triangle in packed order; structurally zero
+		// components are stored as constants without being built.
+		SparsityPattern pattern = hessian.sparsity();
+		LinkedHashMap<HessianKey, List<ReferenceExpression>> hessianComponents = new LinkedHashMap<HessianKey, List<ReferenceExpression>>();
+		for(int row = 0; row < componentIndex.size(); row++)
+		{
+			for(int column = row; column < componentIndex.size(); column++)
+			{
+				HessianKey key = new HessianKey(componentIndex.variable(row), componentIndex.variable(column));
+				Differentiable component = pattern.contains(key.first(), key.second()) ? hessian.component(key) : Constant.ZERO;
+				List<ReferenceExpression> expressions = expressionGenerator.generate(component);
+				hessianComponents.put(key, expressions);
+			}
+		}
+				
+		HessianMethodBodyStatementGenerator generator = new HessianMethodBodyStatementGenerator(componentIndex, hessianComponents);		
+		return generator.getStatements();
+	}
+	
+	/**
+	 * Write the class package, import, etc.
+	 * 
+	 * @param simpleClassName The simple class name.
+	 * @param superclass The superclass.
+	 * @param writer The write to which to write.
+	 */
+	private void writeClassDefinition(final PrintWriter writer, final String simpleClassName, final Class<?> superclass)
+	{
+		// write class header.
+		writer.println("package org.teneighty.leibniz.compilation;");
+		writer.println();
+		writer.println("import java.io.Serializable;");
+		writer.println();
+		writer.println("import org.teneighty.leibniz.Hessian;");
+		writer.println("import org.teneighty.leibniz.VariableIndex;");
+		writer.println();
+		writer.println(String.format("public final class %1$s", simpleClassName));
+		writer.println(String.format("\textends %1$s", superclass.getSimpleName()));
+		writer.println("\timplements Serializable");
+		writer.println("{");
+		writer.println();
+		writer.println("private static final long serialVersionUID = 1L;");
+		writer.println();
+	}
+	
+	/**
+	 * Write the constructor.
+	 * 
+	 * @param simpleClassName The simple class name.
+	 * @param writer The writer to which to write.
+	 */
+	private void writeConstructor(final PrintWriter writer, final String simpleClassName)
+	{
+		// write constructor.
+		writer.println(String.format("\tpublic %1$s(final Hessian hessian, final String source, final VariableIndex variableIndex)", simpleClassName));
+		writer.println("\t{");
+		writer.println("\t\tsuper(hessian, source, variableIndex);");
+		writer.println("\t}");
+		writer.println();
+	}
+	
+	/**
+	 * Write the value method, given the specified code statements.
+	 * 
+	 * @param writer The writer.
+	 * @param valueMethod The value method signature.
+	 * @param statements The method body code statements.
+	 */
+	private void writeValueMethod(final PrintWriter writer, final ValueMethod valueMethod, final List<Statement> statements)
+	{
+		writer.println(String.format("\t%1$s", valueMethod.signature()));
+		writer.println("\t{");
+		
+		for(Statement statement : statements)
+		{
+			writer.print("\t\t");
+			writer.println(statement.code());
+		}
+		
+		writer.println("\t}");
+		writer.println();
+	}
+	
+	/**
+	 * Write the class trailer.
+	 * 
+	 * @param writer The writer to which to write.
+	 */
+	private void writeClassTrailer(final PrintWriter writer)
+	{
+		writer.println("}");
+	}
+
+	
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.teneighty.leibniz.compilation.statement.ArrayElementAssignmentStatement;
+import org.teneighty.leibniz.compilation.statement.LocalDoubleDeclarationStatement;
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+
+/**
+ * Generates the statements of a compiled Jacobian method.
+ * <p>
+ * Every shared expression is declared as a local exactly once, the first
+ * time any output or entry needs it.
+ */
+final class JacobianMethodBodyStatementGenerator
+{
+
+	/**
+	 * The statements.
+	 */
+	private final List<Statement> statements;
+
+	/**
+	 * Expressions for which a local has already been declared.
+	 */
+	private final Set<ReferenceExpression> added;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param outputExpressions The expressions of each output, in order.
+	 * @param entryExpressions The expressions of each Jacobian entry, in
+	 *            pattern order.
+	 */
+	JacobianMethodBodyStatementGenerator(final List<List<ReferenceExpression>> outputExpressions,
+			final List<List<ReferenceExpression>> entryExpressions)
+	{
+		statements = new ArrayList<Statement>();
+		added = new HashSet<ReferenceExpression>();
+
+		for(int output = 0; output < outputExpressions.size(); output++)
+		{
+			statements.add(new ArrayElementAssignmentStatement("outputs", output, declare(outputExpressions.get(output))));
+		}
+
+		for(int entry = 0; entry < entryExpressions.size(); entry++)
+		{
+			statements.add(new ArrayElementAssignmentStatement("jacobian", entry, declare(entryExpressions.get(entry))));
+		}
+	}
+
+	/**
+	 * Get the statements.
+	 * 
+	 * @return The statements.
+	 */
+	List<Statement> getStatements()
+	{
+		return statements;
+	}
+
+	/**
+	 * Declare locals for the shared expressions among the specified ones that
+	 * have not been declared yet.
+	 * 
+	 * @param expressions The expressions of one output or entry, in
+	 *            evaluation order.
+	 * @return The last expression, which is the output or entry itself.
+	 */
+	private ReferenceExpression declare(final List<ReferenceExpression> expressions)
+	{
+		for(ReferenceExpression reference : expressions)
+		{
+			if(reference.isLocal() && (added.contains(reference) == false))
+			{
+				statements.add(new LocalDoubleDeclarationStatement(reference.getVariableName(), reference.referent()));
+				added.add(reference);
+			}
+		}
+
+		return expressions.get(expressions.size() - 1);
+	}
+
+}
@@ -0,0 +1,510 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.teneighty.leibniz.CompiledDifferentiable;
+import org.teneighty.leibniz.CompiledGradient;
+import org.teneighty.leibniz.CompiledHessian;
+
+
+/**
+ * Evaluates batches of compiled functions in parallel.
+ * <p>
+ * A batch is cut into chunks of {@link #chunkSize()} rows, which are claimed
+ * one at a time by up to {@link #parallelism()} workers: the calling thread,
+ * plus helpers submitted to a caller-supplied executor. Workers that finish
+ * early simply claim more chunks, so uneven rows balance themselves. Any
+ * executor will do - a thread pool, or a fork/join pool where one is
+ * available.
+ * <p>
+ * Since every row is evaluated by the same generated code as a sequential
+ * batch, the results are identical to those of sequential evaluation. The
+ * calling thread works on the batch itself and only waits for helpers that
+ * have actually started, so evaluation completes even if the executor is
+ * saturated, rejects tasks, or is the pool the caller itself is running in.
+ */
+public final class ParallelEvaluator
+{
+
+	/**
+	 * The default chunk size.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	/**
+	 * The executor that runs helpers.
+	 */
+	private final Executor executor;
+
+	/**
+	 * The maximum number of workers per batch.
+	 */
+	private final int parallelism;
+
+	/**
+	 * The number of rows per chunk.
+	 */
+	private final int chunkSize;
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * Batches are evaluated with one worker per available processor, in chunks
+	 * of {@link #DEFAULT_CHUNK_SIZE} rows.
+	 *
+	 * @param executor The executor that runs helpers.
+	 * @throws NullPointerException If <code>executor</code> is
+	 *             <code>null</code>.
+	 */
+	public ParallelEvaluator(final Executor executor)
+		throws NullPointerException
+	{
+		this(executor, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param executor The executor that runs helpers.
+	 * @param parallelism The maximum number of workers per batch, including
+	 *            the calling thread.
+	 * @param chunkSize The number of rows per chunk.
+	 * @throws NullPointerException If <code>executor</code> is
+	 *             <code>null</code>.
+	 * @throws IllegalArgumentException If <code>parallelism</code> or
+	 *             <code>chunkSize</code> is less than one.
+	 */
+	public ParallelEvaluator(final Executor executor, final int parallelism, final int chunkSize)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(executor == null)
+		{
+			throw new NullPointerException("executor");
+		}
+
+		if(parallelism < 1)
+		{
+			String message = String.format("Parallelism must be positive: %1$s", parallelism);
+			throw new IllegalArgumentException(message);
+		}
+
+		if(chunkSize < 1)
+		{
+			String message = String.format("Chunk size must be positive: %1$s", chunkSize);
+			throw new IllegalArgumentException(message);
+		}
+
+		this.executor = executor;
+		this.parallelism = parallelism;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Get the maximum number of workers per batch, including the calling
+	 * thread.
+	 *
+	 * @return The parallelism.
+	 */
+	public int parallelism()
+	{
+		return parallelism;
+	}
+
+	/**
+	 * Get the number of rows per chunk.
+	 *
+	 * @return The chunk size.
+	 */
+	public int chunkSize()
+	{
+		return chunkSize;
+	}
+
+	/**
+	 * Evaluate the specified function over a batch.
+	 *
+	 * @param compiled The function.
+	 * @param inputs The input columns.
+	 * @param outputs The output column.
+	 * @param from The first row, inclusive.
+	 * @param to The last row, exclusive.
+	 * @throws NullPointerException If <code>compiled</code> is
+	 *             <code>null</code>, or as for
+	 *             {@link CompiledDifferentiable#value(double[][], double[], int, int)}.
+	 * @throws IllegalArgumentException As for
+	 *             {@link CompiledDifferentiable#value(double[][], double[], int, int)}.
+	 */
+	public void value(final CompiledDifferentiable compiled, final double[][] inputs, final double[] outputs, final int from, final int to)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(compiled == null)
+		{
+			throw new NullPointerException("compiled");
+		}
+
+		BatchArguments.checkInputs(compiled.variableIndex(), inputs, from, to);
+		BatchArguments.checkOutput(outputs, to);
+
+		evaluate(new Chunks(from, to)
+		{
+
+			@Override
+			void evaluate(final int start, final int end)
+			{
+				compiled.value(inputs, outputs, start, end);
+			}
+
+		});
+	}
+
+	/**
+	 * Evaluate the specified gradient over a batch.
+	 *
+	 * @param compiled The gradient.
+	 * @param inputs The input columns.
+	 * @param outputs The output columns.
+	 * @param from The first row, inclusive.
+	 * @param to The last row, exclusive.
+	 * @throws NullPointerException If <code>compiled</code> is
+	 *             <code>null</code>, or as for
+	 *             {@link CompiledGradient#value(double[][], double[][], int, int)}.
+	 * @throws IllegalArgumentException As for
+	 *             {@link CompiledGradient#value(double[][], double[][], int, int)}.
+	 */
+	public void value(final CompiledGradient compiled, final double[][] inputs, final double[][] outputs, final int from, final int to)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(compiled == null)
+		{
+			throw new NullPointerException("compiled");
+		}
+
+		BatchArguments.checkInputs(compiled.variableIndex(), inputs, from, to);
+		BatchArguments.checkOutputs(outputs, compiled.componentIndex().size(), to);
+
+		evaluate(new Chunks(from, to)
+		{
+
+			@Override
+			void evaluate(final int start, final int end)
+			{
+				compiled.value(inputs, outputs, start, end);
+			}
+
+		});
+	}
+
+	/**
+	 * Evaluate the specified Hessian over a batch.
+	 *
+	 * @param compiled The Hessian.
+	 * @param inputs The input columns.
+	 * @param outputs The output columns.
+	 * @param from The first row, inclusive.
+	 * @param to The last row, exclusive.
+	 * @throws NullPointerException If <code>compiled</code> is
+	 *             <code>null</code>, or as for
+	 *             {@link CompiledHessian#value(double[][], double[][], int, int)}.
+	 * @throws IllegalArgumentException As for
+	 *             {@link CompiledHessian#value(double[][], double[][], int, int)}.
+	 */
+	public void value(final CompiledHessian compiled, final double[][] inputs, final double[][] outputs, final int from, final int to)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if(compiled == null)
+		{
+			throw new NullPointerException("compiled");
+		}
+
+		BatchArguments.checkInputs(compiled.variableIndex(), inputs, from, to);
+		BatchArguments.checkOutputs(outputs, compiled.componentIndex().packedSize(), to);
+
+		evaluate(new Chunks(from, to)
+		{
+
+			@Override
+			void evaluate(final int start, final int end)
+			{
+				compiled.value(inputs, outputs, start, end);
+			}
+
+		});
+	}
+
+	/**
+	 * Evaluate all chunks, with the calling thread and as many helpers as are
+	 * useful.
+	 *
+	 * @param chunks The chunks.
+	 */
+	private void evaluate(final Chunks chunks)
+	{
+		int count = (int)(((long)chunks.to - chunks.from + chunkSize - 1) / chunkSize);
+		Helper[] helpers = new Helper[Math.max(0, Math.min(parallelism, count) - 1)];
+
+		for(int index = 0; index < helpers.length; index++)
+		{
+			helpers[index] = new Helper(chunks);
+			try
+			{
+				executor.execute(helpers[index]);
+			}
+			catch(final RejectedExecutionException rejectedExecutionException)
+			{
+				// we'll do its share ourselves.
+			}
+		}
+
+		Throwable failure = null;
+		try
+		{
+			chunks.run();
+		}
+		catch(final RuntimeException runtimeException)
+		{
+			failure = runtimeException;
+		}
+		catch(final Error error)
+		{
+			failure = error;
+		}
+
+		// outputs are still being written until every started helper is done.
+		for(Helper helper : helpers)
+		{
+			if(helper.claim())
+			{
+				continue;
+			}
+
+			helper.await();
+			if(failure == null)
+			{
+				failure = helper.failure;
+			}
+		}
+
+		if(failure instanceof RuntimeException)
+		{
+			throw (RuntimeException)failure;
+		}
+
+		if(failure instanceof Error)
+		{
+			throw (Error)failure;
+		}
+	}
+
+	/**
+	 * The chunks of a batch, claimed by workers in order.
+	 */
+	private abstract class Chunks
+	{
+
+		/**
+		 * The first row, inclusive.
+		 */
+		final int from;
+
+		/**
+		 * The last row, exclusive.
+		 */
+		final int to;
+
+		/**
+		 * The first row of the next unclaimed chunk.
+		 */
+		private final AtomicInteger next;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param from The first row, inclusive.
+		 * @param to The last row, exclusive.
+		 */
+		Chunks(final int from, final int to)
+		{
+			this.from = from;
+			this.to = to;
+			this.next = new AtomicInteger(from);
+		}
+
+		/**
+		 * Claim and evaluate chunks until none are left.
+		 */
+		void run()
+		{
+			try
+			{
+				while(true)
+				{
+					int start = next.get();
+					if(start >= to)
+					{
+						return;
+					}
+
+					int end = (int)Math.min((long)start + chunkSize, to);
+					if(next.compareAndSet(start, end))
+					{
+						evaluate(start, end);
+					}
+				}
+			}
+			catch(final RuntimeException runtimeException)
+			{
+				next.set(to);
+				throw runtimeException;
+			}
+			catch(final Error error)
+			{
+				next.set(to);
+				throw error;
+			}
+		}
+
+		/**
+		 * Evaluate the specified rows.
+		 *
+		 * @param start The first row, inclusive.
+		 * @param end The last row, exclusive.
+		 */
+		abstract void evaluate(int start, int end);
+
+	}
+
+	/**
+	 * A helper, run by the executor.
+	 * <p>
+	 * A helper runs at most once, and only if it has not already been claimed
+	 * by the calling thread; the calling thread claims helpers that have not
+	 * started by the time it runs out of chunks, so it never waits for the
+	 * executor to get around to them.
+	 */
+	private static final class Helper
+		implements Runnable
+	{
+
+		/**
+		 * The chunks.
+		 */
+		private final Chunks chunks;
+
+		/**
+		 * Whether this helper has started, or been claimed.
+		 */
+		private final AtomicBoolean claimed;
+
+		/**
+		 * Released when this helper is done.
+		 */
+		private final CountDownLatch done;
+
+		/**
+		 * The failure, if any; published by {@link #done}.
+		 */
+		Throwable failure;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param chunks The chunks.
+		 */
+		Helper(final Chunks chunks)
+		{
+			this.chunks = chunks;
+			this.claimed = new AtomicBoolean();
+			this.done = new CountDownLatch(1);
+		}
+
+		/**
+		 * Claim this helper, so that it does nothing if it runs later.
+		 *
+		 * @return <code>true</code> if this helper had not started;
+		 *         <code>false</code> otherwise.
+		 */
+		boolean claim()
+		{
+			return claimed.compareAndSet(false, true);
+		}
+
+		/**
+		 * Wait for this helper to finish, preserving any interrupt.
+		 */
+		void await()
+		{
+			boolean interrupted = false;
+			while(true)
+			{
+				try
+				{
+					done.await();
+					break;
+				}
+				catch(final InterruptedException interruptedException)
+				{
+					interrupted = true;
+				}
+			}
+
+			if(interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run()
+		{
+			if(claim() == false)
+			{
+				return;
+			}
+
+			try
+			{
+				chunks.run();
+			}
+			catch(final Throwable throwable)
+			{
+				failure = throwable;
+			}
+			finally
+			{
+				done.countDown();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,593 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * A directory of compiled classes that outlives the process.
+ * <p>
+ * Each entry holds the class file, source code and variable layout of one
+ * compiled function, keyed by a structural digest of the function (see
+ * {@link Compiler#setPersistentCache(PersistentCache)}). The digest includes
+ * the library version, and every entry records the version of the code
+ * generator that wrote it, so entries written by a different library or
+ * generator are never loaded; they are deleted when encountered. Entries are
+ * checksummed, and an entry that is truncated, fails its checksum or cannot be
+ * parsed is deleted and recompiled. Entries are written to a temporary file and
+ * then renamed, so several processes may safely share a directory.
+ * <p>
+ * Builds without an <code>Implementation-Version</code> in their manifest
+ * (e.g. when running from a development tree) all share the version
+ * {@link #UNVERSIONED}; clear the directory when such a build changes.
+ */
+public final class PersistentCache
+{
+
+	/**
+	 * The version used when the library has no implementation version.
+	 */
+	public static final String UNVERSIONED = "unversioned";
+
+	/**
+	 * The library version, part of every entry's key.
+	 */
+	public static final String LIBRARY_VERSION = libraryVersion();
+
+	/**
+	 * File name suffix of entries.
+	 */
+	private static final String SUFFIX = ".lbz";
+
+	/**
+	 * Magic number at the start of every entry.
+	 */
+	private static final int MAGIC = 0x4c424e5a;
+
+	/**
+	 * Version of the entry layout.
+	 */
+	private static final int FORMAT_VERSION = 3;
+
+	/**
+	 * Get the version of this library.
+	 * 
+	 * @return The version.
+	 */
+	private static String libraryVersion()
+	{
+		Package pkg = PersistentCache.class.getPackage();
+		String version = (pkg == null) ? null : pkg.getImplementationVersion();
+
+		return (version == null) ? UNVERSIONED : version;
+	}
+
+	/**
+	 * The directory.
+	 */
+	private final File directory;
+
+	/**
+	 * Number of entries loaded.
+	 */
+	private final AtomicLong loads;
+
+	/**
+	 * Number of entries stored.
+	 */
+	private final AtomicLong stores;
+
+	/**
+	 * Number of entries deleted because they were corrupt or stale.
+	 */
+	private final AtomicLong rejections;
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * The directory is created on first use if it does not exist.
+	 * 
+	 * @param directory The directory.
+	 * @throws NullPointerException If <code>directory</code> is
+	 *             <code>null</code>.
+	 */
+	public PersistentCache(final File directory)
+		throws NullPointerException
+	{
+		if(directory == null)
+		{
+			throw new NullPointerException("directory");
+		}
+
+		this.directory = directory;
+		this.loads = new AtomicLong();
+		this.stores = new AtomicLong();
+		this.rejections = new AtomicLong();
+	}
+
+	/**
+	 * Get the directory.
+	 * 
+	 * @return The directory.
+	 */
+	public File directory()
+	{
+		return directory;
+	}
+
+	/**
+	 * Get the number of entries loaded.
+	 * 
+	 * @return The load count.
+	 */
+	public long loads()
+	{
+		return loads.get();
+	}
+
+	/**
+	 * Get the number of entries stored.
+	 * 
+	 * @return The store count.
+	 */
+	public long stores()
+	{
+		return stores.get();
+	}
+
+	/**
+	 * Get the number of entries deleted because they were corrupt, stale or
+	 * could not be loaded.
+	 * 
+	 * @return The rejection count.
+	 */
+	public long rejections()
+	{
+		return rejections.get();
+	}
+
+	/**
+	 * Delete all entries.
+	 */
+	public void clear()
+	{
+		File[] files = directory.listFiles();
+		if(files == null)
+		{
+			return;
+		}
+
+		for(File file : files)
+		{
+			if(file.getName().endsWith(SUFFIX))
+			{
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Get the file of the specified entry.
+	 * 
+	 * @param digest The digest.
+	 * @return The file.
+	 */
+	private File file(final String digest)
+	{
+		return new File(directory, digest + SUFFIX);
+	}
+
+	/**
+	 * Load the specified entry.
+	 * 
+	 * @param digest The digest.
+	 * @return The entry, or <code>null</code> if there is no usable entry.
+	 */
+	Entry load(final String digest)
+	{
+		File file = file(digest);
+		if(file.isFile() == false)
+		{
+			return null;
+		}
+
+		byte[] bytes;
+		try
+		{
+			bytes = read(file);
+		}
+		catch(final IOException e)
+		{
+			// unreadable right now; leave it for next time.
+			return null;
+		}
+
+		Entry entry = decode(digest, bytes);
+		if(entry == null)
+		{
+			reject(digest);
+			return null;
+		}
+
+		loads.incrementAndGet();
+		return entry;
+	}
+
+	/**
+	 * Delete the specified entry, e.g. because its class could not be loaded.
+	 * 
+	 * @param digest The digest.
+	 */
+	void reject(final String digest)
+	{
+		file(digest).delete();
+		rejections.incrementAndGet();
+	}
+
+	/**
+	 * Store the specified entry, replacing any existing entry.
+	 * <p>
+	 * Failures are ignored: the cache is an optimization only.
+	 * 
+	 * @param digest The digest.
+	 * @param entry The entry.
+	 */
+	void store(final String digest, final Entry entry)
+	{
+		if(directory.isDirectory() == false && directory.mkdirs() == false && directory.isDirectory() == false)
+		{
+			return;
+		}
+
+		File temporary = null;
+		try
+		{
+			temporary = File.createTempFile(digest, ".tmp", directory);
+			write(temporary, encode(digest, entry));
+
+			File file = file(digest);
+			if(temporary.renameTo(file) == false)
+			{
+				// some platforms refuse to rename over an existing file.
+				file.delete();
+				if(temporary.renameTo(file) == false)
+				{
+					return;
+				}
+			}
+
+			stores.incrementAndGet();
+		}
+		catch(final IOException e)
+		{
+			// ignore; the entry is simply not persisted.
+		}
+		finally
+		{
+			if(temporary != null && temporary.exists())
+			{
+				temporary.delete();
+			}
+		}
+	}
+
+	/**
+	 * Encode the specified entry, appending a checksum.
+	 * 
+	 * @param digest The digest.
+	 * @param entry The entry.
+	 * @return The encoded entry.
+	 * @throws IOException Never, in practice.
+	 */
+	private static byte[] encode(final String digest, final Entry entry)
+		throws IOException
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(buffer);
+
+		output.writeInt(MAGIC);
+		output.writeInt(FORMAT_VERSION);
+		output.writeInt(AbstractCodeGenerator.GENERATOR_VERSION);
+		output.writeUTF(LIBRARY_VERSION);
+		output.writeUTF(digest);
+		output.writeUTF(entry.className());
+
+		List<Variable> variables = entry.variableIndex().variables();
+		output.writeInt(variables.size());
+		for(Variable variable : variables)
+		{
+			output.writeUTF(variable.name());
+		}
+
+		byte[] source = entry.source().getBytes("UTF-8");
+		output.writeInt(source.length);
+		output.write(source);
+
+		output.writeInt(entry.classFile().length);
+		output.write(entry.classFile());
+
+		CRC32 checksum = new CRC32();
+		checksum.update(buffer.toByteArray());
+		output.writeLong(checksum.getValue());
+		output.flush();
+
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Decode the specified entry, verifying its checksum and key.
+	 * 
+	 * @param digest The expected digest.
+	 * @param bytes The encoded entry.
+	 * @return The entry, or <code>null</code> if it is corrupt or stale.
+	 */
+	private static Entry decode(final String digest, final byte[] bytes)
+	{
+		if(bytes.length < 8)
+		{
+			return null;
+		}
+
+		int payloadLength = bytes.length - 8;
+		CRC32 checksum = new CRC32();
+		checksum.update(bytes, 0, payloadLength);
+
+		try
+		{
+			DataInputStream trailer = new DataInputStream(new ByteArrayInputStream(bytes, payloadLength, 8));
+			if(trailer.readLong() != checksum.getValue())
+			{
+				return null;
+			}
+
+			DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes, 0, payloadLength));
+			if(input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION)
+			{
+				return null;
+			}
+
+			if(input.readInt() != AbstractCodeGenerator.GENERATOR_VERSION)
+			{
+				return null;
+			}
+
+			if(LIBRARY_VERSION.equals(input.readUTF()) == false || digest.equals(input.readUTF()) == false)
+			{
+				return null;
+			}
+
+			String className = input.readUTF();
+
+			Variable[] variables = new Variable[readLength(input)];
+			for(int slot = 0; slot < variables.length; slot++)
+			{
+				variables[slot] = new Variable(input.readUTF());
+			}
+
+			byte[] source = new byte[readLength(input)];
+			input.readFully(source);
+
+			byte[] classFile = new byte[readLength(input)];
+			input.readFully(classFile);
+
+			if(input.available() != 0)
+			{
+				return null;
+			}
+
+			return new Entry(className, new String(source, "UTF-8"), new VariableIndex(variables), classFile);
+		}
+		catch(final IOException e)
+		{
+			return null;
+		}
+		catch(final RuntimeException e)
+		{
+			// e.g. duplicate variables.
+			return null;
+		}
+	}
+
+	/**
+	 * Read a length, checking that it does not exceed the remaining input.
+	 * 
+	 * @param input The input.
+	 * @return The length.
+	 * @throws IOException If the length is negative or too large.
+	 */
+	private static int readLength(final DataInputStream input)
+		throws IOException
+	{
+		int length = input.readInt();
+		if(length < 0 || length > input.available())
+		{
+			String message = String.format("Invalid length %1$s", length);
+			throw new IOException(message);
+		}
+
+		return length;
+	}
+
+	/**
+	 * Read the specified file.
+	 * 
+	 * @param file The file.
+	 * @return The contents.
+	 * @throws IOException If reading fails.
+	 */
+	private static byte[] read(final File file)
+		throws IOException
+	{
+		InputStream input = new FileInputStream(file);
+		try
+		{
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream((int)file.length());
+			byte[] chunk = new byte[8192];
+			int read;
+			while((read = input.read(chunk)) != -1)
+			{
+				buffer.write(chunk, 0, read);
+			}
+
+			return buffer.toByteArray();
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
+	/**
+	 * Write the specified file.
+	 * 
+	 * @param file The file.
+	 * @param bytes The contents.
+	 * @throws IOException If writing fails.
+	 */
+	private static void write(final File file, final byte[] bytes)
+		throws IOException
+	{
+		OutputStream output = new FileOutputStream(file);
+		try
+		{
+			output.write(bytes);
+		}
+		finally
+		{
+			output.close();
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("PersistentCache [directory=%1$s, loads=%2$s, stores=%3$s, rejections=%4$s]",
+				directory, loads(), stores(), rejections());
+	}
+
+	/**
+	 * A persisted compiled function.
+	 */
+	static final class Entry
+	{
+
+		/**
+		 * The fully qualified class name.
+		 */
+		private final String className;
+
+		/**
+		 * The source code.
+		 */
+		private final String source;
+
+		/**
+		 * The input layout.
+		 */
+		private final VariableIndex variableIndex;
+
+		/**
+		 * The class file.
+		 */
+		private final byte[] classFile;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param className The fully qualified class name.
+		 * @param source The source code.
+		 * @param variableIndex The input layout.
+		 * @param classFile The class file.
+		 */
+		Entry(final String className, final String source,
+				final VariableIndex variableIndex, final byte[] classFile)
+		{
+			this.className = className;
+			this.source = source;
+			this.variableIndex = variableIndex;
+			this.classFile = classFile;
+		}
+
+		/**
+		 * Get the fully qualified class name.
+		 * 
+		 * @return The class name.
+		 */
+		String className()
+		{
+			return className;
+		}
+
+		/**
+		 * Get the source code.
+		 * 
+		 * @return The source.
+		 */
+		String source()
+		{
+			return source;
+		}
+
+		/**
+		 * Get the input layout.
+		 * 
+		 * @return The index.
+		 */
+		VariableIndex variableIndex()
+		{
+			return variableIndex;
+		}
+
+		/**
+		 * Get the class file.
+		 * 
+		 * @return The class file.
+		 */
+		byte[] classFile()
+		{
+			return classFile;
+		}
+
+	}
+
+}
@@ -1,112 +1,155 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz.compilation;
-
-import org.teneighty.leibniz.compilation.expression.AbstractExpression;
-import org.teneighty.leibniz.compilation.expression.Expression;
-
-
-/**
- * A variable reference expression.
- */
-final class ReferenceExpression
-	extends AbstractExpression
-{
-	
-	/**
-	 * The variable name.
-	 */
-	private final String variableName;
-	
-	/**
-	 * The referenced expression.
-	 */
-	private final Expression referent;
-	
-	/**
-	 * Number of times we've reference this expression.
-	 */
-	private int referenceCount;
-				
-	/**
-	 * Constructor.
-	 * 
-	 * @param variableName The variable name.
-	 * @param referent The referenced expression.
-	 */
-	ReferenceExpression(final String variableName, final Expression referent)
-	{
-		this.variableName = variableName;
-		this.referent = referent;
-		referenceCount = 1;
-	}
-	
-	/**
-	 * Add a reference.
-	 */
-	void addReference()
-	{
-		referenceCount += 1;
-	}
-	
-	/**
-	 * Get the reference count.
-	 * 
-	 * @return The reference count.
-	 */
-	int getReferenceCount()
-	{
-		return referenceCount;
-	}
-	
-	/**
-	 * Get the variable name.
-	 * 
-	 * @return The variable name.
-	 */
-	String getVariableName()
-	{
-		return variableName;
-	}
-
-	/**
-	 * Get the referent.
-	 * 
-	 * @return The referenced expression.
-	 */
-	Expression referent()
-	{
-		return referent;
-	}
-		
-	/**
-	 * @see org.teneighty.leibniz.compilation.expression.Expression#code()
-	 */
-	@Override
-	public String code()
-	{
-		return referenceCount > 1 ? variableName : referent.code();
-	}
-
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import org.teneighty.leibniz.compilation.expression.AbstractExpression;
+import org.teneighty.leibniz.compilation.expression.Expression;
+import org.teneighty.leibniz.compilation.expression.ExpressionVisitor;
+
+
+/**
+ * A variable reference expression.
+ */
+final class ReferenceExpression
+	extends AbstractExpression
+{
+	
+	/**
+	 * The variable name.
+	 */
+	private final String variableName;
+	
+	/**
+	 * The referenced expression.
+	 */
+	private final Expression referent;
+	
+	/**
+	 * Number of times we've reference this expression.
+	 */
+	private int referenceCount;
+	
+	/**
+	 * Whether this expression is bound to a local however often it is
+	 * referenced.
+	 */
+	private boolean spilled;
+				
+	/**
+	 * Constructor.
+	 * 
+	 * @param variableName The variable name.
+	 * @param referent The referenced expression.
+	 */
+	ReferenceExpression(final String variableName, final Expression referent)
+	{
+		this.variableName = variableName;
+		this.referent = referent;
+		referenceCount = 1;
+	}
+	
+	/**
+	 * Add a reference.
+	 */
+	void addReference()
+	{
+		referenceCount += 1;
+	}
+	
+	/**
+	 * Get the reference count.
+	 * 
+	 * @return The reference count.
+	 */
+	int getReferenceCount()
+	{
+		return referenceCount;
+	}
+	
+	/**
+	 * Bind this expression to a local even if it is referenced only once,
+	 * so that it is not inlined into its referrer.
+	 */
+	void spill()
+	{
+		spilled = true;
+	}
+	
+	/**
+	 * Check if this expression is bound to a local rather than inlined.
+	 * 
+	 * @return <code>true</code> if it is referenced more than once or has
+	 *         been spilled; <code>false</code> otherwise.
+	 */
+	boolean isLocal()
+	{
+		return spilled || referenceCount > 1;
+	}
+	
+	/**
+	 * Get the variable name.
+	 * 
+	 * @return The variable name.
+	 */
+	String getVariableName()
+	{
+		return variableName;
+	}
+
+	/**
+	 * Get the referent.
+	 * 
+	 * @return The referenced expression.
+	 */
+	Expression referent()
+	{
+		return referent;
+	}
+		
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.Expression#code()
+	 */
+	@Override
+	public String code()
+	{
+		return isLocal() ? variableName : referent.code();
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.Expression#accept(org.teneighty.leibniz.compilation.expression.ExpressionVisitor)
+	 */
+	@Override
+	public void accept(final ExpressionVisitor visitor)
+	{
+		if(isLocal())
+		{
+			visitor.visitLocal(variableName);
+		}
+		else
+		{
+			referent.accept(visitor);
+		}
+	}
+
+}
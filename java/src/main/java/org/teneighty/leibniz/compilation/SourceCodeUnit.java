@@ -1,93 +1,223 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz.compilation;
-
-
-/**
- * Source code compilation unit.
- */
-class SourceCodeUnit
-{
-	
-	/**
-	 * Simple class name.
-	 */
-	private String simpleClassName;
-	
-	/**
-	 * Source code.
-	 */
-	private String sourceCode;
-	
-	/**
-	 * Get the simple class name.
-	 * 
-	 * @return The simple name.
-	 */
-	public String getSimpleClassName()
-	{
-		return simpleClassName;
-	}
-	
-	/**
-	 * Set the simple class name.
-	 * 
-	 * @param simpleClassName The simple name.
-	 */
-	public void setSimpleClassName(final String simpleClassName)
-	{
-		this.simpleClassName = simpleClassName;
-	}
-	
-	/**
-	 * Get the fully qualified class name.
-	 * 
-	 * @return The fully qualified class name.
-	 */
-	public String getFullyQualifiedClassName()
-	{
-		return String.format("org.teneighty.leibniz.compilation.%1$s", simpleClassName);
-	}
-
-	/**
-	 * Get the source code.
-	 * 
-	 * @return The source code.
-	 */
-	public String getSourceCode()
-	{
-		return sourceCode;
-	}
-
-	/**
-	 * Set the source code.
-	 * 
-	 * @param sourceCode The source code.
-	 */
-	public void setSourceCode(final String sourceCode)
-	{
-		this.sourceCode = sourceCode;
-	}
-
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.List;
+
+import org.teneighty.leibniz.VariableIndex;
+import org.teneighty.leibniz.compilation.statement.Statement;
+
+
+/**
+ * Source code compilation unit.
+ */
+class SourceCodeUnit
+{
+	
+	/**
+	 * Simple class name.
+	 */
+	private String simpleClassName;
+	
+	/**
+	 * Source code.
+	 */
+	private String sourceCode;
+	
+	/**
+	 * Layout of the input array.
+	 */
+	private VariableIndex variableIndex;
+	
+	/**
+	 * The super class of the generated class.
+	 */
+	private Class<?> superclass;
+	
+	/**
+	 * The type of the uncompiled object passed to the constructor.
+	 */
+	private Class<?> uncompiledType;
+	
+	/**
+	 * The signature of the value method.
+	 */
+	private ValueMethod valueMethod;
+	
+	/**
+	 * The body of the value method.
+	 */
+	private List<Statement> statements;
+	
+	/**
+	 * Get the simple class name.
+	 * 
+	 * @return The simple name.
+	 */
+	public String getSimpleClassName()
+	{
+		return simpleClassName;
+	}
+	
+	/**
+	 * Set the simple class name.
+	 * 
+	 * @param simpleClassName The simple name.
+	 */
+	public void setSimpleClassName(final String simpleClassName)
+	{
+		this.simpleClassName = simpleClassName;
+	}
+	
+	/**
+	 * Get the fully qualified class name.
+	 * 
+	 * @return The fully qualified class name.
+	 */
+	public String getFullyQualifiedClassName()
+	{
+		return String.format("org.teneighty.leibniz.compilation.%1$s", simpleClassName);
+	}
+
+	/**
+	 * Get the source code.
+	 * 
+	 * @return The source code.
+	 */
+	public String getSourceCode()
+	{
+		return sourceCode;
+	}
+
+	/**
+	 * Set the source code.
+	 * 
+	 * @param sourceCode The source code.
+	 */
+	public void setSourceCode(final String sourceCode)
+	{
+		this.sourceCode = sourceCode;
+	}
+
+	/**
+	 * Get the layout of the input array read by the generated code.
+	 * 
+	 * @return The variable index.
+	 */
+	public VariableIndex getVariableIndex()
+	{
+		return variableIndex;
+	}
+
+	/**
+	 * Set the layout of the input array read by the generated code.
+	 * 
+	 * @param variableIndex The variable index.
+	 */
+	public void setVariableIndex(final VariableIndex variableIndex)
+	{
+		this.variableIndex = variableIndex;
+	}
+
+	/**
+	 * Get the super class of the generated class.
+	 * 
+	 * @return The super class.
+	 */
+	public Class<?> getSuperclass()
+	{
+		return superclass;
+	}
+
+	/**
+	 * Set the super class of the generated class.
+	 * 
+	 * @param superclass The super class.
+	 */
+	public void setSuperclass(final Class<?> superclass)
+	{
+		this.superclass = superclass;
+	}
+
+	/**
+	 * Get the type of the uncompiled object passed to the constructor.
+	 * 
+	 * @return The uncompiled type.
+	 */
+	public Class<?> getUncompiledType()
+	{
+		return uncompiledType;
+	}
+
+	/**
+	 * Set the type of the uncompiled object passed to the constructor.
+	 * 
+	 * @param uncompiledType The uncompiled type.
+	 */
+	public void setUncompiledType(final Class<?> uncompiledType)
+	{
+		this.uncompiledType = uncompiledType;
+	}
+
+	/**
+	 * Get the signature of the value method.
+	 * 
+	 * @return The value method.
+	 */
+	public ValueMethod getValueMethod()
+	{
+		return valueMethod;
+	}
+
+	/**
+	 * Set the signature of the value method.
+	 * 
+	 * @param valueMethod The value method.
+	 */
+	public void setValueMethod(final ValueMethod valueMethod)
+	{
+		this.valueMethod = valueMethod;
+	}
+
+	/**
+	 * Get the body of the value method.
+	 * 
+	 * @return The statements.
+	 */
+	public List<Statement> getStatements()
+	{
+		return statements;
+	}
+
+	/**
+	 * Set the body of the value method.
+	 * 
+	 * @param statements The statements.
+	 */
+	public void setStatements(final List<Statement> statements)
+	{
+		this.statements = statements;
+	}
+
+}
@@ -0,0 +1,360 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.teneighty.leibniz.AbstractComposedDifferentiable;
+import org.teneighty.leibniz.CompiledDerivatives;
+import org.teneighty.leibniz.Constant;
+import org.teneighty.leibniz.DefaultGradient;
+import org.teneighty.leibniz.DefaultHessian;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.ForwardGradient;
+import org.teneighty.leibniz.Gradient;
+import org.teneighty.leibniz.Hessian;
+import org.teneighty.leibniz.HessianVectorProduct;
+import org.teneighty.leibniz.ReverseGradient;
+import org.teneighty.leibniz.SparseHessian;
+import org.teneighty.leibniz.Variable;
+
+
+/**
+ * Computes a digest of a compilation request that is stable across runs.
+ * <p>
+ * Unlike {@link Object#hashCode()}, which for most differentiables mixes in
+ * identity hash codes of classes, the digest depends only on class names,
+ * parameters, constant values, variable names and the shape of the expression
+ * graph. Shared subgraphs are digested once.
+ * <p>
+ * Only functions built entirely from this library's own classes are digested,
+ * since the library version (which is part of the digest) says nothing about
+ * the behavior of other classes.
+ */
+final class StructuralDigest
+{
+
+	/**
+	 * Package prefix of classes that may be digested.
+	 */
+	private static final String LIBRARY_PACKAGE = "org.teneighty.leibniz.";
+
+	/**
+	 * Tag for constants.
+	 */
+	private static final byte CONSTANT = 0;
+
+	/**
+	 * Tag for variables.
+	 */
+	private static final byte VARIABLE = 1;
+
+	/**
+	 * Tag for composed differentiables.
+	 */
+	private static final byte COMPOSED = 2;
+
+	/**
+	 * Compute the digest of the specified compilation request.
+	 * 
+	 * @param kind The kind of function.
+	 * @param uncompiled The uncompiled function.
+	 * @param variables The variables of the uncompiled function.
+	 * @param backend The backend.
+	 * @param version The library version.
+	 * @return The digest as a hexadecimal string, or <code>null</code> if
+	 *         <code>uncompiled</code> cannot be digested.
+	 */
+	static String of(final Class<?> kind, final Object uncompiled,
+			final Set<Variable> variables, final Backend backend,
+			final String version)
+	{
+		Differentiable root = root(kind, uncompiled);
+		if(root == null)
+		{
+			return null;
+		}
+
+		byte[] rootDigest = digest(root);
+		if(rootDigest == null)
+		{
+			return null;
+		}
+
+		MessageDigest digest = newDigest();
+		update(digest, version);
+		update(digest, kind.getName());
+		update(digest, backend.cacheName());
+		for(String name : sortedNames(variables))
+		{
+			update(digest, name);
+		}
+
+		digest.update(rootDigest);
+
+		return hex(digest.digest());
+	}
+
+	/**
+	 * Get the differentiable underlying the specified function.
+	 * 
+	 * @param kind The kind of function.
+	 * @param uncompiled The uncompiled function.
+	 * @return The differentiable, or <code>null</code> if
+	 *         <code>uncompiled</code> is not one of the library's own
+	 *         implementations.
+	 */
+	private static Differentiable root(final Class<?> kind, final Object uncompiled)
+	{
+		Class<?> type = uncompiled.getClass();
+		if(kind == Differentiable.class)
+		{
+			return (Differentiable)uncompiled;
+		}
+
+		if(kind == Gradient.class && (type == DefaultGradient.class || type == ReverseGradient.class || type == ForwardGradient.class))
+		{
+			return ((Gradient)uncompiled).differentiable();
+		}
+
+		if((kind == Hessian.class || kind == CompiledDerivatives.class) && (type == DefaultHessian.class || type == SparseHessian.class))
+		{
+			return ((Hessian)uncompiled).differentiable();
+		}
+
+		if(kind == HessianVectorProduct.class)
+		{
+			return ((HessianVectorProduct)uncompiled).differentiable();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Digest the specified expression graph.
+	 * 
+	 * @param root The root of the graph.
+	 * @return The digest, or <code>null</code> if the graph contains a node
+	 *         that cannot be digested.
+	 */
+	private static byte[] digest(final Differentiable root)
+	{
+		Map<Differentiable, byte[]> digests = new IdentityHashMap<Differentiable, byte[]>();
+
+		// iterative post-order traversal; a node is digested only once all of
+		// its arguments have been.
+		List<Differentiable> stack = new ArrayList<Differentiable>();
+		stack.add(root);
+		while(stack.isEmpty() == false)
+		{
+			Differentiable node = stack.get(stack.size() - 1);
+			if(digests.containsKey(node))
+			{
+				stack.remove(stack.size() - 1);
+				continue;
+			}
+
+			if(node.getClass().getName().startsWith(LIBRARY_PACKAGE) == false)
+			{
+				return null;
+			}
+
+			MessageDigest digest = newDigest();
+			if(node instanceof Constant)
+			{
+				digest.update(CONSTANT);
+				update(digest, Double.doubleToLongBits(((Constant)node).value()));
+			}
+			else if(node instanceof Variable)
+			{
+				digest.update(VARIABLE);
+				update(digest, ((Variable)node).name());
+			}
+			else if(node instanceof AbstractComposedDifferentiable)
+			{
+				AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)node;
+				boolean ready = true;
+				for(int index = composed.argumentCount() - 1; index >= 0; index--)
+				{
+					Differentiable argument = composed.argument(index);
+					if(digests.containsKey(argument) == false)
+					{
+						stack.add(argument);
+						ready = false;
+					}
+				}
+
+				if(ready == false)
+				{
+					continue;
+				}
+
+				digest.update(COMPOSED);
+				update(digest, node.getClass().getName());
+
+				double[] parameters = composed.parameters();
+				update(digest, parameters.length);
+				for(double parameter : parameters)
+				{
+					update(digest, Double.doubleToLongBits(parameter));
+				}
+
+				update(digest, composed.argumentCount());
+				for(int index = 0; index < composed.argumentCount(); index++)
+				{
+					digest.update(digests.get(composed.argument(index)));
+				}
+			}
+			else
+			{
+				return null;
+			}
+
+			stack.remove(stack.size() - 1);
+			digests.put(node, digest.digest());
+		}
+
+		return digests.get(root);
+	}
+
+	/**
+	 * Get the names of the specified variables, sorted.
+	 * 
+	 * @param variables The variables.
+	 * @return The sorted names.
+	 */
+	private static Set<String> sortedNames(final Set<Variable> variables)
+	{
+		Set<String> names = new TreeSet<String>();
+		for(Variable variable : variables)
+		{
+			names.add(variable.name());
+		}
+
+		return names;
+	}
+
+	/**
+	 * Create a new SHA-256 digest.
+	 * 
+	 * @return The digest.
+	 */
+	private static MessageDigest newDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch(final NoSuchAlgorithmException e)
+		{
+			// every Java platform is required to support SHA-256.
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * Update the specified digest with a length-prefixed string.
+	 * 
+	 * @param digest The digest.
+	 * @param value The string.
+	 */
+	private static void update(final MessageDigest digest, final String value)
+	{
+		try
+		{
+			byte[] bytes = value.getBytes("UTF-8");
+			update(digest, bytes.length);
+			digest.update(bytes);
+		}
+		catch(final UnsupportedEncodingException e)
+		{
+			// every Java platform is required to support UTF-8.
+			throw new IllegalStateException("UTF-8 is not available", e);
+		}
+	}
+
+	/**
+	 * Update the specified digest with an integer.
+	 * 
+	 * @param digest The digest.
+	 * @param value The integer.
+	 */
+	private static void update(final MessageDigest digest, final int value)
+	{
+		for(int shift = 24; shift >= 0; shift -= 8)
+		{
+			digest.update((byte)(value >>> shift));
+		}
+	}
+
+	/**
+	 * Update the specified digest with a long.
+	 * 
+	 * @param digest The digest.
+	 * @param value The long.
+	 */
+	private static void update(final MessageDigest digest, final long value)
+	{
+		for(int shift = 56; shift >= 0; shift -= 8)
+		{
+			digest.update((byte)(value >>> shift));
+		}
+	}
+
+	/**
+	 * Convert the specified bytes to a lowercase hexadecimal string.
+	 * 
+	 * @param bytes The bytes.
+	 * @return The string.
+	 */
+	private static String hex(final byte[] bytes)
+	{
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for(byte value : bytes)
+		{
+			builder.append(Character.forDigit((value >>> 4) & 0xf, 16));
+			builder.append(Character.forDigit(value & 0xf, 16));
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * Here only for access protection.
+	 */
+	private StructuralDigest()
+	{
+	}
+
+}
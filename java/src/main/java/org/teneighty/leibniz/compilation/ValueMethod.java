@@ -0,0 +1,233 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+
+/**
+ * Signatures of the value method implemented by generated classes, and of
+ * the batch method that evaluates it over columns of inputs.
+ */
+enum ValueMethod
+{
+
+	/**
+	 * Returns a single value computed from the input array.
+	 */
+	SCALAR("public double value(final double[] inputs)", "([D)D",
+			"protected void batch(final double[][] inputs, final double[] outputs, final int from, final int to)", "([[D[DII)V", null,
+			"inputs"),
+
+	/**
+	 * Writes values computed from the input array into the output array.
+	 */
+	BUFFERED("public void value(final double[] inputs, final double[] outputs)", "([D[D)V",
+			"protected void batch(final double[][] inputs, final double[][] outputs, final int from, final int to)", "([[D[[DII)V", null,
+			"inputs", "outputs"),
+
+	/**
+	 * Returns a value computed from the input array, and writes its gradient
+	 * and packed Hessian into the gradient and Hessian arrays. Has no batch
+	 * method.
+	 */
+	FUSED("public double value(final double[] inputs, final double[] gradient, final double[] hessian)", "([D[D[D)D",
+			null, null, null,
+			"inputs", "gradient", "hessian"),
+
+	/**
+	 * Writes several values computed from the input array into the output
+	 * array, and the nonzero entries of their Jacobian into the Jacobian
+	 * array. Has no batch method.
+	 */
+	JACOBIAN("public void value(final double[] inputs, final double[] outputs, final double[] jacobian)", "([D[D[D)V",
+			null, null, null,
+			"inputs", "outputs", "jacobian"),
+
+	/**
+	 * Writes the product of the Hessian of a value computed from the input
+	 * array with the direction array into the result array. Its batch method
+	 * takes a single direction, shared by all rows, and writes one column per
+	 * component of the product.
+	 */
+	HESSIAN_VECTOR("public void value(final double[] inputs, final double[] direction, final double[] result)", "([D[D[D)V",
+			"protected void batch(final double[][] inputs, final double[] direction, final double[][] outputs, final int from, final int to)",
+			"([[D[D[[DII)V", AdjointStatementGenerator.DIRECTION,
+			"inputs", "direction", "result"),
+
+	/**
+	 * Returns a value computed from the input array, and writes its
+	 * derivatives along the directions in the directions array into the
+	 * derivatives array. Has no batch method.
+	 */
+	DIRECTIONAL("public double value(final double[] inputs, final double[] directions, final double[] derivatives)", "([D[D[D)D",
+			null, null, null,
+			"inputs", "directions", "derivatives");
+
+	/**
+	 * The Java signature.
+	 */
+	private final String signature;
+
+	/**
+	 * The JVM descriptor.
+	 */
+	private final String descriptor;
+
+	/**
+	 * The Java signature of the batch method.
+	 */
+	private final String batchSignature;
+
+	/**
+	 * The JVM descriptor of the batch method.
+	 */
+	private final String batchDescriptor;
+
+	/**
+	 * The name of the array parameter that the batch method takes whole, if
+	 * any.
+	 */
+	private final String sharedArray;
+
+	/**
+	 * The names of the array parameters, in order.
+	 */
+	private final String[] arrays;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param signature The Java signature.
+	 * @param descriptor The JVM descriptor.
+	 * @param batchSignature The Java signature of the batch method.
+	 * @param batchDescriptor The JVM descriptor of the batch method.
+	 * @param sharedArray The name of the array parameter that the batch
+	 *            method takes whole, or <code>null</code>.
+	 * @param arrays The names of the array parameters, in order.
+	 */
+	private ValueMethod(final String signature, final String descriptor, final String batchSignature, final String batchDescriptor,
+			final String sharedArray, final String... arrays)
+	{
+		this.signature = signature;
+		this.descriptor = descriptor;
+		this.batchSignature = batchSignature;
+		this.batchDescriptor = batchDescriptor;
+		this.sharedArray = sharedArray;
+		this.arrays = arrays;
+	}
+
+	/**
+	 * Get the Java signature of the method.
+	 * 
+	 * @return The signature.
+	 */
+	String signature()
+	{
+		return signature;
+	}
+
+	/**
+	 * Get the JVM descriptor of the method.
+	 * 
+	 * @return The descriptor.
+	 */
+	String descriptor()
+	{
+		return descriptor;
+	}
+
+	/**
+	 * Get the names of the array parameters of the method, all of which are
+	 * <code>double[]</code>.
+	 * 
+	 * @return The names, in order.
+	 */
+	String[] arrays()
+	{
+		return arrays.clone();
+	}
+
+	/**
+	 * Check if the generated class has a batch method.
+	 * 
+	 * @return <code>true</code> if it does; <code>false</code> otherwise.
+	 */
+	boolean hasBatch()
+	{
+		return (batchSignature != null);
+	}
+
+	/**
+	 * Get the Java signature of the batch method.
+	 * <p>
+	 * The batch method evaluates rows <code>from</code> (inclusive) through
+	 * <code>to</code> (exclusive) of its inputs, which are given by column:
+	 * <code>inputs[slot][row]</code>. Its outputs are a single column if the
+	 * value method returns a value, and one column per element of the value
+	 * method's output array otherwise. An array parameter of the value method
+	 * that holds the same values for every row (see {@link #sharedArray()}) is
+	 * passed whole, between the inputs and the outputs.
+	 * 
+	 * @return The signature.
+	 */
+	String batchSignature()
+	{
+		return batchSignature;
+	}
+
+	/**
+	 * Get the JVM descriptor of the batch method.
+	 * 
+	 * @return The descriptor.
+	 */
+	String batchDescriptor()
+	{
+		return batchDescriptor;
+	}
+
+	/**
+	 * Get the name of the array parameter of the value method that the batch
+	 * method takes whole, shared by all rows; the statements may read its
+	 * elements, which the batch method reads from its parameter of the same
+	 * name.
+	 * 
+	 * @return The name, or <code>null</code> if the batch method takes only
+	 *         columns.
+	 */
+	String sharedArray()
+	{
+		return sharedArray;
+	}
+
+	/**
+	 * Check if the method returns a value, rather than writing to an output
+	 * array.
+	 * 
+	 * @return <code>true</code> if the method returns a value.
+	 */
+	boolean returnsValue()
+	{
+		return descriptor.endsWith(")D");
+	}
+
+}
@@ -0,0 +1,503 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.teneighty.leibniz.compilation.expression.BinaryOperator;
+import org.teneighty.leibniz.compilation.expression.ConstantDoubleExpression;
+import org.teneighty.leibniz.compilation.expression.Expression;
+import org.teneighty.leibniz.compilation.expression.ExpressionVisitor;
+import org.teneighty.leibniz.compilation.expression.UnaryOperator;
+import org.teneighty.leibniz.compilation.statement.Statement;
+import org.teneighty.leibniz.compilation.statement.StatementVisitor;
+
+
+/**
+ * Writes the Java source of a batch method that uses the Java Vector API
+ * (<code>jdk.incubator.vector</code>).
+ * <p>
+ * The method evaluates as many rows as fit in whole vectors of the preferred
+ * species with <code>DoubleVector</code> operations, and the remaining rows
+ * with a scalar tail loop identical to that of {@link BatchSourceWriter}.
+ * Arithmetic maps to lanewise arithmetic, so it rounds exactly as the scalar
+ * code does; small integer powers become multiplications; and
+ * <code>java.lang.Math</code> functions map to the Vector API's transcendental
+ * operators, which are accurate to within the error bounds of their
+ * <code>Math</code> counterparts but not necessarily bit-identical to them.
+ * <p>
+ * If the Vector API is not available to this JVM, or the statements call a
+ * method without a vector kernel, the plain scalar batch method is written
+ * instead.
+ */
+final class VectorBatchSourceWriter
+	implements StatementVisitor, ExpressionVisitor
+{
+
+	/**
+	 * The vector class.
+	 */
+	private static final String VECTOR = "jdk.incubator.vector.DoubleVector";
+
+	/**
+	 * The lanewise operators class.
+	 */
+	private static final String OPERATORS = "jdk.incubator.vector.VectorOperators";
+
+	/**
+	 * The largest magnitude of an integer power index expanded into
+	 * multiplications.
+	 */
+	private static final int MAXIMUM_EXPANDED_POWER = 4;
+
+	/**
+	 * Whether the Vector API is available.
+	 */
+	private static final boolean AVAILABLE = available();
+
+	/**
+	 * Lanewise operators of <code>java.lang.Math</code> methods, by name.
+	 */
+	private static final Map<String, String> OPERATORS_BY_METHOD = operatorsByMethod();
+
+	/**
+	 * Check if the Vector API is available to this JVM.
+	 * <p>
+	 * The incubator module is only resolved if the JVM is started with
+	 * <code>--add-modules jdk.incubator.vector</code>.
+	 *
+	 * @return <code>true</code> if it is available; <code>false</code>
+	 *         otherwise.
+	 */
+	static boolean isAvailable()
+	{
+		return AVAILABLE;
+	}
+
+	/**
+	 * Write the batch method for the specified value method statements.
+	 *
+	 * @param writer The writer.
+	 * @param valueMethod The value method signature.
+	 * @param statements The value method body statements.
+	 */
+	static void write(final PrintWriter writer, final ValueMethod valueMethod, final List<Statement> statements)
+	{
+		VectorBatchSourceWriter statementWriter = new VectorBatchSourceWriter();
+		List<String> lines = statementWriter.render(statements);
+		if(AVAILABLE == false || lines == null)
+		{
+			BatchSourceWriter.write(writer, valueMethod, statements);
+			return;
+		}
+
+		writer.println(String.format("\t%1$s", valueMethod.batchSignature()));
+		writer.println("\t{");
+		BatchSourceWriter.writeColumns(writer, new BatchLayout(valueMethod, statements));
+		writer.println(String.format("\t\tfinal jdk.incubator.vector.VectorSpecies<java.lang.Double> species = %1$s.SPECIES_PREFERRED;", VECTOR));
+		writer.println("\t\tfinal int bound = from + species.loopBound(to - from);");
+		writer.println("\t\tint row = from;");
+		writer.println("\t\tfor(; row < bound; row += species.length())");
+		writer.println("\t\t{");
+
+		for(String line : lines)
+		{
+			writer.print("\t\t\t");
+			writer.println(line);
+		}
+
+		writer.println("\t\t}");
+		BatchSourceWriter.writeRows(writer, "for(; row < to; row++)", statements);
+		writer.println("\t}");
+		writer.println();
+
+		for(Integer index : statementWriter.powers)
+		{
+			writePower(writer, index.intValue());
+		}
+	}
+
+	/**
+	 * Write a helper that raises a vector to the specified integer power.
+	 *
+	 * @param writer The writer.
+	 * @param index The index.
+	 */
+	private static void writePower(final PrintWriter writer, final int index)
+	{
+		writer.println(String.format("\tprivate static %1$s %2$s(final %1$s base)", VECTOR, powerName(index)));
+		writer.println("\t{");
+
+		StringBuilder product = new StringBuilder("base");
+		for(int factor = 1; factor < Math.abs(index); factor++)
+		{
+			product.append(".mul(base)");
+		}
+
+		if(index < 0)
+		{
+			writer.println(String.format("\t\treturn base.broadcast(1d).div(%1$s);", product));
+		}
+		else
+		{
+			writer.println(String.format("\t\treturn %1$s;", product));
+		}
+
+		writer.println("\t}");
+		writer.println();
+	}
+
+	/**
+	 * Get the name of the helper for the specified integer power.
+	 *
+	 * @param index The index.
+	 * @return The name.
+	 */
+	private static String powerName(final int index)
+	{
+		return (index < 0) ? String.format("power_m%1$s", -index) : String.format("power_%1$s", index);
+	}
+
+	/**
+	 * Get the integer index of a power that may be expanded into
+	 * multiplications.
+	 *
+	 * @param index The index expression.
+	 * @return The index, or zero if it is not a small non-zero integer
+	 *         constant.
+	 */
+	private static int expandedPower(final Expression index)
+	{
+		Expression constant = inlined(index);
+		if(constant instanceof ConstantDoubleExpression)
+		{
+			double value = ((ConstantDoubleExpression)constant).value();
+			if(value == Math.rint(value) && Math.abs(value) <= MAXIMUM_EXPANDED_POWER)
+			{
+				return (int)value;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Get the expression that the specified expression renders as.
+	 *
+	 * @param expression The expression.
+	 * @return The expression itself, or its referent if it is an inlined
+	 *         reference.
+	 */
+	private static Expression inlined(final Expression expression)
+	{
+		Expression inlined = expression;
+		while(inlined instanceof ReferenceExpression && ((ReferenceExpression)inlined).isLocal() == false)
+		{
+			inlined = ((ReferenceExpression)inlined).referent();
+		}
+
+		return inlined;
+	}
+
+	/**
+	 * Check if the Vector API is available to this JVM.
+	 *
+	 * @return <code>true</code> if it is available; <code>false</code>
+	 *         otherwise.
+	 */
+	private static boolean available()
+	{
+		try
+		{
+			Class.forName(VECTOR, false, VectorBatchSourceWriter.class.getClassLoader());
+			return true;
+		}
+		catch(final ClassNotFoundException classNotFoundException)
+		{
+			return false;
+		}
+		catch(final LinkageError linkageError)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Map <code>java.lang.Math</code> methods to lanewise operators.
+	 *
+	 * @return The map.
+	 */
+	private static Map<String, String> operatorsByMethod()
+	{
+		String[] methods = { "sin", "cos", "tan", "asin", "acos", "atan", "exp", "log", "log10", "expm1", "log1p",
+				"sinh", "cosh", "tanh", "cbrt", "sqrt", "abs", "pow", "atan2", "hypot" };
+
+		Map<String, String> operators = new HashMap<String, String>();
+		for(String method : methods)
+		{
+			operators.put(method, method.toUpperCase());
+		}
+
+		return operators;
+	}
+
+	/**
+	 * The code of the current statement.
+	 */
+	private final StringBuilder code;
+
+	/**
+	 * The integer powers used, which need helpers.
+	 */
+	private final TreeSet<Integer> powers;
+
+	/**
+	 * Whether every statement so far can be vectorized.
+	 */
+	private boolean vectorizable;
+
+	/**
+	 * Constructor.
+	 */
+	private VectorBatchSourceWriter()
+	{
+		code = new StringBuilder();
+		powers = new TreeSet<Integer>();
+		vectorizable = true;
+	}
+
+	/**
+	 * Render the specified statements as vector code.
+	 *
+	 * @param statements The statements.
+	 * @return The lines of code, or <code>null</code> if some statement can
+	 *         not be vectorized.
+	 */
+	private List<String> render(final List<Statement> statements)
+	{
+		List<String> lines = new ArrayList<String>(statements.size());
+		for(Statement statement : statements)
+		{
+			statement.accept(this);
+			if(vectorizable == false)
+			{
+				return null;
+			}
+
+			lines.add(code.toString());
+			code.setLength(0);
+		}
+
+		return lines;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitLocalDoubleDeclaration(java.lang.String, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitLocalDoubleDeclaration(final String localName, final Expression expression)
+	{
+		code.append("final ").append(VECTOR).append(" ").append(localName).append(" = ");
+		expression.accept(this);
+		code.append(";");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitArrayElementAssignment(java.lang.String, int, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitArrayElementAssignment(final String arrayName, final int index, final Expression expression)
+	{
+		expression.accept(this);
+		code.append(".intoArray(output_").append(index).append(", row);");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.statement.StatementVisitor#visitReturn(org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitReturn(final Expression expression)
+	{
+		expression.accept(this);
+		code.append(".intoArray(outputs, row);");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitConstant(double)
+	 */
+	@Override
+	public void visitConstant(final double value)
+	{
+		code.append(VECTOR).append(".broadcast(species, ").append(value).append("d)");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitInput(int)
+	 */
+	@Override
+	public void visitInput(final int slot)
+	{
+		code.append(VECTOR).append(".fromArray(species, input_").append(slot).append(", row)");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitArrayElement(java.lang.String, int)
+	 */
+	@Override
+	public void visitArrayElement(final String arrayName, final int index)
+	{
+		code.append(VECTOR).append(".broadcast(species, ").append(arrayName).append("[").append(index).append("])");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitLocal(java.lang.String)
+	 */
+	@Override
+	public void visitLocal(final String localName)
+	{
+		code.append(localName);
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitUnaryOperation(org.teneighty.leibniz.compilation.expression.UnaryOperator, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitUnaryOperation(final UnaryOperator operator, final Expression operand)
+	{
+		switch(operator)
+		{
+			case MINUS:
+				operand.accept(this);
+				code.append(".neg()");
+				break;
+
+			default:
+				vectorizable = false;
+		}
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitBinaryOperation(org.teneighty.leibniz.compilation.expression.Expression, org.teneighty.leibniz.compilation.expression.BinaryOperator, org.teneighty.leibniz.compilation.expression.Expression)
+	 */
+	@Override
+	public void visitBinaryOperation(final Expression left, final BinaryOperator operator, final Expression right)
+	{
+		String method;
+		switch(operator)
+		{
+			case PLUS:
+				method = "add";
+				break;
+
+			case MINUS:
+				method = "sub";
+				break;
+
+			case TIMES:
+				method = "mul";
+				break;
+
+			case DIVIDE:
+				method = "div";
+				break;
+
+			default:
+				vectorizable = false;
+				return;
+		}
+
+		left.accept(this);
+		code.append(".").append(method).append("(");
+		appendOperand(right);
+		code.append(")");
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor#visitStaticMethodCall(java.lang.String, java.lang.String, org.teneighty.leibniz.compilation.expression.Expression[])
+	 */
+	@Override
+	public void visitStaticMethodCall(final String fullyQualifiedClassName, final String methodName, final Expression[] arguments)
+	{
+		String operator = OPERATORS_BY_METHOD.get(methodName);
+		if(fullyQualifiedClassName.equals(Math.class.getName()) == false || operator == null || arguments.length == 0)
+		{
+			vectorizable = false;
+			return;
+		}
+
+		if(methodName.equals("pow") && arguments.length == 2)
+		{
+			int index = expandedPower(arguments[1]);
+			if(index == 1)
+			{
+				arguments[0].accept(this);
+				return;
+			}
+
+			if(index != 0)
+			{
+				powers.add(Integer.valueOf(index));
+				code.append(powerName(index)).append("(");
+				arguments[0].accept(this);
+				code.append(")");
+				return;
+			}
+		}
+
+		arguments[0].accept(this);
+		code.append(".lanewise(").append(OPERATORS).append(".").append(operator);
+		for(int argument = 1; argument < arguments.length; argument++)
+		{
+			code.append(", ");
+			appendOperand(arguments[argument]);
+		}
+
+		code.append(")");
+	}
+
+	/**
+	 * Append the right operand of a lanewise operation, as a scalar if it is a
+	 * constant.
+	 *
+	 * @param operand The operand.
+	 */
+	private void appendOperand(final Expression operand)
+	{
+		Expression inlined = inlined(operand);
+		if(inlined instanceof ConstantDoubleExpression)
+		{
+			code.append(((ConstantDoubleExpression)inlined).value()).append("d");
+		}
+		else
+		{
+			operand.accept(this);
+		}
+	}
+
+}
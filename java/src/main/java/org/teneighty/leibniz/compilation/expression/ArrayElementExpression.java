@@ -0,0 +1,75 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation.expression;
+
+
+/**
+ * Get an element of one of the array parameters of the generated method,
+ * other than the input array.
+ */
+public final class ArrayElementExpression
+	extends AbstractExpression
+{
+
+	/**
+	 * The name of the array.
+	 */
+	private final String arrayName;
+
+	/**
+	 * The index of the element.
+	 */
+	private final int index;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param arrayName The name of the array.
+	 * @param index The index of the element.
+	 */
+	public ArrayElementExpression(final String arrayName, final int index)
+	{
+		this.arrayName = arrayName;
+		this.index = index;
+	}
+
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.Expression#code()
+	 */
+	@Override
+	public String code()
+	{
+		return arrayName + "[" + index + "]";
+	}
+	
+	/**
+	 * @see org.teneighty.leibniz.compilation.expression.Expression#accept(org.teneighty.leibniz.compilation.expression.ExpressionVisitor)
+	 */
+	@Override
+	public void accept(final ExpressionVisitor visitor)
+	{
+		visitor.visitArrayElement(arrayName, index);
+	}
+
+}
@@ -0,0 +1,93 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation.expression;
+
+
+/**
+ * Visitor over the structure of expressions.
+ * <p>
+ * Used by backends that do not go through Java source code; each method
+ * corresponds to one kind of expression, and is handed the parts of that
+ * expression rather than the expression itself.
+ */
+public interface ExpressionVisitor
+{
+
+	/**
+	 * Visit a constant.
+	 * 
+	 * @param value The value of the constant.
+	 */
+	public void visitConstant(double value);
+
+	/**
+	 * Visit a read of an element of the input array.
+	 * 
+	 * @param slot The slot of the element.
+	 */
+	public void visitInput(int slot);
+
+	/**
+	 * Visit a read of an element of an array parameter other than the input
+	 * array.
+	 * 
+	 * @param arrayName The name of the array.
+	 * @param index The index of the element.
+	 */
+	public void visitArrayElement(String arrayName, int index);
+
+	/**
+	 * Visit a reference to a previously declared local.
+	 * 
+	 * @param localName The name of the local.
+	 */
+	public void visitLocal(String localName);
+
+	/**
+	 * Visit a unary operation.
+	 * 
+	 * @param operator The operator.
+	 * @param operand The operand.
+	 */
+	public void visitUnaryOperation(UnaryOperator operator, Expression operand);
+
+	/**
+	 * Visit a binary operation.
+	 * 
+	 * @param left The left operand.
+	 * @param operator The operator.
+	 * @param right The right operand.
+	 */
+	public void visitBinaryOperation(Expression left, BinaryOperator operator, Expression right);
+
+	/**
+	 * Visit a call of a static method taking and returning doubles.
+	 * 
+	 * @param fullyQualifiedClassName The fully qualified name of the class.
+	 * @param methodName The method name.
+	 * @param arguments The arguments.
+	 */
+	public void visitStaticMethodCall(String fullyQualifiedClassName, String methodName, Expression[] arguments);
+
+}
@@ -0,0 +1,61 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation.statement;
+
+import org.teneighty.leibniz.compilation.expression.Expression;
+
+
+/**
+ * Visitor over the structure of statements.
+ * 
+ * @see org.teneighty.leibniz.compilation.expression.ExpressionVisitor
+ */
+public interface StatementVisitor
+{
+
+	/**
+	 * Visit the declaration of a local double.
+	 * 
+	 * @param localName The name of the local.
+	 * @param expression The initial value.
+	 */
+	public void visitLocalDoubleDeclaration(String localName, Expression expression);
+
+	/**
+	 * Visit the assignment of an element of a double array.
+	 * 
+	 * @param arrayName The array name.
+	 * @param index The element index.
+	 * @param expression The value.
+	 */
+	public void visitArrayElementAssignment(String arrayName, int index, Expression expression);
+
+	/**
+	 * Visit a return statement.
+	 * 
+	 * @param expression The returned value.
+	 */
+	public void visitReturn(Expression expression);
+
+}
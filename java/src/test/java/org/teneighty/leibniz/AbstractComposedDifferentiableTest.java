@@ -0,0 +1,215 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.compilation.expression.BinaryOperationExpression;
+import org.teneighty.leibniz.compilation.expression.BinaryOperator;
+import org.teneighty.leibniz.compilation.expression.Expression;
+
+
+/**
+ * Tests for the defaults of abstract composed differentiable, as seen by
+ * functions that implement only {@link Differentiable#value(Assignment)}.
+ */
+public final class AbstractComposedDifferentiableTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-10;
+
+	/**
+	 * x variable.
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * y variable.
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Functions without local evaluation are opaque: graphs containing them
+	 * are evaluated and differentiated through their own value and derivative
+	 * methods.
+	 */
+	@Test
+	public void opaque()
+	{
+		Differentiable small = new Cube(x.plus(y)).times(y);
+		Differentiable large = small;
+		for(int term = 0; term < 40; term++)
+		{
+			large = large.plus(new Cube(x.times(term)));
+		}
+
+		Assignment assignment = new ArrayAssignment(new VariableIndex(x, y), new double[] { 0.3, 0.7 });
+		for(Differentiable function : new Differentiable[] { small, large })
+		{
+			double expected = function.value(assignment);
+			Assert.assertEquals(expected, function.interpret().value(assignment), TOLERANCE);
+
+			GradientValue symbolic = function.gradient(Mode.SYMBOLIC).value(assignment);
+			GradientValue reverse = function.gradient(Mode.REVERSE).value(assignment);
+			Assert.assertEquals(symbolic.value(x), reverse.value(x), TOLERANCE);
+			Assert.assertEquals(symbolic.value(y), reverse.value(y), TOLERANCE);
+		}
+
+		Assert.assertEquals(Math.pow(0.3 + 0.7, 3) * 0.7, small.value(assignment), TOLERANCE);
+	}
+
+	/**
+	 * Functions that can be recomposed are evaluated and differentiated
+	 * locally by the defaults.
+	 */
+	@Test
+	public void recomposed()
+	{
+		Cube cube = new RecomposableCube(x);
+		Assert.assertEquals(8d, cube.evaluate(new double[] { 2d }), TOLERANCE);
+		Assert.assertEquals(12d, cube.partial(0, new double[] { 2d }, 8d), TOLERANCE);
+	}
+
+	/**
+	 * Functions that can be neither evaluated nor recomposed say so.
+	 */
+	@Test
+	public void unsupported()
+	{
+		Cube cube = new Cube(x);
+		try
+		{
+			cube.evaluate(new double[] { 2d });
+			Assert.fail();
+		}
+		catch(final UnsupportedOperationException unsupportedOperationException)
+		{
+			Assert.assertTrue(unsupportedOperationException.getMessage().contains(Cube.class.getName()));
+		}
+
+		try
+		{
+			cube.partial(0, new double[] { 2d }, 8d);
+			Assert.fail();
+		}
+		catch(final UnsupportedOperationException unsupportedOperationException)
+		{
+			Assert.assertTrue(unsupportedOperationException.getMessage().contains(Cube.class.getName()));
+		}
+	}
+
+	/**
+	 * A cube written against the original interface, without local
+	 * evaluation.
+	 */
+	private static class Cube
+		extends AbstractComposedDifferentiable
+	{
+
+		/**
+		 * Serial version.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param argument The argument.
+		 */
+		Cube(final Differentiable argument)
+		{
+			super(argument);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.AbstractComposedDifferentiable#value(org.teneighty.leibniz.Assignment)
+		 */
+		@Override
+		public double value(final Assignment assignment)
+		{
+			double value = argument(0).value(assignment);
+			return value * value * value;
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.AbstractDifferentiable#derivativeCore(org.teneighty.leibniz.Variable)
+		 */
+		@Override
+		protected Differentiable derivativeCore(final Variable withRespectTo)
+		{
+			Differentiable argument = argument(0);
+			return argument.times(argument).times(3d).times(argument.derivative(withRespectTo));
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.Differentiable#expression(org.teneighty.leibniz.Context)
+		 */
+		@Override
+		public Expression expression(final Context context)
+		{
+			Expression argument = context.getExpression(argument(0));
+			return new BinaryOperationExpression(new BinaryOperationExpression(argument, BinaryOperator.TIMES, argument), BinaryOperator.TIMES,
+					argument);
+		}
+
+	}
+
+	/**
+	 * A cube that can also be recomposed.
+	 */
+	private static final class RecomposableCube
+		extends Cube
+	{
+
+		/**
+		 * Serial version.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param argument The argument.
+		 */
+		RecomposableCube(final Differentiable argument)
+		{
+			super(argument);
+		}
+
+		/**
+		 * @see org.teneighty.leibniz.AbstractComposedDifferentiable#recompose(org.teneighty.leibniz.Differentiable[])
+		 */
+		@Override
+		public Differentiable recompose(final Differentiable... arguments)
+		{
+			return new RecomposableCube(arguments[0]);
+		}
+
+	}
+
+}
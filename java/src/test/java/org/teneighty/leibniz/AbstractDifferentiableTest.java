@@ -0,0 +1,148 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.ln;
+import static org.teneighty.leibniz.Differentiables.normCdf;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+/**
+ * Tests for abstract differentiable.
+ */
+public final class AbstractDifferentiableTest
+{
+
+	/**
+	 * Number of concurrent threads.
+	 */
+	private static final int THREADS = 8;
+
+	/**
+	 * x variable.
+	 */
+	private Variable x = new Variable("x");
+
+	/**
+	 * y variable.
+	 */
+	private Variable y = new Variable("y");
+
+	/**
+	 * z variable.
+	 */
+	private Variable z = new Variable("z");
+
+	/**
+	 * Build the test function.
+	 * 
+	 * @return The function.
+	 */
+	private Differentiable function()
+	{
+		return exp(x.times(y)).plus(ln(z).times(sin(x).power(3)))
+				.minus(normCdf(y.dividedBy(z)).times(x.plus(y).plus(z)));
+	}
+
+	/**
+	 * Derivatives are cached.
+	 */
+	@Test
+	public void cached()
+	{
+		Differentiable function = function();
+		Assert.assertSame(function.derivative(x), function.derivative(x));
+		Assert.assertSame(function.derivative(x, y), function.derivative(x, y));
+	}
+
+	/**
+	 * Threads building the Hessian of a shared graph concurrently all see
+	 * the same derivatives.
+	 * 
+	 * @throws Exception If the test fails.
+	 */
+	@Test
+	public void concurrentDerivatives()
+		throws Exception
+	{
+		final Differentiable function = function();
+		final CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try
+		{
+			List<Future<Hessian>> futures = new ArrayList<Future<Hessian>>();
+			for(int thread = 0; thread < THREADS; thread++)
+			{
+				futures.add(executor.submit(new Callable<Hessian>()
+				{
+					@Override
+					public Hessian call()
+						throws Exception
+					{
+						start.await();
+						return function.hessian();
+					}
+				}));
+			}
+
+			start.countDown();
+
+			Hessian first = futures.get(0).get();
+			for(Future<Hessian> future : futures)
+			{
+				Hessian hessian = future.get();
+				for(HessianKey key : hessian.keys())
+				{
+					Assert.assertSame(first.component(key), hessian.component(key));
+				}
+			}
+
+			Assignment assignment = Assignment.Build.start().with(x, 0.3).with(y, -0.8).with(z, 2.1).finish();
+			Hessian expected = function().hessian();
+			for(HessianKey key : expected.keys())
+			{
+				Assert.assertEquals(expected.component(key).value(assignment), first.component(key).value(assignment));
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for ArrayAssignment.
+ */
+public final class ArrayAssignmentTest
+{
+
+	/**
+	 * Variable "x".
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Variable "y".
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * The layout.
+	 */
+	private final VariableIndex index = new VariableIndex(x, y);
+
+	/**
+	 * Indexed variables are always set.
+	 */
+	@Test
+	public void initiallyZero()
+	{
+		ArrayAssignment assignment = new ArrayAssignment(index);
+
+		Assert.assertTrue(assignment.isSet(x));
+		Assert.assertEquals(0.0, assignment.get(y));
+	}
+
+	/**
+	 * Variables outside the index are never set.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void unindexedThrowsException()
+	{
+		ArrayAssignment assignment = new ArrayAssignment(index);
+
+		Assert.assertFalse(assignment.isSet(new Variable("z")));
+		assignment.get(new Variable("z"));
+	}
+
+	/**
+	 * Writes through variables and slots hit the backing array.
+	 */
+	@Test
+	public void backingArray()
+	{
+		double[] values = new double[2];
+		ArrayAssignment assignment = new ArrayAssignment(index, values);
+
+		assignment.set(x, 1.5);
+		assignment.set(1, 2.5);
+		values[0] += 1.0;
+
+		Assert.assertEquals(2.5, assignment.get(x));
+		Assert.assertEquals(2.5, assignment.get(y));
+		Assert.assertEquals(2.5, assignment.get(1));
+	}
+
+	/**
+	 * The backing array must match the layout.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongLengthThrowsException()
+	{
+		new ArrayAssignment(index, new double[3]);
+	}
+
+	/**
+	 * Array assignments work with uncompiled differentiables.
+	 */
+	@Test
+	public void uncompiled()
+	{
+		ArrayAssignment assignment = new ArrayAssignment(index, new double[] { 3.0, 4.0 });
+
+		Assert.assertEquals(12.0, x.times(y).value(assignment));
+	}
+
+}
@@ -1,85 +1,85 @@
-/*  
- * $Id$  
- *   
- * Copyright (c) 2012-2013 Fran Lattanzio  
- *   
- * Permission is hereby granted, free of charge, to any person obtaining a copy 
- * of this software and associated documentation files (the "Software"), to deal  
- * in the Software without restriction, including without limitation the rights  
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
- * copies of the Software, and to permit persons to whom the Software is  
- * furnished to do so, subject to the following conditions:  
- *   
- * The above copyright notice and this permission notice shall be included in  
- * all copies or substantial portions of the Software.  
- *   
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
- * SOFTWARE.  
- */ 
-package org.teneighty.leibniz;
-
-import org.junit.Assert;
-import org.junit.Test;
-
-
-/**
- * Tests for the constant class.
- */
-public final class ConstantTest
-{
-
-	/**
-	 * Zero.
-	 */
-	@Test
-	public void zero()
-	{
-		Assert.assertTrue(Constant.ZERO.isZero());
-		Assert.assertTrue(new Constant(0).isZero());
-	}
-
-	/**
-	 * One constant.
-	 */
-	@Test
-	public void one()
-	{
-		Assert.assertTrue(Constant.ONE.isOne());
-		Assert.assertTrue(new Constant(1).isOne());
-	}
-
-	/**
-	 * Derivative test.
-	 */
-	@Test
-	public void derivative()
-	{
-		Constant c = new Constant(100);
-		Variable x = new Variable("x");
-		Assert.assertTrue(c.derivative(x).isZero());		
-	}
-
-	/**
-	 * Equality tests.
-	 */
-	@Test
-	public void equality()
-	{
-		Constant c1 = new Constant(100);
-		Constant c2 = new Constant(100);
-		Constant c3 = new Constant(101);
-		
-		Assert.assertTrue(c1.equals(c1));
-		Assert.assertTrue(c2.equals(c1));
-		Assert.assertTrue(c1.equals(c2));
-		
-		Assert.assertFalse(c1.equals(c3));
-		Assert.assertFalse(c2.equals(c3));		
-	}
-
-}
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Tests for the constant class.
+ */
+public final class ConstantTest
+{
+
+	/**
+	 * Zero.
+	 */
+	@Test
+	public void zero()
+	{
+		Assert.assertTrue(Constant.ZERO.isZero());
+		Assert.assertTrue(new Constant(0).isZero());
+	}
+
+	/**
+	 * One constant.
+	 */
+	@Test
+	public void one()
+	{
+		Assert.assertTrue(Constant.ONE.isOne());
+		Assert.assertTrue(new Constant(1).isOne());
+	}
+
+	/**
+	 * Derivative test.
+	 */
+	@Test
+	public void derivative()
+	{
+		Constant c = new Constant(100);
+		Variable x = new Variable("x");
+		Assert.assertTrue(c.derivative(x).isZero());		
+	}
+
+	/**
+	 * Equality tests.
+	 */
+	@Test
+	public void equality()
+	{
+		Constant c1 = new Constant(100);
+		Constant c2 = new Constant(100);
+		Constant c3 = new Constant(101);
+		
+		Assert.assertTrue(c1.equals(c1));
+		Assert.assertTrue(c2.equals(c1));
+		Assert.assertTrue(c1.equals(c2));
+		
+		Assert.assertFalse(c1.equals(c3));
+		Assert.assertFalse(c2.equals(c3));		
+	}
+
+}
@@ -0,0 +1,263 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.compilation.Backend;
+import org.teneighty.leibniz.compilation.Compiler;
+
+
+/**
+ * Tests that graph algorithms do not recurse on deep graphs.
+ * <p>
+ * Each test runs on a thread with a small stack, on which any recursion
+ * proportional to the depth of the graph overflows.
+ */
+public final class DeepGraphTest
+{
+
+	/**
+	 * The depth of the graphs.
+	 */
+	private static final int DEPTH = 100000;
+
+	/**
+	 * The stack size of the test threads, in bytes.
+	 */
+	private static final long STACK_SIZE = 256 * 1024;
+
+	/**
+	 * The variables.
+	 */
+	private final Variable[] variables = new Variable[] { new Variable("a"), new Variable("b"), new Variable("c") };
+
+	/**
+	 * Values, variables and constness of a long sum.
+	 */
+	@Test
+	public void value()
+		throws Throwable
+	{
+		run(new Runnable()
+		{
+
+			/**
+			 * @see java.lang.Runnable#run()
+			 */
+			@Override
+			public void run()
+			{
+				Differentiable sum = sum();
+				Assignment assignment = Assignment.Build.start().with(variables[0], 2d).with(variables[1], 2d).with(variables[2], 2d).finish();
+
+				Assert.assertEquals(2d * DEPTH, sum.value(assignment), 1e-6);
+				Assert.assertEquals(3, sum.variables().size());
+				Assert.assertFalse(sum.isConstant());
+			}
+
+		});
+	}
+
+	/**
+	 * Derivatives of a long sum and of a deep composition.
+	 */
+	@Test
+	public void derivative()
+		throws Throwable
+	{
+		run(new Runnable()
+		{
+
+			/**
+			 * @see java.lang.Runnable#run()
+			 */
+			@Override
+			public void run()
+			{
+				Assignment assignment = Assignment.Build.start().with(variables[0], 0.5).with(variables[1], 0.5).with(variables[2], 0.5).finish();
+				Assert.assertEquals((DEPTH + 2) / 3, sum().derivative(variables[0]).value(assignment), 1e-6);
+
+				Differentiable nested = variables[0];
+				for(int index = 0; index < DEPTH; index++)
+				{
+					nested = sin(nested);
+				}
+
+				double expected = 1d;
+				double value = 0.5;
+				for(int index = 0; index < DEPTH; index++)
+				{
+					expected *= Math.cos(value);
+					value = Math.sin(value);
+				}
+
+				Assert.assertEquals(value, nested.value(assignment), 1e-12);
+				Assert.assertEquals(expected, nested.derivative(variables[0]).value(assignment), 1e-12);
+			}
+
+		});
+	}
+
+	/**
+	 * Equality and hash codes of independently built long sums.
+	 */
+	@Test
+	public void equality()
+		throws Throwable
+	{
+		run(new Runnable()
+		{
+
+			/**
+			 * @see java.lang.Runnable#run()
+			 */
+			@Override
+			public void run()
+			{
+				Differentiable first = sum();
+				Differentiable second = sum();
+				Differentiable third = sum().plus(variables[0]);
+
+				Assert.assertNotSame(first, second);
+				Assert.assertEquals(first, second);
+				Assert.assertEquals(first.hashCode(), second.hashCode());
+				Assert.assertFalse(first.equals(third));
+
+				// commutative nodes compare either way round.
+				Assert.assertEquals(first.plus(second.times(variables[1])), variables[1].times(first).plus(second));
+			}
+
+		});
+	}
+
+	/**
+	 * Compilation of a long sum of products, and of the gradient of a
+	 * shorter one, with the scalar backends.
+	 */
+	@Test
+	public void compilation()
+		throws Throwable
+	{
+		run(new Runnable()
+		{
+
+			/**
+			 * @see java.lang.Runnable#run()
+			 */
+			@Override
+			public void run()
+			{
+				for(Backend backend : new Backend[] { Backend.JAVAC, Backend.BYTECODE })
+				{
+					CompiledDifferentiable compiled = Compiler.compile(products(4000), backend);
+					Assert.assertEquals(4000d * 4001d, compiled.value(new double[] { 2d }), 1e-6);
+
+					CompiledGradient gradient = Compiler.compile(products(1000).gradient(), backend);
+					double[] result = new double[1];
+					gradient.value(new double[] { 2d }, result);
+					Assert.assertEquals(1000d * 1001d / 2d, result[0], 1e-6);
+				}
+			}
+
+		});
+	}
+
+	/**
+	 * Build a sum of the first variable times 1, 2, and so on.
+	 * 
+	 * @param terms The number of terms.
+	 * @return The sum.
+	 */
+	private Differentiable products(final int terms)
+	{
+		Differentiable sum = Constant.ZERO;
+		for(int index = 1; index <= terms; index++)
+		{
+			sum = sum.plus(variables[0].times(index));
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Build a long sum of the variables, in rotation.
+	 * 
+	 * @return The sum.
+	 */
+	private Differentiable sum()
+	{
+		Differentiable sum = Constant.ZERO;
+		for(int index = 0; index < DEPTH; index++)
+		{
+			sum = sum.plus(variables[index % variables.length]);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Run the specified test on a thread with a small stack.
+	 * 
+	 * @param test The test.
+	 * @throws Throwable If the test fails.
+	 */
+	private static void run(final Runnable test)
+		throws Throwable
+	{
+		final Throwable[] failure = new Throwable[1];
+		Thread thread = new Thread(null, new Runnable()
+		{
+
+			/**
+			 * @see java.lang.Runnable#run()
+			 */
+			@Override
+			public void run()
+			{
+				try
+				{
+					test.run();
+				}
+				catch(final Throwable e)
+				{
+					failure[0] = e;
+				}
+			}
+
+		}, "deep", STACK_SIZE);
+
+		thread.start();
+		thread.join();
+
+		if(failure[0] != null)
+		{
+			throw failure[0];
+		}
+	}
+
+}
@@ -0,0 +1,333 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Tests for derivative cache policies.
+ */
+public final class DerivativeCacheTest
+{
+
+	/**
+	 * The policy before the test.
+	 */
+	private DerivativeCache.Policy policy;
+
+	/**
+	 * The maximum size before the test.
+	 */
+	private int maximumSize;
+
+	/**
+	 * x variable.
+	 */
+	private Variable x = new Variable("x");
+
+	/**
+	 * y variable.
+	 */
+	private Variable y = new Variable("y");
+
+	/**
+	 * Test assignment.
+	 */
+	private Assignment assignment = Assignment.Build.start().with(x, 0.6).with(y, 1.7).finish();
+
+	/**
+	 * Save the policy.
+	 */
+	@Before
+	public void save()
+	{
+		policy = DerivativeCache.policy();
+		maximumSize = DerivativeCache.maximumSize();
+	}
+
+	/**
+	 * Restore the policy.
+	 */
+	@After
+	public void restore()
+	{
+		DerivativeCache.setPolicy(policy);
+		DerivativeCache.setMaximumSize(maximumSize);
+	}
+
+	/**
+	 * Build the test function.
+	 * 
+	 * @return The function.
+	 */
+	private Differentiable function()
+	{
+		return exp(x.times(y)).plus(sin(x).times(y.power(3)));
+	}
+
+	/**
+	 * Strongly cached derivatives count towards the retained size.
+	 */
+	@Test
+	public void strong()
+	{
+		DerivativeCache.setPolicy(DerivativeCache.Policy.STRONG);
+
+		Differentiable product = x.times(y);
+		Assert.assertEquals(3, DerivativeCache.retainedSize(product));
+
+		Differentiable derivative = product.derivative(x);
+		Assert.assertSame(derivative, product.derivative(x));
+		Assert.assertTrue(DerivativeCache.retainedSize(product) > 3);
+	}
+
+	/**
+	 * The bounded policy caps the number of cached derivatives.
+	 */
+	@Test
+	public void bounded()
+	{
+		DerivativeCache.setPolicy(DerivativeCache.Policy.BOUNDED);
+		DerivativeCache.setMaximumSize(5);
+
+		long evictions = DerivativeCache.evictions();
+		Differentiable function = function();
+		Hessian hessian = function.hessian();
+
+		Assert.assertTrue(DerivativeCache.size() <= 5);
+		Assert.assertTrue(DerivativeCache.evictions() > evictions);
+
+		DerivativeCache.setPolicy(DerivativeCache.Policy.STRONG);
+		Hessian expected = function().hessian();
+		for(HessianKey key : expected.keys())
+		{
+			Assert.assertEquals(expected.component(key).value(assignment), hessian.component(key).value(assignment));
+		}
+	}
+
+	/**
+	 * Weakly cached derivatives are reclaimed once unreachable, and rebuilt on
+	 * demand.
+	 */
+	@Test
+	public void weak()
+	{
+		DerivativeCache.setPolicy(DerivativeCache.Policy.WEAK);
+
+		Differentiable function = function();
+		double expected = function.derivative(x, y).value(assignment);
+
+		int retained = DerivativeCache.retainedSize(function);
+		for(int attempt = 0; attempt < 10 && DerivativeCache.retainedSize(function) >= retained; attempt++)
+		{
+			System.gc();
+		}
+
+		Assert.assertTrue(DerivativeCache.retainedSize(function) < retained);
+		Assert.assertEquals(expected, function.derivative(x, y).value(assignment));
+	}
+
+	/**
+	 * Caches are only allocated once something is cached, and keep every
+	 * derivative as they grow.
+	 */
+	@Test
+	public void growth()
+	{
+		DerivativeCache.setPolicy(DerivativeCache.Policy.STRONG);
+
+		Variable[] variables = variables("g", 20);
+		AbstractDifferentiable sum = (AbstractDifferentiable)sum(variables);
+		Assert.assertTrue(sum.cachedDerivatives().isEmpty());
+
+		List<Differentiable> derivatives = new ArrayList<Differentiable>();
+		for(Variable variable : variables)
+		{
+			derivatives.add(sum.derivative(variable));
+			Assert.assertEquals(derivatives.size(), sum.cachedDerivatives().size());
+		}
+
+		for(int index = 0; index < variables.length; index++)
+		{
+			Assert.assertSame(derivatives.get(index), sum.derivative(variables[index]));
+			Assert.assertSame(derivatives.get(index), sum.derivative(new Variable(variables[index].name())));
+		}
+	}
+
+	/**
+	 * Threads differentiating concurrently all see the same derivatives.
+	 */
+	@Test
+	public void concurrent()
+		throws Exception
+	{
+		DerivativeCache.setPolicy(DerivativeCache.Policy.STRONG);
+
+		final Variable[] variables = variables("c", 12);
+		final Differentiable sum = sum(variables);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<Differentiable[]>> futures = new ArrayList<Future<Differentiable[]>>();
+			for(int thread = 0; thread < 8; thread++)
+			{
+				final int offset = thread;
+				futures.add(executor.submit(new Callable<Differentiable[]>()
+				{
+
+					/**
+					 * @see java.util.concurrent.Callable#call()
+					 */
+					@Override
+					public Differentiable[] call()
+					{
+						Differentiable[] derivatives = new Differentiable[variables.length];
+						for(int index = 0; index < variables.length; index++)
+						{
+							int slot = (index + offset) % variables.length;
+							derivatives[slot] = sum.derivative(variables[slot]);
+						}
+
+						return derivatives;
+					}
+
+				}));
+			}
+
+			Differentiable[] first = futures.get(0).get();
+			for(Future<Differentiable[]> future : futures)
+			{
+				Differentiable[] derivatives = future.get();
+				for(int index = 0; index < variables.length; index++)
+				{
+					Assert.assertSame(first[index], derivatives[index]);
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Create the specified number of variables.
+	 * 
+	 * @param prefix The prefix of their names.
+	 * @param count The count.
+	 * @return The variables.
+	 */
+	private static Variable[] variables(final String prefix, final int count)
+	{
+		Variable[] variables = new Variable[count];
+		for(int index = 0; index < count; index++)
+		{
+			variables[index] = new Variable(String.format("%1$s_%2$s", prefix, index));
+		}
+
+		return variables;
+	}
+
+	/**
+	 * Build a sum of sines of the specified variables.
+	 * 
+	 * @param variables The variables.
+	 * @return The sum.
+	 */
+	private static Differentiable sum(final Variable[] variables)
+	{
+		Differentiable sum = sin(variables[0]);
+		for(int index = 1; index < variables.length; index++)
+		{
+			sum = sum.plus(sin(variables[index]));
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Evicting a stale entry leaves a derivative republished since in place,
+	 * even if the two are equal.
+	 */
+	@Test
+	public void republished()
+	{
+		DerivativeCache.setPolicy(DerivativeCache.Policy.BOUNDED);
+		DerivativeCache.setMaximumSize(0);
+		DerivativeCache.setMaximumSize(2);
+
+		AbstractDifferentiable owner = (AbstractDifferentiable)x.times(y);
+		Differentiable first = new Constant(1.5);
+		Differentiable second = new Constant(1.5);
+
+		Assert.assertSame(first, DerivativeCache.publish(owner, x, first));
+		Assert.assertTrue(owner.replaceCached(x, first, null));
+		Assert.assertSame(second, DerivativeCache.publish(owner, x, second));
+
+		long evictions = DerivativeCache.evictions();
+		DerivativeCache.setMaximumSize(1);
+
+		Assert.assertEquals(1, DerivativeCache.size());
+		Assert.assertEquals(evictions, DerivativeCache.evictions());
+		Assert.assertSame(second, owner.cached(x));
+	}
+
+	/**
+	 * Policy names are parsed leniently, and unknown names fall back to the
+	 * default rather than failing class initialization.
+	 */
+	@Test
+	public void parsePolicy()
+	{
+		Assert.assertEquals(DerivativeCache.Policy.WEAK, DerivativeCache.parsePolicy("WEAK"));
+		Assert.assertEquals(DerivativeCache.Policy.BOUNDED, DerivativeCache.parsePolicy(" bounded "));
+		Assert.assertEquals(DerivativeCache.Policy.STRONG, DerivativeCache.parsePolicy(null));
+		Assert.assertEquals(DerivativeCache.Policy.STRONG, DerivativeCache.parsePolicy("sideways"));
+	}
+
+	/**
+	 * Illegal sizes are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeSize()
+	{
+		DerivativeCache.setMaximumSize(-1);
+	}
+
+}
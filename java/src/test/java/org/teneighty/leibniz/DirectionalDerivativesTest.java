@@ -0,0 +1,260 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.acos;
+import static org.teneighty.leibniz.Differentiables.acosh;
+import static org.teneighty.leibniz.Differentiables.asin;
+import static org.teneighty.leibniz.Differentiables.asinh;
+import static org.teneighty.leibniz.Differentiables.atan;
+import static org.teneighty.leibniz.Differentiables.atan2;
+import static org.teneighty.leibniz.Differentiables.atanh;
+import static org.teneighty.leibniz.Differentiables.cbrt;
+import static org.teneighty.leibniz.Differentiables.cos;
+import static org.teneighty.leibniz.Differentiables.cosh;
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.hypot;
+import static org.teneighty.leibniz.Differentiables.ln;
+import static org.teneighty.leibniz.Differentiables.log10;
+import static org.teneighty.leibniz.Differentiables.normCdf;
+import static org.teneighty.leibniz.Differentiables.normPdf;
+import static org.teneighty.leibniz.Differentiables.pow;
+import static org.teneighty.leibniz.Differentiables.sin;
+import static org.teneighty.leibniz.Differentiables.sinh;
+import static org.teneighty.leibniz.Differentiables.sqrt;
+import static org.teneighty.leibniz.Differentiables.tan;
+import static org.teneighty.leibniz.Differentiables.tanh;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.compilation.Backend;
+import org.teneighty.leibniz.compilation.Compiler;
+
+
+/**
+ * Tests for vector forward mode.
+ */
+public final class DirectionalDerivativesTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-10;
+
+	/**
+	 * Number of directions.
+	 */
+	private static final int COUNT = 3;
+
+	/**
+	 * First variable.
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Second variable.
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Make one function per library function, each with its argument in the
+	 * function's domain at {@link #inputs()}.
+	 * 
+	 * @return The functions.
+	 */
+	private Differentiable[] functions()
+	{
+		// u is in (0, 1) and w is greater than 1 at the inputs.
+		Differentiable u = x.times(y);
+		Differentiable w = x.plus(y).plus(1d);
+		return new Differentiable[] {
+			u.plus(w), u.minus(w), u.times(w), u.over(w), u.negate(), exp(u), ln(w), log10(w), pow(w, 3.5), pow(w, u), sqrt(w), cbrt(u),
+			sin(u), cos(u), tan(u), asin(u), acos(u), atan(w), atan2(u, w), sinh(u), cosh(u), tanh(w), asinh(w), acosh(w), atanh(u),
+			hypot(u, w), normCdf(u.minus(w)), normPdf(w),
+		};
+	}
+
+	/**
+	 * Make the inputs.
+	 * 
+	 * @return The inputs, laid out by <code>x, y</code>.
+	 */
+	private static double[] inputs()
+	{
+		return new double[] { 0.6, 0.9 };
+	}
+
+	/**
+	 * Make the directions.
+	 * 
+	 * @return The directions, laid out slot by slot.
+	 */
+	private static double[] directions()
+	{
+		return new double[] { 1d, 0d, 0.3, 0d, 1d, -1.7 };
+	}
+
+	/**
+	 * Compute the expected derivatives from the symbolic ones.
+	 * 
+	 * @param differentiable The differentiable.
+	 * @param index The layout.
+	 * @return The expected derivatives.
+	 */
+	private static double[] expected(final Differentiable differentiable, final VariableIndex index)
+	{
+		Assignment assignment = new ArrayAssignment(index, inputs());
+		double[] directions = directions();
+		double[] expected = new double[COUNT];
+		for(int slot = 0; slot < index.size(); slot++)
+		{
+			double partial = differentiable.derivative(index.variable(slot)).value(assignment);
+			for(int direction = 0; direction < COUNT; direction++)
+			{
+				expected[direction] += partial * directions[(slot * COUNT) + direction];
+			}
+		}
+
+		return expected;
+	}
+
+	/**
+	 * Test every library function, interpreted and compiled, against
+	 * symbolic derivatives.
+	 */
+	@Test
+	public void libraryFunctions()
+	{
+		VariableIndex index = new VariableIndex(x, y);
+		for(Differentiable function : functions())
+		{
+			DirectionalDerivatives derivatives = new DirectionalDerivatives(function, COUNT);
+			Assert.assertEquals(index, derivatives.index());
+
+			double value = function.value(new ArrayAssignment(index, inputs()));
+			double[] expected = expected(function, index);
+
+			double[] interpreted = new double[COUNT];
+			Assert.assertEquals(value, derivatives.value(inputs(), directions(), interpreted), TOLERANCE);
+			for(Backend backend : new Backend[] { Backend.JAVAC, Backend.BYTECODE })
+			{
+				CompiledDirectionalDerivatives compiled = Compiler.compile(derivatives, backend);
+				double[] result = new double[COUNT];
+				Assert.assertEquals(value, compiled.value(inputs(), directions(), result), TOLERANCE);
+				for(int direction = 0; direction < COUNT; direction++)
+				{
+					Assert.assertEquals(function.toString(), expected[direction], interpreted[direction], TOLERANCE);
+					Assert.assertEquals(function.toString(), expected[direction], result[direction], TOLERANCE);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test derivatives along directions given by variable.
+	 */
+	@Test
+	public void assignment()
+	{
+		Differentiable function = exp(x).times(sin(y)).plus(x.over(y));
+		DirectionalDerivatives derivatives = new DirectionalDerivatives(function, 2);
+		VariableIndex index = derivatives.index();
+		Assignment assignment = new ArrayAssignment(index, inputs());
+
+		double[] result = derivatives.value(assignment, new ArrayGradientValue(index, new double[] { 1d, 0d }),
+				new ArrayGradientValue(index, new double[] { 2d, -1d }));
+		double dx = function.derivative(x).value(assignment);
+		double dy = function.derivative(y).value(assignment);
+		Assert.assertEquals(dx, result[0], TOLERANCE);
+		Assert.assertEquals((2d * dx) - dy, result[1], TOLERANCE);
+	}
+
+	/**
+	 * Test forward mode gradients against symbolic ones.
+	 */
+	@Test
+	public void forwardGradient()
+	{
+		Variable z = new Variable("z");
+		Differentiable function = atan2(x, y).times(exp(x.times(y))).plus(normCdf(x.minus(y)));
+		Set<Variable> variables = new HashSet<Variable>(function.variables());
+		variables.add(z);
+
+		Gradient forward = function.gradient(variables, Mode.FORWARD);
+		Assert.assertTrue(forward instanceof ForwardGradient);
+
+		Assignment assignment = new ArrayAssignment(new VariableIndex(x, y), inputs());
+		GradientValue value = forward.value(assignment);
+		Assert.assertEquals(function.derivative(x).value(assignment), value.value(x), TOLERANCE);
+		Assert.assertEquals(function.derivative(y).value(assignment), value.value(y), TOLERANCE);
+		Assert.assertEquals(0d, value.value(z), 0d);
+	}
+
+	/**
+	 * Test that forward and reverse mode agree where a subtree the direction
+	 * does not depend on has an infinite local partial.
+	 */
+	@Test
+	public void nonFinitePartial()
+	{
+		// sqrt has an infinite slope at zero, but only y flows into it.
+		Differentiable function = x.times(y).plus(sqrt(y)).plus(x.times(exp(sqrt(y).negate())));
+		Set<Variable> variables = function.variables();
+		Assignment assignment = Assignment.Build.start().with(x, 0.6).with(y, 0d).finish();
+
+		GradientValue reverse = function.gradient(variables, Mode.REVERSE).value(assignment);
+		GradientValue forward = function.gradient(variables, Mode.FORWARD).value(assignment);
+		Assert.assertEquals(1d, reverse.value(x), TOLERANCE);
+		Assert.assertEquals(reverse.value(x), forward.value(x), TOLERANCE);
+		Assert.assertEquals(reverse.value(y), forward.value(y));
+
+		double[] derivatives = new double[1];
+		new DirectionalDerivatives(function, 1).value(new double[] { 0.6, 0d }, new double[] { 1d, 0d }, derivatives);
+		Assert.assertEquals(reverse.value(x), derivatives[0], TOLERANCE);
+	}
+
+	/**
+	 * Test that the number of directions is checked.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void noDirections()
+	{
+		new DirectionalDerivatives(x, 0);
+	}
+
+	/**
+	 * Test that array lengths are checked.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongLength()
+	{
+		new DirectionalDerivatives(x.times(y), COUNT).value(inputs(), new double[COUNT], new double[COUNT]);
+	}
+
+}
@@ -0,0 +1,232 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.cos;
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.ln;
+import static org.teneighty.leibniz.Differentiables.normCdf;
+import static org.teneighty.leibniz.Differentiables.sin;
+import static org.teneighty.leibniz.Differentiables.sqrt;
+import static org.teneighty.leibniz.Differentiables.tan;
+import static org.teneighty.leibniz.Differentiables.tanh;
+
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.compilation.Backend;
+import org.teneighty.leibniz.compilation.Compiler;
+
+
+/**
+ * Tests for Hessian-vector products.
+ */
+public final class HessianVectorProductTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-10;
+
+	/**
+	 * First variable.
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Second variable.
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Third variable.
+	 */
+	private final Variable z = new Variable("z");
+
+	/**
+	 * A function exercising the inline instructions, generic functions,
+	 * exponentiation and shared subexpressions.
+	 */
+	private final Differentiable function = function();
+
+	/**
+	 * Make the function.
+	 * 
+	 * @return The function.
+	 */
+	private Differentiable function()
+	{
+		Differentiable shared = x.times(y);
+		return exp(x).times(sin(y)).plus(x.over(z)).plus(ln(z).times(y.cubed())).plus(tan(shared)).plus(shared.squared())
+				.plus(normCdf(z.minus(x))).plus(x.toThe(y)).minus(cos(z).times(sqrt(x))).plus(tanh(y.over(x)));
+	}
+
+	/**
+	 * Make the inputs.
+	 * 
+	 * @return The inputs, laid out by <code>x, y, z</code>.
+	 */
+	private static double[] inputs()
+	{
+		return new double[] { 0.7, 0.4, 1.3 };
+	}
+
+	/**
+	 * Compute the product of the full Hessian with the specified direction.
+	 * 
+	 * @param differentiable The differentiable.
+	 * @param index The layout.
+	 * @param inputs The inputs.
+	 * @param direction The direction.
+	 * @return The product.
+	 */
+	private static double[] expected(final Differentiable differentiable, final VariableIndex index, final double[] inputs,
+			final double[] direction)
+	{
+		HessianValue hessian = differentiable.hessian().value(new ArrayAssignment(index, inputs));
+		double[] expected = new double[index.size()];
+		for(int row = 0; row < expected.length; row++)
+		{
+			for(int column = 0; column < expected.length; column++)
+			{
+				expected[row] += hessian.value(index.variable(row), index.variable(column)) * direction[column];
+			}
+		}
+
+		return expected;
+	}
+
+	/**
+	 * Test interpreted products against the full Hessian.
+	 */
+	@Test
+	public void value()
+	{
+		HessianVectorProduct product = new HessianVectorProduct(function);
+		VariableIndex index = product.index();
+		Assert.assertEquals(new VariableIndex(x, y, z), index);
+
+		double[] inputs = inputs();
+		double[][] directions = { { 1d, 0d, 0d }, { 0d, 1d, 0d }, { 0d, 0d, 1d }, { 0.3, -1.2, 2.5 } };
+		for(double[] direction : directions)
+		{
+			double[] result = new double[index.size()];
+			product.value(inputs, direction, result);
+
+			double[] expected = expected(function, index, inputs, direction);
+			for(int slot = 0; slot < result.length; slot++)
+			{
+				Assert.assertEquals(expected[slot], result[slot], TOLERANCE);
+			}
+		}
+	}
+
+	/**
+	 * Test compiled products, on both backends, against interpreted ones.
+	 */
+	@Test
+	public void compiled()
+	{
+		HessianVectorProduct product = new HessianVectorProduct(function);
+		double[] inputs = inputs();
+		double[] direction = { -0.8, 0.6, 1.1 };
+		double[] expected = new double[3];
+		product.value(inputs, direction, expected);
+
+		for(Backend backend : new Backend[] { Backend.JAVAC, Backend.BYTECODE })
+		{
+			CompiledHessianVectorProduct compiled = Compiler.compile(product, backend);
+			Assert.assertSame(product, compiled.uncompiled());
+			Assert.assertEquals(product.index(), compiled.variableIndex());
+
+			double[] result = new double[3];
+			compiled.value(inputs, direction, result);
+			for(int slot = 0; slot < result.length; slot++)
+			{
+				Assert.assertEquals(expected[slot], result[slot], TOLERANCE);
+			}
+		}
+	}
+
+	/**
+	 * Test products through the Hessian, keyed by variable.
+	 */
+	@Test
+	public void hessian()
+	{
+		Hessian hessian = function.hessian();
+		VariableIndex index = new VariableIndex(x, y, z);
+		double[] inputs = inputs();
+		double[] direction = { 2d, 0.5, -1d };
+
+		GradientValue result = hessian.hessianVectorProduct(new ArrayAssignment(index, inputs), new ArrayGradientValue(index, direction));
+		double[] expected = expected(function, index, inputs, direction);
+		for(int slot = 0; slot < expected.length; slot++)
+		{
+			Assert.assertEquals(expected[slot], result.value(index.variable(slot)), TOLERANCE);
+		}
+
+		Assert.assertSame(hessian.vectorProduct(), hessian.vectorProduct());
+	}
+
+	/**
+	 * Test that linear and trivial functions have zero products.
+	 */
+	@Test
+	public void linear()
+	{
+		Differentiable[] functions = { x.times(3d).minus(y).plus(z), x, x.plus(Constant.ONE).negate() };
+		for(Differentiable linear : functions)
+		{
+			HessianVectorProduct product = new HessianVectorProduct(linear);
+			int size = product.index().size();
+			double[] inputs = new double[size];
+			double[] direction = new double[size];
+			Arrays.fill(direction, 1d);
+
+			double[] interpreted = new double[size];
+			product.value(inputs, direction, interpreted);
+			double[] compiled = new double[size];
+			product.compile().value(inputs, direction, compiled);
+			for(int slot = 0; slot < size; slot++)
+			{
+				Assert.assertEquals(0d, interpreted[slot], 0d);
+				Assert.assertEquals(0d, compiled[slot], 0d);
+			}
+		}
+	}
+
+	/**
+	 * Test that array lengths are checked.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongLength()
+	{
+		new HessianVectorProduct(function).value(inputs(), new double[2], new double[3]);
+	}
+
+}
@@ -0,0 +1,157 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Tests for the interner.
+ */
+public final class InternerTest
+{
+
+	/**
+	 * Whether interning was enabled before the test.
+	 */
+	private boolean wasEnabled;
+
+	/**
+	 * Enable interning.
+	 */
+	@Before
+	public void enable()
+	{
+		wasEnabled = Interner.isEnabled();
+		Interner.setEnabled(true);
+	}
+
+	/**
+	 * Restore interning.
+	 */
+	@After
+	public void restore()
+	{
+		Interner.setEnabled(wasEnabled);
+	}
+
+	/**
+	 * Build a test function of fresh variables.
+	 * 
+	 * @return The function.
+	 */
+	private static Differentiable function()
+	{
+		Variable x = new Variable("x");
+		Variable y = new Variable("y");
+
+		return exp(x.times(y)).plus(sin(x).power(2)).minus(y.dividedBy(x).negate());
+	}
+
+	/**
+	 * Structures built independently share an instance.
+	 */
+	@Test
+	public void sharing()
+	{
+		Differentiable first = function();
+		Differentiable second = function();
+
+		Assert.assertSame(first, second);
+		Assert.assertTrue(((AbstractComposedDifferentiable)first).isCanonical());
+	}
+
+	/**
+	 * Commutative functions share an instance regardless of argument order.
+	 */
+	@Test
+	public void commutative()
+	{
+		Variable x = new Variable("x");
+		Variable y = new Variable("y");
+
+		Assert.assertSame(x.times(y), y.times(x));
+		Assert.assertSame(x.plus(y), y.plus(x));
+		Assert.assertNotSame(x.minus(y), y.minus(x));
+	}
+
+	/**
+	 * Distinct canonical structures are unequal.
+	 */
+	@Test
+	public void distinct()
+	{
+		Variable x = new Variable("x");
+		Variable y = new Variable("y");
+
+		Assert.assertFalse(x.plus(y).equals(x.minus(y)));
+		Assert.assertFalse(x.power(2).equals(x.power(3)));
+		Assert.assertFalse(x.minus(y).equals(y.minus(x)));
+	}
+
+	/**
+	 * Canonical and non-canonical instances of a structure are still equal.
+	 */
+	@Test
+	public void mixed()
+	{
+		Differentiable canonical = function();
+
+		Interner.setEnabled(false);
+		Differentiable uninterned = function();
+
+		Assert.assertNotSame(canonical, uninterned);
+		Assert.assertFalse(((AbstractComposedDifferentiable)uninterned).isCanonical());
+		Assert.assertEquals(canonical, uninterned);
+		Assert.assertEquals(uninterned, canonical);
+		Assert.assertEquals(canonical.hashCode(), uninterned.hashCode());
+	}
+
+	/**
+	 * Derivative graphs are interned and evaluate as before.
+	 */
+	@Test
+	public void derivatives()
+	{
+		Differentiable canonical = function();
+		Variable x = new Variable("x");
+		Assignment assignment = Assignment.Build.start().with(x, 0.7).with(new Variable("y"), -1.3).finish();
+
+		Interner.setEnabled(false);
+		Differentiable uninterned = function();
+		Interner.setEnabled(true);
+
+		Differentiable derivative = canonical.derivative(x).derivative(x);
+		Assert.assertSame(derivative, function().derivative(x).derivative(x));
+		Assert.assertEquals(uninterned.derivative(x).derivative(x).value(assignment), derivative.value(assignment));
+	}
+
+}
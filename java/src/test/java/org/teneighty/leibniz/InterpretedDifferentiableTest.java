@@ -0,0 +1,151 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.atan;
+import static org.teneighty.leibniz.Differentiables.cos;
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.ln;
+import static org.teneighty.leibniz.Differentiables.normCdf;
+import static org.teneighty.leibniz.Differentiables.sin;
+import static org.teneighty.leibniz.Differentiables.sinh;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+/**
+ * Tests for interpreted differentiables.
+ */
+public final class InterpretedDifferentiableTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-12;
+
+	/**
+	 * x variable.
+	 */
+	private Variable x = new Variable("x");
+
+	/**
+	 * y variable.
+	 */
+	private Variable y = new Variable("y");
+
+	/**
+	 * Test assignment.
+	 */
+	private Assignment assignment = Assignment.Build.start().with(x, 0.4).with(y, 1.9).finish();
+
+	/**
+	 * Inline instructions and generic nodes agree with plain evaluation.
+	 */
+	@Test
+	public void value()
+	{
+		Differentiable function = exp(x.times(y)).minus(ln(y).dividedBy(x.negate()))
+				.plus(sin(x).times(cos(y)).power(3))
+				.plus(x.power(y))
+				.plus(normCdf(atan(x)).times(sinh(y)))
+				.plus(7);
+
+		InterpretedDifferentiable interpreted = function.interpret();
+		Assert.assertEquals(function.value(assignment), interpreted.value(assignment), TOLERANCE);
+	}
+
+	/**
+	 * Inputs can be read from an array, and evaluation can avoid allocation.
+	 */
+	@Test
+	public void arrayInputs()
+	{
+		Differentiable function = x.times(y).plus(y.dividedBy(x));
+		InterpretedDifferentiable interpreted = function.interpret();
+		VariableIndex index = interpreted.variableIndex();
+
+		double[] inputs = new double[index.size()];
+		inputs[index.slot(x)] = 0.4;
+		inputs[index.slot(y)] = 1.9;
+
+		double[] registers = new double[interpreted.registerCount()];
+		Assert.assertEquals(function.value(assignment), interpreted.value(inputs), TOLERANCE);
+		Assert.assertEquals(function.value(assignment), interpreted.value(inputs, registers), TOLERANCE);
+	}
+
+	/**
+	 * Inputs of the wrong length are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongLength()
+	{
+		x.times(y).interpret().value(new double[1]);
+	}
+
+	/**
+	 * Shared subexpressions are evaluated once, so deep graphs with heavy
+	 * sharing stay cheap.
+	 */
+	@Test
+	public void sharing()
+	{
+		Differentiable function = x.plus(1);
+		for(int depth = 0; depth < 60; depth++)
+		{
+			function = function.times(function).dividedBy(function);
+		}
+
+		InterpretedDifferentiable interpreted = function.interpret();
+		Assert.assertEquals(2 + 1 + 2 * 60, interpreted.registerCount());
+		Assert.assertEquals(1.4, interpreted.value(assignment), TOLERANCE);
+	}
+
+	/**
+	 * Nodes whose structure cannot be seen are evaluated as a whole.
+	 */
+	@Test
+	public void opaque()
+	{
+		Differentiable function = sin(x.times(y)).compile().plus(y);
+		Assert.assertEquals(function.value(assignment), function.interpret().value(assignment), TOLERANCE);
+	}
+
+	/**
+	 * Derivatives are those of the underlying function.
+	 */
+	@Test
+	public void derivative()
+	{
+		Differentiable function = x.times(y);
+		InterpretedDifferentiable interpreted = function.interpret();
+
+		Assert.assertEquals(function.derivative(x), interpreted.derivative(x));
+		Assert.assertSame(interpreted, interpreted.interpret());
+		Assert.assertEquals(function.variables(), interpreted.variables());
+	}
+
+}
@@ -0,0 +1,289 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.compilation.Backend;
+import org.teneighty.leibniz.compilation.Compiler;
+
+
+/**
+ * Tests for vector-valued functions and their Jacobians.
+ */
+public final class JacobianTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-10;
+
+	/**
+	 * Number of residuals.
+	 */
+	private static final int LENGTH = 10;
+
+	/**
+	 * The variables.
+	 */
+	private final Variable[] variables = variables();
+
+	/**
+	 * The residuals: <code>r[i] = exp(x[i]) * sin(x[i + 1]) - x[i]</code>,
+	 * plus a dense one, <code>sum(x[i])</code>.
+	 */
+	private final DifferentiableVector residuals = residuals(variables);
+
+	/**
+	 * Make the variables.
+	 * 
+	 * @return The variables, sorted by name.
+	 */
+	private static Variable[] variables()
+	{
+		Variable[] variables = new Variable[LENGTH + 1];
+		for(int index = 0; index < variables.length; index++)
+		{
+			variables[index] = new Variable(String.format("x%1$02d", index));
+		}
+
+		return variables;
+	}
+
+	/**
+	 * Make the residuals.
+	 * 
+	 * @param variables The variables.
+	 * @return The residuals.
+	 */
+	private static DifferentiableVector residuals(final Variable[] variables)
+	{
+		Differentiable[] outputs = new Differentiable[LENGTH + 1];
+		Differentiable sum = Constant.ZERO;
+		for(int index = 0; index < LENGTH; index++)
+		{
+			outputs[index] = exp(variables[index]).times(sin(variables[index + 1])).minus(variables[index]);
+			sum = sum.plus(variables[index]);
+		}
+
+		outputs[LENGTH] = sum.plus(variables[LENGTH]);
+		return new DifferentiableVector(outputs);
+	}
+
+	/**
+	 * Make the inputs.
+	 * 
+	 * @return The inputs, laid out by the Jacobian index.
+	 */
+	private double[] inputs()
+	{
+		double[] inputs = new double[variables.length];
+		for(int index = 0; index < inputs.length; index++)
+		{
+			inputs[index] = 0.2 + (0.09 * index);
+		}
+
+		return inputs;
+	}
+
+	/**
+	 * Get the symbolic value of an entry.
+	 * 
+	 * @param row The row.
+	 * @param column The column.
+	 * @param inputs The inputs.
+	 * @return The value.
+	 */
+	private double expected(final int row, final int column, final double[] inputs)
+	{
+		Assignment assignment = new ArrayAssignment(residuals.jacobian().index(), inputs);
+		return residuals.output(row).derivative(variables[column]).value(assignment);
+	}
+
+	/**
+	 * Test the detected pattern and its colorings.
+	 */
+	@Test
+	public void pattern()
+	{
+		JacobianPattern pattern = residuals.jacobian().sparsity();
+
+		Assert.assertEquals(LENGTH + 1, pattern.rowCount());
+		Assert.assertEquals((2 * LENGTH) + LENGTH + 1, pattern.size());
+		Assert.assertTrue(pattern.contains(0, variables[1]));
+		Assert.assertFalse(pattern.contains(0, variables[2]));
+
+		// the dense row forces a color per column, but rows color well.
+		Assert.assertEquals(LENGTH + 1, pattern.columnColorCount());
+		Assert.assertEquals(3, pattern.rowColorCount());
+	}
+
+	/**
+	 * Test sparse evaluation against symbolic derivatives.
+	 */
+	@Test
+	public void value()
+	{
+		Jacobian jacobian = residuals.jacobian();
+		JacobianPattern pattern = jacobian.sparsity();
+		double[] inputs = inputs();
+		double[] values = new double[pattern.size()];
+		jacobian.value(inputs, values);
+
+		int[] rows = pattern.rows();
+		int[] columns = pattern.columns();
+		for(int entry = 0; entry < values.length; entry++)
+		{
+			Assert.assertEquals(expected(rows[entry], columns[entry], inputs), values[entry], TOLERANCE);
+		}
+	}
+
+	/**
+	 * Test sparse evaluation through column coloring.
+	 */
+	@Test
+	public void valueByColumns()
+	{
+		// without the dense row, columns color better than rows do... or as
+		// well, which also selects tangent sweeps.
+		Differentiable[] outputs = residuals.outputs().subList(0, LENGTH).toArray(new Differentiable[LENGTH]);
+		Jacobian jacobian = new DifferentiableVector(outputs).jacobian();
+		JacobianPattern pattern = jacobian.sparsity();
+		Assert.assertTrue(pattern.columnColorCount() <= pattern.rowColorCount());
+
+		double[] inputs = inputs();
+		double[] values = new double[pattern.size()];
+		jacobian.value(inputs, values);
+
+		int[] rows = pattern.rows();
+		int[] columns = pattern.columns();
+		for(int entry = 0; entry < values.length; entry++)
+		{
+			Assert.assertEquals(expected(rows[entry], columns[entry], inputs), values[entry], TOLERANCE);
+		}
+	}
+
+	/**
+	 * Test Jacobian-vector and vector-Jacobian products.
+	 */
+	@Test
+	public void products()
+	{
+		Jacobian jacobian = residuals.jacobian();
+		double[] inputs = inputs();
+
+		double[] direction = new double[variables.length];
+		double[] weights = new double[LENGTH + 1];
+		for(int index = 0; index < direction.length; index++)
+		{
+			direction[index] = 1d - (0.3 * index);
+			weights[index] = 0.5 + (0.1 * index);
+		}
+
+		double[] forward = new double[LENGTH + 1];
+		jacobian.jacobianVectorProduct(inputs, direction, forward);
+		double[] reverse = new double[variables.length];
+		jacobian.vectorJacobianProduct(inputs, weights, reverse);
+
+		for(int row = 0; row < forward.length; row++)
+		{
+			double expected = 0d;
+			for(int column = 0; column < direction.length; column++)
+			{
+				expected += expected(row, column, inputs) * direction[column];
+			}
+
+			Assert.assertEquals(expected, forward[row], TOLERANCE);
+		}
+
+		for(int column = 0; column < reverse.length; column++)
+		{
+			double expected = 0d;
+			for(int row = 0; row < weights.length; row++)
+			{
+				expected += weights[row] * expected(row, column, inputs);
+			}
+
+			Assert.assertEquals(expected, reverse[column], TOLERANCE);
+		}
+	}
+
+	/**
+	 * Test compiled evaluation of outputs and entries together.
+	 */
+	@Test
+	public void compiled()
+	{
+		Jacobian jacobian = residuals.jacobian();
+		double[] inputs = inputs();
+		double[] expectedValues = new double[jacobian.sparsity().size()];
+		jacobian.value(inputs, expectedValues);
+
+		for(Backend backend : new Backend[] { Backend.JAVAC, Backend.BYTECODE })
+		{
+			CompiledJacobian compiled = Compiler.compile(jacobian, backend);
+			Assert.assertEquals(jacobian.index(), compiled.variableIndex());
+
+			double[] outputs = new double[LENGTH + 1];
+			double[] values = new double[expectedValues.length];
+			compiled.value(inputs, outputs, values);
+
+			double[] expectedOutputs = residuals.value(new ArrayAssignment(jacobian.index(), inputs));
+			for(int output = 0; output < outputs.length; output++)
+			{
+				Assert.assertEquals(expectedOutputs[output], outputs[output], TOLERANCE);
+			}
+
+			for(int entry = 0; entry < values.length; entry++)
+			{
+				Assert.assertEquals(expectedValues[entry], values[entry], TOLERANCE);
+			}
+
+			// exp(x[i]) is shared by output i and both of its entries.
+			String source = compiled.source();
+			int count = 0;
+			for(int index = source.indexOf("Math.exp"); index >= 0; index = source.indexOf("Math.exp", index + 1))
+			{
+				count += 1;
+			}
+
+			Assert.assertEquals(LENGTH, count);
+		}
+	}
+
+	/**
+	 * Test argument checking.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongLength()
+	{
+		residuals.jacobian().value(inputs(), new double[1]);
+	}
+
+}
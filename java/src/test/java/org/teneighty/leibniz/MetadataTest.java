@@ -0,0 +1,140 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the metadata that functions cache at construction.
+ */
+public final class MetadataTest
+{
+
+	/**
+	 * The first variable.
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * The second variable.
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Depth and size, with shared subexpressions counted once per use.
+	 */
+	@Test
+	public void shape()
+	{
+		AbstractComposedDifferentiable product = (AbstractComposedDifferentiable)x.times(y);
+		AbstractComposedDifferentiable square = (AbstractComposedDifferentiable)sin(product).times(sin(product));
+
+		Assert.assertEquals(1, product.depth());
+		Assert.assertEquals(3, product.size());
+		Assert.assertEquals(3, square.depth());
+		Assert.assertEquals(9, square.size());
+	}
+
+	/**
+	 * Variables and constness.
+	 */
+	@Test
+	public void variables()
+	{
+		Differentiable function = sin(x.times(y)).plus(x);
+		Differentiable constant = sin(Constant.ONE.plus(new Constant(2)));
+
+		Assert.assertEquals(new HashSet<Variable>(Arrays.asList(x, y)), function.variables());
+		Assert.assertFalse(function.isConstant());
+		Assert.assertTrue(function.variables().contains(new Variable("x")));
+		Assert.assertTrue(constant.variables().isEmpty());
+		Assert.assertTrue(constant.isConstant());
+	}
+
+	/**
+	 * Hash codes ignore the order of commutative arguments, and depend on
+	 * parameters.
+	 */
+	@Test
+	public void hashCodes()
+	{
+		Differentiable first = sin(x).plus(y.power(2));
+		Differentiable second = y.power(2).plus(sin(x));
+
+		Assert.assertEquals(first, second);
+		Assert.assertEquals(first.hashCode(), second.hashCode());
+		Assert.assertFalse(x.power(2).hashCode() == x.power(3).hashCode());
+		Assert.assertFalse(x.power(2).equals(x.power(3)));
+	}
+
+	/**
+	 * Functions are not differentiated with respect to variables they do not
+	 * depend on.
+	 */
+	@Test
+	public void independence()
+	{
+		AbstractComposedDifferentiable sine = (AbstractComposedDifferentiable)sin(x);
+
+		Assert.assertSame(Constant.ZERO, sine.derivative(y));
+		Assert.assertNull(sine.cachedDerivative(y));
+		Assert.assertFalse(sine.dependsOn(y));
+		Assert.assertTrue(sine.dependsOn(x));
+	}
+
+	/**
+	 * A long sum of distinct variables knows all of them.
+	 */
+	@Test
+	public void wideSum()
+	{
+		int count = 20000;
+		Variable[] variables = new Variable[count];
+		Differentiable sum = Constant.ZERO;
+		for(int index = 0; index < count; index++)
+		{
+			variables[index] = new Variable(String.format("w_%1$s", index));
+			sum = sum.plus(variables[index].times(variables[index]));
+		}
+
+		AbstractComposedDifferentiable composed = (AbstractComposedDifferentiable)sum;
+		Assert.assertEquals(count, sum.variables().size());
+		Assert.assertEquals(count, composed.depth());
+		for(Variable variable : variables)
+		{
+			Assert.assertTrue(composed.dependsOn(variable));
+		}
+
+		Assert.assertFalse(composed.dependsOn(x));
+	}
+
+}
@@ -0,0 +1,174 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+/**
+ * Tests for reverse mode gradients.
+ */
+public final class ReverseGradientTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-12;
+	
+	/**
+	 * x variable.
+	 */
+	private Variable x = new Variable("x");
+
+	/**
+	 * y variable.
+	 */
+	private Variable y = new Variable("y");
+
+	/**
+	 * z variable.
+	 */
+	private Variable z = new Variable("z");
+
+	/**
+	 * Compare reverse and symbolic gradients of the specified function.
+	 * 
+	 * @param differentiable The function.
+	 * @param assignment The assignment at which to compare.
+	 */
+	private static void compare(final Differentiable differentiable, final Assignment assignment)
+	{
+		GradientValue symbolic = differentiable.gradient(Mode.SYMBOLIC).value(assignment);
+		GradientValue reverse = differentiable.gradient(Mode.REVERSE).value(assignment);
+		
+		for(Variable variable : differentiable.variables())
+		{
+			double expected = symbolic.value(variable);
+			Assert.assertEquals(expected, reverse.value(variable), TOLERANCE * Math.max(1.0, Math.abs(expected)));
+		}
+	}
+	
+	/**
+	 * Sums and products.
+	 */
+	@Test
+	public void polynomial()
+	{
+		Differentiable f = x.times(y).plus(x.times(x)).minus(z.times(y)).times(3.0);
+		
+		MutableAssignment assignment = new MutableAssignment();
+		assignment.set(x, 2.0);
+		assignment.set(y, -3.0);
+		assignment.set(z, 5.0);
+		
+		GradientValue value = f.gradient(Mode.REVERSE).value(assignment);
+		Assert.assertEquals(3.0 * (-3.0 + 4.0), value.value(x), TOLERANCE);
+		Assert.assertEquals(3.0 * (2.0 - 5.0), value.value(y), TOLERANCE);
+		Assert.assertEquals(3.0 * 3.0, value.value(z), TOLERANCE);
+	}
+	
+	/**
+	 * Shared subexpressions must accumulate adjoints from every use.
+	 */
+	@Test
+	public void sharedSubexpression()
+	{
+		Differentiable shared = Differentiables.sin(x.times(y));
+		Differentiable f = shared.times(shared).plus(Differentiables.exp(shared));
+		
+		MutableAssignment assignment = new MutableAssignment();
+		assignment.set(x, 0.7);
+		assignment.set(y, 1.3);
+
+		compare(f, assignment);
+	}
+	
+	/**
+	 * Mixed elementary functions.
+	 */
+	@Test
+	public void elementary()
+	{
+		Differentiable f = Differentiables.ln(x.over(y)).plus(Differentiables.cos(x.power(3)))
+				.minus(Differentiables.tan(y).times(Differentiables.cosh(z)))
+				.plus(Differentiables.sinh(z).over(Differentiables.tanh(x)))
+				.plus(x.power(y)).minus(Differentiables.exp(z.negate()))
+				.plus(Differentiables.normCdf(x.minus(z))).plus(Differentiables.asinh(y));
+
+		MutableAssignment assignment = new MutableAssignment();
+		assignment.set(x, 1.1);
+		assignment.set(y, 0.4);
+		assignment.set(z, 0.9);
+
+		compare(f, assignment);
+	}
+	
+	/**
+	 * Variables outside the expression have zero gradient components.
+	 */
+	@Test
+	public void absentVariable()
+	{
+		Differentiable f = x.times(x);
+		Gradient gradient = f.gradient(new HashSet<Variable>(Arrays.asList(x, y)), Mode.REVERSE);
+		GradientValue value = gradient.value(TestUtilities.constant(2.0, x, y));
+		
+		Assert.assertEquals(4.0, value.value(x), TOLERANCE);
+		Assert.assertEquals(0.0, value.value(y), TOLERANCE);
+	}
+	
+	/**
+	 * Restricting the variable set restricts the gradient.
+	 */
+	@Test
+	public void restricted()
+	{
+		Differentiable f = x.times(y);
+		Gradient gradient = f.gradient(Collections.singleton(y), Mode.REVERSE);
+		
+		Assert.assertEquals(Collections.singleton(y), gradient.variables());
+		Assert.assertEquals(3.0, gradient.value(TestUtilities.constant(3.0, x, y)).value(y), TOLERANCE);
+		Assert.assertNull(gradient.component(x));
+	}
+	
+	/**
+	 * Constant functions have zero gradients.
+	 */
+	@Test
+	public void constant()
+	{
+		Differentiable f = new Constant(4.0);
+		Gradient gradient = f.gradient(Collections.singleton(x), Mode.REVERSE);
+		
+		Assert.assertEquals(0.0, gradient.value(TestUtilities.constant(1.0, x)).value(x), TOLERANCE);
+	}
+
+}
@@ -0,0 +1,220 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.ln;
+import static org.teneighty.leibniz.Differentiables.normCdf;
+import static org.teneighty.leibniz.Differentiables.sin;
+import static org.teneighty.leibniz.Differentiables.simplify;
+import static org.teneighty.leibniz.Differentiables.sqrt;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.compilation.Compiler;
+import org.teneighty.leibniz.function.Power;
+
+
+/**
+ * Tests for the simplifier.
+ */
+public final class SimplifierTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-10;
+
+	/**
+	 * x variable.
+	 */
+	private Variable x = new Variable("x");
+
+	/**
+	 * y variable.
+	 */
+	private Variable y = new Variable("y");
+
+	/**
+	 * Test assignment.
+	 */
+	private Assignment assignment = Assignment.Build.start().with(x, 0.7).with(y, 1.3).finish();
+
+	/**
+	 * Get the number of distinct nodes of the specified differentiable.
+	 * 
+	 * @param differentiable The differentiable.
+	 * @return The node count.
+	 */
+	private static int size(final Differentiable differentiable)
+	{
+		return differentiable.interpret().registerCount();
+	}
+
+	/**
+	 * Constant subexpressions are folded.
+	 */
+	@Test
+	public void constantFolding()
+	{
+		Differentiable folded = simplify(new Constant(2).times(3).plus(ln(new Constant(1))));
+		Assert.assertEquals(new Constant(6), folded);
+
+		Assert.assertEquals(x.plus(6), simplify(x.plus(2).plus(4)));
+	}
+
+	/**
+	 * Like terms are collected.
+	 */
+	@Test
+	public void likeTerms()
+	{
+		Assert.assertEquals(x.times(2), simplify(x.plus(x)));
+		Assert.assertEquals(Constant.ZERO, simplify(x.minus(x)));
+		Assert.assertEquals(x.times(y).times(2), simplify(x.times(y).plus(y.times(x))));
+		Assert.assertEquals(x, simplify(x.times(3).minus(x.plus(x))));
+	}
+
+	/**
+	 * Like factors are collected into powers.
+	 */
+	@Test
+	public void likeFactors()
+	{
+		Assert.assertEquals(Power.power(x, 3), simplify(x.times(x).times(x)));
+		Assert.assertEquals(Power.power(x, 2).times(2), simplify(x.times(x).times(2).times(1)));
+		Assert.assertEquals(Constant.ONE, simplify(exp(x).dividedBy(exp(x))));
+		Assert.assertEquals(Power.power(x, 5), simplify(x.squared().times(x.cubed())));
+	}
+
+	/**
+	 * Non-integer powers are not distributed over products.
+	 */
+	@Test
+	public void nonIntegerPowers()
+	{
+		Differentiable root = x.times(y).power(0.5);
+		Assert.assertEquals(root, simplify(root));
+
+		Assignment negative = Assignment.Build.start().with(x, -2).with(y, -3).finish();
+		Assert.assertEquals(root.value(negative), simplify(root).value(negative), TOLERANCE);
+	}
+
+	/**
+	 * Simplified functions are not defined where the originals are not.
+	 */
+	@Test
+	public void domain()
+	{
+		Assignment zero = Assignment.Build.start().with(x, 0).finish();
+		Assignment negative = Assignment.Build.start().with(x, -1).finish();
+
+		Assert.assertTrue(Double.isNaN(simplify(new Constant(Double.NaN).plus(x)).value(zero)));
+		Assert.assertTrue(Double.isNaN(simplify(sqrt(new Constant(-1.25)).plus(x)).value(zero)));
+		Assert.assertTrue(Double.isNaN(simplify(x.power(0.5).power(2)).value(negative)));
+		Assert.assertTrue(Double.isNaN(simplify(x.power(0.5).times(x.power(0.5))).value(negative)));
+		Assert.assertTrue(Double.isNaN(simplify(x.power(2).times(x.power(-2))).value(zero)));
+		Assert.assertTrue(Double.isNaN(simplify(x.dividedBy(x)).value(zero)));
+		Assert.assertEquals(Power.power(x.power(0.5), 4), simplify(x.power(0.5).power(4)));
+	}
+
+	/**
+	 * Exponentiation by a constant becomes a power.
+	 */
+	@Test
+	public void exponentiation()
+	{
+		Assert.assertEquals(Power.power(x, 3), simplify(x.toThe(new Constant(3))));
+		Assert.assertEquals(exp(y), simplify(Differentiables.E.toThe(y)));
+	}
+
+	/**
+	 * Derivative graphs shrink, and still evaluate the same.
+	 */
+	@Test
+	public void derivatives()
+	{
+		Differentiable function = exp(x.times(y)).plus(sin(x).times(y.cubed()))
+				.minus(normCdf(x.dividedBy(y)).times(x.plus(y)));
+
+		Random random = new Random(17);
+		for(HessianKey key : function.hessian().keys())
+		{
+			Differentiable component = function.derivative(key.first(), key.second());
+			Differentiable simplified = simplify(component);
+			Assert.assertTrue(size(simplified) <= size(component));
+
+			for(int trial = 0; trial < 10; trial++)
+			{
+				Assignment point = Assignment.Build.start().with(x, random.nextDouble() + 0.5).with(y, random.nextDouble() + 0.5).finish();
+				Assert.assertEquals(component.value(point), simplified.value(point), TOLERANCE);
+			}
+		}
+	}
+
+	/**
+	 * Simplifying is idempotent.
+	 */
+	@Test
+	public void idempotent()
+	{
+		Differentiable simplified = simplify(exp(x.times(y)).derivative(x, x, y));
+		Assert.assertEquals(simplified, simplify(simplified));
+	}
+
+	/**
+	 * Compiling with simplification enabled agrees with the uncompiled
+	 * function.
+	 */
+	@Test
+	public void compiled()
+	{
+		Differentiable function = exp(x.times(y)).plus(sin(x).times(y.cubed())).times(x.plus(x));
+
+		boolean wasSimplifying = Compiler.isSimplifying();
+		try
+		{
+			Compiler.setSimplifying(true);
+			Compiler.cache().clear();
+
+			CompiledHessian hessian = Compiler.compile(function.hessian());
+			HessianValue expected = function.hessian().value(assignment);
+			HessianValue actual = hessian.value(assignment);
+			for(HessianKey key : hessian.keys())
+			{
+				Assert.assertEquals(expected.value(key), actual.value(key), TOLERANCE);
+			}
+		}
+		finally
+		{
+			Compiler.setSimplifying(wasSimplifying);
+			Compiler.cache().clear();
+		}
+	}
+
+}
@@ -0,0 +1,240 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+/**
+ * Tests for sparsity detection and sparse Hessians.
+ */
+public final class SparseHessianTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-10;
+
+	/**
+	 * Number of variables in the chain.
+	 */
+	private static final int LENGTH = 12;
+
+	/**
+	 * Make a partially separable chain, sum of
+	 * <code>(x[i + 1] - x[i]^2)^2 + sin(x[i])</code>, whose Hessian is
+	 * tridiagonal.
+	 * 
+	 * @param variables The variables.
+	 * @return The function.
+	 */
+	private static Differentiable chain(final Variable[] variables)
+	{
+		Differentiable sum = Constant.ZERO;
+		for(int index = 0; index < variables.length - 1; index++)
+		{
+			Differentiable residual = variables[index + 1].minus(variables[index].squared());
+			sum = sum.plus(residual.squared()).plus(sin(variables[index]));
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Make the chain variables.
+	 * 
+	 * @return The variables, sorted by name.
+	 */
+	private static Variable[] variables()
+	{
+		Variable[] variables = new Variable[LENGTH];
+		for(int index = 0; index < LENGTH; index++)
+		{
+			variables[index] = new Variable(String.format("x%1$02d", index));
+		}
+
+		return variables;
+	}
+
+	/**
+	 * Make an assignment of the specified variables.
+	 * 
+	 * @param variables The variables.
+	 * @return The assignment.
+	 */
+	private static Assignment assignment(final Variable[] variables)
+	{
+		MutableAssignment assignment = new MutableAssignment();
+		for(int index = 0; index < variables.length; index++)
+		{
+			assignment.set(variables[index], 0.3 + (0.17 * index));
+		}
+
+		return assignment;
+	}
+
+	/**
+	 * Test that the detected pattern of a chain is tridiagonal and needs only
+	 * three colors.
+	 */
+	@Test
+	public void chainPattern()
+	{
+		Variable[] variables = variables();
+		SparsityPattern pattern = chain(variables).hessian().sparsity();
+
+		Assert.assertEquals((2 * LENGTH) - 1, pattern.size());
+		Assert.assertEquals(3, pattern.colorCount());
+
+		int[] rowPointers = pattern.rowPointers();
+		int[] rows = pattern.rows();
+		int[] columns = pattern.columns();
+		Assert.assertEquals(pattern.size(), rowPointers[LENGTH]);
+		for(int entry = 0; entry < pattern.size(); entry++)
+		{
+			Assert.assertTrue(columns[entry] - rows[entry] <= 1);
+			Assert.assertTrue(entry >= rowPointers[rows[entry]] && entry < rowPointers[rows[entry] + 1]);
+			Assert.assertEquals(entry, pattern.position(columns[entry], rows[entry]));
+		}
+
+		Assert.assertFalse(pattern.contains(variables[0], variables[2]));
+		Assert.assertEquals(-1, pattern.position(0, 2));
+	}
+
+	/**
+	 * Test that no two columns of a color share a row.
+	 */
+	@Test
+	public void coloring()
+	{
+		Variable x = new Variable("x");
+		Variable y = new Variable("y");
+		Variable z = new Variable("z");
+		SparsityPattern pattern = x.times(y).plus(exp(y.over(z))).hessian().sparsity();
+		int[] colors = pattern.colors();
+		int[] rows = pattern.rows();
+		int[] columns = pattern.columns();
+
+		for(int first = 0; first < pattern.size(); first++)
+		{
+			for(int second = 0; second < pattern.size(); second++)
+			{
+				// compare both orientations of both symmetric entries.
+				int[][] pairs = { { rows[first], columns[first], rows[second], columns[second] }, 
+						{ rows[first], columns[first], columns[second], rows[second] },
+						{ columns[first], rows[first], rows[second], columns[second] },
+						{ columns[first], rows[first], columns[second], rows[second] } };
+				for(int[] pair : pairs)
+				{
+					if(pair[0] == pair[2] && pair[1] != pair[3])
+					{
+						Assert.assertTrue(colors[pair[1]] != colors[pair[3]]);
+					}
+				}
+			}
+		}
+
+		Assert.assertFalse(pattern.contains(x, x));
+		Assert.assertFalse(pattern.contains(x, z));
+		Assert.assertTrue(pattern.contains(z, z));
+	}
+
+	/**
+	 * Test that the sparse Hessian agrees with the dense one.
+	 */
+	@Test
+	public void agreesWithDense()
+	{
+		Variable[] variables = variables();
+		Differentiable function = chain(variables).plus(variables[0].times(variables[LENGTH - 1]));
+		Assignment assignment = assignment(variables);
+
+		SparseHessian sparse = new SparseHessian(function);
+		HessianValue expected = function.hessian().value(assignment);
+		HessianValue actual = sparse.value(assignment);
+		for(HessianKey key : sparse.keys())
+		{
+			Assert.assertEquals(expected.value(key), actual.value(key), TOLERANCE);
+			Assert.assertEquals(expected.value(key), sparse.component(key).value(assignment), TOLERANCE);
+		}
+
+		Assert.assertSame(Constant.ZERO, sparse.component(variables[0], variables[5]));
+	}
+
+	/**
+	 * Test compressed sparse row evaluation into a caller-provided array.
+	 */
+	@Test
+	public void compressedRows()
+	{
+		Variable[] variables = variables();
+		Differentiable function = chain(variables);
+		Assignment assignment = assignment(variables);
+
+		SparseHessian sparse = new SparseHessian(function);
+		SparsityPattern pattern = sparse.sparsity();
+		double[] values = new double[pattern.size()];
+		sparse.value(pattern.index().values(assignment), values);
+
+		int[] rowPointers = pattern.rowPointers();
+		int[] columns = pattern.columns();
+		for(int row = 0; row < LENGTH; row++)
+		{
+			for(int entry = rowPointers[row]; entry < rowPointers[row + 1]; entry++)
+			{
+				Differentiable component = function.derivative(variables[row], variables[columns[entry]]);
+				Assert.assertEquals(component.value(assignment), values[entry], TOLERANCE);
+			}
+		}
+	}
+
+	/**
+	 * Test that the compiled Hessian honours the pattern.
+	 */
+	@Test
+	public void compiled()
+	{
+		Variable[] variables = variables();
+		Differentiable function = chain(variables);
+		Assignment assignment = assignment(variables);
+
+		Hessian hessian = new SparseHessian(function);
+		CompiledHessian compiled = hessian.compile();
+		HessianValue expected = hessian.value(assignment);
+		HessianValue actual = compiled.value(assignment);
+		for(HessianKey key : hessian.keys())
+		{
+			Assert.assertEquals(expected.value(key), actual.value(key), TOLERANCE);
+		}
+
+		Assert.assertEquals(hessian.sparsity(), compiled.sparsity());
+	}
+
+}
@@ -0,0 +1,275 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.TieredDifferentiable.Tier;
+import org.teneighty.leibniz.compilation.expression.Expression;
+
+
+/**
+ * Tests for tiered differentiables.
+ */
+public final class TieredDifferentiableTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-12;
+
+	/**
+	 * Runs tasks on the calling thread.
+	 */
+	private static final Executor SYNCHRONOUS = new Executor()
+	{
+
+		@Override
+		public void execute(final Runnable command)
+		{
+			command.run();
+		}
+
+	};
+
+	/**
+	 * x variable.
+	 */
+	private Variable x = new Variable("x");
+
+	/**
+	 * y variable.
+	 */
+	private Variable y = new Variable("y");
+
+	/**
+	 * Test function.
+	 */
+	private Differentiable function = sin(x.times(y)).plus(exp(y.dividedBy(x)));
+
+	/**
+	 * Test assignment.
+	 */
+	private Assignment assignment = Assignment.Build.start().with(x, 0.8).with(y, 1.1).finish();
+
+	/**
+	 * Functions are compiled once the call threshold is reached.
+	 */
+	@Test
+	public void callThreshold()
+	{
+		TieredDifferentiable tiered = TieredDifferentiable.Build.start(function).afterCalls(3).executor(SYNCHRONOUS).finish();
+		double expected = function.value(assignment);
+
+		Assert.assertEquals(expected, tiered.value(assignment), TOLERANCE);
+		Assert.assertEquals(expected, tiered.value(assignment), TOLERANCE);
+		Assert.assertEquals(Tier.INTERPRETED, tiered.tier());
+
+		Assert.assertEquals(expected, tiered.value(assignment), TOLERANCE);
+		Assert.assertEquals(Tier.COMPILED, tiered.tier());
+		Assert.assertEquals(expected, tiered.value(assignment), TOLERANCE);
+		Assert.assertEquals(3, tiered.calls());
+	}
+
+	/**
+	 * Functions are compiled once the time threshold has passed.
+	 */
+	@Test
+	public void timeThreshold()
+	{
+		TieredDifferentiable tiered = TieredDifferentiable.Build.start(function).afterCalls(Long.MAX_VALUE)
+				.afterMillis(0).executor(SYNCHRONOUS).finish();
+
+		tiered.value(assignment);
+		Assert.assertEquals(Tier.COMPILED, tiered.tier());
+	}
+
+	/**
+	 * The default executor compiles in the background, and callers carry on
+	 * in the meantime.
+	 * 
+	 * @throws InterruptedException If interrupted.
+	 */
+	@Test
+	public void background()
+		throws InterruptedException
+	{
+		TieredDifferentiable tiered = TieredDifferentiable.Build.start(function).afterCalls(0).finish();
+		double expected = function.value(assignment);
+
+		long deadline = System.currentTimeMillis() + 60000;
+		while(tiered.tier() != Tier.COMPILED && System.currentTimeMillis() < deadline)
+		{
+			Assert.assertEquals(expected, tiered.value(assignment), TOLERANCE);
+			Thread.sleep(1);
+		}
+
+		Assert.assertEquals(Tier.COMPILED, tiered.tier());
+		Assert.assertEquals(expected, tiered.value(assignment), TOLERANCE);
+	}
+
+	/**
+	 * Functions over budget are never compiled.
+	 */
+	@Test
+	public void overBudget()
+	{
+		TieredDifferentiable tiered = TieredDifferentiable.Build.start(function).afterCalls(0)
+				.maximumSize(3).executor(SYNCHRONOUS).finish();
+
+		Assert.assertEquals(Tier.INTERPRETED_PERMANENTLY, tiered.tier());
+		Assert.assertEquals(function.value(assignment), tiered.value(assignment), TOLERANCE);
+		Assert.assertEquals(Tier.INTERPRETED_PERMANENTLY, tiered.tier());
+	}
+
+	/**
+	 * Functions whose compilation fails stay interpreted.
+	 */
+	@Test
+	public void compilationFailure()
+	{
+		Differentiable uncompilable = function.plus(new Uncompilable(x));
+		TieredDifferentiable tiered = TieredDifferentiable.Build.start(uncompilable).afterCalls(0).executor(SYNCHRONOUS).finish();
+
+		Assert.assertEquals(uncompilable.value(assignment), tiered.value(assignment), TOLERANCE);
+		Assert.assertEquals(Tier.INTERPRETED_PERMANENTLY, tiered.tier());
+		Assert.assertNotNull(tiered.failure());
+	}
+
+	/**
+	 * Functions whose compilation fails with an error, rather than an
+	 * exception, stay interpreted too.
+	 */
+	@Test
+	public void compilationError()
+	{
+		Error error = new NoClassDefFoundError("Compiled");
+		Differentiable unloadable = function.plus(new Uncompilable(x, error));
+		TieredDifferentiable tiered = TieredDifferentiable.Build.start(unloadable).afterCalls(0).executor(SYNCHRONOUS).finish();
+
+		Assert.assertEquals(unloadable.value(assignment), tiered.value(assignment), TOLERANCE);
+		Assert.assertEquals(Tier.INTERPRETED_PERMANENTLY, tiered.tier());
+		Assert.assertSame(error, tiered.failure().getCause());
+		Assert.assertEquals(unloadable.value(assignment), tiered.value(assignment), TOLERANCE);
+	}
+
+	/**
+	 * A function that cannot be compiled.
+	 */
+	private static final class Uncompilable
+		extends AbstractDifferentiable
+	{
+
+		/**
+		 * The variable.
+		 */
+		private final Variable variable;
+
+		/**
+		 * The error to throw when compiled, or <code>null</code> to throw an
+		 * exception instead.
+		 */
+		private final Error error;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param variable The variable.
+		 */
+		Uncompilable(final Variable variable)
+		{
+			this(variable, null);
+		}
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param variable The variable.
+		 * @param error The error to throw when compiled.
+		 */
+		Uncompilable(final Variable variable, final Error error)
+		{
+			this.variable = variable;
+			this.error = error;
+		}
+
+		@Override
+		public double value(final Assignment assignment)
+		{
+			return 2 * assignment.get(variable);
+		}
+
+		@Override
+		protected Differentiable derivativeCore(final Variable withRespectTo)
+		{
+			return variable.equals(withRespectTo) ? new Constant(2) : Constant.ZERO;
+		}
+
+		@Override
+		public Set<Variable> variables()
+		{
+			return Collections.singleton(variable);
+		}
+
+		@Override
+		public boolean isConstant()
+		{
+			return false;
+		}
+
+		@Override
+		public Expression expression(final Context codeContext)
+		{
+			if(error != null)
+			{
+				throw error;
+			}
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return variable.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object other)
+		{
+			return other == this;
+		}
+
+	}
+
+}
@@ -0,0 +1,146 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for VariableIndex.
+ */
+public final class VariableIndexTest
+{
+
+	/**
+	 * Variable "x".
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Variable "y".
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Variable "z".
+	 */
+	private final Variable z = new Variable("z");
+
+	/**
+	 * Slots follow constructor order.
+	 */
+	@Test
+	public void slots()
+	{
+		VariableIndex index = new VariableIndex(z, x);
+
+		Assert.assertEquals(2, index.size());
+		Assert.assertEquals(0, index.slot(z));
+		Assert.assertEquals(1, index.slot(x));
+		Assert.assertEquals(x, index.variable(1));
+		Assert.assertTrue(index.contains(z));
+		Assert.assertFalse(index.contains(y));
+	}
+
+	/**
+	 * Sorted indexes are independent of the iteration order of the input.
+	 */
+	@Test
+	public void sorted()
+	{
+		VariableIndex first = VariableIndex.sorted(Arrays.asList(z, y, x));
+		VariableIndex second = VariableIndex.sorted(new HashSet<Variable>(Arrays.asList(x, z, y)));
+
+		Assert.assertEquals(first, second);
+		Assert.assertEquals(first.hashCode(), second.hashCode());
+		Assert.assertEquals(Arrays.asList(x, y, z), first.variables());
+	}
+
+	/**
+	 * Unindexed variables have no slot.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void unindexedThrowsException()
+	{
+		new VariableIndex(x).slot(y);
+	}
+
+	/**
+	 * Duplicate variables are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void duplicateThrowsException()
+	{
+		new VariableIndex(x, y, new Variable("x"));
+	}
+
+	/**
+	 * Packed upper triangle positions are dense, row-major and symmetric.
+	 */
+	@Test
+	public void packedSlots()
+	{
+		VariableIndex index = new VariableIndex(x, y, z);
+
+		Assert.assertEquals(6, index.packedSize());
+		Assert.assertEquals(0, index.packedSlot(0, 0));
+		Assert.assertEquals(2, index.packedSlot(0, 2));
+		Assert.assertEquals(3, index.packedSlot(1, 1));
+		Assert.assertEquals(4, index.packedSlot(2, 1));
+		Assert.assertEquals(5, index.packedSlot(2, 2));
+	}
+
+	/**
+	 * Values are copied out of arbitrary assignments in slot order.
+	 */
+	@Test
+	public void values()
+	{
+		VariableIndex index = new VariableIndex(y, x);
+		Assignment assignment = Assignment.Build.start().with(x, 1).with(y, 2).with(z, 3).finish();
+
+		double[] values = index.values(assignment);
+		Assert.assertEquals(2, values.length);
+		Assert.assertEquals(2.0, values[0]);
+		Assert.assertEquals(1.0, values[1]);
+	}
+
+	/**
+	 * Array assignments with the same layout are not copied.
+	 */
+	@Test
+	public void valuesNotCopied()
+	{
+		VariableIndex index = new VariableIndex(x, y);
+		ArrayAssignment assignment = new ArrayAssignment(VariableIndex.sorted(Arrays.asList(y, x)));
+
+		Assert.assertSame(assignment.values(), index.values(assignment));
+	}
+
+}
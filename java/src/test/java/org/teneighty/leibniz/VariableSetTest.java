@@ -0,0 +1,204 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+/**
+ * Variable set test.
+ */
+public final class VariableSetTest
+{
+
+	/**
+	 * Variables with ids spread over several levels of the trie.
+	 */
+	private static final List<Variable> VARIABLES = variables(5000);
+
+	/**
+	 * Create the specified number of variables.
+	 * 
+	 * @param count The count.
+	 * @return The variables.
+	 */
+	private static List<Variable> variables(final int count)
+	{
+		List<Variable> variables = new ArrayList<Variable>();
+		for(int index = 0; index < count; index++)
+		{
+			variables.add(new Variable(String.format("set_%1$s", index)));
+		}
+
+		return variables;
+	}
+
+	/**
+	 * Equal variables share an id.
+	 */
+	@Test
+	public void interning()
+	{
+		Assert.assertEquals(VARIABLES.get(7).id(), new Variable("set_7").id());
+		Assert.assertFalse(VARIABLES.get(7).id() == VARIABLES.get(8).id());
+		Assert.assertTrue(VariableSet.of(VARIABLES.get(7)).contains(new Variable("set_7")));
+	}
+
+	/**
+	 * Unions agree with hash sets.
+	 */
+	@Test
+	public void union()
+	{
+		Random random = new Random(17);
+		for(int trial = 0; trial < 50; trial++)
+		{
+			Set<Variable> expected = new HashSet<Variable>();
+			VariableSet actual = VariableSet.EMPTY;
+			for(int index = 0; index < 200; index++)
+			{
+				Variable variable = VARIABLES.get(random.nextInt(VARIABLES.size()));
+				expected.add(variable);
+				actual = random.nextBoolean() ? VariableSet.union(actual, VariableSet.of(variable)) : VariableSet.union(VariableSet.of(variable), actual);
+			}
+
+			Assert.assertEquals(expected, actual);
+			Assert.assertEquals(actual, expected);
+			Assert.assertEquals(expected.size(), actual.size());
+			for(Variable variable : VARIABLES)
+			{
+				Assert.assertEquals(expected.contains(variable), actual.contains(variable));
+			}
+		}
+	}
+
+	/**
+	 * Iteration is in id order.
+	 */
+	@Test
+	public void iteration()
+	{
+		List<Variable> shuffled = new ArrayList<Variable>(VARIABLES);
+		Collections.shuffle(shuffled, new Random(3));
+
+		List<Variable> iterated = new ArrayList<Variable>(VariableSet.copyOf(shuffled));
+		Assert.assertEquals(VARIABLES.size(), iterated.size());
+		for(int index = 1; index < iterated.size(); index++)
+		{
+			Assert.assertTrue(iterated.get(index - 1).id() < iterated.get(index).id());
+		}
+	}
+
+	/**
+	 * A union equal to either set is that set.
+	 */
+	@Test
+	public void sharing()
+	{
+		VariableSet all = VariableSet.copyOf(VARIABLES);
+		VariableSet some = VariableSet.copyOf(VARIABLES.subList(100, 3000));
+
+		Assert.assertSame(all, VariableSet.union(all, some));
+		Assert.assertSame(all, VariableSet.union(some, all));
+		Assert.assertSame(some, VariableSet.union(some, VariableSet.EMPTY));
+		Assert.assertSame(some, VariableSet.copyOf(some));
+	}
+
+	/**
+	 * Ids of names no variable refers to anymore are handed out again.
+	 */
+	@Test
+	public void reclamation()
+	{
+		Set<Integer> handedOut = new HashSet<Integer>();
+		for(int round = 0; round < 50; round++)
+		{
+			for(int index = 0; index < 1000; index++)
+			{
+				handedOut.add(Integer.valueOf(new Variable(String.format("reclaimed_%1$s_%2$s", round, index)).id()));
+			}
+
+			System.gc();
+		}
+
+		Assert.assertTrue(handedOut.size() < 25000);
+	}
+
+	/**
+	 * A set keeps the ids of its members, even once nothing else refers to
+	 * them.
+	 */
+	@Test
+	public void retention()
+	{
+		List<Variable> members = new ArrayList<Variable>();
+		for(int index = 0; index < 100; index++)
+		{
+			members.add(new Variable(String.format("retained_%1$s", index)));
+		}
+
+		VariableSet set = VariableSet.copyOf(members);
+		members.clear();
+		for(int round = 0; round < 10; round++)
+		{
+			for(int index = 0; index < 1000; index++)
+			{
+				new Variable(String.format("transient_%1$s_%2$s", round, index)).id();
+			}
+
+			System.gc();
+		}
+
+		Assert.assertEquals(100, set.size());
+		for(int index = 0; index < 100; index++)
+		{
+			Assert.assertTrue(set.contains(new Variable(String.format("retained_%1$s", index))));
+			Assert.assertFalse(set.contains(new Variable(String.format("transient_0_%1$s", index))));
+		}
+
+		for(Variable member : set)
+		{
+			Assert.assertTrue(member.name().startsWith("retained_"));
+		}
+	}
+
+	/**
+	 * Sets cannot be modified.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void immutable()
+	{
+		VariableSet.of(VARIABLES.get(0)).add(VARIABLES.get(1));
+	}
+
+}
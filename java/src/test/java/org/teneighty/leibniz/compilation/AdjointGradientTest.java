@@ -0,0 +1,207 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.ArrayAssignment;
+import org.teneighty.leibniz.CompiledGradient;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.GradientValue;
+import org.teneighty.leibniz.Mode;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Tests for compiled gradients generated as an adjoint sweep.
+ */
+public final class AdjointGradientTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-12;
+
+	/**
+	 * Wide gradients match the reverse mode tape on every backend.
+	 */
+	@Test
+	public void wide()
+	{
+		Variable[] variables = variables(30);
+		Differentiable function = function(variables);
+		VariableIndex index = new VariableIndex(variables);
+		double[] values = values(variables.length);
+		GradientValue expected = function.gradient(Mode.REVERSE).value(new ArrayAssignment(index, values));
+
+		for(Backend backend : new Backend[] { Backend.JAVAC, Backend.BYTECODE })
+		{
+			CompiledGradient compiled = Compiler.compile(function.gradient(), backend);
+			GradientValue actual = compiled.value(compiled.variableIndex().values(new ArrayAssignment(index, values)));
+			for(Variable variable : variables)
+			{
+				Assert.assertEquals(expected.value(variable), actual.value(variable), TOLERANCE);
+			}
+		}
+	}
+
+	/**
+	 * The generated source grows linearly with the number of variables.
+	 */
+	@Test
+	public void linear()
+	{
+		int small = Compiler.compile(product(variables(20)).gradient(), Backend.JAVAC).source().length();
+		int large = Compiler.compile(product(variables(80)).gradient(), Backend.JAVAC).source().length();
+
+		// one expression per component would grow about sixteen times.
+		Assert.assertTrue(large < 6 * small);
+	}
+
+	/**
+	 * Components with respect to absent variables are zero, and the batch
+	 * method agrees with the scalar one.
+	 */
+	@Test
+	public void batch()
+	{
+		Variable[] variables = variables(4);
+		Variable absent = new Variable("absent");
+		Differentiable function = function(variables);
+		Set<Variable> components = new HashSet<Variable>(function.variables());
+		components.add(absent);
+
+		CompiledGradient compiled = Compiler.compile(function.gradient(components));
+		VariableIndex index = compiled.variableIndex();
+		VariableIndex componentIndex = compiled.componentIndex();
+
+		int rows = 5;
+		double[][] inputs = new double[index.size()][rows];
+		double[][] outputs = new double[componentIndex.size()][rows];
+		for(int slot = 0; slot < index.size(); slot++)
+		{
+			for(int row = 0; row < rows; row++)
+			{
+				inputs[slot][row] = 0.1 * (slot + 1) + 0.05 * row;
+			}
+		}
+
+		compiled.value(inputs, outputs, 0, rows);
+		for(int row = 0; row < rows; row++)
+		{
+			double[] input = new double[index.size()];
+			for(int slot = 0; slot < index.size(); slot++)
+			{
+				input[slot] = inputs[slot][row];
+			}
+
+			double[] output = new double[componentIndex.size()];
+			compiled.value(input, output);
+			Assert.assertEquals(0d, output[componentIndex.slot(absent)], 0d);
+			for(int slot = 0; slot < componentIndex.size(); slot++)
+			{
+				Assert.assertEquals(output[slot], outputs[slot][row], TOLERANCE);
+			}
+		}
+	}
+
+	/**
+	 * Create the specified number of variables.
+	 * 
+	 * @param count The number of variables.
+	 * @return The variables.
+	 */
+	private static Variable[] variables(final int count)
+	{
+		Variable[] variables = new Variable[count];
+		for(int index = 0; index < count; index++)
+		{
+			variables[index] = new Variable(String.format("x%1$s", index));
+		}
+
+		return variables;
+	}
+
+	/**
+	 * Create values for the specified number of variables.
+	 * 
+	 * @param count The number of variables.
+	 * @return The values.
+	 */
+	private static double[] values(final int count)
+	{
+		double[] values = new double[count];
+		for(int index = 0; index < count; index++)
+		{
+			values[index] = 0.9 + (0.01 * index);
+		}
+
+		return values;
+	}
+
+	/**
+	 * Get the product of the specified variables, whose symbolic gradient is
+	 * quadratic in their number.
+	 * 
+	 * @param variables The variables.
+	 * @return The product.
+	 */
+	private static Differentiable product(final Variable[] variables)
+	{
+		Differentiable product = variables[0];
+		for(int index = 1; index < variables.length; index++)
+		{
+			product = product.times(variables[index]);
+		}
+
+		return product;
+	}
+
+	/**
+	 * Get a test function of the specified variables.
+	 * 
+	 * @param variables The variables.
+	 * @return The function.
+	 */
+	private static Differentiable function(final Variable[] variables)
+	{
+		Differentiable sum = variables[0];
+		for(int index = 1; index < variables.length; index++)
+		{
+			sum = sum.plus(sin(variables[index].times(variables[index - 1])));
+		}
+
+		return product(variables).plus(exp(sum.times(0.1)));
+	}
+
+}
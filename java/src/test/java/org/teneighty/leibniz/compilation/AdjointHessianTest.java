@@ -0,0 +1,289 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import junit.framework.Assert;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.teneighty.leibniz.ArrayAssignment;
+import org.teneighty.leibniz.Assignment;
+import org.teneighty.leibniz.CompiledHessian;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.HessianValue;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Tests for compiled Hessians generated as a forward-over-reverse sweep.
+ */
+public final class AdjointHessianTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-10;
+
+	/**
+	 * Dense Hessians match the symbolic ones on every backend.
+	 */
+	@Test
+	public void dense()
+	{
+		Variable[] variables = variables(5);
+		Differentiable function = exp(sum(variables).times(0.2)).times(product(variables));
+		check(function, variables);
+	}
+
+	/**
+	 * Sparse Hessians match the symbolic ones, including their structural
+	 * zeros, and need fewer sweeps than variables.
+	 */
+	@Test
+	public void sparse()
+	{
+		Variable[] variables = variables(12);
+		Differentiable function = chain(variables);
+		Assert.assertTrue(function.hessian().sparsity().colorCount() < variables.length);
+		check(function, variables);
+	}
+
+	/**
+	 * The generated source grows linearly with the number of variables.
+	 */
+	@Test
+	public void linear()
+	{
+		int small = Compiler.compile(product(variables(20)).hessian(), Backend.JAVAC).source().length();
+		int large = Compiler.compile(product(variables(80)).hessian(), Backend.JAVAC).source().length();
+
+		Assert.assertTrue(large < 6 * small);
+	}
+
+	/**
+	 * The batch method agrees with the scalar one on every backend.
+	 */
+	@Test
+	public void batch()
+	{
+		for(Backend backend : Backend.values())
+		{
+			CompiledHessian compiled = Compiler.compile(chain(variables(4)).hessian(), backend);
+			VariableIndex index = compiled.variableIndex();
+			int packedSize = compiled.componentIndex().packedSize();
+
+			int rows = 11;
+			double[][] inputs = new double[index.size()][rows];
+			double[][] outputs = new double[packedSize][rows];
+			for(int slot = 0; slot < index.size(); slot++)
+			{
+				for(int row = 0; row < rows; row++)
+				{
+					inputs[slot][row] = 0.1 * (slot + 1) + 0.05 * row;
+				}
+			}
+
+			outputs[0][0] = Double.NaN;
+			compiled.value(inputs, outputs, 1, rows);
+			for(int row = 1; row < rows; row++)
+			{
+				double[] input = new double[index.size()];
+				for(int slot = 0; slot < index.size(); slot++)
+				{
+					input[slot] = inputs[slot][row];
+				}
+
+				double[] output = new double[packedSize];
+				compiled.value(input, output);
+				for(int slot = 0; slot < packedSize; slot++)
+				{
+					Assert.assertEquals(output[slot], outputs[slot][row], TOLERANCE);
+				}
+			}
+
+			Assert.assertTrue(Double.isNaN(outputs[0][0]));
+		}
+	}
+
+	/**
+	 * Evaluating a large batch in chunks, as the parallel evaluator does,
+	 * allocates in proportion to the rows rather than to their square.
+	 */
+	@Test
+	public void chunkedBatch()
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+		CompiledHessian compiled = Compiler.compile(chain(variables(2)).hessian(), Backend.BYTECODE);
+		int rows = 1 << 20;
+		double[][] inputs = new double[compiled.variableIndex().size()][rows];
+		double[][] outputs = new double[compiled.componentIndex().packedSize()][rows];
+		compiled.value(inputs, outputs, 0, 1024);
+
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for(int from = 0; from < rows; from += 1024)
+		{
+			compiled.value(inputs, outputs, from, from + 1024);
+		}
+
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+		Assert.assertTrue(allocated < 64L * rows);
+	}
+
+	/**
+	 * The batch method of the product is generated as a loop over rows, and
+	 * the colors are swept by the base class around it.
+	 * 
+	 * @throws Exception If the test fails.
+	 */
+	@Test
+	public void generatedBatch()
+		throws Exception
+	{
+		Differentiable function = chain(variables(4));
+		String source = Compiler.compile(function.hessian(), Backend.JAVAC).source();
+		Assert.assertTrue(source.contains(ValueMethod.HESSIAN_VECTOR.batchSignature()));
+		Assert.assertTrue(source.contains("for(int row = from; row < to; row++)"));
+
+		for(Backend backend : new Backend[] { Backend.JAVAC, Backend.BYTECODE })
+		{
+			Class<?> type = Compiler.compile(function.hessian(), backend).getClass();
+			Assert.assertEquals(AbstractCompiledAdjointHessian.class, type.getSuperclass());
+			Assert.assertNotNull(type.getDeclaredMethod("batch", double[][].class, double[].class, double[][].class, int.class, int.class));
+		}
+	}
+
+	/**
+	 * Check the compiled Hessian of the specified function against the
+	 * symbolic one.
+	 * 
+	 * @param function The function.
+	 * @param variables Its variables.
+	 */
+	private static void check(final Differentiable function, final Variable[] variables)
+	{
+		double[] values = new double[variables.length];
+		for(int index = 0; index < values.length; index++)
+		{
+			values[index] = 0.4 + (0.07 * index);
+		}
+
+		Assignment assignment = new ArrayAssignment(new VariableIndex(variables), values);
+		HessianValue expected = function.hessian().value(assignment);
+		for(Backend backend : new Backend[] { Backend.JAVAC, Backend.BYTECODE })
+		{
+			CompiledHessian compiled = Compiler.compile(function.hessian(), backend);
+			HessianValue actual = compiled.value(assignment);
+			for(Variable first : variables)
+			{
+				for(Variable second : variables)
+				{
+					Assert.assertEquals(expected.value(first, second), actual.value(first, second), TOLERANCE);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create the specified number of variables.
+	 * 
+	 * @param count The number of variables.
+	 * @return The variables.
+	 */
+	private static Variable[] variables(final int count)
+	{
+		Variable[] variables = new Variable[count];
+		for(int index = 0; index < count; index++)
+		{
+			variables[index] = new Variable(String.format("x%1$s", index));
+		}
+
+		return variables;
+	}
+
+	/**
+	 * Get the sum of the specified variables.
+	 * 
+	 * @param variables The variables.
+	 * @return The sum.
+	 */
+	private static Differentiable sum(final Variable[] variables)
+	{
+		Differentiable sum = variables[0];
+		for(int index = 1; index < variables.length; index++)
+		{
+			sum = sum.plus(variables[index]);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Get the product of the specified variables.
+	 * 
+	 * @param variables The variables.
+	 * @return The product.
+	 */
+	private static Differentiable product(final Variable[] variables)
+	{
+		Differentiable product = variables[0];
+		for(int index = 1; index < variables.length; index++)
+		{
+			product = product.times(variables[index]);
+		}
+
+		return product;
+	}
+
+	/**
+	 * Get a function coupling only neighbouring variables, whose Hessian is
+	 * tridiagonal.
+	 * 
+	 * @param variables The variables.
+	 * @return The function.
+	 */
+	private static Differentiable chain(final Variable[] variables)
+	{
+		Differentiable chain = variables[0].times(variables[0]);
+		for(int index = 1; index < variables.length; index++)
+		{
+			chain = chain.plus(sin(variables[index].times(variables[index - 1])));
+		}
+
+		return chain;
+	}
+
+}
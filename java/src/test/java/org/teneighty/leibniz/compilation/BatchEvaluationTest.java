@@ -0,0 +1,278 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.CompiledDifferentiable;
+import org.teneighty.leibniz.CompiledGradient;
+import org.teneighty.leibniz.CompiledHessian;
+import org.teneighty.leibniz.Constant;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Variable;
+
+
+/**
+ * Tests for batch evaluation of compiled differentiables, gradients and
+ * Hessians.
+ */
+public final class BatchEvaluationTest
+{
+
+	/**
+	 * Number of rows.
+	 */
+	private static final int ROWS = 37;
+
+	/**
+	 * Backends whose batch values are exactly their scalar values.
+	 */
+	private static final Backend[] EXACT_BACKENDS = { Backend.JAVAC, Backend.BYTECODE };
+
+	/**
+	 * Variable "x".
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Variable "y".
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Variable "z".
+	 */
+	private final Variable z = new Variable("z");
+
+	/**
+	 * Test function.
+	 */
+	private final Differentiable function = sin(x.times(y)).plus(exp(y).times(x.times(x))).dividedBy(z.plus(3));
+
+	/**
+	 * Make random input columns.
+	 *
+	 * @param columns The number of columns.
+	 * @return The columns.
+	 */
+	private static double[][] inputs(final int columns)
+	{
+		Random random = new Random(13L);
+		double[][] inputs = new double[columns][ROWS];
+		for(int column = 0; column < columns; column++)
+		{
+			for(int row = 0; row < ROWS; row++)
+			{
+				inputs[column][row] = random.nextDouble() * 2d;
+			}
+		}
+
+		return inputs;
+	}
+
+	/**
+	 * Get a row of the specified columns.
+	 *
+	 * @param columns The columns.
+	 * @param row The row.
+	 * @return The row.
+	 */
+	private static double[] row(final double[][] columns, final int row)
+	{
+		double[] values = new double[columns.length];
+		for(int column = 0; column < columns.length; column++)
+		{
+			values[column] = columns[column][row];
+		}
+
+		return values;
+	}
+
+	/**
+	 * Batch values of a differentiable are exactly the scalar values, on both
+	 * backends.
+	 */
+	@Test
+	public void differentiable()
+	{
+		for(Backend backend : EXACT_BACKENDS)
+		{
+			CompiledDifferentiable compiled = Compiler.compile(function, backend);
+			double[][] inputs = inputs(compiled.variableIndex().size());
+			double[] outputs = new double[ROWS];
+			compiled.value(inputs, outputs, 0, ROWS);
+
+			for(int row = 0; row < ROWS; row++)
+			{
+				Assert.assertEquals(compiled.value(row(inputs, row)), outputs[row], 0d);
+			}
+		}
+	}
+
+	/**
+	 * Batch values of a gradient are exactly the buffered values, on both
+	 * backends.
+	 */
+	@Test
+	public void gradient()
+	{
+		for(Backend backend : EXACT_BACKENDS)
+		{
+			CompiledGradient compiled = Compiler.compile(function.gradient(), backend);
+			double[][] inputs = inputs(compiled.variableIndex().size());
+			double[][] outputs = new double[compiled.componentIndex().size()][ROWS];
+			compiled.value(inputs, outputs, 0, ROWS);
+
+			double[] expected = new double[compiled.componentIndex().size()];
+			for(int row = 0; row < ROWS; row++)
+			{
+				compiled.value(row(inputs, row), expected);
+				for(int slot = 0; slot < expected.length; slot++)
+				{
+					Assert.assertEquals(expected[slot], outputs[slot][row], 0d);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Batch values of a Hessian are exactly the buffered values, on both
+	 * backends.
+	 */
+	@Test
+	public void hessian()
+	{
+		for(Backend backend : EXACT_BACKENDS)
+		{
+			CompiledHessian compiled = Compiler.compile(function.hessian(), backend);
+			double[][] inputs = inputs(compiled.variableIndex().size());
+			double[][] outputs = new double[compiled.componentIndex().packedSize()][ROWS];
+			compiled.value(inputs, outputs, 0, ROWS);
+
+			double[] expected = new double[compiled.componentIndex().packedSize()];
+			for(int row = 0; row < ROWS; row++)
+			{
+				compiled.value(row(inputs, row), expected);
+				for(int slot = 0; slot < expected.length; slot++)
+				{
+					Assert.assertEquals(expected[slot], outputs[slot][row], 0d);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Only the requested rows are written.
+	 */
+	@Test
+	public void range()
+	{
+		for(Backend backend : EXACT_BACKENDS)
+		{
+			CompiledDifferentiable compiled = Compiler.compile(function, backend);
+			double[][] inputs = inputs(compiled.variableIndex().size());
+			double[] outputs = new double[ROWS];
+			compiled.value(inputs, outputs, 5, 9);
+
+			for(int row = 0; row < ROWS; row++)
+			{
+				double expected = (row >= 5 && row < 9) ? compiled.value(row(inputs, row)) : 0d;
+				Assert.assertEquals(expected, outputs[row], 0d);
+			}
+
+			compiled.value(inputs, outputs, 7, 7);
+		}
+	}
+
+	/**
+	 * A constant function reads no columns.
+	 */
+	@Test
+	public void constant()
+	{
+		for(Backend backend : EXACT_BACKENDS)
+		{
+			CompiledDifferentiable compiled = Compiler.compile(new Constant(2.5), backend);
+			double[] outputs = new double[ROWS];
+			compiled.value(new double[0][], outputs, 0, ROWS);
+
+			for(int row = 0; row < ROWS; row++)
+			{
+				Assert.assertEquals(2.5, outputs[row], 0d);
+			}
+		}
+	}
+
+	/**
+	 * Invalid ranges are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidRange()
+	{
+		CompiledDifferentiable compiled = Compiler.compile(function, Backend.BYTECODE);
+		compiled.value(inputs(compiled.variableIndex().size()), new double[ROWS], 3, 2);
+	}
+
+	/**
+	 * Short columns are rejected before anything is written.
+	 */
+	@Test
+	public void shortColumn()
+	{
+		CompiledGradient compiled = Compiler.compile(function.gradient(), Backend.BYTECODE);
+		double[][] inputs = inputs(compiled.variableIndex().size());
+		double[][] outputs = new double[compiled.componentIndex().size()][ROWS];
+		outputs[outputs.length - 1] = new double[ROWS - 1];
+
+		try
+		{
+			compiled.value(inputs, outputs, 0, ROWS);
+			Assert.fail();
+		}
+		catch(final IllegalArgumentException illegalArgumentException)
+		{
+			Assert.assertEquals(0d, outputs[0][0], 0d);
+		}
+	}
+
+	/**
+	 * Missing columns are rejected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void missingColumn()
+	{
+		CompiledDifferentiable compiled = Compiler.compile(function, Backend.JAVAC);
+		double[][] inputs = inputs(compiled.variableIndex().size());
+		inputs[1] = null;
+
+		compiled.value(inputs, new double[ROWS], 0, ROWS);
+	}
+
+}
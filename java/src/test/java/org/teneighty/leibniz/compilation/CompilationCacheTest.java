@@ -0,0 +1,420 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.CompiledDifferentiable;
+import org.teneighty.leibniz.CompiledGradient;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Variable;
+
+
+/**
+ * Tests for the compilation cache.
+ */
+public final class CompilationCacheTest
+{
+
+	/**
+	 * Variable "x".
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Variable "y".
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Create a key for the specified differentiable.
+	 * 
+	 * @param differentiable The differentiable.
+	 * @return A key.
+	 */
+	private static CompilationCache.Key key(final Differentiable differentiable)
+	{
+		return new CompilationCache.Key(Differentiable.class, differentiable, differentiable.variables(), Backend.BYTECODE);
+	}
+
+	/**
+	 * Create a compilation that returns the specified value and counts its
+	 * invocations.
+	 * 
+	 * @param value The value.
+	 * @param invocations The invocation counter.
+	 * @return A compilation.
+	 */
+	private static Callable<String> compilation(final String value, final AtomicInteger invocations)
+	{
+		return new Callable<String>()
+		{
+
+			@Override
+			public String call()
+			{
+				invocations.incrementAndGet();
+				return value;
+			}
+
+		};
+	}
+
+	/**
+	 * Structurally equal functions compiled separately share one class.
+	 */
+	@Test
+	public void structuralHit()
+	{
+		CompilationCache cache = Compiler.cache();
+		long hits = cache.hits();
+
+		CompiledDifferentiable first = Compiler.compile(x.times(y).plus(x));
+		CompiledDifferentiable second = Compiler.compile(x.plus(y.times(x)));
+
+		Assert.assertSame(first, second);
+		Assert.assertTrue(cache.hits() > hits);
+		Assert.assertNotSame(first, Compiler.compile(x.plus(y.times(x)), Backend.JAVAC));
+	}
+
+	/**
+	 * Gradients of the same function over different variables are distinct
+	 * entries.
+	 */
+	@Test
+	public void variablesAreStructural()
+	{
+		Differentiable function = x.times(y);
+		Set<Variable> justX = Collections.singleton(x);
+
+		CompiledGradient full = Compiler.compile(function.gradient());
+		CompiledGradient partial = Compiler.compile(function.gradient(justX));
+
+		Assert.assertNotSame(full, partial);
+		Assert.assertEquals(2, full.componentIndex().size());
+		Assert.assertEquals(1, partial.componentIndex().size());
+	}
+
+	/**
+	 * The least recently used entry is evicted first.
+	 */
+	@Test
+	public void leastRecentlyUsedEviction()
+	{
+		CompilationCache cache = new CompilationCache(2);
+		AtomicInteger invocations = new AtomicInteger();
+
+		cache.get(key(x), compilation("x", invocations));
+		cache.get(key(y), compilation("y", invocations));
+		cache.get(key(x), compilation("x", invocations));
+		cache.get(key(x.plus(y)), compilation("x + y", invocations));
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(1, cache.evictions());
+		Assert.assertEquals(3, invocations.get());
+
+		cache.get(key(x), compilation("x", invocations));
+		Assert.assertEquals(3, invocations.get());
+
+		cache.get(key(y), compilation("y", invocations));
+		Assert.assertEquals(4, invocations.get());
+		Assert.assertEquals(2, cache.hits());
+		Assert.assertEquals(4, cache.misses());
+
+		cache.setMaximumSize(0);
+		Assert.assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Concurrent requests for the same function compile it once.
+	 * 
+	 * @throws InterruptedException If interrupted.
+	 */
+	@Test
+	public void singleFlight()
+		throws InterruptedException
+	{
+		final CompilationCache cache = new CompilationCache(16);
+		final AtomicInteger invocations = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+		final Callable<String> slow = new Callable<String>()
+		{
+
+			@Override
+			public String call()
+				throws InterruptedException
+			{
+				invocations.incrementAndGet();
+				Thread.sleep(50);
+				return new String("x");
+			}
+
+		};
+
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int index = 0; index < 8; index++)
+		{
+			Thread thread = new Thread()
+			{
+
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+						results.add(cache.get(key(x), slow));
+					}
+					catch(final InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+					}
+				}
+
+			};
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for(Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		Assert.assertEquals(1, invocations.get());
+		Assert.assertEquals(8, results.size());
+		for(String result : results)
+		{
+			Assert.assertSame(results.get(0), result);
+		}
+	}
+
+	/**
+	 * Concurrent requests for the same function compile it once, even when
+	 * caching is disabled.
+	 * 
+	 * @throws InterruptedException If interrupted.
+	 */
+	@Test
+	public void singleFlightWithoutCaching()
+		throws InterruptedException
+	{
+		final CompilationCache cache = new CompilationCache(0);
+		final AtomicInteger invocations = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+		final Callable<String> slow = new Callable<String>()
+		{
+
+			@Override
+			public String call()
+				throws InterruptedException
+			{
+				invocations.incrementAndGet();
+
+				// Wait until every other thread has joined this compilation.
+				long deadline = System.currentTimeMillis() + 10000L;
+				while(cache.hits() < 7 && System.currentTimeMillis() < deadline)
+				{
+					Thread.sleep(5);
+				}
+
+				return new String("x");
+			}
+
+		};
+
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int index = 0; index < 8; index++)
+		{
+			Thread thread = new Thread()
+			{
+
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+						results.add(cache.get(key(x), slow));
+					}
+					catch(final InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+					}
+				}
+
+			};
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for(Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		Assert.assertEquals(1, invocations.get());
+		Assert.assertEquals(7, cache.hits());
+		Assert.assertEquals(8, results.size());
+		for(String result : results)
+		{
+			Assert.assertSame(results.get(0), result);
+		}
+
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.evictions());
+	}
+
+	/**
+	 * Filling the cache while a compilation is in flight does not evict it.
+	 * 
+	 * @throws InterruptedException If interrupted.
+	 */
+	@Test
+	public void evictionSparesCompilationsInFlight()
+		throws InterruptedException
+	{
+		final CompilationCache cache = new CompilationCache(1);
+		final AtomicInteger invocations = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch finish = new CountDownLatch(1);
+		final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+		final Callable<String> blocked = new Callable<String>()
+		{
+
+			@Override
+			public String call()
+				throws InterruptedException
+			{
+				invocations.incrementAndGet();
+				started.countDown();
+				finish.await();
+				return new String("x");
+			}
+
+		};
+
+		Thread thread = new Thread()
+		{
+
+			@Override
+			public void run()
+			{
+				results.add(cache.get(key(x), blocked));
+			}
+
+		};
+
+		thread.start();
+		started.await();
+
+		AtomicInteger others = new AtomicInteger();
+		cache.get(key(y), compilation("y", others));
+		cache.get(key(x.plus(y)), compilation("x + y", others));
+		Assert.assertEquals(1, cache.evictions());
+
+		Thread waiter = new Thread()
+		{
+
+			@Override
+			public void run()
+			{
+				results.add(cache.get(key(x), blocked));
+			}
+
+		};
+
+		waiter.start();
+		while(cache.hits() < 1)
+		{
+			Thread.sleep(5);
+		}
+
+		finish.countDown();
+		thread.join();
+		waiter.join();
+
+		Assert.assertEquals(1, invocations.get());
+		Assert.assertEquals(2, results.size());
+		Assert.assertSame(results.get(0), results.get(1));
+	}
+
+	/**
+	 * Failed compilations are not cached.
+	 */
+	@Test
+	public void failuresAreNotCached()
+	{
+		CompilationCache cache = new CompilationCache(16);
+		Callable<String> failing = new Callable<String>()
+		{
+
+			@Override
+			public String call()
+			{
+				throw new IllegalArgumentException("Compilation failed");
+			}
+
+		};
+
+		try
+		{
+			cache.get(key(x), failing);
+			Assert.fail();
+		}
+		catch(final IllegalArgumentException e)
+		{
+			Assert.assertEquals(0, cache.size());
+		}
+
+		AtomicInteger invocations = new AtomicInteger();
+		Assert.assertEquals("x", cache.get(key(x), compilation("x", invocations)));
+		Assert.assertEquals(1, invocations.get());
+	}
+
+	/**
+	 * Negative sizes are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeSize()
+	{
+		new CompilationCache(-1);
+	}
+
+}
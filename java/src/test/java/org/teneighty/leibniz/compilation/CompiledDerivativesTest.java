@@ -0,0 +1,205 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.CompiledDerivatives;
+import org.teneighty.leibniz.CompiledDifferentiable;
+import org.teneighty.leibniz.CompiledGradient;
+import org.teneighty.leibniz.CompiledHessian;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Hessian;
+import org.teneighty.leibniz.MutableAssignment;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Tests for fused value, gradient and Hessian compilation.
+ */
+public final class CompiledDerivativesTest
+{
+
+	/**
+	 * Backends whose generated code is exact.
+	 */
+	private static final Backend[] EXACT_BACKENDS = { Backend.JAVAC, Backend.BYTECODE };
+
+	/**
+	 * Variable "x".
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Variable "y".
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Variable "z".
+	 */
+	private final Variable z = new Variable("z");
+
+	/**
+	 * Test function.
+	 */
+	private final Differentiable function = sin(x.times(y)).plus(exp(y).times(x.times(x))).dividedBy(z.plus(3));
+
+	/**
+	 * Make an assignment of the test variables.
+	 * 
+	 * @return The assignment.
+	 */
+	private MutableAssignment assignment()
+	{
+		MutableAssignment assignment = new MutableAssignment();
+		assignment.set(x, 0.7);
+		assignment.set(y, -1.3);
+		assignment.set(z, 2.1);
+		return assignment;
+	}
+
+	/**
+	 * Test that the fused function agrees with the separately compiled value,
+	 * gradient and Hessian.
+	 */
+	@Test
+	public void agreesWithSeparate()
+	{
+		MutableAssignment assignment = assignment();
+		for(Backend backend : EXACT_BACKENDS)
+		{
+			Hessian hessian = function.hessian();
+			CompiledDerivatives derivatives = Compiler.compileDerivatives(hessian, backend);
+			CompiledDifferentiable value = Compiler.compile(function, backend);
+			CompiledGradient gradient = Compiler.compile(function.gradient(), backend);
+			CompiledHessian separate = Compiler.compile(hessian, backend);
+
+			VariableIndex componentIndex = derivatives.componentIndex();
+			Assert.assertEquals(gradient.componentIndex(), componentIndex);
+			Assert.assertEquals(separate.componentIndex(), componentIndex);
+
+			double[] fusedGradient = new double[componentIndex.size()];
+			double[] fusedHessian = new double[componentIndex.packedSize()];
+			double fusedValue = derivatives.value(derivatives.variableIndex().values(assignment), fusedGradient, fusedHessian);
+
+			double[] expectedGradient = new double[componentIndex.size()];
+			gradient.value(gradient.variableIndex().values(assignment), expectedGradient);
+			double[] expectedHessian = new double[componentIndex.packedSize()];
+			separate.value(separate.variableIndex().values(assignment), expectedHessian);
+
+			Assert.assertEquals(value.value(value.variableIndex().values(assignment)), fusedValue, 1e-12);
+			for(int slot = 0; slot < expectedGradient.length; slot++)
+			{
+				Assert.assertEquals(expectedGradient[slot], fusedGradient[slot], 1e-12);
+			}
+
+			for(int slot = 0; slot < expectedHessian.length; slot++)
+			{
+				Assert.assertEquals(expectedHessian[slot], fusedHessian[slot], 1e-12);
+			}
+		}
+	}
+
+	/**
+	 * Test that an output equal to an expression already generated for another
+	 * output is computed only once.
+	 */
+	@Test
+	public void repeatedOutput()
+	{
+		Differentiable exponential = exp(x);
+		MutableAssignment assignment = assignment();
+		for(Backend backend : EXACT_BACKENDS)
+		{
+			CompiledDerivatives derivatives = Compiler.compileDerivatives(exponential.hessian(), backend);
+
+			double[] gradient = new double[1];
+			double[] hessian = new double[1];
+			double value = derivatives.value(derivatives.variableIndex().values(assignment), gradient, hessian);
+
+			Assert.assertEquals(Math.exp(0.7), value, 1e-12);
+			Assert.assertEquals(Math.exp(0.7), gradient[0], 1e-12);
+			Assert.assertEquals(Math.exp(0.7), hessian[0], 1e-12);
+
+			String source = derivatives.source();
+			Assert.assertEquals(source.indexOf("Math.exp"), source.lastIndexOf("Math.exp"));
+		}
+	}
+
+	/**
+	 * Test that the fused source shares the work of the separate sources.
+	 */
+	@Test
+	public void sharesSubexpressions()
+	{
+		CompiledDerivatives derivatives = Compiler.compileDerivatives(function);
+		int separate = locals(Compiler.compile(function).source())
+				+ locals(Compiler.compile(function.gradient()).source())
+				+ locals(Compiler.compile(function.hessian()).source());
+
+		Assert.assertTrue(locals(derivatives.source()) < separate);
+	}
+
+	/**
+	 * Test that compiling twice hits the cache, but that the fused function is
+	 * kept apart from the plain compiled Hessian.
+	 */
+	@Test
+	public void cached()
+	{
+		Hessian hessian = function.hessian();
+		CompiledDerivatives derivatives = Compiler.compileDerivatives(hessian, Backend.BYTECODE);
+
+		Assert.assertSame(derivatives, Compiler.compileDerivatives(hessian, Backend.BYTECODE));
+		Assert.assertNotNull(Compiler.compile(hessian, Backend.BYTECODE));
+	}
+
+	/**
+	 * Count the local declarations in the value method of the specified
+	 * source; the batch method, if any, follows it and is not counted.
+	 * 
+	 * @param source The source.
+	 * @return The number of locals.
+	 */
+	private static int locals(final String source)
+	{
+		int end = source.indexOf(" batch(");
+		String value = (end < 0) ? source : source.substring(0, end);
+
+		int count = 0;
+		for(int index = value.indexOf("\t\tdouble "); index >= 0; index = value.indexOf("\t\tdouble ", index + 1))
+		{
+			count += 1;
+		}
+
+		return count;
+	}
+
+}
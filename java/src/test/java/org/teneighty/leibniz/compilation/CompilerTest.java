@@ -0,0 +1,226 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import static org.teneighty.leibniz.Differentiables.cos;
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.ln;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.Assignment;
+import org.teneighty.leibniz.CompiledDifferentiable;
+import org.teneighty.leibniz.CompiledGradient;
+import org.teneighty.leibniz.CompiledHessian;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.GradientValue;
+import org.teneighty.leibniz.HessianValue;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Tests for compiled differentiables, gradients and Hessians.
+ */
+public final class CompilerTest
+{
+
+	/**
+	 * Tolerance.
+	 */
+	private static final double TOLERANCE = 1e-12;
+
+	/**
+	 * Variable "x".
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Variable "y".
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Test function.
+	 */
+	private final Differentiable function = sin(x.times(y)).plus(exp(y).times(x.times(x)));
+
+	/**
+	 * Test assignment.
+	 */
+	private final Assignment assignment = Assignment.Build.start().with(x, 0.3).with(y, 1.7).finish();
+
+	/**
+	 * Compiled functions read inputs laid out by their index.
+	 */
+	@Test
+	public void differentiable()
+	{
+		CompiledDifferentiable compiled = function.compile();
+		VariableIndex index = compiled.variableIndex();
+
+		double[] inputs = new double[index.size()];
+		inputs[index.slot(x)] = 0.3;
+		inputs[index.slot(y)] = 1.7;
+
+		double expected = function.value(assignment);
+		Assert.assertEquals(expected, compiled.value(inputs), TOLERANCE);
+		Assert.assertEquals(expected, compiled.value(assignment), TOLERANCE);
+	}
+
+	/**
+	 * Compiled gradients match uncompiled ones.
+	 */
+	@Test
+	public void gradient()
+	{
+		CompiledGradient compiled = function.gradient().compile();
+		GradientValue expected = function.gradient().value(assignment);
+		GradientValue actual = compiled.value(compiled.variableIndex().values(assignment));
+
+		Assert.assertEquals(expected.value(x), actual.value(x), TOLERANCE);
+		Assert.assertEquals(expected.value(y), actual.value(y), TOLERANCE);
+	}
+
+	/**
+	 * Compiled Hessians match uncompiled ones.
+	 */
+	@Test
+	public void hessian()
+	{
+		CompiledHessian compiled = function.hessian().compile();
+		HessianValue expected = function.hessian().value(assignment);
+		HessianValue actual = compiled.value(assignment);
+
+		Assert.assertEquals(expected.value(x, x), actual.value(x, x), TOLERANCE);
+		Assert.assertEquals(expected.value(x, y), actual.value(y, x), TOLERANCE);
+		Assert.assertEquals(expected.value(y, y), actual.value(y, y), TOLERANCE);
+	}
+
+	/**
+	 * Compiled gradients write into caller-supplied buffers.
+	 */
+	@Test
+	public void gradientBuffer()
+	{
+		CompiledGradient compiled = function.gradient().compile();
+		VariableIndex index = compiled.componentIndex();
+		GradientValue expected = function.gradient().value(assignment);
+
+		double[] inputs = compiled.variableIndex().values(assignment);
+		double[] outputs = new double[index.size()];
+		compiled.value(inputs, outputs);
+
+		Assert.assertEquals(expected.value(x), outputs[index.slot(x)], TOLERANCE);
+		Assert.assertEquals(expected.value(y), outputs[index.slot(y)], TOLERANCE);
+	}
+
+	/**
+	 * Compiled Hessians write their packed upper triangle into caller-supplied
+	 * buffers.
+	 */
+	@Test
+	public void hessianBuffer()
+	{
+		CompiledHessian compiled = function.hessian().compile();
+		VariableIndex index = compiled.componentIndex();
+		HessianValue expected = function.hessian().value(assignment);
+
+		double[] inputs = compiled.variableIndex().values(assignment);
+		double[] outputs = new double[index.packedSize()];
+		compiled.value(inputs, outputs);
+
+		for(Variable first : index.variables())
+		{
+			for(Variable second : index.variables())
+			{
+				int slot = index.packedSlot(index.slot(first), index.slot(second));
+				Assert.assertEquals(expected.value(first, second), outputs[slot], TOLERANCE);
+			}
+		}
+	}
+
+	/**
+	 * Both backends produce the same values.
+	 */
+	@Test
+	public void backendsAgree()
+	{
+		Differentiable complicated = function.times(cos(x.minus(y))).dividedBy(ln(y.plus(x.times(x))).plus(2)).minus(-1.5);
+		double[] inputs = VariableIndex.sorted(complicated.variables()).values(assignment);
+
+		CompiledDifferentiable javac = Compiler.compile(complicated, Backend.JAVAC);
+		CompiledDifferentiable bytecode = Compiler.compile(complicated, Backend.BYTECODE);
+		Assert.assertEquals(complicated.value(assignment), bytecode.value(inputs), TOLERANCE);
+		Assert.assertEquals(javac.value(inputs), bytecode.value(inputs), 0d);
+
+		CompiledHessian javacHessian = Compiler.compile(complicated.hessian(), Backend.JAVAC);
+		CompiledHessian bytecodeHessian = Compiler.compile(complicated.hessian(), Backend.BYTECODE);
+		double[] javacOutputs = new double[javacHessian.componentIndex().packedSize()];
+		double[] bytecodeOutputs = new double[bytecodeHessian.componentIndex().packedSize()];
+		javacHessian.value(inputs, javacOutputs);
+		bytecodeHessian.value(inputs, bytecodeOutputs);
+
+		for(int slot = 0; slot < javacOutputs.length; slot++)
+		{
+			Assert.assertEquals(javacOutputs[slot], bytecodeOutputs[slot], 0d);
+		}
+	}
+
+	/**
+	 * The bytecode backend handles methods with more locals than fit in a
+	 * single-byte local variable index.
+	 */
+	@Test
+	public void manyLocals()
+	{
+		Differentiable sum = x;
+		for(int term = 1; term <= 300; term++)
+		{
+			sum = sum.plus(sin(x.times(term)).times(sin(y.plus(term))));
+		}
+
+		CompiledGradient compiled = Compiler.compile(sum.gradient(), Backend.BYTECODE);
+		GradientValue expected = sum.gradient().value(assignment);
+		GradientValue actual = compiled.value(assignment);
+
+		Assert.assertEquals(expected.value(x), actual.value(x), 1e-9);
+		Assert.assertEquals(expected.value(y), actual.value(y), 1e-9);
+	}
+
+	/**
+	 * Powers of the same base with different indexes are not shared.
+	 */
+	@Test
+	public void distinctPowers()
+	{
+		Differentiable powers = x.power(2).plus(x.power(0.5)).times(x.power(-0.5));
+		CompiledDifferentiable compiled = powers.compile();
+
+		Assert.assertEquals(powers.value(assignment), compiled.value(assignment), TOLERANCE);
+	}
+
+}
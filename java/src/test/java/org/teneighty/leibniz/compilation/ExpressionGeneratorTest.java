@@ -0,0 +1,107 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Variable;
+import org.teneighty.leibniz.VariableIndex;
+
+
+/**
+ * Tests for the expression generator.
+ */
+public final class ExpressionGeneratorTest
+{
+
+	/**
+	 * The depth of the test graph.
+	 */
+	private static final int DEPTH = 2000;
+
+	/**
+	 * Expressions for a deep graph are generated without recursion, on a
+	 * thread with a small stack, arguments first and with each shared node
+	 * counted once per use.
+	 * 
+	 * @throws InterruptedException If interrupted.
+	 */
+	@Test
+	public void deep()
+		throws InterruptedException
+	{
+		final Variable x = new Variable("x");
+		final Object[] result = new Object[1];
+		Thread thread = new Thread(null, new Runnable()
+		{
+
+			/**
+			 * @see java.lang.Runnable#run()
+			 */
+			@Override
+			public void run()
+			{
+				try
+				{
+					Differentiable nested = x;
+					for(int index = 0; index < DEPTH; index++)
+					{
+						nested = sin(nested).plus(x);
+					}
+
+					result[0] = new ExpressionGenerator(new VariableIndex(x)).generate(nested);
+				}
+				catch(final Throwable e)
+				{
+					result[0] = e;
+				}
+			}
+
+		}, "deep", 256 * 1024);
+
+		thread.start();
+		thread.join();
+
+		Assert.assertTrue(String.valueOf(result[0]), result[0] instanceof List<?>);
+
+		@SuppressWarnings("unchecked")
+		List<ReferenceExpression> expressions = (List<ReferenceExpression>)result[0];
+
+		// x, then a sine and a sum per level; x is used by the first sine
+		// and by every sum.
+		Assert.assertEquals(1 + (2 * DEPTH), expressions.size());
+		Assert.assertEquals(1 + DEPTH, expressions.get(0).getReferenceCount());
+		for(int index = 1; index < expressions.size(); index++)
+		{
+			Assert.assertEquals(1, expressions.get(index).getReferenceCount());
+		}
+	}
+
+}
@@ -0,0 +1,268 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.teneighty.leibniz.CompiledDifferentiable;
+import org.teneighty.leibniz.CompiledHessian;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Variable;
+
+
+/**
+ * Tests for the parallel evaluator.
+ */
+public final class ParallelEvaluatorTest
+{
+
+	/**
+	 * Number of rows.
+	 */
+	private static final int ROWS = 10007;
+
+	/**
+	 * Variable "x".
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Variable "y".
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Test function.
+	 */
+	private final Differentiable function = sin(x.times(y)).plus(exp(y).times(x.times(x)));
+
+	/**
+	 * The executor.
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * Make random input columns.
+	 *
+	 * @param columns The number of columns.
+	 * @return The columns.
+	 */
+	private static double[][] inputs(final int columns)
+	{
+		Random random = new Random(17L);
+		double[][] inputs = new double[columns][ROWS];
+		for(int column = 0; column < columns; column++)
+		{
+			for(int row = 0; row < ROWS; row++)
+			{
+				inputs[column][row] = random.nextDouble();
+			}
+		}
+
+		return inputs;
+	}
+
+	/**
+	 * Start the executor.
+	 */
+	@Before
+	public void before()
+	{
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	/**
+	 * Stop the executor.
+	 */
+	@After
+	public void after()
+	{
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Parallel results are identical to sequential results, whatever the
+	 * parallelism and chunk size.
+	 */
+	@Test
+	public void identical()
+	{
+		CompiledDifferentiable compiled = Compiler.compile(function);
+		double[][] inputs = inputs(compiled.variableIndex().size());
+		double[] expected = new double[ROWS];
+		compiled.value(inputs, expected, 0, ROWS);
+
+		int[] parallelisms = { 1, 2, 4, 16 };
+		int[] chunkSizes = { 1, 7, 1000, ROWS * 2 };
+		for(int parallelism : parallelisms)
+		{
+			for(int chunkSize : chunkSizes)
+			{
+				double[] actual = new double[ROWS];
+				new ParallelEvaluator(executor, parallelism, chunkSize).value(compiled, inputs, actual, 0, ROWS);
+
+				for(int row = 0; row < ROWS; row++)
+				{
+					Assert.assertEquals(expected[row], actual[row], 0d);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parallel Hessians are identical to sequential ones, and rows outside the
+	 * range are untouched.
+	 */
+	@Test
+	public void hessian()
+	{
+		CompiledHessian compiled = Compiler.compile(function.hessian());
+		double[][] inputs = inputs(compiled.variableIndex().size());
+		int columns = compiled.componentIndex().packedSize();
+		double[][] expected = new double[columns][ROWS];
+		double[][] actual = new double[columns][ROWS];
+		compiled.value(inputs, expected, 3, ROWS - 3);
+		new ParallelEvaluator(executor, 4, 100).value(compiled, inputs, actual, 3, ROWS - 3);
+
+		for(int column = 0; column < columns; column++)
+		{
+			for(int row = 0; row < ROWS; row++)
+			{
+				Assert.assertEquals(expected[column][row], actual[column][row], 0d);
+			}
+		}
+	}
+
+	/**
+	 * The calling thread does all the work if the executor never runs
+	 * anything.
+	 */
+	@Test
+	public void idleExecutor()
+	{
+		Executor idle = new Executor()
+		{
+
+			@Override
+			public void execute(final Runnable command)
+			{
+				// never runs.
+			}
+
+		};
+
+		CompiledDifferentiable compiled = Compiler.compile(function);
+		double[][] inputs = inputs(compiled.variableIndex().size());
+		double[] expected = new double[ROWS];
+		double[] actual = new double[ROWS];
+		compiled.value(inputs, expected, 0, ROWS);
+		new ParallelEvaluator(idle, 8, 64).value(compiled, inputs, actual, 0, ROWS);
+
+		for(int row = 0; row < ROWS; row++)
+		{
+			Assert.assertEquals(expected[row], actual[row], 0d);
+		}
+	}
+
+	/**
+	 * The calling thread does all the work if the executor rejects helpers.
+	 */
+	@Test
+	public void rejectingExecutor()
+	{
+		executor.shutdown();
+
+		CompiledDifferentiable compiled = Compiler.compile(function);
+		double[][] inputs = inputs(compiled.variableIndex().size());
+		double[] actual = new double[ROWS];
+		new ParallelEvaluator(executor, 8, 64).value(compiled, inputs, actual, 0, ROWS);
+
+		Assert.assertEquals(compiled.value(new double[] { inputs[0][ROWS - 1], inputs[1][ROWS - 1] }), actual[ROWS - 1], 0d);
+	}
+
+	/**
+	 * Failures in any worker are rethrown to the caller.
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void failure()
+	{
+		final CompiledDifferentiable compiled = Compiler.compile(function);
+		final double[][] inputs = inputs(compiled.variableIndex().size());
+		ParallelEvaluator evaluator = new ParallelEvaluator(executor, 4, 16);
+
+		CompiledDifferentiable failing = (CompiledDifferentiable)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { CompiledDifferentiable.class }, new InvocationHandler()
+				{
+
+					@Override
+					public Object invoke(final Object proxy, final Method method, final Object[] arguments)
+						throws Throwable
+					{
+						if(method.getName().equals("value") && arguments.length == 4 && ((Integer)arguments[2]).intValue() >= ROWS / 2)
+						{
+							throw new IllegalStateException();
+						}
+
+						return method.invoke(compiled, arguments);
+					}
+
+				});
+
+		evaluator.value(failing, inputs, new double[ROWS], 0, ROWS);
+	}
+
+	/**
+	 * Arguments are checked before any work is handed out.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void shortOutput()
+	{
+		CompiledDifferentiable compiled = Compiler.compile(function);
+		new ParallelEvaluator(executor).value(compiled, inputs(compiled.variableIndex().size()), new double[ROWS - 1], 0, ROWS);
+	}
+
+	/**
+	 * Chunk sizes must be positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidChunkSize()
+	{
+		new ParallelEvaluator(executor, 2, 0);
+	}
+
+}
@@ -0,0 +1,305 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.teneighty.leibniz.Assignment;
+import org.teneighty.leibniz.CompiledDifferentiable;
+import org.teneighty.leibniz.CompiledHessian;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Variable;
+
+
+/**
+ * Tests for the persistent cache and the structural digest.
+ */
+public final class PersistentCacheTest
+{
+
+	/**
+	 * Variable "x".
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Variable "y".
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Test assignment.
+	 */
+	private final Assignment assignment = Assignment.Build.start().with(x, 0.7).with(y, -1.3).finish();
+
+	/**
+	 * The cache directory.
+	 */
+	private File directory;
+
+	/**
+	 * The cache.
+	 */
+	private PersistentCache cache;
+
+	/**
+	 * Create an empty cache.
+	 * 
+	 * @throws IOException If the directory cannot be created.
+	 */
+	@Before
+	public void setUp()
+		throws IOException
+	{
+		directory = File.createTempFile("leibniz", "");
+		directory.delete();
+
+		cache = new PersistentCache(directory);
+		Compiler.setPersistentCache(cache);
+	}
+
+	/**
+	 * Remove the cache.
+	 */
+	@After
+	public void tearDown()
+	{
+		Compiler.setPersistentCache(null);
+		cache.clear();
+		directory.delete();
+	}
+
+	/**
+	 * Build a test function. Each call builds a new graph.
+	 * 
+	 * @return The function.
+	 */
+	private Differentiable function()
+	{
+		return exp(x.times(y)).plus(x.power(3)).minus(y.dividedBy(2.5));
+	}
+
+	/**
+	 * Compile a test function, bypassing the in-memory cache.
+	 * 
+	 * @return The compiled function.
+	 */
+	private CompiledDifferentiable compile()
+	{
+		Compiler.cache().clear();
+		return Compiler.compile(function());
+	}
+
+	/**
+	 * Get the single entry file.
+	 * 
+	 * @return The file.
+	 */
+	private File entry()
+	{
+		File[] files = directory.listFiles();
+		Assert.assertEquals(1, files.length);
+
+		return files[0];
+	}
+
+	/**
+	 * A second compilation loads the class written by the first.
+	 */
+	@Test
+	public void roundTrip()
+	{
+		CompiledDifferentiable first = compile();
+		Assert.assertEquals(1, cache.stores());
+
+		CompiledDifferentiable second = compile();
+		Assert.assertEquals(1, cache.loads());
+		Assert.assertEquals(1, cache.stores());
+		Assert.assertEquals(first.getClass().getName(), second.getClass().getName());
+		Assert.assertEquals(first.source(), second.source());
+		Assert.assertEquals(first.variableIndex(), second.variableIndex());
+		Assert.assertEquals(function().value(assignment), second.value(assignment), 0d);
+	}
+
+	/**
+	 * Hessians are persisted too.
+	 */
+	@Test
+	public void hessian()
+	{
+		Compiler.cache().clear();
+		Compiler.compile(function().hessian());
+		Compiler.cache().clear();
+		CompiledHessian loaded = Compiler.compile(function().hessian());
+
+		Assert.assertEquals(1, cache.loads());
+		Assert.assertEquals(function().hessian().value(assignment).value(x, y), loaded.value(assignment).value(x, y), 1e-12);
+	}
+
+	/**
+	 * Corrupt entries are deleted and recompiled.
+	 * 
+	 * @throws IOException If the entry cannot be modified.
+	 */
+	@Test
+	public void corruptEntry()
+		throws IOException
+	{
+		compile();
+
+		RandomAccessFile file = new RandomAccessFile(entry(), "rw");
+		try
+		{
+			file.seek(file.length() / 2);
+			int value = file.read();
+			file.seek(file.length() / 2);
+			file.write(value ^ 0xff);
+		}
+		finally
+		{
+			file.close();
+		}
+
+		CompiledDifferentiable recompiled = compile();
+		Assert.assertEquals(0, cache.loads());
+		Assert.assertEquals(1, cache.rejections());
+		Assert.assertEquals(2, cache.stores());
+		Assert.assertEquals(function().value(assignment), recompiled.value(assignment), 0d);
+
+		compile();
+		Assert.assertEquals(1, cache.loads());
+	}
+
+	/**
+	 * Truncated entries are deleted and recompiled.
+	 * 
+	 * @throws IOException If the entry cannot be modified.
+	 */
+	@Test
+	public void truncatedEntry()
+		throws IOException
+	{
+		compile();
+
+		RandomAccessFile file = new RandomAccessFile(entry(), "rw");
+		try
+		{
+			file.setLength(file.length() / 3);
+		}
+		finally
+		{
+			file.close();
+		}
+
+		compile();
+		Assert.assertEquals(0, cache.loads());
+		Assert.assertEquals(1, cache.rejections());
+	}
+
+	/**
+	 * Entries written by another version of the code generator are deleted and
+	 * recompiled, even though their checksum is valid.
+	 * 
+	 * @throws IOException If the entry cannot be modified.
+	 */
+	@Test
+	public void staleGenerator()
+		throws IOException
+	{
+		compile();
+
+		RandomAccessFile file = new RandomAccessFile(entry(), "rw");
+		try
+		{
+			// Magic and format version precede the generator version.
+			file.seek(8);
+			file.writeInt(AbstractCodeGenerator.GENERATOR_VERSION - 1);
+
+			byte[] payload = new byte[(int)file.length() - 8];
+			file.seek(0);
+			file.readFully(payload);
+
+			CRC32 checksum = new CRC32();
+			checksum.update(payload);
+			file.writeLong(checksum.getValue());
+		}
+		finally
+		{
+			file.close();
+		}
+
+		compile();
+		Assert.assertEquals(0, cache.loads());
+		Assert.assertEquals(1, cache.rejections());
+		Assert.assertEquals(2, cache.stores());
+
+		compile();
+		Assert.assertEquals(1, cache.loads());
+	}
+
+	/**
+	 * Entries are invalidated by clearing.
+	 */
+	@Test
+	public void clear()
+	{
+		compile();
+		cache.clear();
+		compile();
+
+		Assert.assertEquals(0, cache.loads());
+		Assert.assertEquals(2, cache.stores());
+	}
+
+	/**
+	 * The digest depends only on structure, kind, variables, backend and
+	 * version.
+	 */
+	@Test
+	public void digest()
+	{
+		String digest = StructuralDigest.of(Differentiable.class, function(), function().variables(), Backend.BYTECODE, "1");
+
+		Assert.assertEquals(digest, StructuralDigest.of(Differentiable.class, function(), function().variables(), Backend.BYTECODE, "1"));
+		Assert.assertFalse(digest.equals(StructuralDigest.of(Differentiable.class, function(), function().variables(), Backend.BYTECODE, "2")));
+		Assert.assertFalse(digest.equals(StructuralDigest.of(Differentiable.class, function(), function().variables(), Backend.JAVAC, "1")));
+		Assert.assertFalse(digest.equals(StructuralDigest.of(Differentiable.class, function(), x.variables(), Backend.BYTECODE, "1")));
+
+		Differentiable square = x.power(2);
+		Differentiable root = x.power(0.5);
+		Assert.assertFalse(StructuralDigest.of(Differentiable.class, square, square.variables(), Backend.BYTECODE, "1").equals(
+				StructuralDigest.of(Differentiable.class, root, root.variables(), Backend.BYTECODE, "1")));
+	}
+
+}
@@ -0,0 +1,198 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.compilation;
+
+import static org.teneighty.leibniz.Differentiables.exp;
+import static org.teneighty.leibniz.Differentiables.ln;
+import static org.teneighty.leibniz.Differentiables.normCdf;
+import static org.teneighty.leibniz.Differentiables.sin;
+import static org.teneighty.leibniz.Differentiables.sqrt;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.teneighty.leibniz.CompiledDifferentiable;
+import org.teneighty.leibniz.CompiledHessian;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Variable;
+
+
+/**
+ * Tests for the vector backend.
+ * <p>
+ * These pass whether or not the Vector API is available. On JDK 16 and later
+ * the <code>vector-api</code> build profile runs them a second time with
+ * <code>--add-modules jdk.incubator.vector</code>, and sets the
+ * <code>org.teneighty.leibniz.vector</code> system property so that they
+ * insist on the vector code rather than the scalar fallback.
+ */
+public final class VectorBackendTest
+{
+
+	/**
+	 * Number of rows; not a multiple of any vector length, so the tail loop
+	 * runs too.
+	 */
+	private static final int ROWS = 101;
+
+	/**
+	 * Relative tolerance for elementary functions.
+	 */
+	private static final double TOLERANCE = 1e-13;
+
+	/**
+	 * Variable "x".
+	 */
+	private final Variable x = new Variable("x");
+
+	/**
+	 * Variable "y".
+	 */
+	private final Variable y = new Variable("y");
+
+	/**
+	 * Make random input columns.
+	 *
+	 * @param columns The number of columns.
+	 * @return The columns.
+	 */
+	private static double[][] inputs(final int columns)
+	{
+		Random random = new Random(19L);
+		double[][] inputs = new double[columns][ROWS];
+		for(int column = 0; column < columns; column++)
+		{
+			for(int row = 0; row < ROWS; row++)
+			{
+				inputs[column][row] = 0.25 + random.nextDouble();
+			}
+		}
+
+		return inputs;
+	}
+
+	/**
+	 * Evaluate the specified function over a batch, and check the values
+	 * against the scalar value method.
+	 *
+	 * @param compiled The function.
+	 * @param tolerance The relative tolerance.
+	 */
+	private static void check(final CompiledDifferentiable compiled, final double tolerance)
+	{
+		double[][] inputs = inputs(compiled.variableIndex().size());
+		double[] outputs = new double[ROWS];
+		compiled.value(inputs, outputs, 0, ROWS);
+
+		double[] row = new double[inputs.length];
+		for(int index = 0; index < ROWS; index++)
+		{
+			for(int column = 0; column < inputs.length; column++)
+			{
+				row[column] = inputs[column][index];
+			}
+
+			double expected = compiled.value(row);
+			Assert.assertEquals(expected, outputs[index], Math.abs(expected) * tolerance);
+		}
+	}
+
+	/**
+	 * The Vector API is available when the build resolved it.
+	 */
+	@Test
+	public void available()
+	{
+		Assume.assumeTrue(Boolean.getBoolean("org.teneighty.leibniz.vector"));
+		Assert.assertTrue(VectorBatchSourceWriter.isAvailable());
+	}
+
+	/**
+	 * The batch method uses the Vector API exactly when it is available.
+	 */
+	@Test
+	public void source()
+	{
+		CompiledDifferentiable compiled = Compiler.compile(x.times(y).plus(1), Backend.VECTOR);
+		Assert.assertEquals(VectorBatchSourceWriter.isAvailable(), compiled.source().contains("DoubleVector"));
+	}
+
+	/**
+	 * Arithmetic is exact.
+	 */
+	@Test
+	public void arithmetic()
+	{
+		Differentiable function = x.times(y).minus(x.dividedBy(y.plus(3))).plus(x.negate().times(2.5));
+		check(Compiler.compile(function, Backend.VECTOR), 0d);
+	}
+
+	/**
+	 * Elementary functions and powers are accurate.
+	 */
+	@Test
+	public void elementary()
+	{
+		Differentiable function = sin(x).times(exp(y)).plus(ln(x.plus(y))).minus(x.power(3)).plus(y.power(-2)).plus(sqrt(x)).plus(x.power(y));
+		check(Compiler.compile(function, Backend.VECTOR), TOLERANCE);
+	}
+
+	/**
+	 * Hessians are accurate.
+	 */
+	@Test
+	public void hessian()
+	{
+		Differentiable function = sin(x.times(y)).plus(exp(y).times(x.power(2)));
+		CompiledHessian compiled = Compiler.compile(function.hessian(), Backend.VECTOR);
+		double[][] inputs = inputs(compiled.variableIndex().size());
+		double[][] outputs = new double[compiled.componentIndex().packedSize()][ROWS];
+		compiled.value(inputs, outputs, 0, ROWS);
+
+		double[] expected = new double[outputs.length];
+		for(int row = 0; row < ROWS; row++)
+		{
+			compiled.value(new double[] { inputs[0][row], inputs[1][row] }, expected);
+			for(int slot = 0; slot < expected.length; slot++)
+			{
+				Assert.assertEquals(expected[slot], outputs[slot][row], Math.abs(expected[slot]) * TOLERANCE);
+			}
+		}
+	}
+
+	/**
+	 * Functions without vector kernels fall back to the scalar batch method.
+	 */
+	@Test
+	public void fallback()
+	{
+		CompiledDifferentiable compiled = Compiler.compile(normCdf(x).times(y), Backend.VECTOR);
+		Assert.assertFalse(compiled.source().contains("DoubleVector"));
+		check(compiled, 0d);
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * $Id$
+ * 
+ * Copyright (c) 2012-2013 Fran Lattanzio
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.teneighty.leibniz.samples;
+
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Gradient;
+import org.teneighty.leibniz.Hessian;
+import org.teneighty.leibniz.compilation.Backend;
+import org.teneighty.leibniz.compilation.Compiler;
+import org.teneighty.leibniz.samples.BlackScholes.OptionType;
+
+/**
+ * Measures how long it takes to compile the gradient and Hessian of the
+ * Black-Scholes call value formula with each compilation backend.
+ * <p>
+ * Each backend is warmed up first, so the figures reflect steady-state
+ * compilation latency rather than class loading and JIT compilation of the
+ * compilers themselves. The compilation cache is disabled for the same reason.
+ */
+public final class CompilationLatency
+{
+
+	/**
+	 * Number of warmup compilations per backend.
+	 */
+	private static final int WARMUP = 20;
+
+	/**
+	 * Number of timed compilations per backend.
+	 */
+	private static final int ITERATIONS = 50;
+
+	/**
+	 * Main method.
+	 * 
+	 * @param args Ignored.
+	 */
+	public static void main(final String[] args)
+	{
+		Differentiable callValue = new BlackScholes().getValueFormula(OptionType.CALL);
+		Gradient gradient = callValue.gradient();
+		Hessian hessian = callValue.hessian();
+
+		// measure compilation, not cache lookups.
+		Compiler.cache().setMaximumSize(0);
+
+		for(Backend backend : Backend.values())
+		{
+			time(backend, gradient, hessian, WARMUP);
+		}
+
+		for(Backend backend : Backend.values())
+		{
+			double[] latency = time(backend, gradient, hessian, ITERATIONS);
+			System.out.println(String.format("%1$-8s gradient: %2$8.3f ms  Hessian: %3$8.3f ms", backend, latency[0], latency[1]));
+		}
+	}
+
+	/**
+	 * Time compilation of the specified gradient and Hessian.
+	 * 
+	 * @param backend The backend.
+	 * @param gradient The gradient.
+	 * @param hessian The Hessian.
+	 * @param iterations The number of compilations.
+	 * @return The mean gradient and Hessian compilation latency, in
+	 *         milliseconds.
+	 */
+	private static double[] time(final Backend backend, final Gradient gradient,
+			final Hessian hessian, final int iterations)
+	{
+		long gradientNanos = 0;
+		long hessianNanos = 0;
+
+		for(int iteration = 0; iteration < iterations; iteration++)
+		{
+			long start = System.nanoTime();
+			Compiler.compile(gradient, backend);
+			long middle = System.nanoTime();
+			Compiler.compile(hessian, backend);
+			long end = System.nanoTime();
+
+			gradientNanos += middle - start;
+			hessianNanos += end - middle;
+		}
+
+		return new double[] { gradientNanos / (iterations * 1e6), hessianNanos / (iterations * 1e6) };
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private CompilationLatency()
+	{
+	}
+
+}
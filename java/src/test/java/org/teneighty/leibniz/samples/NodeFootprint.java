@@ -0,0 +1,103 @@
+/*  
+ * $Id$  
+ *   
+ * Copyright (c) 2012-2013 Fran Lattanzio  
+ *   
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal  
+ * in the Software without restriction, including without limitation the rights  
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  
+ * copies of the Software, and to permit persons to whom the Software is  
+ * furnished to do so, subject to the following conditions:  
+ *   
+ * The above copyright notice and this permission notice shall be included in  
+ * all copies or substantial portions of the Software.  
+ *   
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR  
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,  
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE  
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER  
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,  
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  
+ * SOFTWARE.  
+ */ 
+package org.teneighty.leibniz.samples;
+
+import static org.teneighty.leibniz.Differentiables.sin;
+
+import org.teneighty.leibniz.Constant;
+import org.teneighty.leibniz.DerivativeCache;
+import org.teneighty.leibniz.Differentiable;
+import org.teneighty.leibniz.Variable;
+
+/**
+ * Measures the heap footprint of expression graph nodes.
+ * <p>
+ * Builds a long sum of <code>sin(c<sub>i</sub> x)</code> terms with distinct
+ * constants, so that no node is shared, and reports the heap growth per
+ * node, first for the graph alone and then with its derivative cached. The
+ * figures include the interner and the derivative caches, i.e. everything
+ * the graph costs.
+ */
+public final class NodeFootprint
+{
+
+	/**
+	 * Number of terms.
+	 */
+	private static final int TERMS = 250000;
+
+	/**
+	 * Main method.
+	 * 
+	 * @param args Ignored.
+	 */
+	public static void main(final String[] args)
+	{
+		Variable x = new Variable("x");
+
+		long baseline = used();
+		Differentiable sum = Constant.ZERO;
+		for(int term = 0; term < TERMS; term++)
+		{
+			sum = sum.plus(sin(x.times(term + 2)));
+		}
+
+		long graph = used();
+		int nodes = DerivativeCache.retainedSize(sum);
+
+		Differentiable derivative = sum.derivative(x);
+		long differentiated = used();
+		int total = DerivativeCache.retainedSize(sum);
+
+		System.out.println(String.format("%1$d nodes: %2$.1f bytes per node", Integer.valueOf(nodes), (graph - baseline) / (double)nodes));
+		System.out.println(String.format("%1$d nodes with derivative: %2$.1f bytes per node", Integer.valueOf(total), (differentiated - baseline) / (double)total));
+
+		// keep everything reachable until measured.
+		System.out.println(derivative.isConstant() ? "" : String.valueOf(sum.isConstant()));
+	}
+
+	/**
+	 * Get the heap in use, after collecting garbage.
+	 * 
+	 * @return The bytes in use.
+	 */
+	private static long used()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for(int collection = 0; collection < 5; collection++)
+		{
+			System.gc();
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private NodeFootprint()
+	{
+	}
+
+}